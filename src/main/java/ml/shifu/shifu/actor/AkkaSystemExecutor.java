@@ -22,13 +22,16 @@ import ml.shifu.shifu.container.obj.ModelConfig;
 import ml.shifu.shifu.core.AbstractTrainer;
 import ml.shifu.shifu.exception.ShifuErrorCode;
 import ml.shifu.shifu.exception.ShifuException;
+import ml.shifu.shifu.fs.LineReader;
 import ml.shifu.shifu.message.AkkaActorInputMessage;
+import ml.shifu.shifu.util.Environment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
-import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -38,6 +41,23 @@ import java.util.Scanner;
 public class AkkaSystemExecutor {
 
     private static Logger log = LoggerFactory.getLogger(AkkaSystemExecutor.class);
+
+    /**
+     * The dispatcher of data loaders, see reference.conf
+     */
+    public static final String LOADER_DISPATCHER = "shifu.loader-dispatcher";
+
+    /**
+     * The dispatcher with bounded mailbox, for the slow stage of the pipeline. The senders wait when those actors
+     * are full, so the input is not read faster than it's processed.
+     */
+    public static final String BOUNDED_DISPATCHER = "shifu.bounded-dispatcher";
+
+    /**
+     * The dispatcher with bounded mailbox and its own threads, for the actors between the loaders and the slow
+     * stage. They wait when the slow stage is full, and the loaders wait when they are full.
+     */
+    public static final String RELAY_DISPATCHER = "shifu.relay-dispatcher";
     private static AkkaSystemExecutor instance = new AkkaSystemExecutor();
 
     private ActorSystem actorSystem;
@@ -55,47 +75,15 @@ public class AkkaSystemExecutor {
         return instance;
     }
 
-    /**
-     * Submit job to calculate column stats
-     * Column stats including:
-     * - Binning of value range
-     * - max/min/average
-     * - ks/iv
-     *
-     * @param modelConfig      - configuration for model
-     * @param columnConfigList - configurations for columns
-     * @param scanners         - scanners of training data
-     */
-    public void submitStatsCalJob(final ModelConfig modelConfig, final List<ColumnConfig> columnConfigList,
-                                  List<Scanner> scanners) {
-        actorSystem = ActorSystem.create("ShifuActorSystem");
-        final AkkaExecStatus akkaStatus = new AkkaExecStatus(true);
-
-        log.info("Create Akka system to calculate stats");
-        ActorRef statsCalRef = actorSystem.actorOf(new Props(new UntypedActorFactory() {
-            private static final long serialVersionUID = -1437127862571741369L;
-
-            public UntypedActor create() {
-                return new CalculateStatsActor(modelConfig, columnConfigList, akkaStatus);
-            }
-        }), "stats-calculator");
-
-        statsCalRef.tell(new AkkaActorInputMessage(scanners), statsCalRef);
-
-        // wait for termination and check the status
-        actorSystem.awaitTermination();
-        checkAkkaStatus(akkaStatus);
-    }
-
     /**
      * Submit job to normalize training data
      *
      * @param modelConfig      - configuration for model
      * @param columnConfigList - configurations for columns
-     * @param scanners         - scanners of training data
+     * @param readers         - readers of training data
      */
     public void submitNormalizeJob(final ModelConfig modelConfig, final List<ColumnConfig> columnConfigList,
-                                   List<Scanner> scanners) {
+                                   List<LineReader> readers) {
         actorSystem = ActorSystem.create("ShifuActorSystem");
         final AkkaExecStatus akkaStatus = new AkkaExecStatus(true);
 
@@ -108,7 +96,7 @@ public class AkkaSystemExecutor {
             }
         }), "data-normalizer");
 
-        dataNormalizeRef.tell(new AkkaActorInputMessage(scanners), dataNormalizeRef);
+        dataNormalizeRef.tell(new AkkaActorInputMessage(readers), dataNormalizeRef);
 
         // wait for termination
         actorSystem.awaitTermination();
@@ -120,11 +108,11 @@ public class AkkaSystemExecutor {
      *
      * @param modelConfig      - configuration for model
      * @param columnConfigList - configurations for columns
-     * @param scanners         - scanners of normalized training data
+     * @param readers         - readers of normalized training data
      * @param trainers         - model trainer
      */
     public void submitModelTrainJob(final ModelConfig modelConfig, final List<ColumnConfig> columnConfigList,
-                                    List<Scanner> scanners, final List<AbstractTrainer> trainers) {
+                                    List<LineReader> readers, final List<AbstractTrainer> trainers) {
         actorSystem = ActorSystem.create("ShifuActorSystem");
         final AkkaExecStatus akkaStatus = new AkkaExecStatus(true);
 
@@ -137,7 +125,7 @@ public class AkkaSystemExecutor {
             }
         }), "model-trainer");
 
-        modelTrainerRef.tell(new AkkaActorInputMessage(scanners), modelTrainerRef);
+        modelTrainerRef.tell(new AkkaActorInputMessage(readers), modelTrainerRef);
 
         // wait for termination
         actorSystem.awaitTermination();
@@ -149,11 +137,11 @@ public class AkkaSystemExecutor {
      *
      * @param modelConfig      - configuration for model
      * @param columnConfigList - configurations for columns
-     * @param scanners         - scanners of normalized training data
+     * @param readers         - readers of normalized training data
      * @param trainers         - model trainer
      */
     public void submitDecisionTreeTrainJob(final ModelConfig modelConfig, final List<ColumnConfig> columnConfigList,
-                                           List<Scanner> scanners, final List<AbstractTrainer> trainers) {
+                                           List<LineReader> readers, final List<AbstractTrainer> trainers) {
         actorSystem = ActorSystem.create("ShifuActorSystem");
         final AkkaExecStatus akkaStatus = new AkkaExecStatus(true);
 
@@ -166,7 +154,7 @@ public class AkkaSystemExecutor {
             }
         }), "dt-model-trainer");
 
-        modelTrainerRef.tell(new AkkaActorInputMessage(scanners), modelTrainerRef);
+        modelTrainerRef.tell(new AkkaActorInputMessage(readers), modelTrainerRef);
 
         // wait for termination
         actorSystem.awaitTermination();
@@ -178,10 +166,10 @@ public class AkkaSystemExecutor {
      *
      * @param modelConfig      - configuration for model
      * @param columnConfigList - configurations for columns
-     * @param scanners         - scanners of select data that are normalized
+     * @param readers         - readers of select data that are normalized
      */
     public void submitPostTrainJob(final ModelConfig modelConfig, final List<ColumnConfig> columnConfigList,
-                                   List<Scanner> scanners) {
+                                   List<LineReader> readers) {
         actorSystem = ActorSystem.create("ShifuActorSystem");
         final AkkaExecStatus akkaStatus = new AkkaExecStatus(true);
 
@@ -194,7 +182,7 @@ public class AkkaSystemExecutor {
             }
         }), "model-posttrainer");
 
-        postTrainerRef.tell(new AkkaActorInputMessage(scanners), postTrainerRef);
+        postTrainerRef.tell(new AkkaActorInputMessage(readers), postTrainerRef);
 
         // wait for termination
         actorSystem.awaitTermination();
@@ -206,25 +194,50 @@ public class AkkaSystemExecutor {
      *
      * @param modelConfig      - configuration for model
      * @param columnConfigList - configurations for columns
-     * @param scanners         - scanners of evaluation data
+     * @param readers         - readers of evaluation data
      */
-    public void submitModelEvalJob(final ModelConfig modelConfig, final List<ColumnConfig> columnConfigList, final EvalConfig evalConfig, List<Scanner> scanners) {
-        actorSystem = ActorSystem.create("ShifuActorSystem");
+    public void submitModelEvalJob(final ModelConfig modelConfig, final List<ColumnConfig> columnConfigList, final EvalConfig evalConfig, List<LineReader> readers) {
+        submitModelEvalJob(modelConfig, Collections.singletonList(columnConfigList),
+                Collections.singletonList(evalConfig), Collections.singletonList(readers));
+    }
+
+    /**
+     * Submit job to run the evaluation of several eval sets concurrently.
+     * All eval sets run in one AKKA system, so they share the same thread pool,
+     * and the workers of each eval set are divided from the local parallel number.
+     *
+     * @param modelConfig       - configuration for model
+     * @param columnConfigLists - configurations for columns, one list for each eval set
+     * @param evalConfigs       - the eval sets
+     * @param readersList      - readers of evaluation data, one list for each eval set
+     */
+    public void submitModelEvalJob(final ModelConfig modelConfig, final List<List<ColumnConfig>> columnConfigLists,
+                                   final List<EvalConfig> evalConfigs, final List<List<LineReader>> readersList) {
+        final ActorSystem evalActorSystem = ActorSystem.create("ShifuActorSystem");
         final AkkaExecStatus akkaStatus = new AkkaExecStatus(true);
+        final AtomicInteger runningEvals = new AtomicInteger(evalConfigs.size());
+        final int parallelNum = Math.max(1,
+                Environment.getInt(Environment.LOCAL_NUM_PARALLEL, 16) / evalConfigs.size());
 
-        log.info("Create Akka system to evaluate model");
-        ActorRef modelEvalRef = actorSystem.actorOf(new Props(new UntypedActorFactory() {
-            private static final long serialVersionUID = -1437127862571741369L;
+        log.info("Create Akka system to evaluate model for {} eval sets", evalConfigs.size());
+        for (int i = 0; i < evalConfigs.size(); i++) {
+            final List<ColumnConfig> columnConfigList = columnConfigLists.get(i);
+            final EvalConfig evalConfig = evalConfigs.get(i);
 
-            public UntypedActor create() {
-                return new EvalModelActor(modelConfig, columnConfigList, akkaStatus, evalConfig);
-            }
-        }), "model-evaluator");
+            ActorRef modelEvalRef = evalActorSystem.actorOf(new Props(new UntypedActorFactory() {
+                private static final long serialVersionUID = -1437127862571741369L;
+
+                public UntypedActor create() {
+                    return new EvalModelActor(modelConfig, columnConfigList, akkaStatus, evalConfig, runningEvals,
+                            parallelNum);
+                }
+            }), "model-evaluator-" + i);
 
-        modelEvalRef.tell(new AkkaActorInputMessage(scanners), modelEvalRef);
+            modelEvalRef.tell(new AkkaActorInputMessage(readersList.get(i)), modelEvalRef);
+        }
 
         // wait for termination
-        actorSystem.awaitTermination();
+        evalActorSystem.awaitTermination();
         checkAkkaStatus(akkaStatus);
     }
 
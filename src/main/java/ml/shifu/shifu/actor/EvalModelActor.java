@@ -27,6 +27,7 @@ import ml.shifu.shifu.actor.worker.ScoreModelWorker;
 import ml.shifu.shifu.container.obj.ColumnConfig;
 import ml.shifu.shifu.container.obj.EvalConfig;
 import ml.shifu.shifu.container.obj.ModelConfig;
+import ml.shifu.shifu.fs.LineReader;
 import ml.shifu.shifu.message.AkkaActorInputMessage;
 import ml.shifu.shifu.message.EvalResultMessage;
 import ml.shifu.shifu.message.ExceptionMessage;
@@ -37,7 +38,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -57,8 +58,20 @@ public class EvalModelActor extends AbstractActor {
 
     private int resultCnt;
 
+    /**
+     * the count of eval sets which are still running in the same AKKA system
+     */
+    private AtomicInteger runningEvals;
+
     public EvalModelActor(final ModelConfig modelConfig, final List<ColumnConfig> columnConfigList, final AkkaExecStatus akkaStatus, final EvalConfig evalConfig) {
+        this(modelConfig, columnConfigList, akkaStatus, evalConfig, new AtomicInteger(1),
+                Environment.getInt(Environment.LOCAL_NUM_PARALLEL, 16));
+    }
+
+    public EvalModelActor(final ModelConfig modelConfig, final List<ColumnConfig> columnConfigList, final AkkaExecStatus akkaStatus, final EvalConfig evalConfig,
+                          final AtomicInteger runningEvals, final int parallelNum) {
         super(modelConfig, columnConfigList, akkaStatus);
+        this.runningEvals = runningEvals;
         log.info("Creating Master Actor ...");
         log.info("AvailableProcessors: " + Runtime.getRuntime().availableProcessors());
 
@@ -81,7 +94,8 @@ public class EvalModelActor extends AbstractActor {
             public UntypedActor create() throws IOException {
                 return new RunModelWorker(modelConfig, columnConfigList, evalConfig, parentActorRef, scoreGenRef);
             }
-        }).withRouter(new RoundRobinRouter(Environment.getInt(Environment.LOCAL_NUM_PARALLEL, 16))), "ModelRunWorker");
+        }).withDispatcher(AkkaSystemExecutor.BOUNDED_DISPATCHER)
+                .withRouter(new RoundRobinRouter(parallelNum)), "ModelRunWorker");
 
         // actors to filter data
         dataFilterRef = this.getContext().actorOf(new Props(new UntypedActorFactory() {
@@ -90,7 +104,8 @@ public class EvalModelActor extends AbstractActor {
             public UntypedActor create() throws IOException {
                 return new DataFilterWorker(modelConfig, columnConfigList, parentActorRef, modelRunRef, evalConfig);
             }
-        }).withRouter(new RoundRobinRouter(Environment.getInt(Environment.LOCAL_NUM_PARALLEL, 16))), "DataFilterWorker");
+        }).withDispatcher(AkkaSystemExecutor.RELAY_DISPATCHER)
+                .withRouter(new RoundRobinRouter(parallelNum)), "DataFilterWorker");
 
         // actors to load data
         dataLoadRef = this.getContext().actorOf(new Props(new UntypedActorFactory() {
@@ -99,7 +114,8 @@ public class EvalModelActor extends AbstractActor {
             public UntypedActor create() {
                 return new DataLoadWorker(modelConfig, columnConfigList, parentActorRef, dataFilterRef);
             }
-        }).withRouter(new RoundRobinRouter(Environment.getInt(Environment.LOCAL_NUM_PARALLEL, 16))), "DataLoaderWorker");
+        }).withDispatcher(AkkaSystemExecutor.LOADER_DISPATCHER)
+                .withRouter(new RoundRobinRouter(parallelNum)), "DataLoaderWorker");
     }
 
     /* (non-Javadoc)
@@ -111,19 +127,24 @@ public class EvalModelActor extends AbstractActor {
             resultCnt = 0;
 
             AkkaActorInputMessage msg = (AkkaActorInputMessage) message;
-            List<Scanner> scanners = msg.getScanners();
+            List<LineReader> readers = msg.getReaders();
 
-            log.debug("Num of Scanners: " + scanners.size());
+            log.debug("Num of Readers: " + readers.size());
             int streamId = 0;
 
-            for (Scanner scanner : scanners) {
-                dataLoadRef.tell(new ScanEvalDataMessage(streamId++, scanners.size(), scanner), getSelf());
+            for (LineReader reader : readers) {
+                dataLoadRef.tell(new ScanEvalDataMessage(streamId++, readers.size(), reader), getSelf());
             }
         } else if (message instanceof EvalResultMessage) {
             EvalResultMessage msg = (EvalResultMessage) message;
             resultCnt++;
             if (resultCnt == msg.getTotalMsgCnt()) {
-                getContext().system().shutdown();
+                // shutdown the system after all eval sets are done
+                if (runningEvals.decrementAndGet() == 0) {
+                    getContext().system().shutdown();
+                } else {
+                    getContext().stop(getSelf());
+                }
             }
         } else if (message instanceof ExceptionMessage) {
             // since some children actors meet some exception, shutdown the system
@@ -15,11 +15,9 @@
  */
 package ml.shifu.shifu.actor;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.text.DecimalFormat;
+import java.io.OutputStream;
 import java.util.List;
-import java.util.Scanner;
 
 import ml.shifu.shifu.actor.worker.DataFilterWorker;
 import ml.shifu.shifu.actor.worker.DataLoadWorker;
@@ -27,6 +25,7 @@ import ml.shifu.shifu.actor.worker.DataNormalizeWorker;
 import ml.shifu.shifu.container.obj.ColumnConfig;
 import ml.shifu.shifu.container.obj.ModelConfig;
 import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
+import ml.shifu.shifu.fs.LineReader;
 import ml.shifu.shifu.fs.PathFinder;
 import ml.shifu.shifu.fs.ShifuFileUtils;
 import ml.shifu.shifu.message.AkkaActorInputMessage;
@@ -59,11 +58,10 @@ public class NormalizeDataActor extends AbstractActor {
     private ActorRef dataFilterRef;
     private ActorRef dataNormalizeRef;
 
-    private BufferedWriter normDataWriter;
-    private BufferedWriter selectDataWriter;
+    private OutputStream normDataStream;
+    private OutputStream selectDataStream;
 
-    private DecimalFormat df;
-    private int resultCnt;
+    private StreamTracker streamTracker;
 
     public NormalizeDataActor(final ModelConfig modelConfig, final List<ColumnConfig> columnConfigList,
             final AkkaExecStatus akkaStatus) throws IOException {
@@ -71,7 +69,7 @@ public class NormalizeDataActor extends AbstractActor {
         log.info("Creating Master Actor ...");
         log.info("AvailableProcessors: " + Runtime.getRuntime().availableProcessors());
 
-        resultCnt = 0;
+        streamTracker = new StreamTracker();
         final ActorRef parentActorRef = getSelf();
 
         // actors to normalize data
@@ -81,7 +79,8 @@ public class NormalizeDataActor extends AbstractActor {
             public UntypedActor create() {
                 return new DataNormalizeWorker(modelConfig, columnConfigList, parentActorRef, parentActorRef);
             }
-        }).withRouter(new RoundRobinRouter(Environment.getInt(Environment.LOCAL_NUM_PARALLEL, 16))),
+        }).withDispatcher(AkkaSystemExecutor.BOUNDED_DISPATCHER)
+                .withRouter(new RoundRobinRouter(Environment.getInt(Environment.LOCAL_NUM_PARALLEL, 16))),
                 "DataNormalizeWorker");
 
         // actors to filter data
@@ -92,7 +91,8 @@ public class NormalizeDataActor extends AbstractActor {
                     public UntypedActor create() throws IOException {
                         return new DataFilterWorker(modelConfig, columnConfigList, parentActorRef, dataNormalizeRef);
                     }
-                }).withRouter(new RoundRobinRouter(Environment.getInt(Environment.LOCAL_NUM_PARALLEL, 16))),
+                }).withDispatcher(AkkaSystemExecutor.RELAY_DISPATCHER)
+                        .withRouter(new RoundRobinRouter(Environment.getInt(Environment.LOCAL_NUM_PARALLEL, 16))),
                         "DataFilterWorker");
 
         // actors to load data
@@ -103,15 +103,14 @@ public class NormalizeDataActor extends AbstractActor {
                     public UntypedActor create() {
                         return new DataLoadWorker(modelConfig, columnConfigList, parentActorRef, dataFilterRef);
                     }
-                }).withRouter(new RoundRobinRouter(Environment.getInt(Environment.LOCAL_NUM_PARALLEL, 16))),
+                }).withDispatcher(AkkaSystemExecutor.LOADER_DISPATCHER)
+                        .withRouter(new RoundRobinRouter(Environment.getInt(Environment.LOCAL_NUM_PARALLEL, 16))),
                         "DataLoaderWorker");
 
         PathFinder pathFinder = new PathFinder(modelConfig);
         SourceType sourceType = modelConfig.getDataSet().getSource();
-        normDataWriter = ShifuFileUtils.getWriter(pathFinder.getNormalizedDataPath(sourceType), sourceType);
-        selectDataWriter = ShifuFileUtils.getWriter(pathFinder.getSelectedRawDataPath(sourceType), sourceType);
-
-        df = new DecimalFormat("#.######");
+        normDataStream = ShifuFileUtils.getOutputStream(pathFinder.getNormalizedDataPath(sourceType), sourceType);
+        selectDataStream = ShifuFileUtils.getOutputStream(pathFinder.getSelectedRawDataPath(sourceType), sourceType);
     }
 
     /*
@@ -122,28 +121,28 @@ public class NormalizeDataActor extends AbstractActor {
     @Override
     public void onReceive(Object message) throws Exception {
         if(message instanceof AkkaActorInputMessage) {
-            resultCnt = 0;
+            streamTracker = new StreamTracker();
 
             AkkaActorInputMessage msg = (AkkaActorInputMessage) message;
-            List<Scanner> scanners = msg.getScanners();
+            List<LineReader> readers = msg.getReaders();
 
-            log.debug("Num of Scanners: " + scanners.size());
+            log.debug("Num of Readers: " + readers.size());
 
-            for(Scanner scanner: scanners) {
-                dataLoadRef.tell(new ScanNormInputDataMessage(scanners.size(), scanner), getSelf());
+            int streamId = 0;
+            for(LineReader reader: readers) {
+                dataLoadRef.tell(new ScanNormInputDataMessage(streamId++, readers.size(), reader), getSelf());
             }
         } else if(message instanceof NormResultDataMessage) {
             NormResultDataMessage msg = (NormResultDataMessage) message;
-            int targetMsgCnt = msg.getTargetMsgCnt();
 
-            writeDataIntoFile(msg.getNormalizedDataList());
-            writeSelectDataIntoFile(msg.getSelectDataList());
+            // the data are already formatted by workers
+            normDataStream.write(msg.getNormalizedData());
+            selectDataStream.write(msg.getSelectData());
 
-            resultCnt++;
-            if(resultCnt == targetMsgCnt) {
-                log.info("Received " + resultCnt + " messages. Finished normalizing train data.");
-                normDataWriter.close();
-                selectDataWriter.close();
+            if(streamTracker.receive(msg.getStreamId(), msg.getTotalStreamCnt(), msg.getMsgId(), msg.isLastMsg())) {
+                log.info("Received all messages. Finished normalizing train data.");
+                normDataStream.close();
+                selectDataStream.close();
                 getContext().system().shutdown();
             }
         } else if(message instanceof ExceptionMessage) {
@@ -158,40 +157,4 @@ public class NormalizeDataActor extends AbstractActor {
         }
     }
 
-    /**
-     * Write the data which is selected to normalize, into file - tmp/SelectedRawData
-     * 
-     * @param selectDataList
-     *            - the raw selected data
-     * @throws IOException
-     *             Exception when writing file
-     */
-    private void writeSelectDataIntoFile(List<String> selectDataList) throws IOException {
-        for(String rawInput: selectDataList) {
-            selectDataWriter.append(rawInput + "\n");
-        }
-    }
-
-    /**
-     * Write the normalized data into file - tmp/NormalizedData
-     * 
-     * @param normalizedDataList
-     *            - the normalized data
-     * @throws IOException
-     *             Exception when writing file
-     */
-    private void writeDataIntoFile(List<List<Double>> normalizedDataList) throws IOException {
-        for(List<Double> normData: normalizedDataList) {
-            for(Double data: normData) {
-                if(data == null) {
-                    normDataWriter.append("|");
-                } else {
-                    normDataWriter.append(df.format(data) + "|");
-                }
-            }
-
-            normDataWriter.append("\n");
-        }
-    }
-
 }
@@ -26,11 +26,13 @@ import ml.shifu.shifu.actor.worker.PostTrainWorker;
 import ml.shifu.shifu.actor.worker.RunModelWorker;
 import ml.shifu.shifu.container.obj.ColumnConfig;
 import ml.shifu.shifu.container.obj.ModelConfig;
+import ml.shifu.shifu.fs.LineReader;
 import ml.shifu.shifu.fs.PathFinder;
 import ml.shifu.shifu.message.AkkaActorInputMessage;
 import ml.shifu.shifu.message.ExceptionMessage;
 import ml.shifu.shifu.message.ScanEvalDataMessage;
 import ml.shifu.shifu.message.StatsResultMessage;
+import ml.shifu.shifu.util.ColumnConfigSnapshot;
 import ml.shifu.shifu.util.Environment;
 import ml.shifu.shifu.util.JSONUtils;
 import org.slf4j.Logger;
@@ -41,7 +43,6 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
 
 
 /**
@@ -104,7 +105,8 @@ public class PostTrainActor extends AbstractActor {
             public UntypedActor create() throws IOException {
                 return new RunModelWorker(modelConfig, columnConfigList, null, parentActorRef, dataPrepRef);
             }
-        }).withRouter(new RoundRobinRouter(Environment.getInt(Environment.LOCAL_NUM_PARALLEL, 16))), "modelRunWorker");
+        }).withDispatcher(AkkaSystemExecutor.BOUNDED_DISPATCHER)
+                .withRouter(new RoundRobinRouter(Environment.getInt(Environment.LOCAL_NUM_PARALLEL, 16))), "modelRunWorker");
 
         // actors to load data
         dataLoadRef = this.getContext().actorOf(new Props(new UntypedActorFactory() {
@@ -113,7 +115,8 @@ public class PostTrainActor extends AbstractActor {
             public UntypedActor create() {
                 return new DataLoadWorker(modelConfig, columnConfigList, parentActorRef, modelRunRef);
             }
-        }).withRouter(new RoundRobinRouter(Environment.getInt(Environment.LOCAL_NUM_PARALLEL, 16))), "DataLoaderWorker");
+        }).withDispatcher(AkkaSystemExecutor.LOADER_DISPATCHER)
+                .withRouter(new RoundRobinRouter(Environment.getInt(Environment.LOCAL_NUM_PARALLEL, 16))), "DataLoaderWorker");
     }
 
     /* (non-Javadoc)
@@ -125,12 +128,12 @@ public class PostTrainActor extends AbstractActor {
             resultCnt = 0;
 
             AkkaActorInputMessage msg = (AkkaActorInputMessage) message;
-            List<Scanner> scanners = msg.getScanners();
+            List<LineReader> readers = msg.getReaders();
 
-            log.debug("Num of Scanners: " + scanners.size());
+            log.debug("Num of Readers: " + readers.size());
             int streamId = 0;
-            for (Scanner scanner : scanners) {
-                dataLoadRef.tell(new ScanEvalDataMessage(streamId++, scanners.size(), scanner), getSelf());
+            for (LineReader reader : readers) {
+                dataLoadRef.tell(new ScanEvalDataMessage(streamId++, readers.size(), reader), getSelf());
             }
         } else if (message instanceof StatsResultMessage) {
             StatsResultMessage statsRstMsg = (StatsResultMessage) message;
@@ -143,6 +146,7 @@ public class PostTrainActor extends AbstractActor {
                 log.info("Finished post-train.");
                 PathFinder pathFinder = new PathFinder(modelConfig);
                 JSONUtils.writeValue(new File(pathFinder.getColumnConfigPath()), columnConfigList);
+                ColumnConfigSnapshot.saveSnapshot(pathFinder.getColumnConfigPath(), columnConfigList);
                 getContext().system().shutdown();
             }
         } else if (message instanceof ExceptionMessage) {
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.actor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * StreamTracker class tracks the chunk messages of several input streams, to know when all of them are received.
+ *
+ * <p>
+ * Each input stream is split into messages with msgId 0, 1, 2..., and the last one is flagged. The messages may
+ * arrive in any order since they are routed through several workers, so a stream is complete only when its last
+ * message and all messages before it are received.
+ *
+ * @Dec 16, 2014
+ *
+ */
+public class StreamTracker {
+
+    /**
+     * streamId -> the number of received messages
+     */
+    private final Map<Integer, Integer> receivedCnts = new HashMap<Integer, Integer>();
+
+    /**
+     * streamId -> the number of messages in stream, known when the last message is received
+     */
+    private final Map<Integer, Integer> expectedCnts = new HashMap<Integer, Integer>();
+
+    private int completedStreamCnt = 0;
+
+    /**
+     * Record the received message
+     *
+     * @param streamId
+     *            - the id of input stream
+     * @param totalStreamCnt
+     *            - the number of input streams
+     * @param msgId
+     *            - the id of message in stream
+     * @param isLastMsg
+     *            - is it the last message of stream
+     * @return true if all messages of all streams are received
+     */
+    public boolean receive(int streamId, int totalStreamCnt, int msgId, boolean isLastMsg) {
+        Integer received = receivedCnts.get(streamId);
+        received = (received == null ? 1 : received + 1);
+        receivedCnts.put(streamId, received);
+
+        if(isLastMsg) {
+            expectedCnts.put(streamId, msgId + 1);
+        }
+
+        Integer expected = expectedCnts.get(streamId);
+        if(expected != null && expected.intValue() == received.intValue()) {
+            completedStreamCnt++;
+        }
+        return completedStreamCnt == totalStreamCnt;
+    }
+}
@@ -28,6 +28,7 @@ import ml.shifu.shifu.actor.worker.TrainModelWorker;
 import ml.shifu.shifu.container.obj.ColumnConfig;
 import ml.shifu.shifu.container.obj.ModelConfig;
 import ml.shifu.shifu.core.AbstractTrainer;
+import ml.shifu.shifu.fs.LineReader;
 import ml.shifu.shifu.message.AkkaActorInputMessage;
 import ml.shifu.shifu.message.ExceptionMessage;
 import ml.shifu.shifu.message.ScanStatsRawDataMessage;
@@ -39,7 +40,6 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.Scanner;
 
 
 /**
@@ -47,7 +47,7 @@ import java.util.Scanner;
  */
 public class TrainDtModelActor extends AbstractActor {
 
-    private static Logger log = LoggerFactory.getLogger(CalculateStatsActor.class);
+    private static Logger log = LoggerFactory.getLogger(TrainDtModelActor.class);
 
     private ActorRef dataLoadRef;
     private ActorRef trainDataPrepRef;
@@ -88,7 +88,7 @@ public class TrainDtModelActor extends AbstractActor {
             public UntypedActor create() throws IOException {
                 return new TrainDataPrepWorker(modelConfig, columnConfigList, parentActorRef, trainModelRef, trainers);
             }
-        }).withRouter(new RoundRobinRouter(1)), "DataPrepWorker");
+        }).withDispatcher(AkkaSystemExecutor.BOUNDED_DISPATCHER).withRouter(new RoundRobinRouter(1)), "DataPrepWorker");
 
         // actors to load data
         dataLoadRef = this.getContext().actorOf(new Props(new UntypedActorFactory() {
@@ -97,7 +97,8 @@ public class TrainDtModelActor extends AbstractActor {
             public UntypedActor create() {
                 return new DataLoadWorker(modelConfig, columnConfigList, parentActorRef, trainDataPrepRef);
             }
-        }).withRouter(new RoundRobinRouter(Environment.getInt(Environment.LOCAL_NUM_PARALLEL, 16))), "DataLoaderWorker");
+        }).withDispatcher(AkkaSystemExecutor.LOADER_DISPATCHER)
+                .withRouter(new RoundRobinRouter(Environment.getInt(Environment.LOCAL_NUM_PARALLEL, 16))), "DataLoaderWorker");
     }
 
     /* (non-Javadoc)
@@ -109,13 +110,14 @@ public class TrainDtModelActor extends AbstractActor {
             resultCnt = 0;
 
             AkkaActorInputMessage msg = (AkkaActorInputMessage) message;
-            List<Scanner> scanners = msg.getScanners();
+            List<LineReader> readers = msg.getReaders();
 
-            log.debug("Num of Scanners: " + scanners.size());
+            log.debug("Num of Readers: " + readers.size());
 
-            for (Scanner scanner : scanners) {
+            int streamId = 0;
+            for (LineReader reader : readers) {
                 dataLoadRef.tell(
-                        new ScanStatsRawDataMessage(scanners.size(), scanner), getSelf());
+                        new ScanStatsRawDataMessage(streamId++, readers.size(), reader), getSelf());
             }
         } else if (message instanceof TrainResultMessage) {
             resultCnt++;
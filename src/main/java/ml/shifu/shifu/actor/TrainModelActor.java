@@ -26,6 +26,8 @@ import ml.shifu.shifu.actor.worker.TrainModelWorker;
 import ml.shifu.shifu.container.obj.ColumnConfig;
 import ml.shifu.shifu.container.obj.ModelConfig;
 import ml.shifu.shifu.core.AbstractTrainer;
+import ml.shifu.shifu.core.LocalTrainScheduler;
+import ml.shifu.shifu.fs.LineReader;
 import ml.shifu.shifu.message.AkkaActorInputMessage;
 import ml.shifu.shifu.message.ExceptionMessage;
 import ml.shifu.shifu.message.ScanTrainDataMessage;
@@ -37,7 +39,6 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.Scanner;
 
 
 /**
@@ -47,7 +48,7 @@ import java.util.Scanner;
  */
 public class TrainModelActor extends AbstractActor {
 
-    private static Logger log = LoggerFactory.getLogger(CalculateStatsActor.class);
+    private static Logger log = LoggerFactory.getLogger(TrainModelActor.class);
 
     private ActorRef dataLoadRef;
     private ActorRef trainDataPrepRef;
@@ -71,6 +72,9 @@ public class TrainModelActor extends AbstractActor {
 
         final ActorRef parentActorRef = getSelf();
 
+        // bags are trained concurrently as many as the scheduler allows, they share the cores
+        int bagConcurrency = LocalTrainScheduler.schedule(trainers);
+
         // actors to training models
         trainModelRef = this.getContext().actorOf(new Props(new UntypedActorFactory() {
             private static final long serialVersionUID = -5719806635080547488L;
@@ -78,7 +82,7 @@ public class TrainModelActor extends AbstractActor {
             public UntypedActor create() {
                 return new TrainModelWorker(modelConfig, columnConfigList, parentActorRef, parentActorRef);
             }
-        }).withRouter(new RoundRobinRouter(this.modelConfig.getBaggingNum())), "ModelTrainWorker");
+        }).withRouter(new RoundRobinRouter(bagConcurrency)), "ModelTrainWorker");
 
         // actors to aggregate all training data
         trainDataPrepRef = this.getContext().actorOf(new Props(new UntypedActorFactory() {
@@ -87,7 +91,7 @@ public class TrainModelActor extends AbstractActor {
             public UntypedActor create() throws IOException {
                 return new TrainDataPrepWorker(modelConfig, columnConfigList, parentActorRef, trainModelRef, trainers);
             }
-        }).withRouter(new RoundRobinRouter(1)), "DataPrepWorker");
+        }).withDispatcher(AkkaSystemExecutor.BOUNDED_DISPATCHER).withRouter(new RoundRobinRouter(1)), "DataPrepWorker");
 
         // actors to load data
         dataLoadRef = this.getContext().actorOf(new Props(new UntypedActorFactory() {
@@ -96,7 +100,8 @@ public class TrainModelActor extends AbstractActor {
             public UntypedActor create() {
                 return new DataLoadWorker(modelConfig, columnConfigList, parentActorRef, trainDataPrepRef);
             }
-        }).withRouter(new RoundRobinRouter(Environment.getInt(Environment.LOCAL_NUM_PARALLEL, 16))), "DataLoaderWorker");
+        }).withDispatcher(AkkaSystemExecutor.LOADER_DISPATCHER)
+                .withRouter(new RoundRobinRouter(Environment.getInt(Environment.LOCAL_NUM_PARALLEL, 16))), "DataLoaderWorker");
     }
 
     /* (non-Javadoc)
@@ -108,13 +113,14 @@ public class TrainModelActor extends AbstractActor {
             resultCnt = 0;
 
             AkkaActorInputMessage msg = (AkkaActorInputMessage) message;
-            List<Scanner> scanners = msg.getScanners();
+            List<LineReader> readers = msg.getReaders();
 
-            log.debug("Num of Scanners: " + scanners.size());
+            log.debug("Num of Readers: " + readers.size());
 
-            for (Scanner scanner : scanners) {
+            int streamId = 0;
+            for (LineReader reader : readers) {
                 dataLoadRef.tell(
-                        new ScanTrainDataMessage(scanners.size(), isDryRun, scanner), getSelf());
+                        new ScanTrainDataMessage(streamId++, readers.size(), isDryRun, reader), getSelf());
             }
         } else if (message instanceof TrainResultMessage) {
             resultCnt++;
@@ -21,6 +21,7 @@ import ml.shifu.shifu.container.obj.ColumnConfig;
 import ml.shifu.shifu.container.obj.ModelConfig;
 import ml.shifu.shifu.core.dtrain.NNConstants;
 import ml.shifu.shifu.core.dtrain.NNUtils;
+import ml.shifu.shifu.fs.LineReader;
 import ml.shifu.shifu.message.*;
 import ml.shifu.shifu.util.CommonUtils;
 import ml.shifu.shifu.util.Environment;
@@ -32,14 +33,15 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Splitter;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Scanner;
 
 /**
  * DataLoadWorker class is used to load data from all kinds of source.
- * Its input is data scanner. The output are usually List<String>
+ * Its input is data reader. The output are the chunks of input, each of them has at most
+ * {@link Environment#RECORD_CNT_PER_MESSAGE} records, so the next actors could start working before the input is done.
  */
 public class DataLoadWorker extends AbstractWorkerActor {
 
@@ -75,184 +77,210 @@ public class DataLoadWorker extends AbstractWorkerActor {
      * @see akka.actor.UntypedActor#onReceive(java.lang.Object)
      */
     @Override
-    public void handleMsg(Object message) {
+    public void handleMsg(Object message) throws IOException {
+        int recordCntPerMsg = Environment.getInt(Environment.RECORD_CNT_PER_MESSAGE, 100000);
+
         if(message instanceof ScanStatsRawDataMessage) {
             log.info("DataLoaderActor Starting ...");
-            ScanStatsRawDataMessage msg = (ScanStatsRawDataMessage) message;
-            Scanner scanner = msg.getScanner();
-            int totalMsgCnt = msg.getTotalMsgCnt();
-
-            List<String> rawDataList = readDataIntoList(scanner);
+            final ScanStatsRawDataMessage msg = (ScanStatsRawDataMessage) message;
 
-            log.info("DataLoaderActor Finished: Loaded " + rawDataList.size() + " Records.");
-            nextActorRef.tell(new StatsPartRawDataMessage(totalMsgCnt, rawDataList), getSelf());
+            splitDataIntoMultiMessages(msg.getReader(), recordCntPerMsg, new RawDataChunkSender() {
+                @Override
+                public Object createMessage(int msgId, boolean isLastMsg, List<String> chunk) {
+                    return new StatsPartRawDataMessage(msg.getStreamId(), msg.getTotalStreamCnt(), msgId, isLastMsg,
+                            chunk);
+                }
+            });
         } else if(message instanceof ScanNormInputDataMessage) {
             log.info("DataLoaderActor Starting ...");
-            ScanNormInputDataMessage msg = (ScanNormInputDataMessage) message;
-            Scanner scanner = msg.getScanner();
-            int totalMsgCnt = msg.getTotalMsgCnt();
+            final ScanNormInputDataMessage msg = (ScanNormInputDataMessage) message;
 
-            List<String> rawDataList = readDataIntoList(scanner);
-
-            log.info("DataLoaderActor Finished: Loaded " + rawDataList.size() + " Records.");
-            nextActorRef.tell(new NormPartRawDataMessage(totalMsgCnt, rawDataList), getSelf());
+            splitDataIntoMultiMessages(msg.getReader(), recordCntPerMsg, new RawDataChunkSender() {
+                @Override
+                public Object createMessage(int msgId, boolean isLastMsg, List<String> chunk) {
+                    return new NormPartRawDataMessage(msg.getStreamId(), msg.getTotalStreamCnt(), msgId, isLastMsg,
+                            chunk);
+                }
+            });
         } else if(message instanceof ScanTrainDataMessage) {
-            ScanTrainDataMessage msg = (ScanTrainDataMessage) message;
-            Scanner scanner = msg.getScanner();
-            int totalMsgCnt = msg.getTotalMsgCnt();
+            final ScanTrainDataMessage msg = (ScanTrainDataMessage) message;
+            final int numSelected = getNumSelected();
 
-            List<MLDataPair> mlDataPairList = readTrainingData(scanner, msg.isDryRun());
-            log.info("DataLoaderActor Finished: Loaded " + mlDataPairList.size() + " Records for Training.");
-            nextActorRef.tell(new TrainPartDataMessage(totalMsgCnt, msg.isDryRun(), mlDataPairList), getSelf());
+            splitDataIntoMultiMessages(msg.getReader(), recordCntPerMsg, new ChunkSender<MLDataPair>() {
+                @Override
+                public List<MLDataPair> createChunk(int capacity) {
+                    return new ArrayList<MLDataPair>(capacity);
+                }
+
+                @Override
+                public MLDataPair convert(String line) {
+                    return convertTrainingData(line, msg.isDryRun(), numSelected);
+                }
+
+                @Override
+                public Object createMessage(int msgId, boolean isLastMsg, List<MLDataPair> chunk) {
+                    return new TrainPartDataMessage(msg.getStreamId(), msg.getTotalStreamCnt(), msgId, isLastMsg,
+                            msg.isDryRun(), chunk);
+                }
+            });
         } else if(message instanceof ScanEvalDataMessage) {
             log.info("DataLoaderActor Starting ...");
-            ScanEvalDataMessage msg = (ScanEvalDataMessage) message;
-            Scanner scanner = msg.getScanner();
-            int streamId = msg.getStreamId();
-            int totalStreamCnt = msg.getTotalStreamCnt();
-
-            splitDataIntoMultiMessages(streamId, totalStreamCnt, scanner,
-                    Environment.getInt(Environment.RECORD_CNT_PER_MESSAGE, 100000));
-
-            /*
-             * List<String> evalDataList = readDataIntoList(scanner);
-             * 
-             * log.info("DataLoaderActor Finished: Loaded " + evalDataList.size() + " Records.");
-             * nextActorRef.tell( new RunModelDataMessage(totalMsgCnt, evalDataList), getSelf());
-             */
+            final ScanEvalDataMessage msg = (ScanEvalDataMessage) message;
+
+            splitDataIntoMultiMessages(msg.getReader(), recordCntPerMsg, new RawDataChunkSender() {
+                @Override
+                public Object createMessage(int msgId, boolean isLastMsg, List<String> chunk) {
+                    return new RunModelDataMessage(msg.getStreamId(), msg.getTotalStreamCnt(), msgId, isLastMsg,
+                            chunk);
+                }
+            });
         } else {
             unhandled(message);
         }
     }
 
     /**
-     * @param totalMsgCnt
-     * @param scanner
-     * @param int1
+     * Read the input and send it to next actor in messages of recordCntPerMsg records. The last message is always
+     * sent, even it's empty, to let next actor know the input is done.
+     * 
+     * @param reader
+     *            - input partition
+     * @param recordCntPerMsg
+     *            - max number of records in one message
+     * @param sender
+     *            - to convert records and to create messages
+     * @return the number of records read
      */
-    private long splitDataIntoMultiMessages(int streamId, int totalStreamCnt, Scanner scanner, int recordCntPerMsg) {
+    private <T> long splitDataIntoMultiMessages(LineReader reader, int recordCntPerMsg, ChunkSender<T> sender)
+            throws IOException {
         long recordCnt = 0;
         int msgId = 0;
+        int capacity = Math.min(recordCntPerMsg, 10000);
 
-        List<String> rawDataList = new LinkedList<String>();
-
-        while(scanner.hasNextLine()) {
-            String raw = scanner.nextLine();
+        List<T> chunk = sender.createChunk(capacity);
+        String line;
+        while((line = reader.readLine()) != null) {
+            T record = sender.convert(line);
             recordCnt++;
-            rawDataList.add(raw);
+            if(record != null) {
+                chunk.add(record);
+            }
 
             if(recordCnt % recordCntPerMsg == 0) {
                 log.info("Read " + recordCnt + " Records.");
-                nextActorRef.tell(new RunModelDataMessage(streamId, totalStreamCnt, (msgId++), false, rawDataList),
-                        getSelf());
-                rawDataList = new LinkedList<String>();
+                nextActorRef.tell(sender.createMessage(msgId++, false, chunk), getSelf());
+                chunk = sender.createChunk(capacity);
             }
         }
 
         log.info("Totally read " + recordCnt + " Records.");
         // anyhow, sent the last message to let next actor know - it's done
-        nextActorRef.tell(new RunModelDataMessage(streamId, totalStreamCnt, (msgId++), true, rawDataList), getSelf());
+        nextActorRef.tell(sender.createMessage(msgId++, true, chunk), getSelf());
 
         return recordCnt;
     }
 
     /**
-     * Read data into String list
-     * 
-     * @param scanner
-     *            - input partition
-     * @return List<String>
+     * ChunkSender is to convert the input lines and to create the chunk messages of one input stream
      */
-    public List<String> readDataIntoList(Scanner scanner) {
-        List<String> rawDataList = new LinkedList<String>();
+    private abstract static class ChunkSender<T> {
+
+        /**
+         * @return an empty chunk
+         */
+        public abstract List<T> createChunk(int capacity);
+
+        /**
+         * @return the record of line, or null to skip it
+         */
+        public abstract T convert(String line);
+
+        /**
+         * @return the message to send
+         */
+        public abstract Object createMessage(int msgId, boolean isLastMsg, List<T> chunk);
+    }
 
-        int cntTotal = 0;
-        while(scanner.hasNextLine()) {
-            String raw = scanner.nextLine();
-            rawDataList.add(raw);
+    /**
+     * The raw lines are sent as is. LinkedList is used, since the {@link DataFilterWorker} removes records in place.
+     */
+    private abstract static class RawDataChunkSender extends ChunkSender<String> {
 
-            cntTotal++;
-            if(cntTotal % 100000 == 0) {
-                log.info("Read " + cntTotal + " records.");
-            }
+        @Override
+        public List<String> createChunk(int capacity) {
+            return new LinkedList<String>();
         }
 
-        log.info("Totally read " + cntTotal + " records.");
-        return rawDataList;
+        @Override
+        public String convert(String line) {
+            return line;
+        }
     }
 
     /**
-     * Read the normalized training data for model training
-     * 
-     * @param scanner
-     *            - input partition
-     * @param isDryRun
-     *            - is for test running?
-     * @return List<MLDataPair>
+     * @return the number of final selected columns
      */
-    public List<MLDataPair> readTrainingData(Scanner scanner, boolean isDryRun) {
-        List<MLDataPair> mlDataPairList = new ArrayList<MLDataPair>();
-
+    private int getNumSelected() {
         int numSelected = 0;
         for(ColumnConfig config: columnConfigList) {
             if(config.isFinalSelect()) {
                 numSelected++;
             }
         }
+        return numSelected;
+    }
 
-        int cnt = 0;
-        while(scanner.hasNextLine()) {
-            if((cnt++) % 100000 == 0) {
-                log.info("Read " + (cnt) + " Records.");
-            }
-
-            String line = scanner.nextLine();
-            if(isDryRun) {
-                MLDataPair dummyPair = new BasicMLDataPair(new BasicMLData(new double[1]), new BasicMLData(
-                        new double[1]));
-                mlDataPairList.add(dummyPair);
-                continue;
-            }
+    /**
+     * Convert the normalized training data for model training
+     * 
+     * @param line
+     *            - normalized record
+     * @param isDryRun
+     *            - is for test running?
+     * @param numSelected
+     *            - the number of final selected columns
+     * @return the data pair of record
+     */
+    private MLDataPair convertTrainingData(String line, boolean isDryRun, int numSelected) {
+        if(isDryRun) {
+            return new BasicMLDataPair(new BasicMLData(new double[1]), new BasicMLData(new double[1]));
+        }
 
-            // the normalized training data is separated by | by default
-            double[] inputs = new double[numSelected];
-            double[] ideal = new double[1];
-            double significance = 0.0d;
-            int index = 0, inputsIndex = 0, outputIndex = 0;
-            for(String input: DEFAULT_SPLITTER.split(line.trim())) {
-                double doubleValue = NumberFormatUtils.getDouble(input.trim(), 0.0d);
-                if(index == this.columnConfigList.size()) {
-                    significance = NumberFormatUtils.getDouble(input.trim(), NNConstants.DEFAULT_SIGNIFICANCE_VALUE);
-                    break;
+        // the normalized training data is separated by | by default
+        double[] inputs = new double[numSelected];
+        double[] ideal = new double[1];
+        double significance = 0.0d;
+        int index = 0, inputsIndex = 0, outputIndex = 0;
+        for(String input: DEFAULT_SPLITTER.split(line.trim())) {
+            double doubleValue = NumberFormatUtils.getDouble(input.trim(), 0.0d);
+            if(index == this.columnConfigList.size()) {
+                significance = NumberFormatUtils.getDouble(input.trim(), NNConstants.DEFAULT_SIGNIFICANCE_VALUE);
+                break;
+            } else {
+                ColumnConfig columnConfig = this.columnConfigList.get(index);
+
+                if(columnConfig != null && columnConfig.isTarget()) {
+                    ideal[outputIndex++] = doubleValue;
                 } else {
-                    ColumnConfig columnConfig = this.columnConfigList.get(index);
-
-                    if(columnConfig != null && columnConfig.isTarget()) {
-                        ideal[outputIndex++] = doubleValue;
+                    if(this.inputNodeCount == this.candidateCount) {
+                        // all variables are not set final-select
+                        if(CommonUtils.isGoodCandidate(columnConfig)) {
+                            inputs[inputsIndex++] = doubleValue;
+                        }
                     } else {
-                        if(this.inputNodeCount == this.candidateCount) {
-                            // all variables are not set final-select
-                            if(CommonUtils.isGoodCandidate(columnConfig)) {
-                                inputs[inputsIndex++] = doubleValue;
-                            }
-                        } else {
-                            // final select some variables
-                            if(columnConfig != null && !columnConfig.isMeta() && !columnConfig.isTarget()
-                                    && columnConfig.isFinalSelect()) {
-                                inputs[inputsIndex++] = doubleValue;
-                            }
+                        // final select some variables
+                        if(columnConfig != null && !columnConfig.isMeta() && !columnConfig.isTarget()
+                                && columnConfig.isFinalSelect()) {
+                            inputs[inputsIndex++] = doubleValue;
                         }
                     }
                 }
-                index++;
             }
-
-            MLDataPair pair = new BasicMLDataPair(new BasicMLData(inputs), new BasicMLData(ideal));
-            pair.setSignificance(significance);
-
-            mlDataPairList.add(pair);
+            index++;
         }
 
-        return mlDataPairList;
+        MLDataPair pair = new BasicMLDataPair(new BasicMLData(inputs), new BasicMLData(ideal));
+        pair.setSignificance(significance);
+        return pair;
     }
 }
@@ -15,6 +15,7 @@
  */
 package ml.shifu.shifu.actor.worker;
 
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -28,6 +29,7 @@ import ml.shifu.shifu.core.Normalizer;
 import ml.shifu.shifu.message.NormPartRawDataMessage;
 import ml.shifu.shifu.message.NormResultDataMessage;
 import ml.shifu.shifu.util.CommonUtils;
+import ml.shifu.shifu.util.DoubleFormatUtils;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.jexl2.Expression;
@@ -44,10 +46,15 @@ import akka.actor.ActorRef;
  * DataNormalizeWorker class is to normalize the train data
  * Notice, the last field of normalized data is the weight of the training data.
  * The weight is set in @ModelConfig.normalize.weightAmplifier. It could be some column
+ * <p/>
+ * The normalized data and the selected raw data are formatted into lines and encoded here, so the formatting runs in
+ * parallel workers, and the master only appends the bytes into files.
  */
 public class DataNormalizeWorker extends AbstractWorkerActor {
 
     private static Logger log = LoggerFactory.getLogger(DataNormalizeWorker.class);
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
     private Expression weightExpr;
 
     public DataNormalizeWorker(ModelConfig modelConfig, List<ColumnConfig> columnConfigList, ActorRef parentActorRef,
@@ -66,15 +73,58 @@ public class DataNormalizeWorker extends AbstractWorkerActor {
         if(message instanceof NormPartRawDataMessage) {
             NormPartRawDataMessage msg = (NormPartRawDataMessage) message;
             List<String> rawDataList = msg.getRawDataList();
-            int targetMsgCnt = msg.getTotalMsgCnt();
 
             List<List<Double>> normalizedDataList = normalizeData(rawDataList);
-            nextActorRef.tell(new NormResultDataMessage(targetMsgCnt, rawDataList, normalizedDataList), this.getSelf());
+            nextActorRef.tell(new NormResultDataMessage(msg.getStreamId(), msg.getTotalStreamCnt(), msg.getMsgId(),
+                    msg.isLastMsg(), encodeSelectData(rawDataList), encodeNormalizedData(normalizedDataList)),
+                    this.getSelf());
         } else {
             unhandled(message);
         }
     }
 
+    /**
+     * Encode the selected raw data, one record per line
+     *
+     * @param rawDataList
+     *            - the raw data
+     * @return the UTF-8 bytes of lines
+     */
+    static byte[] encodeSelectData(List<String> rawDataList) {
+        int length = 0;
+        for(String rawInput: rawDataList) {
+            length += rawInput.length() + 1;
+        }
+
+        StringBuilder sb = new StringBuilder(length);
+        for(String rawInput: rawDataList) {
+            sb.append(rawInput).append('\n');
+        }
+        return sb.toString().getBytes(UTF8);
+    }
+
+    /**
+     * Encode the normalized data, one record per line. Every value is followed by "|", and the null value is empty.
+     *
+     * @param normalizedDataList
+     *            - the normalized data
+     * @return the UTF-8 bytes of lines
+     */
+    static byte[] encodeNormalizedData(List<List<Double>> normalizedDataList) {
+        int columns = normalizedDataList.isEmpty() ? 0 : normalizedDataList.get(0).size();
+        StringBuilder sb = new StringBuilder(normalizedDataList.size() * (columns * 9 + 1));
+        for(List<Double> normData: normalizedDataList) {
+            for(Double data: normData) {
+                if(data != null) {
+                    DoubleFormatUtils.append(sb, data.doubleValue());
+                }
+                sb.append('|');
+            }
+            sb.append('\n');
+        }
+        return sb.toString().getBytes(UTF8);
+    }
+
     /**
      * Normalize the list training data from List<String> to List<Double>
      * 
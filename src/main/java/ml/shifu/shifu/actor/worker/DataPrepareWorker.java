@@ -24,7 +24,7 @@ import java.util.Random;
 
 import ml.shifu.shifu.container.CaseScoreResult;
 import ml.shifu.shifu.container.ColumnScoreObject;
-import ml.shifu.shifu.container.ValueObject;
+import ml.shifu.shifu.container.ColumnValueBuffer;
 import ml.shifu.shifu.container.obj.ColumnConfig;
 import ml.shifu.shifu.container.obj.ModelConfig;
 import ml.shifu.shifu.exception.ShifuErrorCode;
@@ -110,13 +110,13 @@ public class DataPrepareWorker extends AbstractWorkerActor {
     public void handleMsg(Object message) {
         if (message instanceof StatsPartRawDataMessage) {
             StatsPartRawDataMessage partData = (StatsPartRawDataMessage) message;
-            Map<Integer, List<ValueObject>> columnVoListMap = buildColumnVoListMap(partData.getRawDataList().size());
-            DataPrepareStatsResult rt = convertRawDataIntoValueObject(partData.getRawDataList(), columnVoListMap);
-            int totalMsgCnt = partData.getTotalMsgCnt();
+            Map<Integer, ColumnValueBuffer> columnBufferMap = buildColumnBufferMap(partData.getRawDataList().size());
+            DataPrepareStatsResult rt = convertRawDataIntoValueBuffer(partData.getRawDataList(), columnBufferMap);
 
-            for (Integer columnNum : columnVoListMap.keySet()) {
+            for (Integer columnNum : columnBufferMap.keySet()) {
                 columnNumToActorMap.get(columnNum)
-                        .tell(new StatsValueObjectMessage(totalMsgCnt, columnNum, columnVoListMap.get(columnNum), rt.getMissingMap().containsKey(columnNum) ? rt.getMissingMap().get(columnNum) : 0, rt.getTotal()), getSelf());
+                        .tell(new StatsValueObjectMessage(partData.getStreamId(), partData.getTotalStreamCnt(),
+                                partData.getMsgId(), partData.isLastMsg(), columnNum, columnBufferMap.get(columnNum), rt.getMissingMap().containsKey(columnNum) ? rt.getMissingMap().get(columnNum) : 0, rt.getTotal()), getSelf());
             }
         } else if (message instanceof RunModelResultMessage) {
             RunModelResultMessage msg = (RunModelResultMessage) message;
@@ -135,20 +135,20 @@ public class DataPrepareWorker extends AbstractWorkerActor {
     }
 
     /**
-     * Create the Map<ColumnID, List<ValueObject>> to prepare the data for calculating stats of each column
+     * Create the Map<ColumnID, ColumnValueBuffer> to prepare the data for calculating stats of each column
      * If the input message doesn't contain any data, the actor won't send message into next-actor who is waiting the message.
      * Under this situation, it will cause AKKA to wait infinitely.
      *
      * @return initialed map for final candidate columns
      */
-    private Map<Integer, List<ValueObject>> buildColumnVoListMap(int capacity) {
-        Map<Integer, List<ValueObject>> columnVoListMap = new HashMap<Integer, List<ValueObject>>();
+    private Map<Integer, ColumnValueBuffer> buildColumnBufferMap(int capacity) {
+        Map<Integer, ColumnValueBuffer> columnBufferMap = new HashMap<Integer, ColumnValueBuffer>();
         for (ColumnConfig columnConfig : columnConfigList) {
             if (columnConfig.isCandidate()) {
-                columnVoListMap.put(columnConfig.getColumnNum(), new ArrayList<ValueObject>(capacity));
+                columnBufferMap.put(columnConfig.getColumnNum(), new ColumnValueBuffer(capacity));
             }
         }
-        return columnVoListMap;
+        return columnBufferMap;
     }
 
     /**
@@ -169,13 +169,13 @@ public class DataPrepareWorker extends AbstractWorkerActor {
     }
 
     /**
-     * Convert raw data into @ValueObject for calculating stats
+     * Convert raw data into @ColumnValueBuffer for calculating stats
      *
      * @param rawDataList     - raw data for training
-     * @param columnVoListMap <column-id --> @ValueObject list>
+     * @param columnBufferMap <column-id --> @ColumnValueBuffer>
      * @throws ShifuException if the data field length is not equal header length
      */
-    private DataPrepareStatsResult convertRawDataIntoValueObject(List<String> rawDataList, Map<Integer, List<ValueObject>> columnVoListMap) throws ShifuException {
+    private DataPrepareStatsResult convertRawDataIntoValueBuffer(List<String> rawDataList, Map<Integer, ColumnValueBuffer> columnBufferMap) throws ShifuException {
         double sampleRate = modelConfig.getBinningSampleRate();
 
         long total = 0l;
@@ -194,6 +194,7 @@ public class DataPrepareWorker extends AbstractWorkerActor {
             }
 
             String tag = raw[targetColumnNum];
+            byte label = ColumnValueBuffer.toLabel(tag, modelConfig.getPosTags(), modelConfig.getNegTags());
 
             if (modelConfig.isBinningSampleNegOnly()) {
                 if (modelConfig.getNegTags().contains(tag) && random.nextDouble() > sampleRate) {
@@ -211,18 +212,17 @@ public class DataPrepareWorker extends AbstractWorkerActor {
                     continue;
                 }
 
-                ValueObject vo = new ValueObject();
                 if (i >= columnConfigList.size()) {
                     log.error("The input size is longer than expected, need to check your data");
                     continue;
                 }
 
+                Double value = null;
+                String rawValue = null;
                 ColumnConfig config = columnConfigList.get(i);
                 if (config.isNumerical()) { // NUMERICAL
                     try {
-                        vo.setValue(Double.valueOf(raw[i].trim()));
-                        vo.setRaw(null);
-
+                        value = Double.valueOf(raw[i].trim());
                     } catch (Exception e) {
                         log.debug("Column " + config.getColumnNum() + ": " + config.getColumnName() + " is expected to be NUMERICAL, however received: " + raw[i]);
                         incMap(i, missingMap);
@@ -232,43 +232,26 @@ public class DataPrepareWorker extends AbstractWorkerActor {
                     if (StringUtils.isEmpty(raw[i])) {
                         incMap(i, missingMap);
                     }
-                    vo.setRaw(raw[i].trim());
-                    vo.setValue(null);
+                    rawValue = raw[i].trim();
                 } else { // AUTO TYPE
                     try {
-                        vo.setValue(Double.valueOf(raw[i]));
-                        vo.setRaw(null);
+                        value = Double.valueOf(raw[i]);
                     } catch (Exception e) {
                         incMap(i, missingMap);
-                        vo.setRaw(raw[i]);
-                        vo.setValue(null);
-                    }
-                }
-
-                if (this.weightedColumnNum != -1) {
-                    try {
-                        vo.setWeight(Double.valueOf(raw[weightedColumnNum]));
-                    } catch (NumberFormatException e) {
-                        vo.setWeight(1.0);
-                    }
-
-                    if (i == weightedColumnNum) {
-                        //weight and its column, set to 1
-                        vo.setWeight(1.0);
-                    } else {
-                        vo.setWeight(1.0);
+                        rawValue = raw[i];
                     }
                 }
 
-                vo.setTag(raw[targetColumnNum]);
+                // the weight is always 1.0 in local stats, even the weight column is set
+                double weight = 1.0;
 
-                List<ValueObject> voList = columnVoListMap.get(i);
-                if (voList == null) {
-                    voList = new ArrayList<ValueObject>();
-                    columnVoListMap.put(i, voList);
+                ColumnValueBuffer buffer = columnBufferMap.get(i);
+                if (buffer == null) {
+                    buffer = new ColumnValueBuffer();
+                    columnBufferMap.put(i, buffer);
                 }
 
-                voList.add(vo);
+                buffer.add(value, rawValue, label, weight);
             }
         }
 
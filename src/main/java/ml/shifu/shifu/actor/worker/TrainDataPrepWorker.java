@@ -16,6 +16,7 @@
 package ml.shifu.shifu.actor.worker;
 
 import akka.actor.ActorRef;
+import ml.shifu.shifu.actor.StreamTracker;
 import ml.shifu.shifu.container.obj.ColumnConfig;
 import ml.shifu.shifu.container.obj.ModelConfig;
 import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
@@ -47,7 +48,7 @@ public class TrainDataPrepWorker extends AbstractWorkerActor {
     private static Logger log = LoggerFactory.getLogger(TrainModelWorker.class);
 
     private MLDataSet masterDataSet;
-    private int receivedMsgCnt = 0;
+    private StreamTracker streamTracker = new StreamTracker();
     private List<AbstractTrainer> trainers;
     private boolean initialized = false;
 
@@ -96,10 +97,9 @@ public class TrainDataPrepWorker extends AbstractWorkerActor {
 
                 masterDataSet.add(mlDataPir);
             }
-            receivedMsgCnt++;
 
-            log.debug("Expected " + msg.getTotalMsgCnt() + " messages, received " + receivedMsgCnt + " message(s).");
-            if (receivedMsgCnt == msg.getTotalMsgCnt()) {
+            log.debug("Received message " + msg.getMsgId() + " of stream " + msg.getStreamId() + ".");
+            if (streamTracker.receive(msg.getStreamId(), msg.getTotalStreamCnt(), msg.getMsgId(), msg.isLastMsg())) {
                 if (modelConfig.isTrainOnDisk() && initialized) {
                     ((BufferedMLDataSet) masterDataSet).endLoad();
                 }
@@ -121,10 +121,9 @@ public class TrainDataPrepWorker extends AbstractWorkerActor {
             }
         } else if (message instanceof StatsPartRawDataMessage) {
             StatsPartRawDataMessage msg = (StatsPartRawDataMessage) message;
-            receivedMsgCnt++;
 
-            log.debug("Expected " + msg.getTotalMsgCnt() + " messages, received " + receivedMsgCnt + " message(s).");
-            if (receivedMsgCnt == msg.getTotalMsgCnt()) {
+            log.debug("Received message " + msg.getMsgId() + " of stream " + msg.getStreamId() + ".");
+            if (streamTracker.receive(msg.getStreamId(), msg.getTotalStreamCnt(), msg.getMsgId(), msg.isLastMsg())) {
                 for (AbstractTrainer trainer : trainers) {
 //                    ((DecisionTreeTrainer)trainer).setDataSet(rawInstanceList);
                     nextActorRef.tell(new TrainInstanceMessage(trainer), this.getSelf());
@@ -0,0 +1,273 @@
+/**
+ * Copyright [2012-2014] eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.container;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ml.shifu.shifu.util.IndexedSort;
+
+/**
+ * ColumnValueBuffer class is the columnar replacement of List<@ValueObject> for one column.
+ * <p>
+ * Values are kept in primitive arrays - double[] for numerical value, byte[] for positive/negative label
+ * and double[] for weight. Raw (categorical) values are dictionary-encoded into int[], so each distinct
+ * category is only stored once.
+ * <p>
+ * A record without numerical value holds NaN as its value, and a record without raw value holds -1 as its category id.
+ */
+public class ColumnValueBuffer {
+
+    /**
+     * label of the record, decided by positive/negative tags
+     */
+    public static final byte LABEL_NEG = 0;
+    public static final byte LABEL_POS = 1;
+    public static final byte LABEL_OTHER = -1;
+
+    /**
+     * category id for the record without raw value
+     */
+    public static final int NO_CATEGORY = -1;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int size = 0;
+    private double[] values;
+    private byte[] labels;
+    private double[] weights;
+    private int[] categoryIds;
+
+    private List<String> categories = new ArrayList<String>();
+    private Map<String, Integer> categoryIndex = new HashMap<String, Integer>();
+
+    public ColumnValueBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ColumnValueBuffer(int capacity) {
+        capacity = Math.max(capacity, 1);
+        values = new double[capacity];
+        labels = new byte[capacity];
+        weights = new double[capacity];
+        categoryIds = new int[capacity];
+    }
+
+    /**
+     * Get the label of tag
+     *
+     * @param tag     - the tag of record
+     * @param posTags - positive tags
+     * @param negTags - negative tags
+     * @return LABEL_POS, LABEL_NEG or LABEL_OTHER
+     */
+    public static byte toLabel(String tag, List<String> posTags, List<String> negTags) {
+        if (posTags.contains(tag)) {
+            return LABEL_POS;
+        } else if (negTags.contains(tag)) {
+            return LABEL_NEG;
+        } else {
+            return LABEL_OTHER;
+        }
+    }
+
+    /**
+     * Add numerical value
+     *
+     * @param value
+     * @param label
+     * @param weight
+     */
+    public void add(double value, byte label, double weight) {
+        add(value, NO_CATEGORY, label, weight);
+    }
+
+    /**
+     * Add raw value, the value is regarded as category
+     *
+     * @param raw
+     * @param label
+     * @param weight
+     */
+    public void addRaw(String raw, byte label, double weight) {
+        add(Double.NaN, encodeCategory(raw), label, weight);
+    }
+
+    /**
+     * Add the record with value and raw value, any of them could be null
+     *
+     * @param value
+     * @param raw
+     * @param label
+     * @param weight
+     */
+    public void add(Double value, String raw, byte label, double weight) {
+        add((value == null ? Double.NaN : value), (raw == null ? NO_CATEGORY : encodeCategory(raw)), label, weight);
+    }
+
+    /**
+     * Add @ValueObject, the tag is converted to label by positive/negative tags
+     *
+     * @param vo
+     * @param posTags
+     * @param negTags
+     */
+    public void add(ValueObject vo, List<String> posTags, List<String> negTags) {
+        add(vo.getValue(), vo.getRaw(), toLabel(vo.getTag(), posTags, negTags),
+                (vo.getWeight() == null ? 1.0 : vo.getWeight()));
+    }
+
+    private void add(double value, int categoryId, byte label, double weight) {
+        ensureCapacity(size + 1);
+        values[size] = value;
+        categoryIds[size] = categoryId;
+        labels[size] = label;
+        weights[size] = weight;
+        size++;
+    }
+
+    /**
+     * Append all records in another buffer, the categories are re-encoded into this buffer
+     *
+     * @param another
+     */
+    public void append(ColumnValueBuffer another) {
+        ensureCapacity(size + another.size);
+
+        int[] idMapping = new int[another.categories.size()];
+        for (int i = 0; i < idMapping.length; i++) {
+            idMapping[i] = encodeCategory(another.categories.get(i));
+        }
+
+        System.arraycopy(another.values, 0, values, size, another.size);
+        System.arraycopy(another.labels, 0, labels, size, another.size);
+        System.arraycopy(another.weights, 0, weights, size, another.size);
+        for (int i = 0; i < another.size; i++) {
+            int id = another.categoryIds[i];
+            categoryIds[size + i] = (id == NO_CATEGORY ? NO_CATEGORY : idMapping[id]);
+        }
+        size += another.size;
+    }
+
+    private int encodeCategory(String raw) {
+        Integer id = categoryIndex.get(raw);
+        if (id == null) {
+            id = categories.size();
+            categories.add(raw);
+            categoryIndex.put(raw, id);
+        }
+        return id;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            int newCapacity = Math.max(capacity, values.length + (values.length >> 1));
+            values = Arrays.copyOf(values, newCapacity);
+            labels = Arrays.copyOf(labels, newCapacity);
+            weights = Arrays.copyOf(weights, newCapacity);
+            categoryIds = Arrays.copyOf(categoryIds, newCapacity);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean hasValue(int i) {
+        return !Double.isNaN(values[i]);
+    }
+
+    public double getValue(int i) {
+        return values[i];
+    }
+
+    public void setValue(int i, double value) {
+        values[i] = value;
+    }
+
+    public byte getLabel(int i) {
+        return labels[i];
+    }
+
+    public double getWeight(int i) {
+        return weights[i];
+    }
+
+    public boolean hasRaw(int i) {
+        return categoryIds[i] != NO_CATEGORY;
+    }
+
+    /**
+     * @return the raw value of record, or null if there is no raw value
+     */
+    public String getRaw(int i) {
+        return (categoryIds[i] == NO_CATEGORY ? null : categories.get(categoryIds[i]));
+    }
+
+    public void setRaw(int i, String raw) {
+        categoryIds[i] = (raw == null ? NO_CATEGORY : encodeCategory(raw));
+    }
+
+    /**
+     * @return the category id of record, or NO_CATEGORY if there is no raw value
+     */
+    public int getCategoryId(int i) {
+        return categoryIds[i];
+    }
+
+    /**
+     * @return all distinct raw values, indexed by category id
+     */
+    public List<String> getCategories() {
+        return categories;
+    }
+
+    /**
+     * Sort the records by value, then by label. It's in-place, no record is copied.
+     */
+    public void sortByValue() {
+        IndexedSort.sort(new IndexedSort.Sortable() {
+            @Override
+            public int compare(int i, int j) {
+                int d = Double.compare(values[i], values[j]);
+                return (d == 0 ? (labels[i] - labels[j]) : d);
+            }
+
+            @Override
+            public void swap(int i, int j) {
+                double value = values[i];
+                values[i] = values[j];
+                values[j] = value;
+
+                byte label = labels[i];
+                labels[i] = labels[j];
+                labels[j] = label;
+
+                double weight = weights[i];
+                weights[i] = weights[j];
+                weights[j] = weight;
+
+                int categoryId = categoryIds[i];
+                categoryIds[i] = categoryIds[j];
+                categoryIds[j] = categoryId;
+            }
+        }, size);
+    }
+
+}
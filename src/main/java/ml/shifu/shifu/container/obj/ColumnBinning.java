@@ -17,7 +17,10 @@ package ml.shifu.shifu.container.obj;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * ColumnBinning class represents the information of BINNING.
@@ -26,6 +29,11 @@ import java.util.List;
  * Please note for numerical variables, @binCategory will be null, but
  * for categorical variables @binBoundary will be null.
  * The @binLength will equal size of @binBoundary or size of @binCategory.
+ * <p/>
+ * To locate the bin of a value, the boundaries are indexed into double[] for binary search, and
+ * the categories are indexed into hash map. The index is built lazily, and dropped by
+ * {@link #setBinBoundary(List)} and {@link #setBinCategory(List)}. So the boundary and category lists
+ * must not be mutated in place - set the changed list again, or the stale index is used.
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class ColumnBinning {
@@ -44,6 +52,9 @@ public class ColumnBinning {
     private List<Double> binWeightedNeg;
     private List<Double> binWeightedPos;
 
+    private transient BoundaryIndex boundaryIndex;
+    private transient CategoryIndex categoryIndex;
+
     public Integer getLength() {
         return length;
     }
@@ -58,6 +69,7 @@ public class ColumnBinning {
 
     public void setBinBoundary(List<Double> binBoundary) {
         this.binBoundary = binBoundary;
+        this.boundaryIndex = null;
     }
 
     public List<String> getBinCategory() {
@@ -66,6 +78,7 @@ public class ColumnBinning {
 
     public void setBinCategory(List<String> binCategory) {
         this.binCategory = binCategory;
+        this.categoryIndex = null;
     }
 
     public List<Integer> getBinCountNeg() {
@@ -116,4 +129,84 @@ public class ColumnBinning {
         this.binWeightedPos = binWeightedPos;
     }
 
+    /**
+     * Locate the bin of numerical value by binary search
+     *
+     * @param value - the numerical value
+     * @return the last bin whose lower boundary is not larger than the value, or -1 if there is no such bin
+     */
+    public int getNumericalBinNum(double value) {
+        BoundaryIndex index = this.boundaryIndex;
+        if (index == null) {
+            index = new BoundaryIndex(binBoundary);
+            this.boundaryIndex = index;
+        }
+        return index.getBinNum(value);
+    }
+
+    /**
+     * Locate the bin of categorical value by hash map
+     *
+     * @param category - the categorical value
+     * @return the bin of the category, or -1 if the category is unknown
+     */
+    public int getCategoricalBinNum(String category) {
+        CategoryIndex index = this.categoryIndex;
+        if (index == null) {
+            index = new CategoryIndex(binCategory);
+            this.categoryIndex = index;
+        }
+        return index.getBinNum(category);
+    }
+
+    /**
+     * BoundaryIndex keeps the boundaries as primitive array. It's immutable, so it could be shared by threads.
+     */
+    private static class BoundaryIndex {
+        private final double[] boundaries;
+
+        public BoundaryIndex(List<Double> source) {
+            this.boundaries = new double[source == null ? 0 : source.size()];
+            for (int i = 0; i < boundaries.length; i++) {
+                boundaries[i] = source.get(i);
+            }
+        }
+
+        public int getBinNum(double value) {
+            if (Double.isNaN(value)) {
+                return -1;
+            }
+
+            int pos = Arrays.binarySearch(boundaries, value);
+            if (pos < 0) {
+                return -pos - 2;
+            }
+            // the boundaries may be duplicated, use the last one
+            while (pos + 1 < boundaries.length && boundaries[pos + 1] == value) {
+                pos++;
+            }
+            return pos;
+        }
+    }
+
+    /**
+     * CategoryIndex keeps the bin of every category. It's immutable, so it could be shared by threads.
+     */
+    private static class CategoryIndex {
+        private final Map<String, Integer> bins;
+
+        public CategoryIndex(List<String> source) {
+            int size = (source == null ? 0 : source.size());
+            this.bins = new HashMap<String, Integer>(size * 2);
+            for (int i = size - 1; i >= 0; i--) {
+                // the first bin wins for duplicated category
+                bins.put(source.get(i), i);
+            }
+        }
+
+        public int getBinNum(String category) {
+            Integer binNum = bins.get(category);
+            return binNum == null ? -1 : binNum;
+        }
+    }
 }
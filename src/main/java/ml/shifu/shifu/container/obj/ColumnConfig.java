@@ -208,6 +208,20 @@ public class ColumnConfig {
         return columnBinning.getBinCategory();
     }
 
+    /**
+     * @see ColumnBinning#getNumericalBinNum(double)
+     */
+    public int getNumericalBinNum(double value) {
+        return columnBinning.getNumericalBinNum(value);
+    }
+
+    /**
+     * @see ColumnBinning#getCategoricalBinNum(String)
+     */
+    public int getCategoricalBinNum(String category) {
+        return columnBinning.getCategoricalBinNum(category);
+    }
+
     /**
      * @return
      */
@@ -343,6 +357,11 @@ public class ColumnConfig {
         return columnStats.getMissingPercentage();
     }
 
+    @JsonIgnore
+    public Long getDistinctCount() {
+        return columnStats.getDistinctCount();
+    }
+
     /**
      * @param ks
      */
@@ -405,6 +424,11 @@ public class ColumnConfig {
         columnStats.setMissingPercentage(missingPercentage);
     }
 
+    @JsonIgnore
+    public void setDistinctCount(Long distinctCount) {
+        columnStats.setDistinctCount(distinctCount);
+    }
+
     @JsonIgnore
     public List<Double> getBinWeightedNeg() {
         return this.columnBinning.getBinWeightedNeg();
@@ -36,6 +36,7 @@ public class ColumnStats {
     private Double missingPercentage;
     private Double ks;
     private Double iv;
+    private Long distinctCount;
 
     public Double getMax() {
         return max;
@@ -117,4 +118,15 @@ public class ColumnStats {
         this.missingPercentage = missingPercentage;
     }
 
+    /**
+     * @return the estimated count of distinct values, it's only available for categorical column
+     */
+    public Long getDistinctCount() {
+        return distinctCount;
+    }
+
+    public void setDistinctCount(Long distinctCount) {
+        this.distinctCount = distinctCount;
+    }
+
 }
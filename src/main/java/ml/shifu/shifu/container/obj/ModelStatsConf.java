@@ -33,7 +33,8 @@ public class ModelStatsConf {
     public static enum BinningAlgorithm {
     	Native,               //sorting way
     	SPDT,				  //paper reference: www.jmlr.org/papers/volume11/ben-haim10a/ben-haim10a.pdf
-    	MunroPat			  //paper reference: www.cs.ucsb.edu/~suri/cs290/MunroPat.pdf
+    	MunroPat,			  //paper reference: www.cs.ucsb.edu/~suri/cs290/MunroPat.pdf
+    	SinglePass			  //mergeable sketch with bin counts, binning and stats in one pass
     }
 
     private Integer maxNumBin = Integer.valueOf(10);
@@ -38,4 +38,32 @@ public class PerformanceResult {
     public List<PerformanceObject> gains;
 
     public List<PerformanceObject> weightedGains;
+
+    /**
+     * area under ROC curve, ties of score are counted as half
+     */
+    public double areaUnderRoc;
+
+    public double weightedAreaUnderRoc;
+
+    /**
+     * area under PR curve, in the form of average precision
+     */
+    public double areaUnderPr;
+
+    public double weightedAreaUnderPr;
+
+    /**
+     * Kolmogorov-Smirnov statistic, the max gap between recall and FPR
+     */
+    public double ks;
+
+    public double weightedKs;
+
+    /**
+     * log-loss, taking score / scale as the probability of positive
+     */
+    public double logLoss;
+
+    public double weightedLogLoss;
 }
@@ -28,7 +28,6 @@ import org.encog.ml.data.MLDataPair;
 import org.encog.ml.data.MLDataSet;
 import org.encog.ml.data.basic.BasicMLData;
 import org.encog.ml.data.basic.BasicMLDataPair;
-import org.encog.ml.data.basic.BasicMLDataSet;
 import org.encog.ml.data.buffer.BufferedMLDataSet;
 import org.encog.neural.networks.BasicNetwork;
 import org.slf4j.Logger;
@@ -39,6 +38,7 @@ import java.io.File;
 import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
@@ -141,6 +141,10 @@ public abstract class AbstractTrainer {
 
     /**
      * Set up the training dataset and validation dataset
+     * <p/>
+     * The bagging and the train/validation split are the indexes of records in master data set. In memory, the
+     * training set and validation set are the {@link IndexedMLDataSet} views of master data set, so all trainers
+     * share the same records; on disk, the selected records are copied into the disk files of trainer.
      *
      * @param masterDataSet
      * @throws IOException
@@ -148,25 +152,7 @@ public abstract class AbstractTrainer {
     public void setDataSet(MLDataSet masterDataSet) throws IOException {
         log.info("Setting Data Set...");
 
-        MLDataSet sampledDataSet;
-
-        if (this.trainingOption.equalsIgnoreCase("M")) {
-            log.info("Loading to Memory ...");
-            sampledDataSet = new BasicMLDataSet();
-            this.trainSet = new BasicMLDataSet();
-            this.validSet = new BasicMLDataSet();
-        } else if (this.trainingOption.equalsIgnoreCase("D")) {
-            log.info("Loading to Disk ...");
-            sampledDataSet = new BufferedMLDataSet(new File(Constants.TMP, "sampled.egb"));
-            this.trainSet = new BufferedMLDataSet(new File(Constants.TMP, "train.egb"));
-            this.validSet = new BufferedMLDataSet(new File(Constants.TMP, "valid.egb"));
-
-            int inputSize = masterDataSet.getInputSize();
-            int idealSize = masterDataSet.getIdealSize();
-            ((BufferedMLDataSet) sampledDataSet).beginLoad(inputSize, idealSize);
-            ((BufferedMLDataSet) trainSet).beginLoad(inputSize, idealSize);
-            ((BufferedMLDataSet) validSet).beginLoad(inputSize, idealSize);
-        } else {
+        if (!this.trainingOption.equalsIgnoreCase("M") && !this.trainingOption.equalsIgnoreCase("D")) {
             throw new RuntimeException("Training Option is not Valid: " + this.trainingOption);
         }
 
@@ -176,103 +162,101 @@ public abstract class AbstractTrainer {
         // Encog 3.0
         int masterSize = (int) masterDataSet.getRecordCount();
 
+        int[] sampledIndexes;
+        int sampledSize = 0;
         if (!modelConfig.isFixInitialInput()) {
             // Bagging
             if (modelConfig.isBaggingWithReplacement()) {
                 // Bagging With Replacement
-                int sampledSize = (int) (masterSize * baggingSampleRate);
-                for (int i = 0; i < sampledSize; i++) {
-                    // Encog 3.1
-                    // sampledDataSet.add(masterDataSet.get(random.nextInt(masterSize)));
-
-                    // Encog 3.0
-                    double[] input = new double[masterDataSet.getInputSize()];
-                    double[] ideal = new double[1];
-                    MLDataPair pair = new BasicMLDataPair(new BasicMLData(input), new BasicMLData(ideal));
-
-                    masterDataSet.getRecord(random.nextInt(masterSize), pair);
-                    sampledDataSet.add(pair);
+                sampledIndexes = new int[(int) (masterSize * baggingSampleRate)];
+                for (; sampledSize < sampledIndexes.length; sampledSize++) {
+                    sampledIndexes[sampledSize] = random.nextInt(masterSize);
                 }
             } else {
                 // Bagging Without Replacement
-                for (MLDataPair pair : masterDataSet) {
+                sampledIndexes = new int[masterSize];
+                for (int i = 0; i < masterSize; i++) {
                     if (random.nextDouble() < baggingSampleRate) {
-                        sampledDataSet.add(pair);
+                        sampledIndexes[sampledSize++] = i;
                     }
                 }
             }
         } else {
             List<Integer> list = loadSampleInput((int) (masterSize * baggingSampleRate), masterSize,
                     modelConfig.isBaggingWithReplacement());
+            sampledIndexes = new int[list.size()];
             for (Integer i : list) {
-                double[] input = new double[masterDataSet.getInputSize()];
-                double[] ideal = new double[1];
-                MLDataPair pair = new BasicMLDataPair(new BasicMLData(input), new BasicMLData(ideal));
-                masterDataSet.getRecord(i, pair);
-                sampledDataSet.add(pair);
+                sampledIndexes[sampledSize++] = i;
             }
         }
 
-        if (this.trainingOption.equalsIgnoreCase("D")) {
-            ((BufferedMLDataSet) sampledDataSet).endLoad();
-        }
         // Cross Validation
         log.info("Generating Training Set and Validation Set ...");
 
+        int[] trainIndexes = new int[sampledSize];
+        int[] validIndexes = new int[sampledSize];
+        int trainSize = 0, validSize = 0;
         if (!modelConfig.isFixInitialInput()) {
-            // Encog 3.0
-            for (int i = 0; i < sampledDataSet.getRecordCount(); i++) {
-
-                double[] input = new double[sampledDataSet.getInputSize()];
-                double[] ideal = new double[1];
-                MLDataPair pair = new BasicMLDataPair(new BasicMLData(input), new BasicMLData(ideal));
-
-                sampledDataSet.getRecord(i, pair);
-
+            for (int i = 0; i < sampledSize; i++) {
                 if (random.nextDouble() > crossValidationRate) {
-                    trainSet.add(pair);
+                    trainIndexes[trainSize++] = sampledIndexes[i];
                 } else {
-                    validSet.add(pair);
+                    validIndexes[validSize++] = sampledIndexes[i];
                 }
             }
         } else {
-            long sampleSize = sampledDataSet.getRecordCount();
-            long trainSetSize = (long) (sampleSize * (1 - crossValidationRate));
-            int i = 0;
-            for (; i < trainSetSize; i++) {
-                double[] input = new double[sampledDataSet.getInputSize()];
-                double[] ideal = new double[1];
-                MLDataPair pair = new BasicMLDataPair(new BasicMLData(input), new BasicMLData(ideal));
-
-                sampledDataSet.getRecord(i, pair);
-                trainSet.add(pair);
-            }
-
-            for (; i < sampleSize; i++) {
-                double[] input = new double[sampledDataSet.getInputSize()];
-                double[] ideal = new double[1];
-                MLDataPair pair = new BasicMLDataPair(new BasicMLData(input), new BasicMLData(ideal));
-
-                sampledDataSet.getRecord(i, pair);
-                validSet.add(pair);
+            long trainSetSize = (long) (sampledSize * (1 - crossValidationRate));
+            for (int i = 0; i < sampledSize; i++) {
+                if (i < trainSetSize) {
+                    trainIndexes[trainSize++] = sampledIndexes[i];
+                } else {
+                    validIndexes[validSize++] = sampledIndexes[i];
+                }
             }
         }
+        trainIndexes = Arrays.copyOf(trainIndexes, trainSize);
+        validIndexes = Arrays.copyOf(validIndexes, validSize);
 
-        if (this.trainingOption.equalsIgnoreCase("D")) {
-            ((BufferedMLDataSet) trainSet).endLoad();
-            ((BufferedMLDataSet) validSet).endLoad();
+        if (this.trainingOption.equalsIgnoreCase("M")) {
+            log.info("Loading to Memory ...");
+            // sorted indexes to visit the master records in order, the training is by batch
+            Arrays.sort(trainIndexes);
+            Arrays.sort(validIndexes);
+            this.trainSet = new IndexedMLDataSet(masterDataSet, trainIndexes);
+            this.validSet = new IndexedMLDataSet(masterDataSet, validIndexes);
+        } else {
+            log.info("Loading to Disk ...");
+            this.trainSet = copyToDisk(masterDataSet, trainIndexes, new File(Constants.TMP, "train.egb"));
+            this.validSet = copyToDisk(masterDataSet, validIndexes, new File(Constants.TMP, "valid.egb"));
         }
 
         log.info("    - # Records of the Master Data Set: " + masterSize);
         log.info("    - Bagging Sample Rate: " + baggingSampleRate);
         log.info("    - Bagging With Replacement: " + modelConfig.isBaggingWithReplacement());
-        log.info("    - # Records of the Selected Data Set: " + sampledDataSet.getRecordCount());
+        log.info("    - # Records of the Selected Data Set: " + sampledSize);
         log.info("        - Cross Validation Rate: " + crossValidationRate);
         log.info("        - # Records of the Training Set: " + this.getTrainSetSize());
         log.info("        - # Records of the Validation Set: " + this.getValidSetSize());
 
     }
 
+    /**
+     * Copy the records of master data set into disk file
+     */
+    private MLDataSet copyToDisk(MLDataSet masterDataSet, int[] indexes, File file) {
+        BufferedMLDataSet dataSet = new BufferedMLDataSet(file);
+        dataSet.beginLoad(masterDataSet.getInputSize(), masterDataSet.getIdealSize());
+
+        MLDataPair pair = BasicMLDataPair.createPair(masterDataSet.getInputSize(), masterDataSet.getIdealSize());
+        for (int index : indexes) {
+            masterDataSet.getRecord(index, pair);
+            dataSet.add(pair);
+        }
+
+        dataSet.endLoad();
+        return dataSet;
+    }
+
     /**
      * get the training data set size
      *
@@ -15,6 +15,7 @@
  */
 package ml.shifu.shifu.core;
 
+import ml.shifu.shifu.container.ColumnValueBuffer;
 import ml.shifu.shifu.container.ValueObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,7 +32,7 @@ public class BasicStatsCalculator {
      */
     private static Logger log = LoggerFactory.getLogger(BasicStatsCalculator.class);
 
-    private List<ValueObject> voList;
+    private ColumnValueBuffer buffer;
 
     private Double sum;
     private Double squaredSum;
@@ -51,7 +52,22 @@ public class BasicStatsCalculator {
      * @param threshold
      */
     public BasicStatsCalculator(List<ValueObject> voList, Double threshold) {
-        this.voList = voList;
+        this.buffer = new ColumnValueBuffer(voList.size());
+        for (ValueObject vo : voList) {
+            this.buffer.add(vo.getValue(), null, ColumnValueBuffer.LABEL_OTHER, 1.0);
+        }
+        this.threshold = threshold;
+        calculateStats();
+    }
+
+    /**
+     * Constructor
+     *
+     * @param buffer
+     * @param threshold
+     */
+    public BasicStatsCalculator(ColumnValueBuffer buffer, Double threshold) {
+        this.buffer = buffer;
         this.threshold = threshold;
         calculateStats();
     }
@@ -63,16 +79,20 @@ public class BasicStatsCalculator {
         sum = 0.0;
         squaredSum = 0.0;
 
-        if (voList.size() == 0) {
+        if (buffer.size() == 0) {
             return;
         }
 
         int validSize = 0;
+        double max = this.max;
+        double min = this.min;
+        double sum = 0.0;
+        double squaredSum = 0.0;
 
-        for (ValueObject vo : voList) {
-            Double value = vo.getValue();
+        for (int i = 0; i < buffer.size(); i++) {
+            double value = buffer.getValue(i);
 
-            if (value.isInfinite() || value.isNaN() || Math.abs(value) > threshold) {
+            if (Double.isInfinite(value) || Double.isNaN(value) || Math.abs(value) > threshold) {
                 log.warn("Invalid value - " + value);
                 continue;
             }
@@ -86,13 +106,18 @@ public class BasicStatsCalculator {
             squaredSum += value * value;
         }
 
+        this.max = max;
+        this.min = min;
+        this.sum = sum;
+        this.squaredSum = squaredSum;
+
         // mean and stdDev defaults to NaN
-        if (validSize <= 1 || sum.isInfinite() || squaredSum.isInfinite()) {
+        if (validSize <= 1 || Double.isInfinite(sum) || Double.isInfinite(squaredSum)) {
             return;
         }
 
-        //it's ok while the voList is sorted;
-        setMedian(voList.get(voList.size() / 2).getValue());
+        //it's ok while the buffer is sorted;
+        setMedian(buffer.getValue(buffer.size() / 2));
 
         mean = sum / validSize;
         stdDev = Math.sqrt((squaredSum - (sum * sum) / validSize + EPS)
@@ -15,10 +15,10 @@
  */
 package ml.shifu.shifu.core;
 
+import ml.shifu.shifu.container.ColumnValueBuffer;
 import ml.shifu.shifu.container.ValueObject;
-import ml.shifu.shifu.container.ValueObject.ValueObjectComparator;
 import ml.shifu.shifu.container.obj.ModelStatsConf.BinningMethod;
-import ml.shifu.shifu.util.QuickSort;
+import ml.shifu.shifu.core.binning.CategoricalBinning;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -75,7 +75,7 @@ public class Binning {
     /**
      * Input Data
      */
-    private List<ValueObject> voList;
+    private ColumnValueBuffer buffer;
 
     /**
      * value object size
@@ -156,12 +156,24 @@ public class Binning {
      * @param voList  Value object list
      */
     public Binning(List<String> posTags, List<String> negTags, BinningDataType type, List<ValueObject> voList) {
+        this(posTags, negTags, type, toValueBuffer(voList, posTags, negTags));
+    }
+
+    /**
+     * Constructor
+     *
+     * @param posTags The positive tags list
+     * @param negTags The negative tags list
+     * @param type    The data type
+     * @param buffer  Column value buffer, the labels in buffer should be generated by posTags and negTags
+     */
+    public Binning(List<String> posTags, List<String> negTags, BinningDataType type, ColumnValueBuffer buffer) {
         this.posTags = posTags;
         this.negTags = negTags;
 
         this.dataType = type;
-        this.voList = voList;
-        this.voSize = voList.size();
+        this.buffer = buffer;
+        this.voSize = buffer.size();
 
         binCountNeg = new ArrayList<Integer>();
         binCountPos = new ArrayList<Integer>();
@@ -178,6 +190,14 @@ public class Binning {
         // ValueObject.VariableObjectComparator());
     }
 
+    private static ColumnValueBuffer toValueBuffer(List<ValueObject> voList, List<String> posTags, List<String> negTags) {
+        ColumnValueBuffer buffer = new ColumnValueBuffer(voList.size());
+        for (ValueObject vo : voList) {
+            buffer.add(vo, posTags, negTags);
+        }
+        return buffer;
+    }
+
     /**
      * setter, the max bins
      *
@@ -221,8 +241,8 @@ public class Binning {
             int cntRaw = 0;
             int cntValue = 0;
 
-            for (ValueObject vo : voList) {
-                if (vo.getValue() != null) {
+            for (int i = 0; i < voSize; i++) {
+                if (buffer.hasValue(i)) {
                     cntValue++;
                 } else {
                     cntRaw++;
@@ -230,11 +250,11 @@ public class Binning {
             }
 
             Set<Object> keySet = new HashSet<Object>();
-            for (ValueObject vo : voList) {
-                if (vo.getValue() != null) {
-                    keySet.add(vo.getValue());
+            for (int i = 0; i < voSize; i++) {
+                if (buffer.hasValue(i)) {
+                    keySet.add(buffer.getValue(i));
                 } else {
-                    keySet.add(vo.getRaw());
+                    keySet.add(buffer.getRaw(i));
                 }
                 if (keySet.size() > this.autoTypeThreshold) {
                     break;
@@ -249,9 +269,9 @@ public class Binning {
             if (cntRaw > 0 || keySet.size() <= this.autoTypeThreshold) {
                 this.dataType = BinningDataType.Categorical;
                 if (cntValue > 0) {
-                    for (ValueObject vo : voList) {
-                        if (vo.getRaw() == null) {
-                            vo.setRaw(vo.getValue().toString());
+                    for (int i = 0; i < voSize; i++) {
+                        if (!buffer.hasRaw(i)) {
+                            buffer.setRaw(i, Double.toString(buffer.getValue(i)));
                         }
                     }
                 }
@@ -275,11 +295,10 @@ public class Binning {
      * BinBoundary: left, inclusive
      */
     private void doNumericalBinning() {
-        log.debug("==> There are " + voList.size() + " to sort in Binning.");
+        log.debug("==> There are " + voSize + " to sort in Binning.");
         long timestamp = System.currentTimeMillis();
-        // use our in-place quick order
-        QuickSort.sort(voList, new ValueObjectComparator(BinningDataType.Numerical));
-        // Collections.sort(voList, new ValueObjectComparator(BinningDataType.Numerical));
+        // use in-place quick sort on primitive arrays
+        buffer.sortByValue();
         log.debug("==> Spend " + (System.currentTimeMillis() - timestamp) + " milli-seconds to sort data.");
 
         if (BinningMethod.EqualPositive.equals(binningMethod)) {
@@ -295,7 +314,7 @@ public class Binning {
     private void doEqualPositiveBinning() {
         int sumBad = 0;
         for (int i = 0; i < voSize; i++) {
-            sumBad += (posTags.contains(voList.get(i).getTag()) ? 1 : 0);
+            sumBad += (buffer.getLabel(i) == ColumnValueBuffer.LABEL_POS ? 1 : 0);
         }
         int binSize = (int) Math.ceil((double) sumBad / (double) expectNumBins);
         int currBin = 0;
@@ -315,20 +334,17 @@ public class Binning {
         // add first bin (from negative infinite)
         this.binBoundary.add(Double.NEGATIVE_INFINITY);
 
-        ValueObject vo = null;
-
-        double prevData = voList.get(0).getValue();
+        double prevData = buffer.getValue(0);
         // For each Variable
         for (int i = 0; i < voSize; i++) {
 
-            vo = voList.get(i);
-            double currData = vo.getValue();
+            double currData = buffer.getValue(i);
             // currBinSumScore += vo.getScore();
 
             // current bin is full
             if (countPos[currBin] >= binSize) { // vo.getTag() != 0 &&
                 // still have some negative leftover
-                if (currBin == expectNumBins - 1 && i != voList.size() - 1) {
+                if (currBin == expectNumBins - 1 && i != voSize - 1) {
                     continue;
                 }
                 // and data is different from the previous pair
@@ -338,7 +354,7 @@ public class Binning {
                     // + countPos[currBin]));
 
                     // MOVE to the new bin, if not the last vo
-                    if (i == voList.size() - 1) {
+                    if (i == voSize - 1) {
                         break;
                     }
                     currBin++;
@@ -354,12 +370,12 @@ public class Binning {
             }
 
             // increment the counter of the current bin
-            if (negTags.contains(voList.get(i).getTag())) {
+            if (buffer.getLabel(i) == ColumnValueBuffer.LABEL_NEG) {
                 countNeg[currBin]++;
-                countWeightedNeg[currBin] += vo.getWeight();
+                countWeightedNeg[currBin] += buffer.getWeight(i);
             } else {
                 countPos[currBin]++;
-                countWeightedPos[currBin] += vo.getWeight();
+                countWeightedPos[currBin] += buffer.getWeight(i);
             }
             prevData = currData;
         }
@@ -398,31 +414,32 @@ public class Binning {
         // Add initial bin left boundary: -infinity
         binBoundary.add(Double.NEGATIVE_INFINITY);
 
-        for (ValueObject vo : voList) {
-            if (posTags.contains(vo.getTag()) || negTags.contains(vo.getTag())) {
+        for (int i = 0; i < voSize; i++) {
+            if (buffer.getLabel(i) != ColumnValueBuffer.LABEL_OTHER) {
                 cntValidValue += 1;
             }
         }
 
 
         int cntCumTotal = 0;
-        for (ValueObject vo : voList) {
+        for (int i = 0; i < voSize; i++) {
 
             // Pre-processing: if bin is full, add binBoundary
             if (isFull) {
-                binBoundary.add(vo.getValue());
+                binBoundary.add(buffer.getValue(i));
                 isFull = false;
             }
 
             // Core: push into bin or skip
-            if (posTags.contains(vo.getTag())) {
+            byte label = buffer.getLabel(i);
+            if (label == ColumnValueBuffer.LABEL_POS) {
                 cntPos++;
-                cntWeightedPos += vo.getWeight();
+                cntWeightedPos += buffer.getWeight(i);
                 cntTotal += 1;
                 cntCumTotal += 1;
-            } else if (negTags.contains(vo.getTag())) {
+            } else if (label == ColumnValueBuffer.LABEL_NEG) {
                 cntNeg++;
-                cntWeightedNeg += vo.getWeight();
+                cntWeightedNeg += buffer.getWeight(i);
                 cntTotal += 1;
                 cntCumTotal += 1;
             } else {
@@ -452,64 +469,55 @@ public class Binning {
         }
     }
 
-    /**
-     * if map contain key, the value increase 1
-     *
-     * @param map
-     * @param key
-     */
-    private void incMapCnt(Map<String, Integer> map, String key) {
-        int cnt = map.containsKey(key) ? map.get(key) : 0;
-        map.put(key, cnt + 1);
-    }
-
-    private void incMapWithValue(Map<String, Double> map, String key, Double value) {
-        double num = map.containsKey(key) ? map.get(key) : 0.0;
-        map.put(key, num + value);
-    }
-
     /**
      * categorical binning
      */
     private void doCategoricalBinning() {
-        // In JDK1.6, the sort action will copy the whole array. That's memory consuming
-        // For categorical variable, it's not necessary to sort the data
-        // Collections.sort(voList, new ValueObjectComparator(BinningDataType.Categorical));
-
-        Map<String, Integer> categoryHistNeg = new HashMap<String, Integer>();
-        Map<String, Integer> categoryHistPos = new HashMap<String, Integer>();
-        Map<String, Double> categoryWeightedNeg = new HashMap<String, Double>();
-        Map<String, Double> categoryWeightedPos = new HashMap<String, Double>();
-
-        Set<String> categorySet = new HashSet<String>();
-        // Map<String, Double> categoryScoreMap = new HashMap<String, Double>();
+        // Count by category id, the records without raw value are counted in the null slot,
+        // and the records of infrequent categories are folded into the other slot
+        List<String> categories = buffer.getCategories();
+        int nullSlot = categories.size();
+        int otherSlot = nullSlot + 1;
+        int[] histNeg = new int[otherSlot + 1];
+        int[] histPos = new int[otherSlot + 1];
+        double[] weightedNeg = new double[otherSlot + 1];
+        double[] weightedPos = new double[otherSlot + 1];
+        boolean[] present = new boolean[otherSlot + 1];
 
         for (int i = 0; i < voSize; i++) {
-            String category = voList.get(i).getRaw();
-            categorySet.add(category);
-            // Double score = categoryScoreMap.containsKey(category) ? categoryScoreMap.get(category) : 0;
-            // categoryScoreMap.put(category, score + voList.get(i).getScore());
-
-            if (negTags.contains(voList.get(i).getTag())) {
-                incMapCnt(categoryHistNeg, category);
-                incMapWithValue(categoryWeightedNeg, category, voList.get(i).getWeight());
+            int id = buffer.getCategoryId(i);
+            int slot = (id == ColumnValueBuffer.NO_CATEGORY ? nullSlot : id);
+            present[slot] = true;
+
+            if (buffer.getLabel(i) == ColumnValueBuffer.LABEL_NEG) {
+                histNeg[slot]++;
+                weightedNeg[slot] += buffer.getWeight(i);
             } else {
-                incMapCnt(categoryHistPos, category);
-                incMapWithValue(categoryWeightedPos, category, voList.get(i).getWeight());
+                histPos[slot]++;
+                weightedPos[slot] += buffer.getWeight(i);
             }
         }
 
+        int[] slotMapping = capCategories(histNeg, histPos, weightedNeg, weightedPos, present);
+
+        Map<String, Integer> categorySlot = new HashMap<String, Integer>();
         Map<String, Double> categoryFraudRateMap = new HashMap<String, Double>();
 
-        for (String key : categorySet) {
-            double cnt0 = categoryHistNeg.containsKey(key) ? categoryHistNeg.get(key) : 0;
-            double cnt1 = categoryHistPos.containsKey(key) ? categoryHistPos.get(key) : 0;
+        for (int slot = 0; slot <= otherSlot; slot++) {
+            if (!present[slot]) {
+                continue;
+            }
+            String key = (slot == nullSlot ? null : (slot == otherSlot ? CategoricalBinning.OTHER_CATEGORY
+                    : categories.get(slot)));
+            double cnt0 = histNeg[slot];
+            double cnt1 = histPos[slot];
             double rate;
             if (cnt0 + cnt1 == 0) {
                 rate = 0;
             } else {
                 rate = cnt1 / (cnt0 + cnt1);
             }
+            categorySlot.put(key, slot);
             categoryFraudRateMap.put(key, rate);
         }
 
@@ -518,37 +526,75 @@ public class Binning {
         Map<String, Double> sortedCategoryFraudRateMap = new TreeMap<String, Double>(cmp);
         sortedCategoryFraudRateMap.putAll(categoryFraudRateMap);
 
+        // the positive rate of each slot, it's 0 if the category is not in bins
+        double[] slotPosRate = new double[otherSlot + 1];
         for (String key : sortedCategoryFraudRateMap.keySet()) {
-            Integer countNeg = categoryHistNeg.containsKey(key) ? categoryHistNeg.get(key) : 0;
-            binCountNeg.add(countNeg);
-            Integer countPos = categoryHistPos.containsKey(key) ? categoryHistPos.get(key) : 0;
-            binCountPos.add(countPos);
-
-            Double weightedNeg = categoryWeightedNeg.containsKey(key) ? categoryWeightedNeg.get(key) : 0.0;
-            this.binWeightedNeg.add(weightedNeg);
-
-            Double weightedPos = categoryWeightedPos.containsKey(key) ? categoryWeightedPos.get(key) : 0.0;
-            this.binWeightedPos.add(weightedPos);
+            int slot = categorySlot.get(key);
+            binCountNeg.add(histNeg[slot]);
+            binCountPos.add(histPos[slot]);
+            this.binWeightedNeg.add(weightedNeg[slot]);
+            this.binWeightedPos.add(weightedPos[slot]);
 
             // use zero, the average score is calculate in post-process
             binAvgScore.add(0);
             binCategory.add(key);
             binPosCaseRate.add(sortedCategoryFraudRateMap.get(key));
+            slotPosRate[slot] = sortedCategoryFraudRateMap.get(key);
         }
 
         this.actualNumBins = binCategory.size();
 
-        for (ValueObject vo : voList) {
-            String key = vo.getRaw();
+        for (int i = 0; i < voSize; i++) {
+            int id = buffer.getCategoryId(i);
+            buffer.setValue(i, slotPosRate[slotMapping[id == ColumnValueBuffer.NO_CATEGORY ? nullSlot : id]]);
+        }
+    }
 
-            // TODO: Delete this after categorical data is correctly labeled.
-            if (binCategory.indexOf(key) == -1) {
-                vo.setValue(0.0);
-            } else {
-                // --- end deletion ---
-                vo.setValue(binPosCaseRate.get(binCategory.indexOf(key)));
+    /**
+     * Keep the most frequent categories only, the counts of other categories are folded into the last slot.
+     *
+     * @return the mapping from original slot to the slot in bins
+     */
+    private int[] capCategories(int[] histNeg, int[] histPos, double[] weightedNeg, double[] weightedPos,
+                                boolean[] present) {
+        int otherSlot = present.length - 1;
+        int[] slotMapping = new int[otherSlot];
+        List<Integer> presentSlots = new ArrayList<Integer>();
+        for (int slot = 0; slot < otherSlot; slot++) {
+            slotMapping[slot] = slot;
+            if (present[slot]) {
+                presentSlots.add(slot);
             }
         }
+
+        if (presentSlots.size() <= CategoricalBinning.MAX_CATEGORICAL_BINC_COUNT) {
+            return slotMapping;
+        }
+
+        final int[] total = new int[otherSlot];
+        for (int slot = 0; slot < otherSlot; slot++) {
+            total[slot] = histNeg[slot] + histPos[slot];
+        }
+        Collections.sort(presentSlots, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return (total[a] == total[b] ? a.compareTo(b) : (total[a] > total[b] ? -1 : 1));
+            }
+        });
+
+        log.warn("Too many categories - " + presentSlots.size() + ", only top "
+                + CategoricalBinning.MAX_TOP_CATEGORIES + " categories are kept.");
+        for (int i = CategoricalBinning.MAX_TOP_CATEGORIES; i < presentSlots.size(); i++) {
+            int slot = presentSlots.get(i);
+            histNeg[otherSlot] += histNeg[slot];
+            histPos[otherSlot] += histPos[slot];
+            weightedNeg[otherSlot] += weightedNeg[slot];
+            weightedPos[otherSlot] += weightedPos[slot];
+            present[slot] = false;
+            present[otherSlot] = true;
+            slotMapping[slot] = otherSlot;
+        }
+        return slotMapping;
     }
 
     /**
@@ -607,16 +653,17 @@ public class Binning {
     }
 
     /**
-     * @return get the volist
+     * @return get the value buffer, the values of categorical data are updated to positive rate
      */
-    public List<ValueObject> getUpdatedVoList() {
-        for (ValueObject vo : voList) {
-            if (vo.getValue() == null) {
+    public ColumnValueBuffer getUpdatedValueBuffer() {
+        // numerical value could be NaN, only check categorical value that should be updated by binning
+        for (int i = 0; i < voSize && !BinningDataType.Numerical.equals(dataType); i++) {
+            if (!buffer.hasValue(i)) {
                 log.error("Not Updated yet.");
                 return null;
             }
         }
-        return voList;
+        return buffer;
     }
 
     /**
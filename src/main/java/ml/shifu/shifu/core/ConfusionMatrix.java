@@ -20,18 +20,23 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
-import java.util.Scanner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import ml.shifu.shifu.container.ConfusionMatrixObject;
-import ml.shifu.shifu.container.ModelResultObject;
 import ml.shifu.shifu.container.obj.EvalConfig;
 import ml.shifu.shifu.container.obj.ModelConfig;
 import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
 import ml.shifu.shifu.exception.ShifuErrorCode;
 import ml.shifu.shifu.exception.ShifuException;
+import ml.shifu.shifu.fs.LineReader;
 import ml.shifu.shifu.fs.PathFinder;
 import ml.shifu.shifu.fs.ShifuFileUtils;
 import ml.shifu.shifu.util.CommonUtils;
+import ml.shifu.shifu.util.Environment;
 
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
@@ -107,143 +112,143 @@ public class ConfusionMatrix {
         return CommonUtils.getHeaders(pathHeader, "|", sourceType);
     }
 
-    public void bufferedComputeConfusionMatrix(long pigPosTags, long pigNegTags, double pigPosWeightTags,
-            double pigNegWeightTags) throws IOException {
+    /**
+     * Compute confusion matrix from the score histogram generated by Eval.pig. Only one matrix is written for every
+     * distinct score, so the matrix file is small no matter how many records are evaluated.
+     * 
+     * @return the count of records in histogram
+     * @throws IOException
+     */
+    public long computeConfusionMatrixByHistogram() throws IOException {
         PathFinder pathFinder = new PathFinder(modelConfig);
-
         SourceType sourceType = evalConfig.getDataSet().getSource();
 
-        List<Scanner> scanners = ShifuFileUtils.getDataScanners(pathFinder.getEvalScorePath(evalConfig, sourceType),
-                sourceType);
+        List<LineReader> readers = ShifuFileUtils.getDataReaders(
+                pathFinder.getEvalScoreHistogramPath(evalConfig, sourceType), sourceType);
 
-        boolean isDir = ShifuFileUtils.isDir(pathFinder.getEvalScorePath(evalConfig, sourceType), sourceType);
+        ScoreHistogram histogram = new ScoreHistogram();
+        for(LineReader reader: readers) {
+            String line;
+            while((line = reader.readLine()) != null) {
+                if(StringUtils.isNotBlank(line)) {
+                    histogram.addLine(line);
+                }
+            }
+            reader.close();
+        }
 
-        log.info("The size of scanner is {}", scanners.size());
+        long records = histogram.getRecordCount();
+        log.info("Totally loaded {} records with {} distinct scores.", records, histogram.size());
 
-        int cnt = 0;
+        if(histogram.isEmpty()) {
+            log.error("No score read, the EvalScore did not genernate or is null file");
+            throw new ShifuException(ShifuErrorCode.ERROR_EVALSCORE);
+        }
 
-        List<String> posTags = modelConfig.getPosTags(evalConfig);
+        saveConfusionMatrix(histogram);
+        return records;
+    }
 
+    private void saveConfusionMatrix(ScoreHistogram histogram) throws IOException {
+        PathFinder pathFinder = new PathFinder(modelConfig);
         BufferedWriter confMatWriter = ShifuFileUtils.getWriter(pathFinder.getEvalMatrixPath(evalConfig, evalConfig
                 .getDataSet().getSource()), evalConfig.getDataSet().getSource());
+        try {
+            for(ConfusionMatrixObject cmo: histogram.toConfusionMatrix()) {
+                ConfusionMatrixCalculator.saveConfusionMaxtrixWithWriter(confMatWriter, cmo);
+            }
+        } finally {
+            confMatWriter.close();
+        }
+    }
 
-        ConfusionMatrixObject prevCmo = new ConfusionMatrixObject();
-        prevCmo.setTp(0.0);
-        prevCmo.setFp(0.0);
-        prevCmo.setFn(pigPosTags);
-        prevCmo.setTn(pigNegTags);
-        prevCmo.setWeightedTp(0.0);
-        prevCmo.setWeightedFp(0.0);
-        prevCmo.setWeightedFn(pigPosWeightTags);
-        prevCmo.setWeightedTn(pigNegWeightTags);
-        prevCmo.setScore(1000);
-
-        ConfusionMatrixCalculator.saveConfusionMaxtrixWithWriter(confMatWriter, prevCmo);
-
-        for (Scanner scanner : scanners) {
-            while(scanner.hasNext()) {
-                if((++cnt) % 100000 == 0) {
-                    log.info("Loaded " + cnt + " records.");
-                }
-
-                String[] raw = scanner.nextLine().split("\\|");
-
-                if((!isDir) && cnt == 1) {
-                    // if the evaluation score file is the local file, skip the
-                    // first line since we add
-                    continue;
-                }
+    /**
+     * Compute confusion matrix from EvalScore in local mode. The score files are parsed in parallel, and the records
+     * are folded into per-score histogram, so the memory doesn't depend on the number of records.
+     * 
+     * @return the count of records in histogram
+     * @throws IOException
+     */
+    public long computeConfusionMatrix() throws IOException {
+        PathFinder pathFinder = new PathFinder(modelConfig);
+        SourceType sourceType = evalConfig.getDataSet().getSource();
 
-                String tag = raw[targetColumnIndex];
-                if(StringUtils.isBlank(tag)) {
-                    if(rd.nextDouble() < 0.01) {
-                        log.warn("Empty target value!!");
-                    }
+        List<LineReader> readers = ShifuFileUtils.getDataReaders(pathFinder.getEvalScorePath(evalConfig, sourceType),
+                sourceType);
+        boolean isDir = ShifuFileUtils.isDir(pathFinder.getEvalScorePath(evalConfig, sourceType), sourceType);
 
-                    continue;
-                }
+        log.info("The size of reader is {}", readers.size());
 
-                double weight = 1.0d;
-                if(this.weightColumnIndex > 0) {
-                    try {
-                        weight = Double.parseDouble(raw[1]);
-                    } catch (NumberFormatException e) {
-                        // Do nothing
-                    }
-                }
+        int numThreads = Math.max(1, Math.min(readers.size(), Environment.getInt(Environment.LOCAL_NUM_PARALLEL,
+                Runtime.getRuntime().availableProcessors())));
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
 
-                double score = 0.0;
-                try {
-                    score = Double.parseDouble(raw[scoreColumnIndex]);
-                } catch (NumberFormatException e) {
-                    // user set the score column wrong ?
-                    if(rd.nextDouble() < 0.05) {
-                        log.warn("The score column - {} is not integer. Is score column set correctly?",
-                                raw[scoreColumnIndex]);
-                    }
-                    continue;
-                }
-
-                ConfusionMatrixObject cmo = new ConfusionMatrixObject(prevCmo);
-
-                // TODO enable scaling factor
-                if(posTags.contains(tag)) {
-                    // Positive Instance
-                    cmo.setTp(cmo.getTp() + 1);
-                    cmo.setFn(cmo.getFn() - 1);
-                    cmo.setWeightedTp(cmo.getWeightedTp() + weight * 1.0);
-                    cmo.setWeightedFn(cmo.getWeightedFn() - weight * 1.0);
-                } else {
-                    // Negative Instance
-                    cmo.setFp(cmo.getFp() + 1);
-                    cmo.setTn(cmo.getTn() - 1);
-                    cmo.setWeightedFp(cmo.getWeightedFp() + weight * 1.0);
-                    cmo.setWeightedTn(cmo.getWeightedTn() - weight * 1.0);
-                }
+        ScoreHistogram histogram = new ScoreHistogram();
+        try {
+            List<Future<ScoreHistogram>> futures = new ArrayList<Future<ScoreHistogram>>(readers.size());
+            for(int i = 0; i < readers.size(); i++) {
+                // if the evaluation score file is the local file, skip the first line since it's header
+                futures.add(executor.submit(new ScoreHistogramTask(readers.get(i), (!isDir) && i == 0)));
+            }
 
-                cmo.setScore(score);
-                ConfusionMatrixCalculator.saveConfusionMaxtrixWithWriter(confMatWriter, cmo);
-                prevCmo = cmo;
+            for(Future<ScoreHistogram> future: futures) {
+                histogram.merge(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ShifuException(ShifuErrorCode.ERROR_LOCAL_EXECUTE_EXCEPTION, e);
+        } catch (ExecutionException e) {
+            throw new ShifuException(ShifuErrorCode.ERROR_LOCAL_EXECUTE_EXCEPTION, e);
+        } finally {
+            executor.shutdownNow();
+            for(LineReader reader: readers) {
+                // release resource
+                reader.close();
             }
-            scanner.close();
         }
 
-        log.info("Totally loaded " + cnt + " records.");
+        long records = histogram.getRecordCount();
+        log.info("Totally loaded {} records with {} distinct scores.", records, histogram.size());
 
-        if(cnt == 0) {
+        if(histogram.isEmpty()) {
             log.error("No score read, the EvalScore did not genernate or is null file");
             throw new ShifuException(ShifuErrorCode.ERROR_EVALSCORE);
         }
 
-        confMatWriter.close();
+        saveConfusionMatrix(histogram);
+        return records;
     }
 
-    public void computeConfusionMatrix() throws IOException {
-
-        PathFinder pathFinder = new PathFinder(modelConfig);
-
-        SourceType sourceType = evalConfig.getDataSet().getSource();
-
-        List<Scanner> scanners = ShifuFileUtils.getDataScanners(pathFinder.getEvalScorePath(evalConfig, sourceType),
-                sourceType);
-
-        List<ModelResultObject> moList = new ArrayList<ModelResultObject>();
+    /**
+     * ScoreHistogramTask folds the records of one score file into histogram
+     */
+    private class ScoreHistogramTask implements Callable<ScoreHistogram> {
 
-        boolean isDir = ShifuFileUtils.isDir(pathFinder.getEvalScorePath(evalConfig, sourceType), sourceType);
+        private final LineReader reader;
+        private final boolean skipHeader;
+        private final List<String> posTags = modelConfig.getPosTags(evalConfig);
 
-        log.info("The size of scanner is {}", scanners.size());
+        public ScoreHistogramTask(LineReader reader, boolean skipHeader) {
+            this.reader = reader;
+            this.skipHeader = skipHeader;
+        }
 
-        int cnt = 0;
-        for(Scanner scanner: scanners) {
-            while(scanner.hasNext()) {
-                if((++cnt) % 10000 == 0) {
-                    log.info("Loaded " + cnt + " records.");
+        @Override
+        public ScoreHistogram call() throws IOException {
+            ScoreHistogram histogram = new ScoreHistogram();
+
+            boolean isFirst = true;
+            String line;
+            while((line = reader.readLine()) != null) {
+                if(isFirst) {
+                    isFirst = false;
+                    if(skipHeader) {
+                        continue;
+                    }
                 }
 
-                String[] raw = scanner.nextLine().split("\\|");
-                if((!isDir) && cnt == 1) {
-                    // if the evaluation score file is the local file, skip the
-                    // first line since we add
+                String[] raw = StringUtils.splitPreserveAllTokens(line, '|');
+                if(raw.length <= scoreColumnIndex || raw.length <= targetColumnIndex) {
                     continue;
                 }
 
@@ -252,20 +257,19 @@ public class ConfusionMatrix {
                     if(rd.nextDouble() < 0.01) {
                         log.warn("Empty target value!!");
                     }
-
                     continue;
                 }
 
                 double weight = 1.0d;
-                if(this.weightColumnIndex > 0) {
+                if(weightColumnIndex >= 0 && weightColumnIndex < raw.length) {
                     try {
-                        weight = Double.parseDouble(raw[1]);
+                        weight = Double.parseDouble(raw[weightColumnIndex]);
                     } catch (NumberFormatException e) {
                         // Do nothing
                     }
                 }
 
-                double score = 0;
+                double score = 0.0;
                 try {
                     score = Double.parseDouble(raw[scoreColumnIndex]);
                 } catch (NumberFormatException e) {
@@ -277,31 +281,10 @@ public class ConfusionMatrix {
                     continue;
                 }
 
-                moList.add(new ModelResultObject(score, tag, weight));
+                histogram.add(score, posTags.contains(tag), weight);
             }
 
-            // release resource
-            scanner.close();
+            return histogram;
         }
-
-        log.info("Totally loaded " + cnt + " records.");
-
-        if(cnt == 0 || moList.size() == 0) {
-            log.error("No score read, the EvalScore did not genernate or is null file");
-            throw new ShifuException(ShifuErrorCode.ERROR_EVALSCORE);
-        }
-
-        ConfusionMatrixCalculator calculator = new ConfusionMatrixCalculator(modelConfig.getPosTags(evalConfig),
-                modelConfig.getNegTags(evalConfig), moList);
-
-        PathFinder finder = new PathFinder(modelConfig);
-
-        BufferedWriter confMatWriter = ShifuFileUtils.getWriter(finder.getEvalMatrixPath(evalConfig, evalConfig
-                .getDataSet().getSource()), evalConfig.getDataSet().getSource());
-
-        calculator.calculate(confMatWriter);
-
-        confMatWriter.close();
-
     }
 }
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.encog.ml.data.MLData;
+import org.encog.ml.data.MLDataPair;
+import org.encog.ml.data.MLDataSet;
+import org.encog.ml.data.basic.BasicMLDataPair;
+import org.encog.ml.data.basic.BasicMLDataSet;
+
+/**
+ * IndexedMLDataSet class is a read-only view of the master data set, which is defined by the indexes of records in
+ * master data set.
+ *
+ * <p>
+ * The same index could appear more than once, which is the case of sampling with replacement. All bagging trainers
+ * share the same master records, so there is no copy of record for the bagging and the train/validation split.
+ *
+ * @Dec 14, 2014
+ *
+ */
+public class IndexedMLDataSet implements MLDataSet {
+
+    private final MLDataSet master;
+
+    /**
+     * the records of master, if the master is in memory
+     */
+    private final List<MLDataPair> masterPairs;
+
+    private final int[] indexes;
+
+    /**
+     * @param master
+     *            - the master data set, which should not be changed after the view is created
+     * @param indexes
+     *            - the indexes of records in master data set
+     */
+    public IndexedMLDataSet(MLDataSet master, int[] indexes) {
+        this.master = master;
+        this.masterPairs = (master instanceof BasicMLDataSet ? ((BasicMLDataSet) master).getData() : null);
+        this.indexes = indexes;
+    }
+
+    /**
+     * @return the index of record in master data set
+     */
+    public int getMasterIndex(long index) {
+        return indexes[(int) index];
+    }
+
+    /* (non-Javadoc)
+     * @see org.encog.ml.data.MLDataSet#getIdealSize()
+     */
+    @Override
+    public int getIdealSize() {
+        return master.getIdealSize();
+    }
+
+    /* (non-Javadoc)
+     * @see org.encog.ml.data.MLDataSet#getInputSize()
+     */
+    @Override
+    public int getInputSize() {
+        return master.getInputSize();
+    }
+
+    /* (non-Javadoc)
+     * @see org.encog.ml.data.MLDataSet#isSupervised()
+     */
+    @Override
+    public boolean isSupervised() {
+        return master.isSupervised();
+    }
+
+    /* (non-Javadoc)
+     * @see org.encog.ml.data.MLDataSet#getRecordCount()
+     */
+    @Override
+    public long getRecordCount() {
+        return indexes.length;
+    }
+
+    /* (non-Javadoc)
+     * @see org.encog.ml.data.MLDataSet#getRecord(long, org.encog.ml.data.MLDataPair)
+     */
+    @Override
+    public void getRecord(long index, MLDataPair pair) {
+        master.getRecord(indexes[(int) index], pair);
+    }
+
+    /**
+     * The view is read-only, so the view itself could be used by other threads if the master is in memory
+     */
+    @Override
+    public MLDataSet openAdditional() {
+        if(masterPairs != null) {
+            return this;
+        }
+        return new IndexedMLDataSet(master.openAdditional(), indexes);
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Iterable#iterator()
+     */
+    @Override
+    public Iterator<MLDataPair> iterator() {
+        return new Iterator<MLDataPair>() {
+            private int current = 0;
+
+            @Override
+            public boolean hasNext() {
+                return current < indexes.length;
+            }
+
+            @Override
+            public MLDataPair next() {
+                if(!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                int index = indexes[current++];
+                if(masterPairs != null) {
+                    return masterPairs.get(index);
+                }
+
+                MLDataPair pair = BasicMLDataPair.createPair(getInputSize(), getIdealSize());
+                master.getRecord(index, pair);
+                return pair;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("The indexed data set is read-only.");
+            }
+        };
+    }
+
+    @Override
+    public void add(MLData data) {
+        throw new UnsupportedOperationException("The indexed data set is read-only.");
+    }
+
+    @Override
+    public void add(MLData inputData, MLData idealData) {
+        throw new UnsupportedOperationException("The indexed data set is read-only.");
+    }
+
+    @Override
+    public void add(MLDataPair inputData) {
+        throw new UnsupportedOperationException("The indexed data set is read-only.");
+    }
+
+    /**
+     * Nothing to close, the master data set is closed by its owner
+     */
+    @Override
+    public void close() {
+    }
+}
@@ -36,8 +36,24 @@ public class KSIVCalculator {
     }
 
     public void calculateKSIV(List<Integer> h0, List<Integer> h1) {
+        long[] cnt0 = new long[h0.size()];
+        long[] cnt1 = new long[h1.size()];
+        for (int i = 0; i < cnt0.length; i++) {
+            cnt0[i] = h0.get(i);
+            cnt1[i] = h1.get(i);
+        }
+        calculateKSIV(cnt0, cnt1);
+    }
+
+    /**
+     * Calculate KS/IV from primitive negative/positive bin counts
+     *
+     * @param h0 - negative count of each bin
+     * @param h1 - positive count of each bin
+     */
+    public void calculateKSIV(long[] h0, long[] h1) {
 
-        int numBins = h0.size();
+        int numBins = h0.length;
 
         double sum0 = 0.0;
         double sum1 = 0.0;
@@ -47,8 +63,8 @@ public class KSIVCalculator {
         double ks = 0.0;
 
         for (int i = 0; i < numBins; i++) {
-            sum0 += h0.get(i);
-            sum1 += h1.get(i);
+            sum0 += h0[i];
+            sum1 += h1[i];
         }
 
         if (sum0 == 0 || sum1 == 0) {
@@ -58,8 +74,8 @@ public class KSIVCalculator {
         }
 
         for (int i = 0; i < numBins; i++) {
-            double cnt0 = h0.get(i);
-            double cnt1 = h1.get(i);
+            double cnt0 = h0[i];
+            double cnt1 = h1[i];
             //double rate = 0.0;
             //if (cnt0 > 0) {
             //	rate = cnt1 / cnt0;
@@ -0,0 +1,337 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import ml.shifu.shifu.container.obj.ColumnConfig;
+import ml.shifu.shifu.container.obj.ModelConfig;
+import ml.shifu.shifu.core.binning.AbstractStatsSketch;
+import ml.shifu.shifu.core.binning.AutoTypeStatsSketch;
+import ml.shifu.shifu.exception.ShifuErrorCode;
+import ml.shifu.shifu.exception.ShifuException;
+import ml.shifu.shifu.fs.LineReader;
+import ml.shifu.shifu.util.CommonUtils;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * LocalStatsEngine class calculates the stats of all candidate columns in local mode.
+ *
+ * <p>
+ * Each input reader, usually a split of file, is read in chunks by its own reading thread, and the chunks are handed to
+ * a fixed number of worker threads through a bounded queue, so only a few chunks are in memory at any time. Every worker keeps its own
+ * {@link AbstractStatsSketch} for each column, so there is no lock or message copy while processing data. When all
+ * input is consumed, the sketches of workers are merged, and the bins, KS/IV and basic stats are derived from the
+ * merged sketches. The type of column with type 'A' is decided by the data, see {@link AutoTypeStatsSketch}.
+ *
+ * @Dec 4, 2014
+ *
+ */
+public class LocalStatsEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalStatsEngine.class);
+
+    /**
+     * Default record count in one chunk
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 10000;
+
+    /**
+     * The marker to tell workers there is no more input
+     */
+    private static final List<String> END_OF_INPUT = Collections.emptyList();
+
+    private final ModelConfig modelConfig;
+    private final List<ColumnConfig> columnConfigList;
+    private final int numThreads;
+    private final int chunkSize;
+
+    private int targetColumnNum = -1;
+    private int weightColumnNum = -1;
+
+    /**
+     * Constructor
+     *
+     * @param modelConfig
+     * @param columnConfigList
+     * @param numThreads
+     *            - the number of worker threads
+     * @param chunkSize
+     *            - the number of records in one chunk
+     */
+    public LocalStatsEngine(ModelConfig modelConfig, List<ColumnConfig> columnConfigList, int numThreads,
+            int chunkSize) {
+        this.modelConfig = modelConfig;
+        this.columnConfigList = columnConfigList;
+        this.numThreads = Math.max(numThreads, 1);
+        this.chunkSize = Math.max(chunkSize, 1);
+
+        String weightColumnName = modelConfig.getDataSet().getWeightColumnName();
+        for(ColumnConfig config: columnConfigList) {
+            if(config.isTarget()) {
+                targetColumnNum = config.getColumnNum();
+            } else if(StringUtils.isNotEmpty(weightColumnName) && config.getColumnName().equals(weightColumnName)) {
+                weightColumnNum = config.getColumnNum();
+            }
+        }
+
+        if(targetColumnNum == -1) {
+            throw new ShifuException(ShifuErrorCode.ERROR_NO_TARGET_COLUMN);
+        }
+    }
+
+    /**
+     * Calculate the stats from input, and update the stats into @ColumnConfig list
+     *
+     * @param readers
+     *            - the input data
+     * @throws IOException
+     */
+    public void calculate(List<LineReader> readers) throws IOException {
+        BlockingQueue<List<String>> queue = new ArrayBlockingQueue<List<String>>(numThreads * 2);
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        ExecutorService readExecutor = Executors.newFixedThreadPool(Math.max(1, Math.min(readers.size(), numThreads)));
+
+        List<Future<AbstractStatsSketch[]>> futures = new ArrayList<Future<AbstractStatsSketch[]>>(numThreads);
+        try {
+            for(int i = 0; i < numThreads; i++) {
+                futures.add(executor.submit(new StatsTask(queue)));
+            }
+
+            List<Future<Long>> readFutures = new ArrayList<Future<Long>>(readers.size());
+            for(LineReader reader: readers) {
+                readFutures.add(readExecutor.submit(new ReadTask(reader, queue)));
+            }
+
+            long recordCnt = 0;
+            for(Future<Long> future: readFutures) {
+                recordCnt += future.get();
+            }
+            log.info("Totally read " + recordCnt + " records.");
+
+            for(int i = 0; i < numThreads; i++) {
+                queue.put(END_OF_INPUT);
+            }
+
+            AbstractStatsSketch[] merged = new AbstractStatsSketch[columnConfigList.size()];
+            for(Future<AbstractStatsSketch[]> future: futures) {
+                AbstractStatsSketch[] sketches = future.get();
+                for(int i = 0; i < sketches.length; i++) {
+                    if(sketches[i] == null) {
+                        continue;
+                    }
+                    if(merged[i] == null) {
+                        merged[i] = sketches[i];
+                    } else {
+                        merged[i].mergeSketch(sketches[i]);
+                    }
+                }
+            }
+
+            populateColumnConfig(merged);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ShifuException(ShifuErrorCode.ERROR_LOCAL_EXECUTE_EXCEPTION, e);
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof ShifuException) {
+                throw (ShifuException) e.getCause();
+            }
+            if(e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new ShifuException(ShifuErrorCode.ERROR_LOCAL_EXECUTE_EXCEPTION, e);
+        } finally {
+            readExecutor.shutdownNow();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Derive the stats from merged sketches
+     */
+    private void populateColumnConfig(AbstractStatsSketch[] merged) {
+        for(ColumnConfig config: columnConfigList) {
+            AbstractStatsSketch sketch = merged[config.getColumnNum()];
+            if(sketch == null) {
+                continue;
+            }
+
+            // the type of auto-type column is decided by its sketch
+            sketch.populateColumnConfig(config);
+            config.setBinLength(config.getBinCountNeg().size());
+
+            KSIVCalculator ksivCalculator = new KSIVCalculator();
+            ksivCalculator.calculateKSIV(config.getBinCountNeg(), config.getBinCountPos());
+            config.setKs(ksivCalculator.getKS());
+            config.setIv(ksivCalculator.getIV());
+        }
+    }
+
+    /**
+     * ReadTask reads the lines of one reader in chunks, and puts the chunks into queue.
+     */
+    private class ReadTask implements Callable<Long> {
+
+        private final LineReader reader;
+
+        private final BlockingQueue<List<String>> queue;
+
+        public ReadTask(LineReader reader, BlockingQueue<List<String>> queue) {
+            this.reader = reader;
+            this.queue = queue;
+        }
+
+        @Override
+        public Long call() throws IOException, InterruptedException {
+            long recordCnt = 0;
+            List<String> chunk = new ArrayList<String>(chunkSize);
+            String line;
+            while((line = reader.readLine()) != null) {
+                chunk.add(line);
+                if(chunk.size() == chunkSize) {
+                    queue.put(chunk);
+                    recordCnt += chunk.size();
+                    chunk = new ArrayList<String>(chunkSize);
+                }
+            }
+            if(chunk.size() > 0) {
+                queue.put(chunk);
+                recordCnt += chunk.size();
+            }
+            return recordCnt;
+        }
+    }
+
+    /**
+     * StatsTask consumes chunks from queue, and folds them into its own sketches.
+     * If a worker fails, it still drains the queue, so the reading threads won't be blocked forever.
+     */
+    private class StatsTask implements Callable<AbstractStatsSketch[]> {
+
+        private final BlockingQueue<List<String>> queue;
+
+        private final DataPurifier dataPurifier;
+
+        private final Random random = new Random(System.nanoTime());
+
+        private final AbstractStatsSketch[] sketches;
+
+        public StatsTask(BlockingQueue<List<String>> queue) throws IOException {
+            this.queue = queue;
+            // DataPurifier is stateful, one instance for each thread
+            this.dataPurifier = new DataPurifier(modelConfig);
+
+            this.sketches = new AbstractStatsSketch[columnConfigList.size()];
+            for(ColumnConfig config: columnConfigList) {
+                if(!config.isCandidate()) {
+                    continue;
+                }
+                if(config.isNumerical() || config.isCategorical()) {
+                    sketches[config.getColumnNum()] = AbstractStatsSketch.newSketch(modelConfig, config);
+                } else {
+                    sketches[config.getColumnNum()] = new AutoTypeStatsSketch(modelConfig);
+                }
+            }
+        }
+
+        @Override
+        public AbstractStatsSketch[] call() throws Exception {
+            RuntimeException failure = null;
+            while(true) {
+                List<String> chunk = queue.take();
+                if(chunk == END_OF_INPUT) {
+                    break;
+                }
+                if(failure != null) {
+                    continue;
+                }
+
+                try {
+                    for(String line: chunk) {
+                        processRecord(line);
+                    }
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+            }
+
+            if(failure != null) {
+                throw failure;
+            }
+            return sketches;
+        }
+
+        private void processRecord(String line) {
+            if(!dataPurifier.isFilterOut(line)) {
+                return;
+            }
+
+            String[] fields = CommonUtils.split(line, modelConfig.getDataSetDelimiter());
+            if(fields.length != columnConfigList.size()) {
+                log.error("Expected Columns: " + columnConfigList.size() + ", but got: " + fields.length);
+                throw new ShifuException(ShifuErrorCode.ERROR_NO_EQUAL_COLCONFIG);
+            }
+
+            String tag = StringUtils.trimToEmpty(fields[targetColumnNum]);
+            if(modelConfig.isBinningSampleNegOnly()) {
+                if(modelConfig.getNegTags().contains(tag) && random.nextDouble() > modelConfig.getBinningSampleRate()) {
+                    return;
+                }
+            } else if(random.nextDouble() > modelConfig.getBinningSampleRate()) {
+                return;
+            }
+
+            byte label = AbstractStatsSketch.LABEL_OTHER;
+            if(modelConfig.getPosTags().contains(tag)) {
+                label = AbstractStatsSketch.LABEL_POS;
+            } else if(modelConfig.getNegTags().contains(tag)) {
+                label = AbstractStatsSketch.LABEL_NEG;
+            }
+
+            double weight = 1.0;
+            if(weightColumnNum != -1) {
+                try {
+                    weight = Double.parseDouble(fields[weightColumnNum]);
+                } catch (NumberFormatException e) {
+                    weight = 1.0;
+                }
+            }
+
+            for(int i = 0; i < fields.length; i++) {
+                if(sketches[i] != null) {
+                    // the weight column itself is weighted by 1.0, the same as AddColumnNumUDF
+                    sketches[i].addData(fields[i], label, (i == weightColumnNum ? 1.0 : weight));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core;
+
+import java.util.List;
+
+import ml.shifu.shifu.core.alg.NNTrainer;
+import ml.shifu.shifu.util.Environment;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * LocalTrainScheduler class divides the cores between the bags training concurrently in local mode.
+ *
+ * <p>
+ * All gradient and validation workers run in the shared thread pool of Encog, which is created with one thread more
+ * than the number of cores and never resized here, since it can't be re-created once Encog is shut down.
+ * At most {@link Environment#TRAIN_NUM_PARALLEL} bags train at the same time, and each of them uses its share of the
+ * cores, so the bags don't compete for the whole pool.
+ *
+ * @Dec 15, 2014
+ *
+ */
+public final class LocalTrainScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalTrainScheduler.class);
+
+    private LocalTrainScheduler() {
+    }
+
+    /**
+     * @return the number of available cores
+     */
+    public static int getNumCores() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * @param numBags
+     *            - the number of bags to train
+     * @return the number of bags training concurrently, the number of cores by default
+     */
+    public static int getBagConcurrency(int numBags) {
+        int configured = Environment.getInt(Environment.TRAIN_NUM_PARALLEL, getNumCores());
+        return Math.max(1, Math.min(numBags, configured));
+    }
+
+    /**
+     * @param numBags
+     *            - the number of bags to train
+     * @return the number of gradient workers for each bag, at least 1
+     */
+    public static int getThreadsPerBag(int numBags) {
+        return Math.max(1, getNumCores() / getBagConcurrency(numBags));
+    }
+
+    /**
+     * Assign the number of workers to the trainers. It should be called before the training starts.
+     *
+     * @param trainers
+     *            - all trainers to run
+     * @return the number of bags training concurrently
+     */
+    public static int schedule(List<AbstractTrainer> trainers) {
+        int concurrency = getBagConcurrency(trainers.size());
+        int threadsPerBag = getThreadsPerBag(trainers.size());
+
+        for(AbstractTrainer trainer: trainers) {
+            if(trainer instanceof NNTrainer) {
+                ((NNTrainer) trainer).setThreadCount(threadsPerBag);
+            }
+        }
+
+        log.info("Train {} bags with {} concurrently, {} workers per bag.", new Object[] { trainers.size(),
+                concurrency, threadsPerBag });
+        return concurrency;
+    }
+}
@@ -15,23 +15,26 @@
  */
 package ml.shifu.shifu.core;
 
-import org.encog.ml.data.MLData;
 import org.encog.ml.data.MLDataPair;
 import org.encog.ml.data.MLDataSet;
 import org.encog.ml.data.basic.BasicMLDataPair;
+import org.encog.neural.flat.FlatNetwork;
 import org.encog.neural.networks.BasicNetwork;
 import org.encog.util.concurrency.EngineTask;
 
 /**
- * Mean standard error worker, for parallel compute sub-error then summing
+ * Mean standard error worker, for parallel compute sub-error then summing.
+ * The worker keeps its own copy of network, call {@link #syncWeights()} to reuse it after the weights are changed.
  */
 public class MSEWorker implements EngineTask {
 
     private final BasicNetwork network;
+    private final FlatNetwork flat;
     private final MLDataSet dataSet;
     private final int low;
     private final int high;
     private final MLDataPair pair;
+    private final double[] output;
 
     private double totalError;
 
@@ -39,19 +42,30 @@ public class MSEWorker implements EngineTask {
                      MLDataSet dataSet,
                      int low, int high) {
         this.network = network;
+        this.flat = network.getFlat().clone();
         this.dataSet = dataSet;
         this.low = low;
         this.high = high;
         this.pair = BasicMLDataPair.createPair(network.getInputCount(), network.getOutputCount());
+        this.output = new double[network.getOutputCount()];
         this.totalError = 0.0;
     }
 
+    /**
+     * Copy the current weights of network into the worker's copy
+     */
+    public void syncWeights() {
+        double[] weights = this.network.getFlat().getWeights();
+        System.arraycopy(weights, 0, this.flat.getWeights(), 0, weights.length);
+    }
+
     public void run() {
+        this.totalError = 0.0;
         for (int i = this.low; i <= this.high; i++) {
             this.dataSet.getRecord(i, pair);
-            MLData result = this.network.compute(this.pair.getInput());
+            this.flat.compute(this.pair.getInput().getData(), this.output);
 
-            double tmp = result.getData()[0] - this.pair.getIdeal().getData()[0];
+            double tmp = this.output[0] - this.pair.getIdeal().getData()[0];
             double mse = tmp * tmp;
 
             this.totalError += mse;
@@ -62,4 +76,3 @@ public class MSEWorker implements EngineTask {
         return this.totalError;
     }
 }
-
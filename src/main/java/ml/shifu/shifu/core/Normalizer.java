@@ -16,6 +16,7 @@
 package ml.shifu.shifu.core;
 
 import ml.shifu.shifu.container.obj.ColumnConfig;
+import ml.shifu.shifu.util.CommonUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -205,7 +206,7 @@ public class Normalizer {
         }
 
         if (config.isCategorical()) {
-            int index = config.getBinCategory().indexOf(raw);
+            int index = CommonUtils.getBinNum(config, raw);
             // TODO: use default. Not 0 !!!
             // Using the most frequent categorical value?
             if (index == -1) {
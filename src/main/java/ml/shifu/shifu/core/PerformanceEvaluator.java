@@ -265,11 +265,24 @@ public class PerformanceEvaluator {
         double binCapacity = 1.0 / numBucket;
 
         PerformanceObject po = null;
+        ConfusionMatrixObject prevObject = null;
+        CurveMetrics metrics = new CurveMetrics(), weightedMetrics = new CurveMetrics();
 
         boolean isFirst = true;
-        int i = 0;
         for(ConfusionMatrixObject object: results) {
             po = setPerformanceObject(object);
+            if(prevObject != null) {
+                // the metrics are accumulated from the records between two matrix
+                metrics.add(object.getScore(), object.getTp() - prevObject.getTp(),
+                        object.getFp() - prevObject.getFp(), object.getTp() + object.getFn(),
+                        object.getFp() + object.getTn());
+                weightedMetrics.add(object.getScore(), object.getWeightedTp() - prevObject.getWeightedTp(),
+                        object.getWeightedFp() - prevObject.getWeightedFp(),
+                        object.getWeightedTp() + object.getWeightedFn(),
+                        object.getWeightedFp() + object.getWeightedTn());
+            }
+            prevObject = object;
+
             if(isFirst) {
                 // hit rate == NaN
                 po.precision = 1.0;
@@ -288,40 +301,44 @@ public class PerformanceEvaluator {
 
                 isFirst = false;
             } else {
+                // the matrix may be for one record or for one score bucket, so one matrix could cover several bins
                 if(po.fpr >= fpBin * binCapacity) {
-                    po.binNum = fpBin++;
+                    fpBin = nextBin(fpBin, po.fpr, binCapacity);
+                    po.binNum = fpBin - 1;
                     FPRList.add(po);
                 }
 
                 if(po.recall >= tpBin * binCapacity) {
-                    po.binNum = tpBin++;
+                    tpBin = nextBin(tpBin, po.recall, binCapacity);
+                    po.binNum = tpBin - 1;
                     catchRateList.add(po);
                 }
 
-                // prevent 99%
-                if((double) (i + 1) / records >= gainBin * binCapacity) {
-                    po.binNum = gainBin++;
+                // gain is bucketed by action rate instead of record index, since one matrix may be a score bucket
+                if(po.actionRate >= gainBin * binCapacity) {
+                    gainBin = nextBin(gainBin, po.actionRate, binCapacity);
+                    po.binNum = gainBin - 1;
                     gainList.add(po);
                 }
 
                 if(po.weightedFpr >= fpWeightBin * binCapacity) {
-                    po.binNum = fpWeightBin++;
+                    fpWeightBin = nextBin(fpWeightBin, po.weightedFpr, binCapacity);
+                    po.binNum = fpWeightBin - 1;
                     FPRWeightList.add(po);
                 }
 
                 if(po.weightedRecall >= tpWeightBin * binCapacity) {
-                    po.binNum = tpWeightBin++;
+                    tpWeightBin = nextBin(tpWeightBin, po.weightedRecall, binCapacity);
+                    po.binNum = tpWeightBin - 1;
                     catchRateWeightList.add(po);
                 }
 
-                if((object.getWeightedTp() + object.getWeightedFp() + 1) / object.getWeightedTotal() >= gainWeightBin
-                        * binCapacity) {
-                    po.binNum = gainWeightBin++;
+                if(po.weightedActionRate >= gainWeightBin * binCapacity) {
+                    gainWeightBin = nextBin(gainWeightBin, po.weightedActionRate, binCapacity);
+                    po.binNum = gainWeightBin - 1;
                     gainWeightList.add(po);
-
                 }
             }
-            i++;
         }
 
         logResult(FPRList, "Bucketing False Positive Rate");
@@ -342,6 +359,15 @@ public class PerformanceEvaluator {
             logResult(gainWeightList, "Bucketing Weighted action rate");
         }
 
+        log.info("AUC: {}, PR-AUC: {}, KS: {}, LogLoss: {}", new Object[] { metrics.areaUnderRoc,
+                metrics.areaUnderPr, metrics.ks, metrics.getLogLoss() });
+
+        if(isWeight) {
+            log.info("Weighted AUC: {}, Weighted PR-AUC: {}, Weighted KS: {}, Weighted LogLoss: {}", new Object[] {
+                    weightedMetrics.areaUnderRoc, weightedMetrics.areaUnderPr, weightedMetrics.ks,
+                    weightedMetrics.getLogLoss() });
+        }
+
         PerformanceResult result = new PerformanceResult();
 
         result.version = Constants.version;
@@ -352,9 +378,78 @@ public class PerformanceEvaluator {
         result.gains = gainList;
         result.weightedGains = gainWeightList;
 
+        result.areaUnderRoc = metrics.areaUnderRoc;
+        result.weightedAreaUnderRoc = weightedMetrics.areaUnderRoc;
+        result.areaUnderPr = metrics.areaUnderPr;
+        result.weightedAreaUnderPr = weightedMetrics.areaUnderPr;
+        result.ks = metrics.ks;
+        result.weightedKs = weightedMetrics.ks;
+        result.logLoss = metrics.getLogLoss();
+        result.weightedLogLoss = weightedMetrics.getLogLoss();
+
         return result;
     }
 
+    /**
+     * CurveMetrics accumulates AUC, PR-AUC, KS and log-loss from the records of every score, from the highest score
+     * to the lowest score. Since every matrix is for one distinct score, the metrics are exact but not bucketed.
+     */
+    private static class CurveMetrics {
+
+        private static final double EPSILON = 1e-15;
+
+        private double tp = 0.0, fp = 0.0;
+        private double sumLogLoss = 0.0, total = 0.0;
+
+        private double areaUnderRoc = 0.0, areaUnderPr = 0.0, ks = 0.0;
+
+        /**
+         * @param score
+         *            - the score of records
+         * @param pos
+         *            - the (weighted) count of positive records with the score
+         * @param neg
+         *            - the (weighted) count of negative records with the score
+         * @param sumPos
+         *            - the (weighted) count of all positive records
+         * @param sumNeg
+         *            - the (weighted) count of all negative records
+         */
+        public void add(double score, double pos, double neg, double sumPos, double sumNeg) {
+            if(pos + neg <= 0.0 || sumPos <= 0.0 || sumNeg <= 0.0) {
+                return;
+            }
+
+            double prevRecall = tp / sumPos, prevFpr = fp / sumNeg;
+            tp += pos;
+            fp += neg;
+            double recall = tp / sumPos, fpr = fp / sumNeg;
+
+            // trapezoid, the pairs of positive and negative with the same score are counted as half
+            areaUnderRoc += (fpr - prevFpr) * (recall + prevRecall) / 2;
+            areaUnderPr += (recall - prevRecall) * (tp / (tp + fp));
+            ks = Math.max(ks, recall - fpr);
+
+            double probability = Math.min(1.0 - EPSILON, Math.max(EPSILON, score / Scorer.SCORE_SCALE));
+            sumLogLoss -= pos * Math.log(probability) + neg * Math.log(1.0 - probability);
+            total += pos + neg;
+        }
+
+        public double getLogLoss() {
+            return total > 0.0 ? sumLogLoss / total : 0.0;
+        }
+    }
+
+    /**
+     * @return the next bin number, whose lower bound is larger than the rate
+     */
+    private static int nextBin(int bin, double rate, double binCapacity) {
+        while(rate >= bin * binCapacity) {
+            bin++;
+        }
+        return bin;
+    }
+
     private void logResult(List<PerformanceObject> list, String info) {
         DecimalFormat df = new DecimalFormat("#.####");
 
@@ -0,0 +1,348 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core;
+
+import java.util.Arrays;
+
+import ml.shifu.shifu.util.IndexedSort;
+
+/**
+ * QuantileSketch class
+ *
+ * <p>
+ * A bounded-memory, weighted quantile sketch in the style of merging t-digest. The sketch keeps a sorted list of
+ * centroids (mean, weight) in primitive arrays. New values are appended into a buffer with their weight, so adding a
+ * value with frequency N costs the same as adding it once. When the buffer is full, it is sorted and merged with the
+ * centroids, and neighbouring centroids are combined as long as the combined centroid spans no more than 1 in the scale function
+ * k(q) = compression * asin(2q - 1) / (2 * PI), so centroids are small at both tails and large around the median.
+ *
+ * <p>
+ * The number of centroids is bounded by the compression, so the memory and the cost of
+ * {@link #getQuantile(double)} are independent of the number of records.
+ *
+ * @Dec 3, 2014
+ *
+ */
+public class QuantileSketch {
+
+    /**
+     * Default compression, no more than compression centroids will be kept
+     */
+    public static final int DEFAULT_COMPRESSION = 100;
+
+    private double compression;
+
+    private double min = Double.MAX_VALUE;
+    private double max = -Double.MAX_VALUE;
+
+    /**
+     * Total weight of centroids, buffered weight is not included
+     */
+    private double totalWeight = 0.0;
+
+    /**
+     * Sorted centroids, there are {@link #size} centroids in use. A centroid is single when all values in it are
+     * the same, its mean is returned as is, instead of being interpolated.
+     */
+    private int size = 0;
+    private double[] means;
+    private double[] weights;
+    private boolean[] singles;
+
+    /**
+     * Values that are not merged into centroids yet
+     */
+    private int bufSize = 0;
+    private double[] bufMeans;
+    private double[] bufWeights;
+
+    public QuantileSketch() {
+        this(DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Constructor with compression
+     *
+     * @param compression
+     *            - the larger, the more accurate and the more memory
+     */
+    public QuantileSketch(double compression) {
+        if(compression < 1) {
+            throw new IllegalArgumentException("The compression should be no less than 1 - " + compression);
+        }
+        this.compression = compression;
+
+        int capacity = (int) Math.ceil(2 * compression) + 10;
+        this.means = new double[capacity];
+        this.weights = new double[capacity];
+        this.singles = new boolean[capacity];
+        this.bufMeans = new double[capacity * 5];
+        this.bufWeights = new double[capacity * 5];
+    }
+
+    /**
+     * Add the value with weight 1
+     *
+     * @param value
+     */
+    public void add(double value) {
+        add(value, 1.0);
+    }
+
+    /**
+     * Add the value with weight, the weight could be the frequency of the value
+     *
+     * @param value
+     * @param weight
+     *            - should be positive, or the value will be ignored
+     */
+    public void add(double value, double weight) {
+        if(Double.isNaN(value) || Double.isInfinite(value) || !(weight > 0) || Double.isInfinite(weight)) {
+            return;
+        }
+
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+
+        if(bufSize == bufMeans.length) {
+            flush();
+        }
+        bufMeans[bufSize] = value;
+        bufWeights[bufSize] = weight;
+        bufSize++;
+    }
+
+    /**
+     * Sort the buffer and merge it with centroids
+     */
+    private void flush() {
+        if(bufSize == 0) {
+            return;
+        }
+
+        sort(bufMeans, bufWeights, bufSize);
+        boolean[] bufSingles = new boolean[bufSize];
+        Arrays.fill(bufSingles, true);
+
+        int osize = bufSize;
+        bufSize = 0;
+        mergeCentroids(bufMeans, bufWeights, bufSingles, osize);
+    }
+
+    /**
+     * Merge sorted centroids with the centroids of this sketch, and combine the neighbouring centroids when
+     * the combined one spans no more than 1 in k-space.
+     */
+    private void mergeCentroids(double[] omeans, double[] oweights, boolean[] osingles, int osize) {
+        if(osize == 0) {
+            return;
+        }
+
+        double newTotalWeight = totalWeight;
+        for(int j = 0; j < osize; j++) {
+            newTotalWeight += oweights[j];
+        }
+
+        int capacity = Math.max(size + osize, means.length);
+        double[] newMeans = new double[capacity];
+        double[] newWeights = new double[capacity];
+        boolean[] newSingles = new boolean[capacity];
+
+        int i = 0, j = 0, k = -1;
+        double cumulative = 0.0;
+        double kLeft = scale(0.0);
+        while(i < size || j < osize) {
+            boolean fromSelf = (j >= osize || (i < size && means[i] <= omeans[j]));
+            double mean = fromSelf ? means[i] : omeans[j];
+            double weight = fromSelf ? weights[i] : oweights[j];
+            boolean single = fromSelf ? singles[i] : osingles[j];
+            if(fromSelf) {
+                i++;
+            } else {
+                j++;
+            }
+
+            if(k >= 0) {
+                boolean sameValue = (newSingles[k] && single && Double.compare(newMeans[k], mean) == 0);
+                double proposed = newWeights[k] + weight;
+                if(sameValue || scale((cumulative + proposed) / newTotalWeight) - kLeft <= 1.0) {
+                    newMeans[k] += (mean - newMeans[k]) * weight / proposed;
+                    newWeights[k] = proposed;
+                    newSingles[k] = sameValue;
+                    continue;
+                }
+
+                cumulative += newWeights[k];
+                kLeft = scale(cumulative / newTotalWeight);
+            }
+
+            k++;
+            newMeans[k] = mean;
+            newWeights[k] = weight;
+            newSingles[k] = single;
+        }
+
+        this.means = newMeans;
+        this.weights = newWeights;
+        this.singles = newSingles;
+        this.size = k + 1;
+        this.totalWeight = newTotalWeight;
+    }
+
+    /**
+     * The scale function of t-digest - k(q) = compression / PI * asin(2q - 1) / 2. A centroid may span at most 1 in
+     * k-space, so centroids are small at both tails.
+     */
+    private double scale(double q) {
+        return compression * Math.asin(2 * Math.min(1.0, q) - 1) / Math.PI / 2;
+    }
+
+    /**
+     * Get the approximate quantile
+     *
+     * @param quantile
+     *            - should be in [0, 1]
+     * @return the quantile value, or NaN if there is no data
+     */
+    public double getQuantile(double quantile) {
+        if(quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("The quantile should be in [0, 1] - " + quantile);
+        }
+
+        flush();
+        if(size == 0) {
+            return Double.NaN;
+        }
+        if(quantile == 0) {
+            return min;
+        }
+        if(quantile == 1) {
+            return max;
+        }
+
+        // the weight of every centroid is regarded as spreading around its mean, so the quantile is interpolated
+        // between the means of two neighbouring centroids, unless the target falls into a single-value centroid
+        double target = quantile * totalWeight;
+        double cumulative = 0.0;
+        double prevMean = min;
+        double prevCenter = 0.0;
+        for(int i = 0; i < size; i++) {
+            if(singles[i] && target >= cumulative && target <= cumulative + weights[i]) {
+                return means[i];
+            }
+
+            double center = cumulative + weights[i] / 2;
+            if(target <= center) {
+                double next = singles[i] ? cumulative : center;
+                if(next <= prevCenter) {
+                    return means[i];
+                }
+                return prevMean + (means[i] - prevMean) * (target - prevCenter) / (next - prevCenter);
+            }
+
+            cumulative += weights[i];
+            prevMean = means[i];
+            prevCenter = (singles[i] ? cumulative : center);
+        }
+
+        if(singles[size - 1] || totalWeight <= prevCenter) {
+            return means[size - 1];
+        }
+        return prevMean + (max - prevMean) * (target - prevCenter) / (totalWeight - prevCenter);
+    }
+
+    /**
+     * Get the median of values
+     *
+     * @return the median, or NaN if there is no data
+     */
+    public double getMedian() {
+        return getQuantile(0.5);
+    }
+
+    /**
+     * Get the equal-spaced quantiles - min, ..., max
+     *
+     * @param numQuantiles
+     *            - should be no less than 2
+     * @return the quantile array, or empty array if there is no data
+     */
+    public double[] getQuantiles(int numQuantiles) {
+        flush();
+        if(size == 0) {
+            return new double[0];
+        }
+
+        double[] quantiles = new double[numQuantiles];
+        for(int i = 0; i < numQuantiles; i++) {
+            quantiles[i] = getQuantile(((double) i) / (numQuantiles - 1));
+        }
+        return quantiles;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Get the total weight of all values
+     *
+     * @return
+     */
+    public double getTotalWeight() {
+        flush();
+        return totalWeight;
+    }
+
+    /**
+     * Get the number of centroids
+     *
+     * @return
+     */
+    public int getCentroidCount() {
+        flush();
+        return size;
+    }
+
+    /**
+     * Sort values in place, the weights are swapped together
+     */
+    private static void sort(final double[] vals, final double[] wgts, int size) {
+        IndexedSort.sort(new IndexedSort.Sortable() {
+            @Override
+            public int compare(int i, int j) {
+                return Double.compare(vals[i], vals[j]);
+            }
+
+            @Override
+            public void swap(int i, int j) {
+                double tmp = vals[i];
+                vals[i] = vals[j];
+                vals[j] = tmp;
+
+                tmp = wgts[i];
+                wgts[i] = wgts[j];
+                wgts[j] = tmp;
+            }
+        }, size);
+    }
+}
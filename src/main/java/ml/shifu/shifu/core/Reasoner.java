@@ -16,6 +16,7 @@
 package ml.shifu.shifu.core;
 
 import ml.shifu.shifu.container.obj.ColumnConfig;
+import ml.shifu.shifu.util.CommonUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,15 +24,34 @@ import java.util.*;
 
 /**
  * Reasoner, it helps to find the the majority contributor to the model
+ * <p/>
+ * The reasoner could be reused for records with the same @ColumnConfig list. The score difference of variables are
+ * kept in primitive arrays, and only the top variables are selected, so there is no allocation per record.
  */
 public class Reasoner {
     private static Logger log = LoggerFactory.getLogger(Reasoner.class);
 
     private Integer numTopVariables = 5;
-    private List<ScoreDiffObject> sdList;
-    private List<String> reasons;
+    private List<String> reasons = new ArrayList<String>();
     private Map<String, String> reasonCodeMap;
 
+    // the final selected columns of current @ColumnConfig list
+    private List<ColumnConfig> columnConfigList;
+    private ColumnConfig[] selectedColumns;
+
+    // score difference of variables for current record, only the first varCnt elements are valid
+    private int varCnt;
+    private int[] varSelected;
+    private int[] varColumns;
+    private int[] varBinNums;
+    private int[] varScoreDiffs;
+    private double[] varValues;
+    private String[] varCategories;
+
+    // the index of top variables in the arrays above, sorted by score difference
+    private int topCnt;
+    private int[] topVars = new int[numTopVariables];
+
     public Reasoner(Map<String, String> reasonCodeMap) {
         this.reasonCodeMap = reasonCodeMap;
     }
@@ -41,16 +61,19 @@ public class Reasoner {
             throw new RuntimeException("ColumnConfig is empty.");
         }
 
-        sdList = new ArrayList<ScoreDiffObject>();
-        reasons = new ArrayList<String>();
+        if (this.columnConfigList != columnConfigList) {
+            init(columnConfigList);
+        }
 
-        for (ColumnConfig config : columnConfigList) {
-            if (!config.isFinalSelect()) {
-                continue;
-            }
+        varCnt = 0;
+        topCnt = 0;
+        reasons.clear();
 
+        for (int i = 0; i < selectedColumns.length; i++) {
+            ColumnConfig config = selectedColumns[i];
             String key = config.getColumnName();
-            if (!rawDataMap.containsKey(key)) {
+            String rawValue = rawDataMap.get(key);
+            if (rawValue == null && !rawDataMap.containsKey(key)) {
                 log.error("Variable Missing in Test Data: " + key);
                 continue;
             }
@@ -62,82 +85,141 @@ public class Reasoner {
                 continue;
             }
 
-            ScoreDiffObject sd = new ScoreDiffObject();
-
-            int binLength = config.getBinLength();
-            Integer binNum = binLength;
+            int binNum = -1;
+            double varValue = 0.0;
+            String varCategory = null;
             if (config.isNumerical()) {
-                if (rawDataMap.get(key).equals("")) {
-                    sd.varValue = config.getMean();
+                if (rawValue.equals("")) {
+                    varValue = config.getMean();
                 } else {
-                    sd.varValue = Double.parseDouble(rawDataMap.get(key));
+                    varValue = Double.parseDouble(rawValue);
                 }
-                List<Double> binBoundary = config.getBinBoundary();
 
-                while ((--binNum) >= 0) {
-                    if (sd.varValue >= binBoundary.get(binNum)) {
-                        break;
-                    }
-                }
+                binNum = config.getNumericalBinNum(varValue);
                 if (binNum == -1) {
-                    log.info(sd.varValue.toString());
-                    log.info(binBoundary.toString());
+                    log.info(Double.toString(varValue));
+                    log.info(config.getBinBoundary().toString());
                     break;
                 }
-
-                sd.binBoundary = config.getBinBoundary();
-                sd.binNum = binNum;
             } else if (config.isCategorical()) {
-                List<String> binCategory = config.getBinCategory();
-                sd.varCategory = rawDataMap.get(key);
+                varCategory = rawValue;
 
-                while ((--binNum) >= 0) {
-                    if (sd.varCategory.equals(binCategory.get(binNum))) {
-                        break;
-                    }
-                }
+                binNum = CommonUtils.getBinNum(config, varCategory);
                 if (binNum == -1) {
                     log.info("Unknown value.");
                     break;
                 }
-                sd.binCategory = config.getBinCategory();
-                sd.binNum = binNum;
             }
 
-            sd.columnName = config.getColumnName();
-            sd.columnNum = config.getColumnNum();
-            sd.scoreDiff = config.getBinAvgScore().get(binNum);
-            sd.binAvgScore = config.getBinAvgScore();
-            sd.binCountNeg = config.getBinCountNeg();
-            sd.binCountPos = config.getBinCountPos();
-
-            sdList.add(sd);
-        }
+            int var = varCnt++;
+            varSelected[var] = i;
+            varColumns[var] = config.getColumnNum();
+            varBinNums[var] = binNum;
+            varScoreDiffs[var] = config.getBinAvgScore().get(binNum);
+            varValues[var] = varValue;
+            varCategories[var] = varCategory;
 
-        Collections.sort(sdList, new ScoreDiffComparator());
-        String reason = null;
-        int n = numTopVariables;
-        if (n > sdList.size()) {
-            n = sdList.size();
+            selectTop(var);
         }
 
-        for (int i = 0; i < n; i++) {
-            log.debug(sdList.get(i).columnName + "==>" + sdList.get(i).scoreDiff);
-            reason = reasonCodeMap.get(sdList.get(i).columnName);
+        for (int i = 0; i < topCnt; i++) {
+            ColumnConfig config = selectedColumns[varSelected[topVars[i]]];
+            log.debug(config.getColumnName() + "==>" + varScoreDiffs[topVars[i]]);
+            String reason = reasonCodeMap.get(config.getColumnName());
             if (!reasons.contains(reason)) {
                 reasons.add(reason);
             }
         }
     }
 
+    /**
+     * Prepare the arrays for final selected columns
+     */
+    private void init(List<ColumnConfig> columnConfigList) {
+        List<ColumnConfig> selected = new ArrayList<ColumnConfig>();
+        for (ColumnConfig config : columnConfigList) {
+            if (config.isFinalSelect()) {
+                selected.add(config);
+            }
+        }
+
+        int size = selected.size();
+        this.selectedColumns = selected.toArray(new ColumnConfig[size]);
+        this.varSelected = new int[size];
+        this.varColumns = new int[size];
+        this.varBinNums = new int[size];
+        this.varScoreDiffs = new int[size];
+        this.varValues = new double[size];
+        this.varCategories = new String[size];
+        this.columnConfigList = columnConfigList;
+    }
+
+    /**
+     * Insert the variable into the top variables, if it's in top numTopVariables
+     */
+    private void selectTop(int var) {
+        int pos = topCnt;
+        if (pos == topVars.length) {
+            if (topVars.length == 0 || !isBefore(var, topVars[pos - 1])) {
+                return;
+            }
+            // drop the last one
+            pos--;
+        } else {
+            topCnt++;
+        }
+
+        while (pos > 0 && isBefore(var, topVars[pos - 1])) {
+            topVars[pos] = topVars[pos - 1];
+            pos--;
+        }
+        topVars[pos] = var;
+    }
+
+    /**
+     * The variable with larger score difference is before, if the same, the variable with smaller column number
+     */
+    private boolean isBefore(int a, int b) {
+        if (varScoreDiffs[a] != varScoreDiffs[b]) {
+            return varScoreDiffs[a] > varScoreDiffs[b];
+        }
+        return varColumns[a] < varColumns[b];
+    }
+
+    /**
+     * @return a copy of the reason codes, which is not changed by the next {@link #calculateReasonCodes}
+     */
     public List<String> getReasonCodes() {
-        return reasons;
+        return new ArrayList<String>(reasons);
     }
 
     public Map<String, Object> getReasonDetails() {
+        List<ScoreDiffObject> details = new ArrayList<ScoreDiffObject>(topCnt);
+        for (int i = 0; i < topCnt; i++) {
+            int var = topVars[i];
+            ColumnConfig config = selectedColumns[varSelected[var]];
+
+            ScoreDiffObject sd = new ScoreDiffObject();
+            sd.columnName = config.getColumnName();
+            sd.columnNum = config.getColumnNum();
+            sd.binNum = varBinNums[var];
+            sd.scoreDiff = varScoreDiffs[var];
+            if (config.isNumerical()) {
+                sd.varValue = varValues[var];
+                sd.binBoundary = config.getBinBoundary();
+            } else {
+                sd.varCategory = varCategories[var];
+                sd.binCategory = config.getBinCategory();
+            }
+            sd.binAvgScore = config.getBinAvgScore();
+            sd.binCountNeg = config.getBinCountNeg();
+            sd.binCountPos = config.getBinCountPos();
+            details.add(sd);
+        }
+
         Map<String, Object> map = new HashMap<String, Object>();
-        map.put("details", sdList.subList(0, numTopVariables));
-        map.put("reasons", reasons);
+        map.put("details", details);
+        map.put("reasons", getReasonCodes());
 
         return map;
     }
@@ -158,15 +240,7 @@ public class Reasoner {
 
     public void setNumTopVariables(Integer numTopVariables) {
         this.numTopVariables = numTopVariables;
-    }
-
-    class ScoreDiffComparator implements Comparator<ScoreDiffObject> {
-        public int compare(ScoreDiffObject a, ScoreDiffObject b) {
-            if (!a.scoreDiff.equals(b.scoreDiff)) {
-                return -a.scoreDiff.compareTo(b.scoreDiff);
-            } else {
-                return a.columnNum.compareTo(b.columnNum);
-            }
-        }
+        this.topVars = new int[numTopVariables];
+        this.topCnt = 0;
     }
 }
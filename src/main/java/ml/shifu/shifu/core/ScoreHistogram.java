@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import ml.shifu.shifu.container.ConfusionMatrixObject;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * ScoreHistogram class keeps the count and weighted count of positive/negative records for every score.
+ *
+ * <p>
+ * The model scores are integers in [0, scale], so the histogram is small no matter how many records are evaluated.
+ * Histograms could be merged, and the confusion matrix at every score threshold is derived from the cumulative
+ * histogram, so the evaluation doesn't need to sort the records by score.
+ *
+ * @Dec 8, 2014
+ *
+ */
+public class ScoreHistogram {
+
+    /**
+     * the separator between fields of one score
+     */
+    public static final char FIELD_SEPARATOR = '|';
+
+    /**
+     * the separator between scores
+     */
+    public static final char SCORE_SEPARATOR = ',';
+
+    private static final int POS = 0;
+    private static final int NEG = 1;
+    private static final int WEIGHTED_POS = 2;
+    private static final int WEIGHTED_NEG = 3;
+
+    /**
+     * score -> {positive count, negative count, weighted positive count, weighted negative count}
+     */
+    private TreeMap<Double, double[]> bins = new TreeMap<Double, double[]>();
+
+    /**
+     * Add one record into histogram
+     *
+     * @param score
+     *            - the score of record
+     * @param isPositive
+     *            - is positive record or not
+     * @param weight
+     *            - the weight of record
+     */
+    public void add(double score, boolean isPositive, double weight) {
+        double[] counts = getCounts(score);
+        if(isPositive) {
+            counts[POS] += 1;
+            counts[WEIGHTED_POS] += weight;
+        } else {
+            counts[NEG] += 1;
+            counts[WEIGHTED_NEG] += weight;
+        }
+    }
+
+    /**
+     * Add counts of some score into histogram
+     */
+    public void add(double score, double pos, double neg, double weightedPos, double weightedNeg) {
+        double[] counts = getCounts(score);
+        counts[POS] += pos;
+        counts[NEG] += neg;
+        counts[WEIGHTED_POS] += weightedPos;
+        counts[WEIGHTED_NEG] += weightedNeg;
+    }
+
+    private double[] getCounts(double score) {
+        double[] counts = bins.get(score);
+        if(counts == null) {
+            counts = new double[4];
+            bins.put(score, counts);
+        }
+        return counts;
+    }
+
+    /**
+     * Merge another histogram into this one
+     *
+     * @param another
+     */
+    public void merge(ScoreHistogram another) {
+        for(Map.Entry<Double, double[]> entry: another.bins.entrySet()) {
+            double[] counts = entry.getValue();
+            add(entry.getKey(), counts[POS], counts[NEG], counts[WEIGHTED_POS], counts[WEIGHTED_NEG]);
+        }
+    }
+
+    public boolean isEmpty() {
+        return bins.isEmpty();
+    }
+
+    /**
+     * @return the count of distinct scores
+     */
+    public int size() {
+        return bins.size();
+    }
+
+    /**
+     * @return the count of records in histogram
+     */
+    public long getRecordCount() {
+        double cnt = 0.0;
+        for(double[] counts: bins.values()) {
+            cnt += counts[POS] + counts[NEG];
+        }
+        return Math.round(cnt);
+    }
+
+    /**
+     * Generate the confusion matrix for every score threshold, from the highest score to the lowest score.
+     * The first one is the matrix before any record is caught, and its score is the highest score.
+     *
+     * @return the list of confusion matrix, whose size is the count of distinct scores plus one
+     */
+    public List<ConfusionMatrixObject> toConfusionMatrix() {
+        List<ConfusionMatrixObject> matrixList = new ArrayList<ConfusionMatrixObject>(bins.size() + 1);
+
+        double sumPos = 0.0, sumNeg = 0.0, sumWeightedPos = 0.0, sumWeightedNeg = 0.0;
+        for(double[] counts: bins.values()) {
+            sumPos += counts[POS];
+            sumNeg += counts[NEG];
+            sumWeightedPos += counts[WEIGHTED_POS];
+            sumWeightedNeg += counts[WEIGHTED_NEG];
+        }
+
+        ConfusionMatrixObject prevCmo = new ConfusionMatrixObject();
+        prevCmo.setTp(0.0);
+        prevCmo.setFp(0.0);
+        prevCmo.setFn(sumPos);
+        prevCmo.setTn(sumNeg);
+        prevCmo.setWeightedTp(0.0);
+        prevCmo.setWeightedFp(0.0);
+        prevCmo.setWeightedFn(sumWeightedPos);
+        prevCmo.setWeightedTn(sumWeightedNeg);
+        prevCmo.setScore(bins.isEmpty() ? 0.0 : bins.lastKey());
+        matrixList.add(prevCmo);
+
+        for(Map.Entry<Double, double[]> entry: bins.descendingMap().entrySet()) {
+            double[] counts = entry.getValue();
+
+            ConfusionMatrixObject cmo = new ConfusionMatrixObject(prevCmo);
+            cmo.setTp(prevCmo.getTp() + counts[POS]);
+            cmo.setFn(prevCmo.getFn() - counts[POS]);
+            cmo.setFp(prevCmo.getFp() + counts[NEG]);
+            cmo.setTn(prevCmo.getTn() - counts[NEG]);
+            cmo.setWeightedTp(prevCmo.getWeightedTp() + counts[WEIGHTED_POS]);
+            cmo.setWeightedFn(prevCmo.getWeightedFn() - counts[WEIGHTED_POS]);
+            cmo.setWeightedFp(prevCmo.getWeightedFp() + counts[WEIGHTED_NEG]);
+            cmo.setWeightedTn(prevCmo.getWeightedTn() - counts[WEIGHTED_NEG]);
+            cmo.setScore(entry.getKey());
+
+            matrixList.add(cmo);
+            prevCmo = cmo;
+        }
+
+        return matrixList;
+    }
+
+    /**
+     * Parse the counts of one score - score|pos|neg|weightedPos|weightedNeg, and add it into histogram
+     *
+     * @param line
+     */
+    public void addLine(String line) {
+        String[] fields = StringUtils.splitPreserveAllTokens(line, FIELD_SEPARATOR);
+        if(fields.length < 5) {
+            throw new IllegalArgumentException("Invalid score histogram line - " + line);
+        }
+
+        add(Double.parseDouble(fields[0]), Double.parseDouble(fields[1]), Double.parseDouble(fields[2]),
+                Double.parseDouble(fields[3]), Double.parseDouble(fields[4]));
+    }
+
+    /**
+     * @return the counts of every score, in format of score|pos|neg|weightedPos|weightedNeg
+     */
+    public List<String> toLines() {
+        List<String> lines = new ArrayList<String>(bins.size());
+        for(Map.Entry<Double, double[]> entry: bins.entrySet()) {
+            double[] counts = entry.getValue();
+            StringBuilder buf = new StringBuilder(32);
+            buf.append(entry.getKey()).append(FIELD_SEPARATOR).append(counts[POS]).append(FIELD_SEPARATOR)
+                    .append(counts[NEG]).append(FIELD_SEPARATOR).append(counts[WEIGHTED_POS])
+                    .append(FIELD_SEPARATOR).append(counts[WEIGHTED_NEG]);
+            lines.add(buf.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * convert @ScoreHistogram to String
+     *
+     * @return
+     */
+    public String objToString() {
+        return StringUtils.join(toLines(), SCORE_SEPARATOR);
+    }
+
+    /**
+     * convert String to @ScoreHistogram, the counts are added into current histogram
+     *
+     * @param objValStr
+     */
+    public void stringToObj(String objValStr) {
+        for(String line: StringUtils.split(objValStr, SCORE_SEPARATOR)) {
+            addLine(line);
+        }
+    }
+
+}
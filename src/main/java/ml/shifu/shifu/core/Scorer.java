@@ -17,6 +17,7 @@ package ml.shifu.shifu.core;
 
 import ml.shifu.shifu.container.ScoreObject;
 import ml.shifu.shifu.container.obj.ColumnConfig;
+import ml.shifu.shifu.core.codegen.CompiledNetwork;
 import ml.shifu.shifu.util.CommonUtils;
 import org.encog.ml.BasicML;
 import org.encog.ml.data.MLData;
@@ -37,6 +38,11 @@ public class Scorer {
 
     private static Logger log = LoggerFactory.getLogger(Scorer.class);
 
+    /**
+     * the model output in [0, 1] is scaled into integer score in [0, SCORE_SCALE]
+     */
+    public static final int SCORE_SCALE = 1000;
+
     @SuppressWarnings("unused")
     private String alg;
 
@@ -86,6 +92,13 @@ public class Scorer {
                 }
                 MLData score = svm.compute(pair.getInput());
                 scores.add(toScore(score.getData(0)));
+            } else if (model instanceof CompiledNetwork) {
+                CompiledNetwork network = (CompiledNetwork) model;
+                if (network.getInputCount() != pair.getInput().size()) {
+                    log.error("Network and input size mismatch: Network Size = " + network.getInputCount() + "; Input Size = " + pair.getInput().size());
+                    continue;
+                }
+                scores.add(toScore(network.compute(pair.getInput().getData())));
             } else {
                 throw new RuntimeException("unspport models");
             }
@@ -102,6 +115,6 @@ public class Scorer {
     }
 
     private Integer toScore(Double d) {
-        return (int) Math.round(d * 1000);
+        return (int) Math.round(d * SCORE_SCALE);
     }
 }
@@ -0,0 +1,311 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import ml.shifu.shifu.container.ScoreObject;
+import ml.shifu.shifu.container.obj.ColumnConfig;
+import ml.shifu.shifu.container.obj.ModelConfig;
+import ml.shifu.shifu.container.obj.ModelTrainConf.ALGORITHM;
+import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
+import ml.shifu.shifu.core.codegen.CompiledNetwork;
+import ml.shifu.shifu.util.CommonUtils;
+
+import org.encog.ml.BasicML;
+import org.encog.ml.data.basic.BasicMLData;
+import org.encog.ml.svm.SVM;
+import org.encog.neural.flat.FlatNetwork;
+import org.encog.neural.networks.BasicNetwork;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ShifuScorer class is the thread-safe scoring API for online services which embed Shifu models.
+ *
+ * <p>
+ * The models and @ColumnConfig are loaded once, and one scorer could be shared by all request threads. Since
+ * {@link BasicNetwork#compute} writes the layer outputs into the network itself, every thread scores with its own
+ * copy of the flat networks. The records could be scored one by one, or in batch - either raw records or normalized
+ * inputs.
+ *
+ * @Dec 11, 2014
+ *
+ */
+public class ShifuScorer {
+
+    private static Logger log = LoggerFactory.getLogger(ShifuScorer.class);
+
+    private final List<BasicML> models;
+    private final double cutoff;
+
+    private final String[] header;
+    private final String delimiter;
+
+    /**
+     * final selected columns, in the order of model input
+     */
+    private final ColumnConfig[] inputColumns;
+
+    /**
+     * the index of input columns in header
+     */
+    private final int[] inputIndexes;
+
+    /**
+     * the copies of flat networks for each thread, null for non-network models
+     */
+    private final ThreadLocal<FlatNetwork[]> networks = new ThreadLocal<FlatNetwork[]>() {
+        @Override
+        protected FlatNetwork[] initialValue() {
+            FlatNetwork[] flats = new FlatNetwork[models.size()];
+            for(int i = 0; i < flats.length; i++) {
+                if(models.get(i) instanceof BasicNetwork) {
+                    flats[i] = ((BasicNetwork) models.get(i)).getFlat().clone();
+                }
+            }
+            return flats;
+        }
+    };
+
+    /**
+     * Constructor to load configurations and models from local file system
+     *
+     * @param pathModelConfig
+     *            - the path of ModelConfig.json
+     * @param pathColumnConfig
+     *            - the path of ColumnConfig.json
+     * @param modelsPath
+     *            - the directory of models
+     * @throws IOException
+     *             - if fail to load configurations or models
+     */
+    public ShifuScorer(String pathModelConfig, String pathColumnConfig, String modelsPath) throws IOException {
+        this(CommonUtils.loadModelConfig(pathModelConfig, SourceType.LOCAL), CommonUtils.loadColumnConfigList(
+                pathColumnConfig, SourceType.LOCAL), modelsPath);
+    }
+
+    private ShifuScorer(ModelConfig modelConfig, List<ColumnConfig> columnConfigList, String modelsPath)
+            throws IOException {
+        this(modelConfig, columnConfigList, CommonUtils.getHeaders(modelConfig.getHeaderPath(),
+                modelConfig.getHeaderDelimiter(), SourceType.LOCAL), modelConfig.getDataSetDelimiter(), CommonUtils
+                .loadBasicModels(modelsPath, ALGORITHM.valueOf(modelConfig.getAlgorithm())));
+    }
+
+    /**
+     * Constructor with loaded configurations and models
+     *
+     * @param modelConfig
+     *            - model configuration
+     * @param columnConfigList
+     *            - @ColumnConfig list for model
+     * @param header
+     *            - the column names of raw record, could be null if only normalized inputs are scored
+     * @param delimiter
+     *            - the delimiter of raw record
+     * @param models
+     *            - models
+     */
+    public ShifuScorer(ModelConfig modelConfig, List<ColumnConfig> columnConfigList, String[] header,
+            String delimiter, List<BasicML> models) {
+        this.models = models;
+        this.cutoff = modelConfig.getNormalizeStdDevCutOff();
+        this.header = header;
+        this.delimiter = delimiter;
+
+        List<ColumnConfig> columns = new ArrayList<ColumnConfig>();
+        for(ColumnConfig config: columnConfigList) {
+            if(!config.isTarget() && config.isFinalSelect()) {
+                columns.add(config);
+            }
+        }
+        this.inputColumns = columns.toArray(new ColumnConfig[columns.size()]);
+
+        this.inputIndexes = new int[inputColumns.length];
+        for(int i = 0; header != null && i < inputColumns.length; i++) {
+            inputIndexes[i] = indexOf(header, inputColumns[i].getColumnName());
+            if(inputIndexes[i] < 0) {
+                throw new IllegalStateException(String.format("Variable Missing in header: %s",
+                        inputColumns[i].getColumnName()));
+            }
+        }
+    }
+
+    private static int indexOf(String[] header, String columnName) {
+        for(int i = 0; i < header.length; i++) {
+            if(header[i].equals(columnName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the size of model input
+     */
+    public int getInputCount() {
+        return inputColumns.length;
+    }
+
+    /**
+     * Normalize the raw record into model input
+     *
+     * @param record
+     *            - the raw record delimited by delimiter
+     * @return the model input, or null if the record doesn't match header
+     * @throws IllegalStateException
+     *             if the scorer is built without header
+     */
+    public double[] normalize(String record) {
+        if(header == null) {
+            throw new IllegalStateException("The header is null, please use right constructor!");
+        }
+
+        String[] fields = CommonUtils.split(record, delimiter);
+        if(fields == null || fields.length != header.length) {
+            log.error("the wrong input data, {}", record);
+            return null;
+        }
+
+        double[] input = new double[inputColumns.length];
+        for(int i = 0; i < inputColumns.length; i++) {
+            String val = fields[inputIndexes[i]];
+            input[i] = Normalizer.normalize(inputColumns[i], val == null ? "" : val, cutoff);
+        }
+        return input;
+    }
+
+    /**
+     * Normalize the raw data map into model input
+     *
+     * @param rawDataMap
+     *            - column name to raw value
+     * @return the model input
+     */
+    public double[] normalize(Map<String, String> rawDataMap) {
+        double[] input = new double[inputColumns.length];
+        for(int i = 0; i < inputColumns.length; i++) {
+            String key = inputColumns[i].getColumnName();
+            if(!rawDataMap.containsKey(key)) {
+                throw new IllegalStateException(String.format("Variable Missing in Test Data: %s", key));
+            }
+            input[i] = Normalizer.normalize(inputColumns[i], rawDataMap.get(key), cutoff);
+        }
+        return input;
+    }
+
+    /**
+     * Score the raw data map
+     */
+    public ScoreObject score(Map<String, String> rawDataMap) {
+        return score(normalize(rawDataMap));
+    }
+
+    /**
+     * Score the raw records in batch
+     *
+     * @param batch
+     *            - the raw records delimited by delimiter
+     * @return the scores of each record, the element is null if the record is invalid
+     */
+    public ScoreObject[] score(String[] batch) {
+        ScoreObject[] results = new ScoreObject[batch.length];
+        for(int i = 0; i < batch.length; i++) {
+            double[] input = normalize(batch[i]);
+            if(input != null) {
+                results[i] = score(input);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Score the normalized inputs in batch
+     *
+     * @param normalized
+     *            - the model inputs
+     * @return the scores of each input
+     */
+    public ScoreObject[] score(double[][] normalized) {
+        ScoreObject[] results = new ScoreObject[normalized.length];
+        for(int i = 0; i < normalized.length; i++) {
+            results[i] = score(normalized[i]);
+        }
+        return results;
+    }
+
+    /**
+     * Score one normalized input with all models
+     *
+     * @param input
+     *            - the model input
+     * @return the scores of models, or null if no model could score the input
+     */
+    public ScoreObject score(double[] input) {
+        FlatNetwork[] flats = networks.get();
+        double[] output = new double[1];
+
+        List<Integer> scores = new ArrayList<Integer>(models.size());
+        for(int i = 0; i < models.size(); i++) {
+            BasicML model = models.get(i);
+            if(flats[i] != null) {
+                if(flats[i].getInputCount() != input.length) {
+                    log.error("Network and input size mismatch: Network Size = " + flats[i].getInputCount()
+                            + "; Input Size = " + input.length);
+                    continue;
+                }
+                flats[i].compute(input, output);
+                scores.add(toScore(output[0]));
+            } else if(model instanceof SVM) {
+                // SVM doesn't keep state in computing
+                SVM svm = (SVM) model;
+                if(svm.getInputCount() != input.length) {
+                    log.error("SVM and input size mismatch: SVM Size = " + svm.getInputCount() + "; Input Size = "
+                            + input.length);
+                    continue;
+                }
+                scores.add(toScore(svm.compute(new BasicMLData(input)).getData(0)));
+            } else if(model instanceof CompiledNetwork) {
+                // the generated network has no state
+                CompiledNetwork network = (CompiledNetwork) model;
+                if(network.getInputCount() != input.length) {
+                    log.error("Network and input size mismatch: Network Size = " + network.getInputCount()
+                            + "; Input Size = " + input.length);
+                    continue;
+                }
+                scores.add(toScore(network.compute(input)));
+            } else {
+                throw new RuntimeException("unspport models");
+            }
+        }
+
+        if(scores.size() == 0) {
+            log.error("No Scores Calculated...");
+            return null;
+        }
+
+        return new ScoreObject(scores, null);
+    }
+
+    private static int toScore(double d) {
+        return (int) Math.round(d * Scorer.SCORE_SCALE);
+    }
+}
@@ -17,8 +17,6 @@
  */
 package ml.shifu.shifu.core;
 
-import java.util.List;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,7 +42,7 @@ public class StreamStatsCalculator {
     private Double threshold = 1e6;
     private Double EPS = 1e-6;
     
-    private MunroPatEstimator<Double> estimator;
+    private QuantileSketch quantileSketch;
 
     private int validElementCnt = 0;
     
@@ -56,7 +54,7 @@ public class StreamStatsCalculator {
      */
     public StreamStatsCalculator(Double threshold) {
         this.threshold = threshold;
-        estimator = new MunroPatEstimator<Double>(3);
+        quantileSketch = new QuantileSketch();
     }
 
     public void addData(double data) {
@@ -73,7 +71,7 @@ public class StreamStatsCalculator {
         sum += data;
         squaredSum += data * data;
         
-        estimator.add(data);
+        quantileSketch.add(data);
     }
     
     public void addData(double data, int frequency) {
@@ -95,12 +93,9 @@ public class StreamStatsCalculator {
         sum += data * frequency;
         squaredSum += data * data * frequency;
         
-        for(int i = 0 ; i < frequency; i ++) {
-        	estimator.add(data);
-        }
+        quantileSketch.add(data, frequency);
     }
     
-    
     public double getMin() {
         return min;
     }
@@ -127,10 +122,11 @@ public class StreamStatsCalculator {
     }
 
     public double getMedian() {
-    	List<Double> list = estimator.getQuantiles();	
-    	if (list.size() == 0) return median;
-    	
-    	else return list.get(1);
+        if ( validElementCnt == 0 ) {
+            return median;
+        }
+
+        return quantileSketch.getMedian();
     }
     
 }
@@ -20,8 +20,10 @@ import ml.shifu.shifu.container.obj.ModelConfig;
 import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
 import ml.shifu.shifu.core.AbstractTrainer;
 import ml.shifu.shifu.core.MSEWorker;
+import ml.shifu.shifu.core.dtrain.BinaryNNSerializer;
 import ml.shifu.shifu.fs.ShifuFileUtils;
 import ml.shifu.shifu.util.JSONUtils;
+import org.apache.commons.io.FileUtils;
 import org.encog.engine.network.activation.*;
 import org.encog.mathutil.IntRange;
 import org.encog.ml.data.MLDataSet;
@@ -33,7 +35,6 @@ import org.encog.neural.networks.training.propagation.manhattan.ManhattanPropaga
 import org.encog.neural.networks.training.propagation.quick.QuickPropagation;
 import org.encog.neural.networks.training.propagation.resilient.ResilientPropagation;
 import org.encog.neural.networks.training.propagation.scg.ScaledConjugateGradient;
-import org.encog.persist.EncogDirectoryPersistence;
 import org.encog.util.concurrency.DetermineWorkload;
 import org.encog.util.concurrency.EngineConcurrency;
 import org.encog.util.concurrency.TaskGroup;
@@ -66,6 +67,18 @@ public class NNTrainer extends AbstractTrainer {
     private volatile boolean toPersistentModel = true;
     private volatile boolean toLoggingProcess = true;
 
+    /**
+     * the number of workers to compute the gradients and validation error, 0 means all cores
+     */
+    private int threadCount = 0;
+
+    /**
+     * workers to compute the validation error, they are reused in all epochs
+     */
+    private MSEWorker[] mseWorkers;
+    private BasicNetwork mseNetwork;
+    private MLDataSet mseDataSet;
+
     static {
         defaultLearningRate = new HashMap<String, Double>();
         defaultLearningRate.put("S", 0.1);
@@ -157,7 +170,7 @@ public class NNTrainer extends AbstractTrainer {
         buildNetwork();
 
         Propagation mlTrain = getMLTrain();
-        mlTrain.setThreadCount(0);
+        mlTrain.setThreadCount(this.threadCount);
 
         if ( this.dryRun ) {
             return 0.0;
@@ -215,6 +228,13 @@ public class NNTrainer extends AbstractTrainer {
     public void disableLogging() {
         this.toLoggingProcess = false;
     }
+    /**
+     * @param threadCount the number of workers to train the network, 0 means all cores
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
     /**
      * @param network the network to set
      */
@@ -272,27 +292,36 @@ public class NNTrainer extends AbstractTrainer {
         int numRecords = (int) dataSet.getRecordCount();
         assert numRecords > 0;
 
-        // setup workers
-        final DetermineWorkload determine = new DetermineWorkload(0, numRecords);
-        // nice little workaround
-        MSEWorker[] workers = new MSEWorker[determine.getThreadCount()];
-
-        int index = 0;
-        TaskGroup group = EngineConcurrency.getInstance().createTaskGroup();
-        for (final IntRange r : determine.calculateWorkers()) {
-            workers[index++] = new MSEWorker((BasicNetwork)
-                    network.clone(),
-                    dataSet.openAdditional(), r.getLow(), r.getHigh()
-            );
+        if (this.mseWorkers == null || this.mseNetwork != network || this.mseDataSet != dataSet) {
+            // setup workers, the copies of network are created once
+            final DetermineWorkload determine = new DetermineWorkload(this.threadCount, numRecords);
+            MSEWorker[] workers = new MSEWorker[determine.getThreadCount()];
+
+            int index = 0;
+            for (final IntRange r : determine.calculateWorkers()) {
+                workers[index++] = new MSEWorker(network, dataSet.openAdditional(), r.getLow(), r.getHigh());
+            }
+            this.mseWorkers = workers;
+            this.mseNetwork = network;
+            this.mseDataSet = dataSet;
+        } else {
+            for (final MSEWorker worker : this.mseWorkers) {
+                worker.syncWeights();
+            }
         }
 
-        for (final MSEWorker worker : workers) {
-            EngineConcurrency.getInstance().processTask(worker, group);
+        if (this.mseWorkers.length == 1) {
+            this.mseWorkers[0].run();
+        } else {
+            TaskGroup group = EngineConcurrency.getInstance().createTaskGroup();
+            for (final MSEWorker worker : this.mseWorkers) {
+                EngineConcurrency.getInstance().processTask(worker, group);
+            }
+            group.waitForComplete();
         }
-        group.waitForComplete();
 
         double totalError = 0;
-        for (final MSEWorker worker : workers ) {
+        for (final MSEWorker worker : this.mseWorkers) {
             totalError += worker.getTotalError();
         }
         return totalError / numRecords;
@@ -307,7 +336,10 @@ public class NNTrainer extends AbstractTrainer {
         if (!folder.exists()) {
             folder.mkdirs();
         }
-        EncogDirectoryPersistence.saveObject(new File(folder, "model" + this.trainerID + ".nn"), network);
+        File modelFile = new File(folder, "model" + this.trainerID + ".nn");
+        byte[] eg = BinaryNNSerializer.toEGBytes(network);
+        FileUtils.writeByteArrayToFile(modelFile, eg);
+        BinaryNNSerializer.save(new File(BinaryNNSerializer.getBinaryPath(modelFile.getPath())), network, eg);
     }
 
     private void saveTmpNN(int epoch) throws IOException {
@@ -320,7 +352,10 @@ public class NNTrainer extends AbstractTrainer {
             tmpFolder.mkdirs();
         }
 
-        EncogDirectoryPersistence.saveObject(new File(tmpFolder, "model" + trainerID + "-" + epoch + ".nn"), network);
+        // tmp models are only saved in binary format to make checkpoint cheap
+        BinaryNNSerializer.save(
+                new File(tmpFolder, BinaryNNSerializer.getBinaryPath("model" + trainerID + "-" + epoch + ".nn")),
+                network, null);
     }
 
     public MLDataSet getValidSet() {
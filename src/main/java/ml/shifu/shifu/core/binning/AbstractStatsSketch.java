@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core.binning;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ml.shifu.shifu.container.obj.ColumnConfig;
+import ml.shifu.shifu.container.obj.ColumnConfig.ColumnType;
+import ml.shifu.shifu.container.obj.ModelConfig;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * AbstractStatsSketch class
+ *
+ * <p>
+ * A mergeable per-column summary that is built in one pass over the raw values. Unlike {@link AbstractBinning},
+ * which only produces the bin boundary/category, the sketch also keeps the positive/negative counts and weighted
+ * sums in its fine-grained units, so the final bins, KS/IV and basic stats could be derived from the sketch without
+ * scanning the raw values a second time.
+ *
+ * @Dec 2, 2014
+ *
+ */
+public abstract class AbstractStatsSketch {
+
+    /**
+     * Label of the record the value comes from
+     */
+    public static final byte LABEL_NEG = 0;
+    public static final byte LABEL_POS = 1;
+    public static final byte LABEL_OTHER = -1;
+
+    /**
+     * Total record count, missing data count && invalid data count
+     */
+    protected long totalValCnt = 0;
+    protected long missingValCnt = 0;
+    protected long invalidValCnt = 0;
+
+    /**
+     * Add one raw value into the sketch
+     *
+     * @param val
+     *            - the raw value, null or blank will be regarded as missing
+     * @param label
+     *            - {@link #LABEL_POS}, {@link #LABEL_NEG} or {@link #LABEL_OTHER}
+     * @param weight
+     *            - the weight of the record
+     */
+    public abstract void addData(String val, byte label, double weight);
+
+    /**
+     * Merge another sketch of the same column into this one
+     *
+     * @param another
+     */
+    public void mergeSketch(AbstractStatsSketch another) {
+        this.totalValCnt += another.totalValCnt;
+        this.missingValCnt += another.missingValCnt;
+        this.invalidValCnt += another.invalidValCnt;
+    }
+
+    /**
+     * Derive the bins, bin counts and basic stats from the sketch, and set them into @ColumnConfig
+     *
+     * @param columnConfig
+     */
+    public abstract void populateColumnConfig(ColumnConfig columnConfig);
+
+    /**
+     * Get the total record count
+     *
+     * @return
+     */
+    public long getTotalValCnt() {
+        return totalValCnt;
+    }
+
+    /**
+     * Get value missing count
+     *
+     * @return
+     */
+    public long getMissingValCnt() {
+        return missingValCnt;
+    }
+
+    /**
+     * Get invalid value count
+     *
+     * @return
+     */
+    public long getInvalidValCnt() {
+        return invalidValCnt;
+    }
+
+    /**
+     * Set missing count, total count and missing percentage into @ColumnConfig.
+     * Currently, invalid value will be regarded as missing
+     *
+     * @param columnConfig
+     */
+    protected void populateCountInfo(ColumnConfig columnConfig) {
+        columnConfig.setMissingCnt(missingValCnt + invalidValCnt);
+        columnConfig.setTotalCount(totalValCnt);
+        columnConfig.setMissingPercentage(((double) columnConfig.getMissingCount()) / columnConfig.getTotalCount());
+    }
+
+    /**
+     * Set bin counts, weighted counts, positive rate and (zero) average score into @ColumnConfig
+     *
+     * @param columnConfig
+     * @param binCountPos
+     * @param binCountNeg
+     * @param binWeightPos
+     * @param binWeightNeg
+     */
+    protected void populateBinInfo(ColumnConfig columnConfig, long[] binCountPos, long[] binCountNeg,
+            double[] binWeightPos, double[] binWeightNeg) {
+        List<Integer> countPosList = new ArrayList<Integer>(binCountPos.length);
+        List<Integer> countNegList = new ArrayList<Integer>(binCountPos.length);
+        List<Double> weightPosList = new ArrayList<Double>(binCountPos.length);
+        List<Double> weightNegList = new ArrayList<Double>(binCountPos.length);
+        List<Double> posRateList = new ArrayList<Double>(binCountPos.length);
+        List<Integer> avgScoreList = new ArrayList<Integer>(binCountPos.length);
+
+        for(int i = 0; i < binCountPos.length; i++) {
+            countPosList.add((int) binCountPos[i]);
+            countNegList.add((int) binCountNeg[i]);
+            weightPosList.add(binWeightPos[i]);
+            weightNegList.add(binWeightNeg[i]);
+
+            long binTotal = binCountPos[i] + binCountNeg[i];
+            posRateList.add(binTotal == 0 ? 0.0 : ((double) binCountPos[i]) / binTotal);
+            // the average score is calculated in post-train
+            avgScoreList.add(0);
+        }
+
+        columnConfig.setBinCountPos(countPosList);
+        columnConfig.setBinCountNeg(countNegList);
+        columnConfig.setBinWeightedPos(weightPosList);
+        columnConfig.setBinWeightedNeg(weightNegList);
+        columnConfig.setBinPosCaseRate(posRateList);
+        columnConfig.setBinAvgScore(avgScoreList);
+    }
+
+    /**
+     * convert String to @AbstractStatsSketch fields
+     *
+     * @return the fields that are not consumed by @AbstractStatsSketch
+     */
+    protected String[] stringToObj(String objValStr) {
+        String[] objStrArr = objValStr.split(Character.toString(AbstractBinning.FIELD_SEPARATOR), -1);
+        if(objStrArr.length < 3) {
+            throw new IllegalArgumentException("The size of argument is incorrect");
+        }
+
+        totalValCnt = Long.parseLong(StringUtils.trim(objStrArr[0]));
+        missingValCnt = Long.parseLong(StringUtils.trim(objStrArr[1]));
+        invalidValCnt = Long.parseLong(StringUtils.trim(objStrArr[2]));
+
+        String[] restArr = new String[objStrArr.length - 3];
+        System.arraycopy(objStrArr, 3, restArr, 0, restArr.length);
+        return restArr;
+    }
+
+    /**
+     * convert @AbstractStatsSketch to String
+     *
+     * @return
+     */
+    public String objToString() {
+        return Long.toString(totalValCnt) + AbstractBinning.FIELD_SEPARATOR + Long.toString(missingValCnt)
+                + AbstractBinning.FIELD_SEPARATOR + Long.toString(invalidValCnt);
+    }
+
+    /**
+     * Create an empty sketch for the column
+     *
+     * @param modelConfig
+     * @param columnConfig
+     * @return the sketch for the column
+     */
+    public static AbstractStatsSketch newSketch(ModelConfig modelConfig, ColumnConfig columnConfig) {
+        if(columnConfig.isCategorical()) {
+            return new CategoricalStatsSketch();
+        } else if(columnConfig.getColumnType() == ColumnType.A) {
+            return new AutoTypeStatsSketch(modelConfig);
+        } else {
+            Double threshold = modelConfig.getNumericalValueThreshold();
+            return new NumericalStatsSketch(modelConfig.getBinningExpectedNum(), modelConfig.getBinningMethod(),
+                    (threshold == null ? Double.MAX_VALUE : threshold.doubleValue()));
+        }
+    }
+
+    /**
+     * Construct the sketch from String
+     *
+     * @param modelConfig
+     * @param columnConfig
+     * @param objValStr
+     *            - the string present of object
+     * @return the sketch for the column
+     */
+    public static AbstractStatsSketch constructSketchFromStr(ModelConfig modelConfig, ColumnConfig columnConfig,
+            String objValStr) {
+        AbstractStatsSketch sketch = newSketch(modelConfig, columnConfig);
+        sketch.stringToObj(objValStr);
+        return sketch;
+    }
+}
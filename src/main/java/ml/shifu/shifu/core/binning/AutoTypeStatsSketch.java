@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core.binning;
+
+import java.io.IOException;
+
+import ml.shifu.shifu.container.obj.ColumnConfig;
+import ml.shifu.shifu.container.obj.ColumnConfig.ColumnType;
+import ml.shifu.shifu.container.obj.ModelConfig;
+import ml.shifu.shifu.util.Base64Utils;
+
+/**
+ * AutoTypeStatsSketch class is the sketch for the column of type 'A', whose type is decided by the data.
+ *
+ * <p>
+ * Every value is added into both {@link NumericalStatsSketch} and {@link CategoricalStatsSketch}, the memory of both is
+ * bounded. When populating @ColumnConfig, the column is categorical if any non-blank value is not a number, or the
+ * distinct count is no more than the auto type threshold, the same as BinningDataType.Auto in @Binning; otherwise the
+ * column is numerical. The column type is updated to N or C with the stats.
+ *
+ * <p>
+ * The type is only decided when the partial sketches are all merged, so both sketches are kept in the string present,
+ * each is base64 encoded to keep its own separators.
+ *
+ * @Dec 23, 2014
+ *
+ */
+public class AutoTypeStatsSketch extends AbstractStatsSketch {
+
+    /**
+     * The default threshold of distinct count, the same as @Binning
+     */
+    public static final int DEFAULT_AUTO_TYPE_THRESHOLD = 5;
+
+    private final NumericalStatsSketch numericalSketch;
+
+    private final CategoricalStatsSketch categoricalSketch = new CategoricalStatsSketch();
+
+    private final int autoTypeThreshold;
+
+    public AutoTypeStatsSketch(ModelConfig modelConfig) {
+        Double threshold = modelConfig.getNumericalValueThreshold();
+        this.numericalSketch = new NumericalStatsSketch(modelConfig.getBinningExpectedNum(),
+                modelConfig.getBinningMethod(), (threshold == null ? Double.MAX_VALUE : threshold.doubleValue()));
+        Integer autoTypeThreshold = modelConfig.getAutoTypeThreshold();
+        this.autoTypeThreshold = (autoTypeThreshold == null ? DEFAULT_AUTO_TYPE_THRESHOLD : autoTypeThreshold
+                .intValue());
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see ml.shifu.shifu.core.binning.AbstractStatsSketch#addData(java.lang.String, byte, double)
+     */
+    @Override
+    public void addData(String val, byte label, double weight) {
+        numericalSketch.addData(val, label, weight);
+        categoricalSketch.addData(val, label, weight);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see ml.shifu.shifu.core.binning.AbstractStatsSketch#mergeSketch(ml.shifu.shifu.core.binning.AbstractStatsSketch)
+     */
+    @Override
+    public void mergeSketch(AbstractStatsSketch another) {
+        AutoTypeStatsSketch sketch = (AutoTypeStatsSketch) another;
+        numericalSketch.mergeSketch(sketch.numericalSketch);
+        categoricalSketch.mergeSketch(sketch.categoricalSketch);
+    }
+
+    /**
+     * @return true if the column should be categorical, see the class doc
+     */
+    public boolean isCategorical() {
+        return numericalSketch.getInvalidValCnt() > 0 || categoricalSketch.getDistinctCount() <= autoTypeThreshold;
+    }
+
+    /*
+     * Decide the column type, and populate the stats of the chosen sketch
+     * @see ml.shifu.shifu.core.binning.AbstractStatsSketch#populateColumnConfig(ml.shifu.shifu.container.obj.ColumnConfig)
+     */
+    @Override
+    public void populateColumnConfig(ColumnConfig columnConfig) {
+        if(isCategorical()) {
+            columnConfig.setColumnType(ColumnType.C);
+            categoricalSketch.populateColumnConfig(columnConfig);
+        } else {
+            columnConfig.setColumnType(ColumnType.N);
+            numericalSketch.populateColumnConfig(columnConfig);
+        }
+    }
+
+    @Override
+    public long getTotalValCnt() {
+        return numericalSketch.getTotalValCnt();
+    }
+
+    @Override
+    public long getMissingValCnt() {
+        return numericalSketch.getMissingValCnt();
+    }
+
+    @Override
+    public long getInvalidValCnt() {
+        return numericalSketch.getInvalidValCnt();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see ml.shifu.shifu.core.binning.AbstractStatsSketch#stringToObj(java.lang.String)
+     */
+    @Override
+    protected String[] stringToObj(String objValStr) {
+        String[] objStrArr = objValStr.split(Character.toString(AbstractBinning.FIELD_SEPARATOR), -1);
+        if(objStrArr.length != 2) {
+            throw new IllegalArgumentException("The size of argument is incorrect");
+        }
+
+        try {
+            numericalSketch.stringToObj(Base64Utils.base64Decode(objStrArr[0]));
+            categoricalSketch.stringToObj(Base64Utils.base64Decode(objStrArr[1]));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Fail to decode the sketch", e);
+        }
+        return new String[0];
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see ml.shifu.shifu.core.binning.AbstractStatsSketch#objToString()
+     */
+    @Override
+    public String objToString() {
+        return Base64Utils.base64Encode(numericalSketch.objToString()) + AbstractBinning.FIELD_SEPARATOR
+                + Base64Utils.base64Encode(categoricalSketch.objToString());
+    }
+}
@@ -18,11 +18,11 @@
 package ml.shifu.shifu.core.binning;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
-
-import ml.shifu.shifu.udf.CalculateNewStatsUDF;
+import java.util.Map;
 
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
@@ -31,6 +31,11 @@ import org.slf4j.LoggerFactory;
 /**
  * CategoricalBinning class
  * 
+ * <p>
+ * It counts the frequency of every category. When there are too many categories (such as ID-like column), only the
+ * most frequent categories are kept, and the rest are represented by {@link #OTHER_CATEGORY} in bins. The distinct
+ * count is estimated by {@link HyperLogLog}.
+ * 
  * @Oct 20, 2014
  *
  */
@@ -38,8 +43,24 @@ public class CategoricalBinning extends AbstractBinning<String> {
     
     private final static Logger log = LoggerFactory.getLogger(CategoricalBinning.class);
 
-    private boolean isValid = true;
-    private Set<String> categoricalVals;
+    /**
+     * The category of "other" bucket, the values not in top categories are mapped into it
+     */
+    public static final String OTHER_CATEGORY = "$OTHER$";
+
+    /**
+     * The max count of categorical bins, experience value from modeler
+     */
+    public static final int MAX_CATEGORICAL_BINC_COUNT = 4000;
+
+    /**
+     * The max category count in final bins, one slot is left for the "other" bucket
+     */
+    public static final int MAX_TOP_CATEGORIES = MAX_CATEGORICAL_BINC_COUNT - 1;
+
+    private boolean isCapped = false;
+    private Map<String, Long> categoricalVals;
+    private HyperLogLog hyperLogLog;
     
     /**
      * Empty constructor : it is just for bin merging
@@ -63,7 +84,8 @@ public class CategoricalBinning extends AbstractBinning<String> {
      */
     public CategoricalBinning(int binningNum, List<String> missingValList) {
         super(binningNum, missingValList);
-        this.categoricalVals = new HashSet<String>();
+        this.categoricalVals = new HashMap<String, Long>();
+        this.hyperLogLog = new HyperLogLog();
     }
 
     /* (non-Javadoc)
@@ -76,17 +98,53 @@ public class CategoricalBinning extends AbstractBinning<String> {
     public void addData(String val) {
         String fval = StringUtils.trimToEmpty(val);
         if ( !isMissingVal(fval) ) {
-            if ( isValid ) {
-                categoricalVals.add(fval);
-            }
+            hyperLogLog.add(fval);
+            addCategory(fval, 1L);
+        } else {
+            super.incMissingValCnt();
+        }
+    }
 
-            if ( categoricalVals.size() > CalculateNewStatsUDF.MAX_CATEGORICAL_BINC_COUNT ) {
-                isValid = false;
-                categoricalVals.clear();
+    private void addCategory(String category, long cnt) {
+        Long current = categoricalVals.get(category);
+        if ( current == null ) {
+            if ( categoricalVals.size() >= 2 * MAX_TOP_CATEGORIES ) {
+                evict(MAX_TOP_CATEGORIES);
             }
+            categoricalVals.put(category, cnt);
         } else {
-            super.incMissingValCnt();
+            categoricalVals.put(category, current + cnt);
+        }
+    }
+
+    /**
+     * Keep the most frequent categories only. It's called in batch, so the cost of sorting is amortized.
+     */
+    private void evict(int keepCnt) {
+        if ( categoricalVals.size() <= keepCnt ) {
+            return;
+        }
+
+        List<String> sortedVals = getSortedCategories();
+        for ( int i = keepCnt; i < sortedVals.size(); i ++ ) {
+            categoricalVals.remove(sortedVals.get(i));
         }
+        isCapped = true;
+    }
+
+    /**
+     * @return categories sorted by frequency (descending), then by value
+     */
+    private List<String> getSortedCategories() {
+        List<String> sortedVals = new ArrayList<String>(categoricalVals.keySet());
+        Collections.sort(sortedVals, new Comparator<String>() {
+            @Override
+            public int compare(String a, String b) {
+                int d = categoricalVals.get(b).compareTo(categoricalVals.get(a));
+                return (d == 0 ? a.compareTo(b) : d);
+            }
+        });
+        return sortedVals;
     }
 
     /* (non-Javadoc)
@@ -94,11 +152,33 @@ public class CategoricalBinning extends AbstractBinning<String> {
      */
     @Override
     public List<String> getDataBin() {
+        evict(MAX_TOP_CATEGORIES);
+
         List<String> binningVals = new ArrayList<String>();
-        binningVals.addAll(categoricalVals);
+        binningVals.addAll(categoricalVals.keySet());
+        if ( isCapped ) {
+            log.warn("There are about " + hyperLogLog.cardinality() + " distinct values, only top "
+                    + MAX_TOP_CATEGORIES + " categories are kept.");
+            binningVals.add(OTHER_CATEGORY);
+        }
         return binningVals;
     }
 
+    /**
+     * Check whether some categories are dropped
+     * @return
+     */
+    public boolean isCapped() {
+        return isCapped;
+    }
+
+    /**
+     * @return the estimated count of distinct values
+     */
+    public long getDistinctCount() {
+        return hyperLogLog.cardinality();
+    }
+
     /* (non-Javadoc)
      * @see ml.shifu.shifu.core.binning.AbstractBinning#mergeBin(ml.shifu.shifu.core.binning.AbstractBinning)
      */
@@ -107,12 +187,11 @@ public class CategoricalBinning extends AbstractBinning<String> {
         CategoricalBinning binning = (CategoricalBinning) another;
         super.mergeBin(another);
 
-        this.isValid = (this.isValid && binning.isValid);
-        if ( this.isValid ) {
-            this.categoricalVals.addAll(binning.categoricalVals);
-        } else {
-            this.categoricalVals.clear();
+        for ( Map.Entry<String, Long> entry : binning.categoricalVals.entrySet() ) {
+            addCategory(entry.getKey(), entry.getValue());
         }
+        this.isCapped = (this.isCapped || binning.isCapped);
+        this.hyperLogLog.merge(binning.hyperLogLog);
     }
     
     /**
@@ -123,21 +202,27 @@ public class CategoricalBinning extends AbstractBinning<String> {
         super.stringToObj(objValStr);
 
         if ( categoricalVals == null ) {
-            categoricalVals = new HashSet<String>();
+            categoricalVals = new HashMap<String, Long>();
         } else {
             categoricalVals.clear();
         }
         
         String[] objStrArr = objValStr.split(Character.toString(FIELD_SEPARATOR), -1);
-        this.isValid = Boolean.valueOf(objStrArr[4]);
+        this.isCapped = Boolean.valueOf(objStrArr[4]);
         if ( objStrArr.length > 5 && StringUtils.isNotBlank(objStrArr[5]) ) {
             String[] elements = objStrArr[5].split(Character.toString(SETLIST_SEPARATOR), -1);
             for ( String element : elements ) {
-                categoricalVals.add(element);
+                int pos = element.lastIndexOf(PAIR_SEPARATOR);
+                categoricalVals.put(element.substring(0, pos), Long.valueOf(element.substring(pos + 1)));
             }
         } else {
             log.warn("Empty categorical bin - " + objValStr);
         }
+
+        this.hyperLogLog = new HyperLogLog();
+        if ( objStrArr.length > 6 ) {
+            this.hyperLogLog.stringToObj(objStrArr[6]);
+        }
     }
     
     /**
@@ -145,11 +230,18 @@ public class CategoricalBinning extends AbstractBinning<String> {
      * @return
      */
     public String objToString() {
+        List<String> elements = new ArrayList<String>(categoricalVals.size());
+        for ( Map.Entry<String, Long> entry : categoricalVals.entrySet() ) {
+            elements.add(entry.getKey() + PAIR_SEPARATOR + entry.getValue());
+        }
+
         return super.objToString() 
                 + Character.toString(FIELD_SEPARATOR)
-                + Boolean.toString(isValid)
+                + Boolean.toString(isCapped)
+                + Character.toString(FIELD_SEPARATOR)
+                + StringUtils.join(elements, SETLIST_SEPARATOR)
                 + Character.toString(FIELD_SEPARATOR)
-                + StringUtils.join(categoricalVals, SETLIST_SEPARATOR);
+                + hyperLogLog.objToString();
     }
 
 }
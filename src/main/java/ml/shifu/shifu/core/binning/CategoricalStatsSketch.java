@@ -0,0 +1,373 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core.binning;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ml.shifu.shifu.container.obj.ColumnConfig;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * CategoricalStatsSketch class
+ *
+ * <p>
+ * Every category keeps its positive/negative counts and weighted sums. The memory is bounded for the column with too
+ * many categories (such as ID-like column) - when the category count reaches twice of
+ * {@link CategoricalBinning#MAX_TOP_CATEGORIES}, only the most frequent categories are kept, and the counts of the
+ * evicted categories are folded into the {@link CategoricalBinning#OTHER_CATEGORY} bucket. A {@link HyperLogLog}
+ * estimates the distinct count of the column, so the capped column could be reported.
+ *
+ * @Dec 2, 2014
+ *
+ */
+public class CategoricalStatsSketch extends AbstractStatsSketch {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoricalStatsSketch.class);
+
+    private static final double EPS = 1e-6;
+
+    private boolean isCapped = false;
+
+    private HyperLogLog hyperLogLog = new HyperLogLog();
+
+    private long otherPos = 0;
+    private long otherNeg = 0;
+    private double otherWeightPos = 0.0;
+    private double otherWeightNeg = 0.0;
+
+    private Map<String, Integer> categoryIndex = new HashMap<String, Integer>();
+    private List<String> categories = new ArrayList<String>();
+    private long[] countPos = new long[16];
+    private long[] countNeg = new long[16];
+    private double[] weightPos = new double[16];
+    private double[] weightNeg = new double[16];
+
+    /*
+     * Add the category into the sketch. Blank value is regarded as missing value. The category is only
+     * counted when the record is positive or negative.
+     * @see ml.shifu.shifu.core.binning.AbstractStatsSketch#addData(java.lang.String, byte, double)
+     */
+    @Override
+    public void addData(String val, byte label, double weight) {
+        totalValCnt++;
+
+        String fval = StringUtils.trimToEmpty(val);
+        if(fval.length() == 0) {
+            missingValCnt++;
+            return;
+        }
+
+        hyperLogLog.add(fval);
+
+        if(label == LABEL_OTHER) {
+            return;
+        }
+
+        addCategory(fval, (label == LABEL_POS ? 1 : 0), (label == LABEL_NEG ? 1 : 0), (label == LABEL_POS ? weight
+                : 0.0), (label == LABEL_NEG ? weight : 0.0));
+    }
+
+    /**
+     * Add counts to some category
+     */
+    private void addCategory(String category, long pos, long neg, double wpos, double wneg) {
+        Integer index = categoryIndex.get(category);
+        if(index == null) {
+            if(categories.size() >= 2 * CategoricalBinning.MAX_TOP_CATEGORIES) {
+                evict(CategoricalBinning.MAX_TOP_CATEGORIES);
+            }
+
+            index = categories.size();
+            categories.add(category);
+            categoryIndex.put(category, index);
+            ensureCapacity(categories.size());
+        }
+
+        countPos[index] += pos;
+        countNeg[index] += neg;
+        weightPos[index] += wpos;
+        weightNeg[index] += wneg;
+    }
+
+    /**
+     * Keep the most frequent categories, and fold the others into the "other" bucket. It's called in batch, so the
+     * cost of sorting is amortized over the categories added since last eviction.
+     *
+     * @param keepCnt
+     *            - the count of categories to keep
+     */
+    private void evict(int keepCnt) {
+        int size = categories.size();
+        if(size <= keepCnt) {
+            return;
+        }
+
+        Integer[] order = new Integer[size];
+        for(int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                long d = (countPos[b] + countNeg[b]) - (countPos[a] + countNeg[a]);
+                return (d == 0 ? categories.get(a).compareTo(categories.get(b)) : (d > 0 ? 1 : -1));
+            }
+        });
+
+        List<String> keptCategories = new ArrayList<String>(keepCnt);
+        long[] keptPos = new long[countPos.length];
+        long[] keptNeg = new long[countNeg.length];
+        double[] keptWeightPos = new double[weightPos.length];
+        double[] keptWeightNeg = new double[weightNeg.length];
+        categoryIndex.clear();
+        for(int i = 0; i < size; i++) {
+            int index = order[i];
+            if(i < keepCnt) {
+                categoryIndex.put(categories.get(index), i);
+                keptCategories.add(categories.get(index));
+                keptPos[i] = countPos[index];
+                keptNeg[i] = countNeg[index];
+                keptWeightPos[i] = weightPos[index];
+                keptWeightNeg[i] = weightNeg[index];
+            } else {
+                otherPos += countPos[index];
+                otherNeg += countNeg[index];
+                otherWeightPos += weightPos[index];
+                otherWeightNeg += weightNeg[index];
+            }
+        }
+
+        categories = keptCategories;
+        countPos = keptPos;
+        countNeg = keptNeg;
+        weightPos = keptWeightPos;
+        weightNeg = keptWeightNeg;
+        isCapped = true;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if(capacity > countPos.length) {
+            int newCapacity = Math.max(capacity, countPos.length * 2);
+            countPos = Arrays.copyOf(countPos, newCapacity);
+            countNeg = Arrays.copyOf(countNeg, newCapacity);
+            weightPos = Arrays.copyOf(weightPos, newCapacity);
+            weightNeg = Arrays.copyOf(weightNeg, newCapacity);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see ml.shifu.shifu.core.binning.AbstractStatsSketch#mergeSketch(ml.shifu.shifu.core.binning.AbstractStatsSketch)
+     */
+    @Override
+    public void mergeSketch(AbstractStatsSketch another) {
+        CategoricalStatsSketch sketch = (CategoricalStatsSketch) another;
+        super.mergeSketch(another);
+
+        for(int i = 0; i < sketch.categories.size(); i++) {
+            addCategory(sketch.categories.get(i), sketch.countPos[i], sketch.countNeg[i], sketch.weightPos[i],
+                    sketch.weightNeg[i]);
+        }
+
+        this.isCapped = (this.isCapped || sketch.isCapped);
+        this.otherPos += sketch.otherPos;
+        this.otherNeg += sketch.otherNeg;
+        this.otherWeightPos += sketch.otherWeightPos;
+        this.otherWeightNeg += sketch.otherWeightNeg;
+        this.hyperLogLog.merge(sketch.hyperLogLog);
+    }
+
+    /**
+     * Check whether some categories are folded into the "other" bucket
+     *
+     * @return
+     */
+    public boolean isCapped() {
+        return isCapped;
+    }
+
+    /**
+     * @return the estimated count of distinct values
+     */
+    public long getDistinctCount() {
+        return hyperLogLog.cardinality();
+    }
+
+    /*
+     * Categories are sorted by the positive rate, the same as @Binning does. Max/min/mean/stddev/median are
+     * calculated on the positive rate of every record. If the column is capped, the "other" bucket is appended as
+     * one more category, so it should be called only once after all data is added.
+     * @see ml.shifu.shifu.core.binning.AbstractStatsSketch#populateColumnConfig(ml.shifu.shifu.container.obj.ColumnConfig)
+     */
+    @Override
+    public void populateColumnConfig(ColumnConfig columnConfig) {
+        evict(CategoricalBinning.MAX_TOP_CATEGORIES);
+        if(isCapped) {
+            log.warn("Column {} has about {} distinct values, only top {} categories are kept.",
+                    columnConfig.getColumnName(), getDistinctCount(), CategoricalBinning.MAX_TOP_CATEGORIES);
+            // the "other" bucket is the last category
+            categories.add(CategoricalBinning.OTHER_CATEGORY);
+            ensureCapacity(categories.size());
+            int index = categories.size() - 1;
+            countPos[index] = otherPos;
+            countNeg[index] = otherNeg;
+            weightPos[index] = otherWeightPos;
+            weightNeg[index] = otherWeightNeg;
+        }
+
+        int binNum = categories.size();
+        final double[] posRate = new double[binNum];
+        Integer[] order = new Integer[binNum];
+        for(int i = 0; i < binNum; i++) {
+            long binTotal = countPos[i] + countNeg[i];
+            posRate[i] = (binTotal == 0 ? 0.0 : ((double) countPos[i]) / binTotal);
+            order[i] = i;
+        }
+
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                int d = Double.compare(posRate[a], posRate[b]);
+                return (d == 0 ? categories.get(a).compareTo(categories.get(b)) : d);
+            }
+        });
+
+        List<String> binCategory = new ArrayList<String>(binNum);
+        long[] binCountPos = new long[binNum];
+        long[] binCountNeg = new long[binNum];
+        double[] binWeightPos = new double[binNum];
+        double[] binWeightNeg = new double[binNum];
+        for(int i = 0; i < binNum; i++) {
+            int index = order[i];
+            binCategory.add(categories.get(index));
+            binCountPos[i] = countPos[index];
+            binCountNeg[i] = countNeg[index];
+            binWeightPos[i] = weightPos[index];
+            binWeightNeg[i] = weightNeg[index];
+        }
+
+        columnConfig.setBinCategory(binCategory);
+        columnConfig.setDistinctCount(getDistinctCount());
+        populateBinInfo(columnConfig, binCountPos, binCountNeg, binWeightPos, binWeightNeg);
+
+        long cnt = 0;
+        double sum = 0.0;
+        double squaredSum = 0.0;
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for(int i = 0; i < binNum; i++) {
+            long binTotal = binCountPos[i] + binCountNeg[i];
+            if(binTotal == 0) {
+                continue;
+            }
+            double rate = columnConfig.getBinPosRate().get(i);
+            cnt += binTotal;
+            sum += rate * binTotal;
+            squaredSum += rate * rate * binTotal;
+            min = Math.min(min, rate);
+            max = Math.max(max, rate);
+        }
+
+        double mean = (cnt > 0 ? sum / cnt : Double.NaN);
+        double median = mean;
+        long cumulative = 0;
+        for(int i = 0; i < binNum && cnt > 0; i++) {
+            // categories are sorted by positive rate, so the weighted median could be found by cumulative count
+            cumulative += binCountPos[i] + binCountNeg[i];
+            if(cumulative * 2 >= cnt) {
+                median = columnConfig.getBinPosRate().get(i);
+                break;
+            }
+        }
+
+        columnConfig.setMax(max);
+        columnConfig.setMean(mean);
+        columnConfig.setMin(min);
+        columnConfig.setMedian(median);
+        columnConfig.setStdDev((cnt <= 1) ? Double.NaN : Math.sqrt((squaredSum - (sum * sum) / cnt + EPS)
+                / (cnt - 1)));
+
+        populateCountInfo(columnConfig);
+    }
+
+    /**
+     * convert String to @CategoricalStatsSketch
+     */
+    @Override
+    protected String[] stringToObj(String objValStr) {
+        String[] objStrArr = super.stringToObj(objValStr);
+        if(objStrArr.length < 4) {
+            throw new IllegalArgumentException("The size of argument is incorrect");
+        }
+
+        categoryIndex.clear();
+        categories.clear();
+        isCapped = Boolean.valueOf(objStrArr[0]);
+        String[] others = StringUtils.splitPreserveAllTokens(objStrArr[1], AbstractBinning.PAIR_SEPARATOR);
+        otherPos = Long.parseLong(others[0]);
+        otherNeg = Long.parseLong(others[1]);
+        otherWeightPos = Double.parseDouble(others[2]);
+        otherWeightNeg = Double.parseDouble(others[3]);
+        hyperLogLog.stringToObj(objStrArr[2]);
+        if(StringUtils.isNotBlank(objStrArr[3])) {
+            String[] elements = StringUtils.split(objStrArr[3], AbstractBinning.SETLIST_SEPARATOR);
+            for(String element: elements) {
+                String[] fields = StringUtils.splitPreserveAllTokens(element, AbstractBinning.PAIR_SEPARATOR);
+                addCategory(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+                        Double.parseDouble(fields[3]), Double.parseDouble(fields[4]));
+            }
+        }
+
+        String[] restArr = new String[objStrArr.length - 4];
+        System.arraycopy(objStrArr, 4, restArr, 0, restArr.length);
+        return restArr;
+    }
+
+    /**
+     * convert @CategoricalStatsSketch to String
+     */
+    @Override
+    public String objToString() {
+        StringBuilder buf = new StringBuilder(super.objToString());
+        buf.append(AbstractBinning.FIELD_SEPARATOR).append(isCapped);
+        buf.append(AbstractBinning.FIELD_SEPARATOR).append(otherPos).append(AbstractBinning.PAIR_SEPARATOR)
+                .append(otherNeg).append(AbstractBinning.PAIR_SEPARATOR).append(otherWeightPos)
+                .append(AbstractBinning.PAIR_SEPARATOR).append(otherWeightNeg);
+        buf.append(AbstractBinning.FIELD_SEPARATOR).append(hyperLogLog.objToString());
+        buf.append(AbstractBinning.FIELD_SEPARATOR);
+        for(int i = 0; i < categories.size(); i++) {
+            if(i > 0) {
+                buf.append(AbstractBinning.SETLIST_SEPARATOR);
+            }
+            buf.append(categories.get(i)).append(AbstractBinning.PAIR_SEPARATOR).append(countPos[i])
+                    .append(AbstractBinning.PAIR_SEPARATOR).append(countNeg[i])
+                    .append(AbstractBinning.PAIR_SEPARATOR).append(weightPos[i])
+                    .append(AbstractBinning.PAIR_SEPARATOR).append(weightNeg[i]);
+        }
+        return buf.toString();
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core.binning;
+
+import org.apache.commons.codec.binary.Base64;
+
+/**
+ * HyperLogLog class estimates the count of distinct values with fixed memory.
+ *
+ * <p>
+ * With the default precision, there are 4096 registers (4K bytes), and the standard error of estimation is about
+ * 1.6%. Two HyperLogLog with the same precision could be merged, so it could be calculated in mappers and merged in
+ * reducers.
+ *
+ * @Dec 5, 2014
+ *
+ */
+public class HyperLogLog {
+
+    public static final int DEFAULT_PRECISION = 12;
+
+    private int precision;
+    private byte[] registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * Constructor with precision, the register count is 2^precision
+     *
+     * @param precision
+     *            - should be in [4, 16]
+     */
+    public HyperLogLog(int precision) {
+        if(precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("The precision should be in [4, 16], but got " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Add value into the HyperLogLog
+     *
+     * @param val
+     */
+    public void add(String val) {
+        long hash = hash64(val);
+        int index = (int) (hash >>> (64 - precision));
+        // keep a sentinel bit, so the rank is never larger than (64 - precision + 1)
+        long rest = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if(rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * Merge another HyperLogLog into this one
+     *
+     * @param another
+     */
+    public void merge(HyperLogLog another) {
+        if(another.precision != this.precision) {
+            throw new IllegalArgumentException("Can't merge HyperLogLog with different precision");
+        }
+
+        for(int i = 0; i < registers.length; i++) {
+            if(another.registers[i] > registers[i]) {
+                registers[i] = another.registers[i];
+            }
+        }
+    }
+
+    /**
+     * @return the estimated count of distinct values
+     */
+    public long cardinality() {
+        int m = registers.length;
+        double sum = 0.0;
+        int zeros = 0;
+        for(int i = 0; i < m; i++) {
+            sum += 1.0 / (1L << registers[i]);
+            if(registers[i] == 0) {
+                zeros++;
+            }
+        }
+
+        double alpha = 0.7213 / (1.0 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        if(estimate <= 2.5 * m && zeros > 0) {
+            // linear counting for small cardinality
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * 64-bit hash of string, FNV-1a with the MurmurHash3 finalizer for better avalanche
+     */
+    private static long hash64(String val) {
+        long h = 0xcbf29ce484222325L;
+        for(int i = 0; i < val.length(); i++) {
+            h ^= val.charAt(i);
+            h *= 0x100000001b3L;
+        }
+
+        h ^= (h >>> 33);
+        h *= 0xff51afd7ed558ccdL;
+        h ^= (h >>> 33);
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= (h >>> 33);
+        return h;
+    }
+
+    /**
+     * convert @HyperLogLog to String
+     *
+     * @return
+     */
+    public String objToString() {
+        return Integer.toString(precision) + AbstractBinning.PAIR_SEPARATOR
+                + new String(new Base64(-1).encode(registers));
+    }
+
+    /**
+     * convert String to @HyperLogLog
+     *
+     * @param objValStr
+     */
+    public void stringToObj(String objValStr) {
+        int pos = objValStr.indexOf(AbstractBinning.PAIR_SEPARATOR);
+        if(pos < 0) {
+            throw new IllegalArgumentException("Invalid HyperLogLog string");
+        }
+
+        this.precision = Integer.parseInt(objValStr.substring(0, pos));
+        this.registers = new Base64(-1).decode(objValStr.substring(pos + 1).getBytes());
+        if(this.registers.length != (1 << precision)) {
+            throw new IllegalArgumentException("The register size doesn't match the precision");
+        }
+    }
+}
@@ -0,0 +1,632 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core.binning;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import ml.shifu.shifu.container.obj.ColumnConfig;
+import ml.shifu.shifu.container.obj.ModelStatsConf.BinningMethod;
+import ml.shifu.shifu.util.IndexedSort;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * NumericalStatsSketch class
+ *
+ * <p>
+ * The sketch keeps a sorted, fine-grained histogram with at most expectedBinningNum * HIST_SCALE units. Every unit
+ * holds the centroid value, the total count, and the positive/negative counts and weighted sums of the values that
+ * fall into it. Incoming values are buffered in primitive arrays, and the buffer is sorted and merged into the
+ * histogram when it is full. Neighbouring units are merged by population when the histogram grows too large, so the
+ * units are (roughly) equal population and could be used as a quantile sketch.
+ *
+ * <p>
+ * Max/min/mean/stddev are calculated exactly while adding values, just like @StreamStatsCalculator.
+ *
+ * @Dec 2, 2014
+ *
+ */
+public class NumericalStatsSketch extends AbstractStatsSketch {
+
+    /**
+     * The scale of fine-grained units to the expected bin number.
+     */
+    public static final int HIST_SCALE = EqualPopulationBinning.HIST_SCALE;
+
+    private static final double EPS = 1e-6;
+
+    private static final int INITIAL_BUFFER_SIZE = 64;
+
+    private int expectedBinningNum;
+    private BinningMethod binningMethod;
+    private double threshold;
+    private int maxUnitCnt;
+
+    /**
+     * Basic stats for valid values (the absolute value is not larger than threshold)
+     */
+    private long validValCnt = 0;
+    private double sum = 0.0;
+    private double squaredSum = 0.0;
+    private double min = Double.MAX_VALUE;
+    private double max = -Double.MAX_VALUE;
+
+    /**
+     * The range of all values, it is used for equal interval binning
+     */
+    private double minVal = Double.MAX_VALUE;
+    private double maxVal = -Double.MAX_VALUE;
+
+    /**
+     * Histogram units, sorted by value. There are {@link #size} units in use.
+     */
+    private int size = 0;
+    private double[] hval;
+    private long[] hcnt;
+    private long[] hpos;
+    private long[] hneg;
+    private double[] hwpos;
+    private double[] hwneg;
+
+    /**
+     * Buffered values, they are not sorted yet. Every value is kept as a unit with count 1.
+     */
+    private int bufSize = 0;
+    private double[] bval;
+    private long[] bpos;
+    private long[] bneg;
+    private double[] bwpos;
+    private double[] bwneg;
+
+    /**
+     * Constructor with expected bin number, binning method and the threshold of valid value
+     *
+     * @param binningNum
+     * @param binningMethod
+     * @param threshold
+     */
+    public NumericalStatsSketch(int binningNum, BinningMethod binningMethod, double threshold) {
+        this.expectedBinningNum = binningNum;
+        this.binningMethod = (binningMethod == null ? BinningMethod.EqualPositive : binningMethod);
+        this.threshold = threshold;
+        this.maxUnitCnt = Math.max(binningNum, 1) * HIST_SCALE;
+
+        // arrays grow on demand, so sketches of sparse or small columns stay small
+        allocateUnits(0);
+        allocateBuffer(Math.min(INITIAL_BUFFER_SIZE, this.maxUnitCnt));
+    }
+
+    /*
+     * Add the value (in format of text) into the sketch.
+     * The input string will be trimmed, blank value is regarded as missing value, and the value that is
+     * not a double will be regarded as invalid value.
+     * @see ml.shifu.shifu.core.binning.AbstractStatsSketch#addData(java.lang.String, byte, double)
+     */
+    @Override
+    public void addData(String val, byte label, double weight) {
+        totalValCnt++;
+
+        String fval = StringUtils.trimToEmpty(val);
+        if(fval.length() == 0) {
+            missingValCnt++;
+            return;
+        }
+
+        double dval = 0;
+        try {
+            dval = Double.parseDouble(fval);
+        } catch (NumberFormatException e) {
+            // not a number? just ignore
+            invalidValCnt++;
+            return;
+        }
+
+        process(dval, label, weight);
+    }
+
+    /**
+     * Add a parsed value into the sketch
+     *
+     * @param val
+     * @param label
+     * @param weight
+     */
+    public void addData(double val, byte label, double weight) {
+        totalValCnt++;
+        process(val, label, weight);
+    }
+
+    /**
+     * Update the basic stats and put the value into buffer
+     *
+     * @param dval
+     * @param label
+     * @param weight
+     */
+    private void process(double dval, byte label, double weight) {
+        if(Double.isNaN(dval) || Double.isInfinite(dval)) {
+            invalidValCnt++;
+            return;
+        }
+
+        minVal = Math.min(minVal, dval);
+        maxVal = Math.max(maxVal, dval);
+
+        if(Math.abs(dval) <= threshold) {
+            validValCnt++;
+            sum += dval;
+            squaredSum += dval * dval;
+            min = Math.min(min, dval);
+            max = Math.max(max, dval);
+        }
+
+        bval[bufSize] = dval;
+        bpos[bufSize] = (label == LABEL_POS ? 1 : 0);
+        bneg[bufSize] = (label == LABEL_NEG ? 1 : 0);
+        bwpos[bufSize] = (label == LABEL_POS ? weight : 0.0);
+        bwneg[bufSize] = (label == LABEL_NEG ? weight : 0.0);
+        bufSize++;
+
+        if(bufSize == bval.length) {
+            if(bval.length < maxUnitCnt) {
+                growBuffer(Math.min(bval.length * 2, maxUnitCnt));
+            } else {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Sort the buffered values and merge them into histogram
+     */
+    private void flush() {
+        if(bufSize == 0) {
+            return;
+        }
+
+        sortBuffer();
+
+        long[] bcnt = new long[bufSize];
+        Arrays.fill(bcnt, 1L);
+        mergeUnits(bval, bcnt, bpos, bneg, bwpos, bwneg, bufSize);
+
+        bufSize = 0;
+    }
+
+    /**
+     * Merge sorted units into histogram, the units with the same value will be combined.
+     * If there are too many units after merging, the histogram will be compressed.
+     */
+    private void mergeUnits(double[] oval, long[] ocnt, long[] opos, long[] oneg, double[] owpos, double[] owneg,
+            int osize) {
+        int capacity = size + osize;
+        double[] nval = new double[capacity];
+        long[] ncnt = new long[capacity];
+        long[] npos = new long[capacity];
+        long[] nneg = new long[capacity];
+        double[] nwpos = new double[capacity];
+        double[] nwneg = new double[capacity];
+
+        int i = 0, j = 0, k = 0;
+        while(i < size || j < osize) {
+            boolean fromSelf = (j >= osize || (i < size && hval[i] <= oval[j]));
+            double val = fromSelf ? hval[i] : oval[j];
+
+            if(k > 0 && Double.compare(nval[k - 1], val) == 0) {
+                k--;
+            } else {
+                nval[k] = val;
+                ncnt[k] = 0;
+                npos[k] = 0;
+                nneg[k] = 0;
+                nwpos[k] = 0.0;
+                nwneg[k] = 0.0;
+            }
+
+            if(fromSelf) {
+                ncnt[k] += hcnt[i];
+                npos[k] += hpos[i];
+                nneg[k] += hneg[i];
+                nwpos[k] += hwpos[i];
+                nwneg[k] += hwneg[i];
+                i++;
+            } else {
+                ncnt[k] += ocnt[j];
+                npos[k] += opos[j];
+                nneg[k] += oneg[j];
+                nwpos[k] += owpos[j];
+                nwneg[k] += owneg[j];
+                j++;
+            }
+            k++;
+        }
+
+        this.hval = nval;
+        this.hcnt = ncnt;
+        this.hpos = npos;
+        this.hneg = nneg;
+        this.hwpos = nwpos;
+        this.hwneg = nwneg;
+        this.size = k;
+
+        compress();
+    }
+
+    /**
+     * Merge neighbouring units to keep at most {@link #maxUnitCnt} units in histogram.
+     * Two neighbouring units are merged when their total count is not larger than 2 * total / maxUnitCnt, so
+     * any two neighbouring units after compressing have more than that count, and there won't be more than
+     * maxUnitCnt units.
+     */
+    private void compress() {
+        if(size <= maxUnitCnt) {
+            return;
+        }
+
+        long total = 0;
+        for(int i = 0; i < size; i++) {
+            total += hcnt[i];
+        }
+        double limit = 2.0d * total / maxUnitCnt;
+
+        int k = 0;
+        for(int i = 0; i < size; i++) {
+            if(k > 0 && hcnt[k - 1] + hcnt[i] <= limit) {
+                long cnt = hcnt[k - 1] + hcnt[i];
+                hval[k - 1] = (hval[k - 1] * hcnt[k - 1] + hval[i] * hcnt[i]) / cnt;
+                hcnt[k - 1] = cnt;
+                hpos[k - 1] += hpos[i];
+                hneg[k - 1] += hneg[i];
+                hwpos[k - 1] += hwpos[i];
+                hwneg[k - 1] += hwneg[i];
+            } else {
+                hval[k] = hval[i];
+                hcnt[k] = hcnt[i];
+                hpos[k] = hpos[i];
+                hneg[k] = hneg[i];
+                hwpos[k] = hwpos[i];
+                hwneg[k] = hwneg[i];
+                k++;
+            }
+        }
+        size = k;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see ml.shifu.shifu.core.binning.AbstractStatsSketch#mergeSketch(ml.shifu.shifu.core.binning.AbstractStatsSketch)
+     */
+    @Override
+    public void mergeSketch(AbstractStatsSketch another) {
+        NumericalStatsSketch sketch = (NumericalStatsSketch) another;
+        super.mergeSketch(another);
+
+        this.expectedBinningNum = Math.max(this.expectedBinningNum, sketch.expectedBinningNum);
+
+        this.validValCnt += sketch.validValCnt;
+        this.sum += sketch.sum;
+        this.squaredSum += sketch.squaredSum;
+        this.min = Math.min(this.min, sketch.min);
+        this.max = Math.max(this.max, sketch.max);
+        this.minVal = Math.min(this.minVal, sketch.minVal);
+        this.maxVal = Math.max(this.maxVal, sketch.maxVal);
+
+        this.flush();
+        sketch.flush();
+        mergeUnits(sketch.hval, sketch.hcnt, sketch.hpos, sketch.hneg, sketch.hwpos, sketch.hwneg, sketch.size);
+    }
+
+    /**
+     * Generate the bin boundary by the binning method. The first boundary is always negative infinity.
+     *
+     * @return the bin boundary
+     */
+    public List<Double> getDataBin() {
+        flush();
+
+        List<Double> binBoundary = new ArrayList<Double>();
+        binBoundary.add(Double.NEGATIVE_INFINITY);
+        if(size == 0) {
+            return binBoundary;
+        }
+
+        if(BinningMethod.EqualInterval.equals(binningMethod)) {
+            if(maxVal > minVal) {
+                double delta = (maxVal - minVal) * 0.1;
+                double startVal = minVal - delta;
+                double binInterval = (maxVal + delta - startVal) / expectedBinningNum;
+                for(int i = 1; i < expectedBinningNum; i++) {
+                    binBoundary.add(startVal + binInterval * i);
+                }
+            }
+            return binBoundary;
+        }
+
+        long[] counts = (BinningMethod.EqualPositive.equals(binningMethod) ? hpos : hcnt);
+        long total = sum(counts, size);
+        if(total == 0) {
+            // no positive record, fall back to equal total
+            counts = hcnt;
+            total = sum(counts, size);
+        }
+
+        long cumulative = 0;
+        int j = 1;
+        for(int i = 0; i < size - 1 && j < expectedBinningNum; i++) {
+            cumulative += counts[i];
+            if(cumulative >= (double) j * total / expectedBinningNum) {
+                // the boundary is the middle of two units, so that every unit falls into one bin
+                binBoundary.add((hval[i] + hval[i + 1]) / 2);
+                while(j < expectedBinningNum && cumulative >= (double) j * total / expectedBinningNum) {
+                    j++;
+                }
+            }
+        }
+
+        return binBoundary;
+    }
+
+    /**
+     * Get the approximate quantile from the histogram
+     *
+     * @param quantile
+     *            - should be in [0, 1]
+     * @return the quantile value, or NaN if there is no data
+     */
+    public double getQuantile(double quantile) {
+        flush();
+
+        if(size == 0) {
+            return Double.NaN;
+        }
+
+        double target = quantile * sum(hcnt, size);
+        long cumulative = 0;
+        for(int i = 0; i < size; i++) {
+            cumulative += hcnt[i];
+            if(cumulative >= target) {
+                return hval[i];
+            }
+        }
+        return hval[size - 1];
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return (validValCnt > 0 ? sum / validValCnt : Double.NaN);
+    }
+
+    public double getStdDev() {
+        if(validValCnt <= 1 || Double.isInfinite(sum) || Double.isInfinite(squaredSum)) {
+            return Double.NaN;
+        }
+
+        return Math.sqrt((squaredSum - (sum * sum) / validValCnt + EPS) / (validValCnt - 1));
+    }
+
+    public double getMedian() {
+        return getQuantile(0.5);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see ml.shifu.shifu.core.binning.AbstractStatsSketch#populateColumnConfig(ml.shifu.shifu.container.obj.ColumnConfig)
+     */
+    @Override
+    public void populateColumnConfig(ColumnConfig columnConfig) {
+        List<Double> binBoundary = getDataBin();
+        columnConfig.setBinBoundary(binBoundary);
+
+        double[] boundaries = new double[binBoundary.size()];
+        for(int i = 0; i < boundaries.length; i++) {
+            boundaries[i] = binBoundary.get(i);
+        }
+
+        long[] binCountPos = new long[boundaries.length];
+        long[] binCountNeg = new long[boundaries.length];
+        double[] binWeightPos = new double[boundaries.length];
+        double[] binWeightNeg = new double[boundaries.length];
+        for(int i = 0; i < size; i++) {
+            int binNum = locateBin(boundaries, hval[i]);
+            binCountPos[binNum] += hpos[i];
+            binCountNeg[binNum] += hneg[i];
+            binWeightPos[binNum] += hwpos[i];
+            binWeightNeg[binNum] += hwneg[i];
+        }
+        populateBinInfo(columnConfig, binCountPos, binCountNeg, binWeightPos, binWeightNeg);
+
+        columnConfig.setMax(getMax());
+        columnConfig.setMean(getMean());
+        columnConfig.setMin(getMin());
+        columnConfig.setMedian(getMedian());
+        columnConfig.setStdDev(getStdDev());
+
+        populateCountInfo(columnConfig);
+    }
+
+    /**
+     * Locate the bin for value, the bin boundary is left-inclusive
+     *
+     * @param boundaries
+     * @param val
+     * @return the bin index
+     */
+    private static int locateBin(double[] boundaries, double val) {
+        int pos = Arrays.binarySearch(boundaries, val);
+        if(pos < 0) {
+            pos = -pos - 2;
+        }
+        return Math.max(pos, 0);
+    }
+
+    /**
+     * Sum the first n counts, the slots after n may be stale after compressing
+     */
+    private static long sum(long[] counts, int n) {
+        long total = 0;
+        for(int i = 0; i < n; i++) {
+            total += counts[i];
+        }
+        return total;
+    }
+
+    private void allocateUnits(int capacity) {
+        hval = new double[capacity];
+        hcnt = new long[capacity];
+        hpos = new long[capacity];
+        hneg = new long[capacity];
+        hwpos = new double[capacity];
+        hwneg = new double[capacity];
+    }
+
+    private void allocateBuffer(int capacity) {
+        bval = new double[capacity];
+        bpos = new long[capacity];
+        bneg = new long[capacity];
+        bwpos = new double[capacity];
+        bwneg = new double[capacity];
+    }
+
+    private void growBuffer(int capacity) {
+        bval = Arrays.copyOf(bval, capacity);
+        bpos = Arrays.copyOf(bpos, capacity);
+        bneg = Arrays.copyOf(bneg, capacity);
+        bwpos = Arrays.copyOf(bwpos, capacity);
+        bwneg = Arrays.copyOf(bwneg, capacity);
+    }
+
+    /**
+     * Sort the buffer by value in place, the counts are swapped together
+     */
+    private void sortBuffer() {
+        IndexedSort.sort(new IndexedSort.Sortable() {
+            @Override
+            public int compare(int i, int j) {
+                return Double.compare(bval[i], bval[j]);
+            }
+
+            @Override
+            public void swap(int i, int j) {
+                double dtmp = bval[i];
+                bval[i] = bval[j];
+                bval[j] = dtmp;
+
+                long ltmp = bpos[i];
+                bpos[i] = bpos[j];
+                bpos[j] = ltmp;
+
+                ltmp = bneg[i];
+                bneg[i] = bneg[j];
+                bneg[j] = ltmp;
+
+                dtmp = bwpos[i];
+                bwpos[i] = bwpos[j];
+                bwpos[j] = dtmp;
+
+                dtmp = bwneg[i];
+                bwneg[i] = bwneg[j];
+                bwneg[j] = dtmp;
+            }
+        }, bufSize);
+    }
+
+    /**
+     * convert String to @NumericalStatsSketch
+     */
+    @Override
+    protected String[] stringToObj(String objValStr) {
+        String[] objStrArr = super.stringToObj(objValStr);
+        if(objStrArr.length < 12) {
+            throw new IllegalArgumentException("The size of argument is incorrect");
+        }
+
+        expectedBinningNum = Integer.parseInt(objStrArr[0]);
+        binningMethod = BinningMethod.valueOf(objStrArr[1]);
+        maxUnitCnt = Integer.parseInt(objStrArr[2]);
+        threshold = Double.parseDouble(objStrArr[3]);
+        validValCnt = Long.parseLong(objStrArr[4]);
+        sum = Double.parseDouble(objStrArr[5]);
+        squaredSum = Double.parseDouble(objStrArr[6]);
+        min = Double.parseDouble(objStrArr[7]);
+        max = Double.parseDouble(objStrArr[8]);
+        minVal = Double.parseDouble(objStrArr[9]);
+        maxVal = Double.parseDouble(objStrArr[10]);
+
+        String[] unitStrArr = (StringUtils.isBlank(objStrArr[11]) ? new String[0] : StringUtils.split(
+                objStrArr[11], AbstractBinning.SETLIST_SEPARATOR));
+        allocateUnits(unitStrArr.length);
+        allocateBuffer(Math.min(INITIAL_BUFFER_SIZE, maxUnitCnt));
+        bufSize = 0;
+        size = unitStrArr.length;
+        for(int i = 0; i < size; i++) {
+            String[] fields = StringUtils.split(unitStrArr[i], AbstractBinning.PAIR_SEPARATOR);
+            hval[i] = Double.parseDouble(fields[0]);
+            hcnt[i] = Long.parseLong(fields[1]);
+            hpos[i] = Long.parseLong(fields[2]);
+            hneg[i] = Long.parseLong(fields[3]);
+            hwpos[i] = Double.parseDouble(fields[4]);
+            hwneg[i] = Double.parseDouble(fields[5]);
+        }
+
+        String[] restArr = new String[objStrArr.length - 12];
+        System.arraycopy(objStrArr, 12, restArr, 0, restArr.length);
+        return restArr;
+    }
+
+    /**
+     * convert @NumericalStatsSketch to String
+     */
+    @Override
+    public String objToString() {
+        flush();
+
+        StringBuilder buf = new StringBuilder(super.objToString());
+        buf.append(AbstractBinning.FIELD_SEPARATOR).append(expectedBinningNum);
+        buf.append(AbstractBinning.FIELD_SEPARATOR).append(binningMethod.name());
+        buf.append(AbstractBinning.FIELD_SEPARATOR).append(maxUnitCnt);
+        buf.append(AbstractBinning.FIELD_SEPARATOR).append(threshold);
+        buf.append(AbstractBinning.FIELD_SEPARATOR).append(validValCnt);
+        buf.append(AbstractBinning.FIELD_SEPARATOR).append(sum);
+        buf.append(AbstractBinning.FIELD_SEPARATOR).append(squaredSum);
+        buf.append(AbstractBinning.FIELD_SEPARATOR).append(min);
+        buf.append(AbstractBinning.FIELD_SEPARATOR).append(max);
+        buf.append(AbstractBinning.FIELD_SEPARATOR).append(minVal);
+        buf.append(AbstractBinning.FIELD_SEPARATOR).append(maxVal);
+        buf.append(AbstractBinning.FIELD_SEPARATOR);
+        for(int i = 0; i < size; i++) {
+            if(i > 0) {
+                buf.append(AbstractBinning.SETLIST_SEPARATOR);
+            }
+            buf.append(hval[i]).append(AbstractBinning.PAIR_SEPARATOR).append(hcnt[i])
+                    .append(AbstractBinning.PAIR_SEPARATOR).append(hpos[i]).append(AbstractBinning.PAIR_SEPARATOR)
+                    .append(hneg[i]).append(AbstractBinning.PAIR_SEPARATOR).append(hwpos[i])
+                    .append(AbstractBinning.PAIR_SEPARATOR).append(hwneg[i]);
+        }
+        return buf.toString();
+    }
+
+}
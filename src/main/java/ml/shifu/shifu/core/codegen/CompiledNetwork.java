@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core.codegen;
+
+import java.util.Map;
+
+import org.encog.ml.BasicML;
+import org.encog.ml.MLRegression;
+import org.encog.ml.data.MLData;
+import org.encog.ml.data.basic.BasicMLData;
+
+/**
+ * CompiledNetwork class is the base class of the Java classes generated by {@link JavaModelGenerator}.
+ *
+ * <p>
+ * The generated class has no state, so one instance could be shared by all threads. It's a {@link BasicML}, so it
+ * could be scored by {@link ml.shifu.shifu.core.Scorer} the same as the original network.
+ *
+ * @Dec 12, 2014
+ *
+ */
+public abstract class CompiledNetwork extends BasicML implements MLRegression {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Compute the network output for normalized input
+     *
+     * @param input
+     *            - the normalized input, in the order of final selected columns
+     * @return the network output
+     */
+    public abstract double compute(double[] input);
+
+    /**
+     * Normalize the raw data map into network input, the normalization of @ColumnConfig is compiled into the class
+     *
+     * @param rawDataMap
+     *            - column name to raw value
+     * @return the network input
+     */
+    public abstract double[] normalize(Map<String, String> rawDataMap);
+
+    /**
+     * Normalize and compute the raw data map
+     */
+    public double compute(Map<String, String> rawDataMap) {
+        return compute(normalize(rawDataMap));
+    }
+
+    /* (non-Javadoc)
+     * @see org.encog.ml.MLRegression#compute(org.encog.ml.data.MLData)
+     */
+    @Override
+    public MLData compute(MLData input) {
+        return new BasicMLData(new double[] { compute(input.getData()) });
+    }
+
+    /* (non-Javadoc)
+     * @see org.encog.ml.MLOutput#getOutputCount()
+     */
+    @Override
+    public int getOutputCount() {
+        return 1;
+    }
+
+    /* (non-Javadoc)
+     * @see org.encog.ml.BasicML#updateProperties()
+     */
+    @Override
+    public void updateProperties() {
+        // nothing to update
+    }
+}
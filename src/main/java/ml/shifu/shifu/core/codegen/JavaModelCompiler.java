@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core.codegen;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.CodeSource;
+import java.util.Arrays;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.apache.commons.io.FileUtils;
+import org.encog.ml.BasicML;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * JavaModelCompiler class is to compile the source from {@link JavaModelGenerator}, and to load the compiled models.
+ *
+ * <p>
+ * The compiling requires JDK, while the loading could run in JRE.
+ *
+ * @Dec 12, 2014
+ *
+ */
+public final class JavaModelCompiler {
+
+    private static final Logger log = LoggerFactory.getLogger(JavaModelCompiler.class);
+
+    private JavaModelCompiler() {
+    }
+
+    /**
+     * Save the source into outputDir, and compile it into outputDir
+     *
+     * @param className
+     *            - the fully qualified class name
+     * @param source
+     *            - the source of class
+     * @param outputDir
+     *            - the directory of source and class files
+     * @return the instance of compiled class
+     * @throws IOException
+     *             if fail to save the source or to load the class
+     * @throws IllegalStateException
+     *             if there is no Java compiler, or fail to compile
+     */
+    public static CompiledNetwork compile(String className, String source, File outputDir) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if(compiler == null) {
+            throw new IllegalStateException("No Java compiler found, please run with JDK.");
+        }
+
+        File sourceFile = new File(outputDir, className.replace('.', File.separatorChar) + ".java");
+        FileUtils.writeStringToFile(sourceFile, source, "UTF-8");
+        log.info("Compiling {}", sourceFile);
+
+        StringWriter errors = new StringWriter();
+        Boolean success = compiler.getTask(errors, null, null,
+                Arrays.asList("-d", outputDir.getPath(), "-classpath", getClassPath(), "-nowarn"), null,
+                compiler.getStandardFileManager(null, null, null).getJavaFileObjects(sourceFile)).call();
+        if(!Boolean.TRUE.equals(success)) {
+            throw new IllegalStateException("Fail to compile " + className + " - " + errors);
+        }
+
+        return load(className, outputDir);
+    }
+
+    /**
+     * Load the compiled model from class directory
+     *
+     * @param className
+     *            - the fully qualified class name
+     * @param classDir
+     *            - the directory of class files
+     * @return the instance of compiled class
+     * @throws IOException
+     *             if the class is not found or invalid
+     */
+    public static CompiledNetwork load(String className, File classDir) throws IOException {
+        ClassLoader loader = new URLClassLoader(new URL[] { classDir.toURI().toURL() },
+                CompiledNetwork.class.getClassLoader());
+        try {
+            return (CompiledNetwork) loader.loadClass(className).newInstance();
+        } catch (Exception e) {
+            throw new IOException("Fail to load compiled model " + className, e);
+        }
+    }
+
+    /**
+     * The class path to compile the models, the locations of Shifu and Encog are included in case the application
+     * class path is not from java.class.path
+     */
+    private static String getClassPath() {
+        StringBuilder buf = new StringBuilder(System.getProperty("java.class.path", ""));
+        for(Class<?> clazz: new Class<?>[] { CompiledNetwork.class, BasicML.class }) {
+            CodeSource codeSource = clazz.getProtectionDomain().getCodeSource();
+            if(codeSource != null && codeSource.getLocation() != null) {
+                try {
+                    buf.append(File.pathSeparator).append(new File(codeSource.getLocation().toURI()).getPath());
+                } catch (Exception e) {
+                    log.warn("Fail to get the location of {}", clazz);
+                }
+            }
+        }
+        return buf.toString();
+    }
+}
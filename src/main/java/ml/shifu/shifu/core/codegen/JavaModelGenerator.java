@@ -0,0 +1,404 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core.codegen;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import ml.shifu.shifu.container.obj.ColumnConfig;
+import ml.shifu.shifu.container.obj.ModelConfig;
+import ml.shifu.shifu.core.Normalizer;
+import ml.shifu.shifu.core.binning.CategoricalBinning;
+
+import org.apache.commons.lang.StringEscapeUtils;
+import org.encog.engine.network.activation.ActivationFunction;
+import org.encog.engine.network.activation.ActivationLinear;
+import org.encog.engine.network.activation.ActivationSigmoid;
+import org.encog.engine.network.activation.ActivationTANH;
+import org.encog.ml.BasicML;
+import org.encog.neural.flat.FlatNetwork;
+import org.encog.neural.networks.BasicNetwork;
+
+/**
+ * <pre>
+ * JavaModelGenerator class is to generate the Java source of {@link CompiledNetwork} for NN models.
+ *
+ * The generated class is straight-line code:
+ *  - the weights are inlined as constants, and each neuron is one method with fixed number of terms
+ *  - the activation functions (sigmoid, tanh, linear) are inlined
+ *  - the z-score normalization of each column is compiled with the mean, stdDev and cutoff from @ColumnConfig,
+ *    and the z-score of categories are computed ahead
+ *
+ * The terms are summed in the same order as FlatNetwork, so the output is exactly the same as the original network.
+ * A neuron with many inputs is split into several methods, to keep the methods small enough to be JIT compiled.
+ * </pre>
+ *
+ * @Dec 12, 2014
+ *
+ */
+public class JavaModelGenerator {
+
+    /**
+     * the package of generated classes
+     */
+    public static final String PACKAGE = "ml.shifu.shifu.model";
+
+    /**
+     * max terms of one generated method, the bytecode of one term is about 10 bytes
+     */
+    private static final int MAX_TERMS_PER_METHOD = 256;
+
+    /**
+     * max weights of one network, to avoid overflow of constant pool in generated class
+     */
+    private static final int MAX_WEIGHTS = 30000;
+
+    private static final String INDENT = "    ";
+
+    private ModelConfig modelConfig;
+    private List<ColumnConfig> columnConfigList;
+    private List<BasicML> models;
+
+    public JavaModelGenerator(ModelConfig modelConfig, List<ColumnConfig> columnConfigList, List<BasicML> models) {
+        this.modelConfig = modelConfig;
+        this.columnConfigList = columnConfigList;
+        this.models = models;
+    }
+
+    /**
+     * The simple class name for model, i.e. ModelSet1_0
+     */
+    public String getClassName(int index) {
+        String name = modelConfig.getModelSetName().replaceAll("[^A-Za-z0-9_]", "_");
+        if(name.length() == 0 || !Character.isJavaIdentifierStart(name.charAt(0))) {
+            name = "M" + name;
+        }
+        return name + "_" + index;
+    }
+
+    /**
+     * The fully qualified class name for model
+     */
+    public String getQualifiedClassName(int index) {
+        return PACKAGE + "." + getClassName(index);
+    }
+
+    /**
+     * Generate the Java source for some model
+     *
+     * @param index
+     *            - which model to generate
+     * @return the source of class {@link #getQualifiedClassName(int)}
+     * @throws IllegalArgumentException
+     *             if the model is not a feed-forward network with sigmoid, tanh or linear activations
+     */
+    public String generate(int index) {
+        BasicML model = models.get(index);
+        if(!(model instanceof BasicNetwork)) {
+            throw new IllegalArgumentException("Only NN model could be compiled into Java - " + model.getClass());
+        }
+
+        FlatNetwork flat = ((BasicNetwork) model).getFlat();
+        checkNetwork(flat);
+
+        List<ColumnConfig> inputColumns = new ArrayList<ColumnConfig>();
+        for(ColumnConfig config: columnConfigList) {
+            if(!config.isTarget() && config.isFinalSelect()) {
+                inputColumns.add(config);
+            }
+        }
+        if(inputColumns.size() != flat.getInputCount()) {
+            throw new IllegalArgumentException("Network and input size mismatch: Network Size = "
+                    + flat.getInputCount() + "; Input Size = " + inputColumns.size());
+        }
+
+        StringBuilder buf = new StringBuilder();
+        buf.append("// Generated by Shifu for model set ").append(modelConfig.getModelSetName()).append(", model ")
+                .append(index).append(". DO NOT EDIT!\n");
+        buf.append("package ").append(PACKAGE).append(";\n\n");
+        buf.append("import java.util.HashMap;\n");
+        buf.append("import java.util.Map;\n\n");
+        buf.append("public final class ").append(getClassName(index)).append(" extends ")
+                .append(CompiledNetwork.class.getName()).append(" {\n\n");
+        buf.append(INDENT).append("private static final long serialVersionUID = 1L;\n\n");
+
+        generateNormalization(buf, inputColumns);
+        generateNetwork(buf, flat);
+
+        buf.append("}\n");
+        return buf.toString();
+    }
+
+    private void checkNetwork(FlatNetwork flat) {
+        if(flat.getHasContext()) {
+            throw new IllegalArgumentException("The recurrent network is not supported.");
+        }
+        if(flat.getWeights().length > MAX_WEIGHTS) {
+            throw new IllegalArgumentException("The network is too large to compile, weights - "
+                    + flat.getWeights().length);
+        }
+        for(ActivationFunction function: flat.getActivationFunctions()) {
+            if(!(function instanceof ActivationSigmoid || function instanceof ActivationTANH
+                    || function instanceof ActivationLinear)) {
+                throw new IllegalArgumentException("Unsupported activation function - " + function.getClass());
+            }
+        }
+    }
+
+    /**
+     * Generate normalize() and one method for each column, the same as {@link Normalizer#normalize(ColumnConfig,
+     * String, double)}
+     */
+    private void generateNormalization(StringBuilder buf, List<ColumnConfig> inputColumns) {
+        double cutoff = modelConfig.getNormalizeStdDevCutOff();
+        if(Double.isNaN(cutoff) || Double.isInfinite(cutoff)) {
+            cutoff = Normalizer.STD_DEV_CUTOFF;
+        }
+
+        buf.append(INDENT).append("private static final String[] COLUMNS = {");
+        for(int i = 0; i < inputColumns.size(); i++) {
+            buf.append(i == 0 ? "" : ", ").append(literal(inputColumns.get(i).getColumnName()));
+        }
+        buf.append("};\n\n");
+
+        // the z-score of categories
+        for(int i = 0; i < inputColumns.size(); i++) {
+            ColumnConfig config = inputColumns.get(i);
+            if(!config.isCategorical()) {
+                continue;
+            }
+
+            String table = "CATEGORY_ZSCORE_" + i;
+            buf.append(INDENT).append("private static final Map<String, Double> ").append(table)
+                    .append(" = new HashMap<String, Double>();\n");
+            buf.append(INDENT).append("static {\n");
+            Set<String> categories = new HashSet<String>();
+            for(String category: config.getBinCategory()) {
+                // the first bin of category wins, the same as ColumnConfig.getCategoricalBinNum
+                if(category != null && categories.add(category)) {
+                    buf.append(INDENT).append(INDENT).append(table).append(".put(").append(literal(category))
+                            .append(", ").append(literal(Normalizer.normalize(config, category, cutoff)))
+                            .append(");\n");
+                }
+            }
+            buf.append(INDENT).append("}\n\n");
+        }
+
+        buf.append(INDENT).append("@Override\n");
+        buf.append(INDENT).append("public int getInputCount() {\n");
+        buf.append(INDENT).append(INDENT).append("return ").append(inputColumns.size()).append(";\n");
+        buf.append(INDENT).append("}\n\n");
+
+        buf.append(INDENT).append("@Override\n");
+        buf.append(INDENT).append("public double[] normalize(Map<String, String> rawDataMap) {\n");
+        buf.append(INDENT).append(INDENT).append("for (String key : COLUMNS) {\n");
+        buf.append(INDENT).append(INDENT).append(INDENT).append("if (!rawDataMap.containsKey(key)) {\n");
+        buf.append(INDENT).append(INDENT).append(INDENT).append(INDENT)
+                .append("throw new IllegalStateException(\"Variable Missing in Test Data: \" + key);\n");
+        buf.append(INDENT).append(INDENT).append(INDENT).append("}\n");
+        buf.append(INDENT).append(INDENT).append("}\n");
+        buf.append(INDENT).append(INDENT).append("double[] in = new double[").append(inputColumns.size())
+                .append("];\n");
+        for(int i = 0; i < inputColumns.size(); i++) {
+            buf.append(INDENT).append(INDENT).append("in[").append(i).append("] = normalize").append(i)
+                    .append("(rawDataMap.get(COLUMNS[").append(i).append("]));\n");
+        }
+        buf.append(INDENT).append(INDENT).append("return in;\n");
+        buf.append(INDENT).append("}\n\n");
+
+        for(int i = 0; i < inputColumns.size(); i++) {
+            ColumnConfig config = inputColumns.get(i);
+            buf.append(INDENT).append("private static double normalize").append(i).append("(String raw) {\n");
+            if(config.isCategorical()) {
+                double other = 0.0;
+                if(config.getCategoricalBinNum(CategoricalBinning.OTHER_CATEGORY) >= 0) {
+                    other = Normalizer.normalize(config, CategoricalBinning.OTHER_CATEGORY, cutoff);
+                }
+                buf.append(INDENT).append(INDENT).append("Double zscore = CATEGORY_ZSCORE_").append(i)
+                        .append(".get(raw);\n");
+                buf.append(INDENT).append(INDENT).append("return zscore == null ? ").append(literal(other))
+                        .append(" : zscore.doubleValue();\n");
+            } else {
+                if(config.getMean() == null || config.getStdDev() == null) {
+                    throw new IllegalArgumentException("No mean or stdDev for column - " + config.getColumnName());
+                }
+
+                double mean = config.getMean();
+                double stdDev = config.getStdDev();
+                if(stdDev > 0.00001) {
+                    buf.append(INDENT).append(INDENT).append("double var;\n");
+                    buf.append(INDENT).append(INDENT).append("try {\n");
+                    buf.append(INDENT).append(INDENT).append(INDENT).append("var = Double.parseDouble(raw);\n");
+                    buf.append(INDENT).append(INDENT).append("} catch (Exception e) {\n");
+                    buf.append(INDENT).append(INDENT).append(INDENT).append("return ")
+                            .append(literal(Normalizer.computeZScore(mean, mean, stdDev, cutoff))).append(";\n");
+                    buf.append(INDENT).append(INDENT).append("}\n");
+                    String max = literal(mean + cutoff * stdDev);
+                    String min = literal(mean - cutoff * stdDev);
+                    buf.append(INDENT).append(INDENT).append("if (var > ").append(max).append(") {\n");
+                    buf.append(INDENT).append(INDENT).append(INDENT).append("var = ").append(max).append(";\n");
+                    buf.append(INDENT).append(INDENT).append("}\n");
+                    buf.append(INDENT).append(INDENT).append("if (var < ").append(min).append(") {\n");
+                    buf.append(INDENT).append(INDENT).append(INDENT).append("var = ").append(min).append(";\n");
+                    buf.append(INDENT).append(INDENT).append("}\n");
+                    buf.append(INDENT).append(INDENT).append("return (var - ").append(literal(mean)).append(") / ")
+                            .append(literal(stdDev)).append(";\n");
+                } else {
+                    buf.append(INDENT).append(INDENT).append("return 0.0;\n");
+                }
+            }
+            buf.append(INDENT).append("}\n\n");
+        }
+    }
+
+    /**
+     * Generate compute() and the methods of neurons. The layers in FlatNetwork are from output (0) to input (last).
+     */
+    private void generateNetwork(StringBuilder buf, FlatNetwork flat) {
+        int[] layerCounts = flat.getLayerCounts();
+        int[] layerFeedCounts = flat.getLayerFeedCounts();
+        int[] weightIndex = flat.getWeightIndex();
+        double[] weights = flat.getWeights();
+        double[] biasActivation = flat.getBiasActivation();
+        ActivationFunction[] functions = flat.getActivationFunctions();
+
+        StringBuilder compute = new StringBuilder();
+        compute.append(INDENT).append("@Override\n");
+        compute.append(INDENT).append("public double compute(double[] in) {\n");
+
+        StringBuilder neurons = new StringBuilder();
+
+        int inputLayer = layerCounts.length - 1;
+        for(int layer = inputLayer; layer > 0; layer--) {
+            int target = layer - 1;
+            String source = (layer == inputLayer ? "in" : "layer" + layer);
+            // only the first output is used in scoring
+            int outputSize = (target == 0 ? 1 : layerFeedCounts[target]);
+
+            if(target > 0) {
+                compute.append(INDENT).append(INDENT).append("double[] layer").append(target)
+                        .append(" = new double[").append(outputSize).append("];\n");
+            }
+
+            for(int x = 0; x < outputSize; x++) {
+                String method = "neuron" + target + "_" + x;
+                if(target > 0) {
+                    compute.append(INDENT).append(INDENT).append("layer").append(target).append("[").append(x)
+                            .append("] = ").append(method).append("(").append(source).append(");\n");
+                } else {
+                    compute.append(INDENT).append(INDENT).append("return ").append(method).append("(")
+                            .append(source).append(");\n");
+                }
+
+                // the terms are in the same order as FlatNetwork.computeLayer
+                List<String> terms = new ArrayList<String>(layerCounts[layer]);
+                int offset = weightIndex[target] + x * layerCounts[layer];
+                for(int y = 0; y < layerCounts[layer]; y++) {
+                    double weight = weights[offset + y];
+                    if(y < layerFeedCounts[layer]) {
+                        terms.add(literal(weight) + " * x[" + y + "]");
+                    } else {
+                        // bias neuron
+                        terms.add(literal(weight * biasActivation[layer]));
+                    }
+                }
+
+                generateNeuron(neurons, method, terms, activation(functions[target]));
+            }
+        }
+
+        compute.append(INDENT).append("}\n\n");
+
+        buf.append(compute);
+        buf.append(neurons);
+        buf.append(INDENT).append("private static double sigmoid(double x) {\n");
+        buf.append(INDENT).append(INDENT).append("// the same as org.encog.mathutil.BoundMath.exp\n");
+        buf.append(INDENT).append(INDENT).append("double exp = Math.exp(-1.0 * x);\n");
+        buf.append(INDENT).append(INDENT).append("if (exp < -1.0E20) {\n");
+        buf.append(INDENT).append(INDENT).append(INDENT).append("exp = -1.0E20;\n");
+        buf.append(INDENT).append(INDENT).append("} else if (exp > 1.0E20) {\n");
+        buf.append(INDENT).append(INDENT).append(INDENT).append("exp = 1.0E20;\n");
+        buf.append(INDENT).append(INDENT).append("}\n");
+        buf.append(INDENT).append(INDENT).append("return 1.0 / (1.0 + exp);\n");
+        buf.append(INDENT).append("}\n");
+    }
+
+    /**
+     * Generate the method of neuron, the terms are split into several methods if there are too many
+     */
+    private void generateNeuron(StringBuilder buf, String method, List<String> terms, String activation) {
+        int parts = (terms.size() + MAX_TERMS_PER_METHOD - 1) / MAX_TERMS_PER_METHOD;
+
+        buf.append(INDENT).append("private static double ").append(method).append("(double[] x) {\n");
+        if(parts <= 1) {
+            buf.append(INDENT).append(INDENT).append("double sum = 0.0");
+            appendTerms(buf, terms);
+            buf.append(";\n");
+        } else {
+            buf.append(INDENT).append(INDENT).append("double sum = 0.0;\n");
+            for(int p = 0; p < parts; p++) {
+                buf.append(INDENT).append(INDENT).append("sum = ").append(method).append("_").append(p)
+                        .append("(x, sum);\n");
+            }
+        }
+        buf.append(INDENT).append(INDENT).append("return ").append(String.format(activation, "sum")).append(";\n");
+        buf.append(INDENT).append("}\n\n");
+
+        for(int p = 0; parts > 1 && p < parts; p++) {
+            buf.append(INDENT).append("private static double ").append(method).append("_").append(p)
+                    .append("(double[] x, double sum) {\n");
+            buf.append(INDENT).append(INDENT).append("return sum");
+            appendTerms(buf,
+                    terms.subList(p * MAX_TERMS_PER_METHOD, Math.min(terms.size(), (p + 1) * MAX_TERMS_PER_METHOD)));
+            buf.append(";\n");
+            buf.append(INDENT).append("}\n\n");
+        }
+    }
+
+    private void appendTerms(StringBuilder buf, List<String> terms) {
+        for(String term: terms) {
+            buf.append("\n").append(INDENT).append(INDENT).append(INDENT).append("+ ").append(term);
+        }
+    }
+
+    private String activation(ActivationFunction function) {
+        if(function instanceof ActivationSigmoid) {
+            return "sigmoid(%s)";
+        } else if(function instanceof ActivationTANH) {
+            return "Math.tanh(%s)";
+        } else {
+            return "%s";
+        }
+    }
+
+    private static String literal(double d) {
+        if(Double.isNaN(d)) {
+            return "Double.NaN";
+        } else if(Double.isInfinite(d)) {
+            return d > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY";
+        }
+        // Double.toString keeps all digits to restore the same double
+        return (d < 0 || (d == 0.0 && 1 / d < 0)) ? "(" + Double.toString(d) + ")" : Double.toString(d);
+    }
+
+    private static String literal(String s) {
+        return "\"" + StringEscapeUtils.escapeJava(s) + "\"";
+    }
+}
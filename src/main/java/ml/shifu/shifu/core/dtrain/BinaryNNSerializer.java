@@ -0,0 +1,483 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core.dtrain;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.encog.engine.network.activation.ActivationFunction;
+import org.encog.engine.network.activation.ActivationLOG;
+import org.encog.engine.network.activation.ActivationLinear;
+import org.encog.engine.network.activation.ActivationSIN;
+import org.encog.engine.network.activation.ActivationSigmoid;
+import org.encog.engine.network.activation.ActivationTANH;
+import org.encog.ml.BasicML;
+import org.encog.neural.flat.FlatNetwork;
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.neural.networks.layers.BasicLayer;
+import org.encog.persist.EncogDirectoryPersistence;
+
+/**
+ * BinaryNNSerializer class writes and reads the neural network in a compact binary format, which is much faster to
+ * write and load than the Encog EG text format.
+ *
+ * <p>
+ * The binary model is saved beside the EG model as 'model0.nn.bin', all numbers are little-endian:
+ *
+ * <pre>
+ * int magic, int version, int layer count, int weight count, long EG model length, long EG model CRC32
+ * for each layer from input to output:
+ *     int neuron count, int has bias, int activation id, int param count, double bias activation, double[] params
+ * double[] weights, the same order as {@link FlatNetwork#getWeights()}
+ * </pre>
+ *
+ * Every part is aligned to 8 bytes, so the weights can be copied from a memory mapped file in bulk.
+ *
+ * <p>
+ * The length and CRC32 of EG model saved together are recorded, -1 and 0 if there is no EG model, e.g. the tmp models.
+ * A binary model is used instead of the EG model beside it only if they match, so a binary model left by an old
+ * training or copied with the old modification time is never used for a new EG model.
+ *
+ * <p>
+ * Only the feed forward networks built by {@link NNUtils#generateNetwork(int, int, int, List, List)} are supported,
+ * {@link IllegalArgumentException} is thrown for other networks, so the callers can keep the EG format.
+ *
+ * @Dec 22, 2014
+ *
+ */
+public final class BinaryNNSerializer {
+
+    /**
+     * the suffix of binary model file, appended to the name of EG model file
+     */
+    public static final String SUFFIX = ".bin";
+
+    /**
+     * 'SBNN' in little-endian
+     */
+    private static final int MAGIC = 0x4E4E4253;
+
+    private static final int VERSION = 2;
+
+    /**
+     * magic, version, layer count, weight count, EG model length and EG model CRC32
+     */
+    private static final int HEADER_SIZE = 32;
+
+    /**
+     * the EG model length recorded if the binary model is not saved with EG model
+     */
+    private static final long NO_EG_LENGTH = -1L;
+
+    /**
+     * the max number of results kept in {@link #MATCH_CACHE}
+     */
+    private static final int MAX_MATCH_CACHE_SIZE = 1024;
+
+    /**
+     * The results of {@link #isBinaryOf(FileSystem, FileStatus, FileStatus)}, keyed by the path, length and
+     * modification time of both files, so the EG model is read for its CRC32 only once for each version of the files.
+     */
+    private static final Map<String, Boolean> MATCH_CACHE = Collections
+            .synchronizedMap(new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+                private static final long serialVersionUID = -2652469373427325383L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > MAX_MATCH_CACHE_SIZE;
+                }
+            });
+
+    /**
+     * neuron count, has bias, activation id, param count and bias activation
+     */
+    private static final int LAYER_SIZE = 24;
+
+    /**
+     * the activation classes indexed by activation id, only append new activations to keep the old files readable
+     */
+    private static final List<Class<? extends ActivationFunction>> ACTIVATIONS = new ArrayList<Class<? extends ActivationFunction>>();
+
+    static {
+        ACTIVATIONS.add(ActivationLinear.class);
+        ACTIVATIONS.add(ActivationSigmoid.class);
+        ACTIVATIONS.add(ActivationTANH.class);
+        ACTIVATIONS.add(ActivationLOG.class);
+        ACTIVATIONS.add(ActivationSIN.class);
+    }
+
+    private BinaryNNSerializer() {
+    }
+
+    /**
+     * @return the path of binary model beside the EG model
+     */
+    public static String getBinaryPath(String modelPath) {
+        return modelPath + SUFFIX;
+    }
+
+    /**
+     * @return the EG model of network, the same bytes as {@link EncogDirectoryPersistence#saveObject(File, Object)}
+     */
+    public static byte[] toEGBytes(BasicML model) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncogDirectoryPersistence.saveObject(out, model);
+        return out.toByteArray();
+    }
+
+    /**
+     * @return the CRC32 of EG model bytes
+     */
+    public static long checksum(byte[] eg) {
+        CRC32 crc = new CRC32();
+        crc.update(eg);
+        return crc.getValue();
+    }
+
+    /**
+     * Encode network with the weights to binary model.
+     *
+     * @param weights
+     *            - the weights to save instead of the weights of network, so the network is not changed
+     * @param eg
+     *            - the bytes of EG model saved together, or null if there is no EG model
+     * @throws IllegalArgumentException
+     *             if the network is not supported or the weights don't fit the network.
+     */
+    public static byte[] toBytes(BasicNetwork network, double[] weights, byte[] eg) {
+        FlatNetwork flat = network.getFlat();
+        if(flat.getHasContext() || flat.isLimited()) {
+            throw new IllegalArgumentException("Network with context or connection limit is not supported.");
+        }
+        if(weights.length != flat.getWeights().length) {
+            throw new IllegalArgumentException(String.format("Weight count %s doesn't fit the network of %s weights.",
+                    weights.length, flat.getWeights().length));
+        }
+
+        int layerCount = network.getLayerCount();
+        int size = HEADER_SIZE + weights.length * 8;
+        for(int i = 0; i < layerCount; i++) {
+            size += LAYER_SIZE + network.getActivation(i).getParams().length * 8;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(layerCount).putInt(weights.length);
+        buffer.putLong(eg == null ? NO_EG_LENGTH : eg.length).putLong(eg == null ? 0L : checksum(eg));
+        for(int i = 0; i < layerCount; i++) {
+            ActivationFunction activation = network.getActivation(i);
+            boolean hasBias = network.isLayerBiased(i);
+            buffer.putInt(network.getLayerNeuronCount(i)).putInt(hasBias ? 1 : 0)
+                    .putInt(getActivationId(activation)).putInt(activation.getParams().length)
+                    .putDouble(hasBias ? network.getLayerBiasActivation(i) : 0d);
+            for(double param: activation.getParams()) {
+                buffer.putDouble(param);
+            }
+        }
+        buffer.asDoubleBuffer().put(weights);
+        return buffer.array();
+    }
+
+    /**
+     * Save network with the weights to stream, see {@link #toBytes(BasicNetwork, double[], byte[])}.
+     */
+    public static void save(OutputStream out, BasicNetwork network, double[] weights, byte[] eg) throws IOException {
+        out.write(toBytes(network, weights, eg));
+    }
+
+    /**
+     * Save network with its own weights to local file, see {@link #toBytes(BasicNetwork, double[], byte[])}.
+     */
+    public static void save(File file, BasicNetwork network, byte[] eg) throws IOException {
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(file);
+            save(out, network, network.getFlat().getWeights(), eg);
+        } finally {
+            IOUtils.closeQuietly(out);
+        }
+    }
+
+    /**
+     * @return true if the buffer starts with the binary model magic, the position of buffer is not changed
+     */
+    public static boolean isBinary(ByteBuffer buffer) {
+        return buffer.remaining() >= HEADER_SIZE
+                && buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).getInt(buffer.position()) == MAGIC;
+    }
+
+    /**
+     * Decode network from binary model in buffer, the position of buffer is not changed.
+     *
+     * @throws IllegalArgumentException
+     *             if the buffer is not a valid binary model.
+     */
+    public static BasicNetwork load(ByteBuffer buffer) {
+        if(!isBinary(buffer)) {
+            throw new IllegalArgumentException("Not a binary model.");
+        }
+        ByteBuffer in = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        in.getInt();
+        int version = in.getInt();
+        if(version != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary model version " + version);
+        }
+        int layerCount = in.getInt();
+        int weightCount = in.getInt();
+        in.getLong();
+        in.getLong();
+
+        BasicNetwork network = new BasicNetwork();
+        double[] biasActivations = new double[layerCount];
+        for(int i = 0; i < layerCount; i++) {
+            int neuronCount = in.getInt();
+            boolean hasBias = in.getInt() == 1;
+            ActivationFunction activation = newActivation(in.getInt());
+            int paramCount = in.getInt();
+            biasActivations[i] = in.getDouble();
+            for(int j = 0; j < paramCount; j++) {
+                activation.setParam(j, in.getDouble());
+            }
+            network.addLayer(new BasicLayer(activation, hasBias, neuronCount));
+        }
+        network.getStructure().finalizeStructure();
+        for(int i = 0; i < layerCount; i++) {
+            if(network.isLayerBiased(i)) {
+                network.setLayerBiasActivation(i, biasActivations[i]);
+            }
+        }
+
+        double[] weights = network.getFlat().getWeights();
+        if(weights.length != weightCount || in.remaining() != weightCount * 8) {
+            throw new IllegalArgumentException(String.format(
+                    "Corrupted binary model, %s weights expected by network, %s weights recorded, %s bytes left.",
+                    weights.length, weightCount, in.remaining()));
+        }
+        in.asDoubleBuffer().get(weights);
+        return network;
+    }
+
+    /**
+     * Load network from local binary model file by memory mapping.
+     */
+    public static BasicNetwork load(File file) throws IOException {
+        return load(map(file));
+    }
+
+    /**
+     * Load model from local file, either binary model or EG model.
+     */
+    public static BasicML loadModel(File file) throws IOException {
+        ByteBuffer buffer = map(file);
+        if(isBinary(buffer)) {
+            return load(buffer);
+        }
+
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            return BasicML.class.cast(EncogDirectoryPersistence.loadObject(in));
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Load model from file system, either binary model or EG model. Local file is memory mapped, while the file in
+     * other file system is read into memory.
+     */
+    public static BasicML loadModel(FileSystem fs, Path path) throws IOException {
+        if("file".equals(fs.getUri().getScheme())) {
+            return loadModel(new File(path.toUri().getPath()));
+        }
+
+        byte[] bytes = readBytes(fs, path);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if(isBinary(buffer)) {
+            return load(buffer);
+        }
+        return BasicML.class.cast(EncogDirectoryPersistence.loadObject(new ByteArrayInputStream(bytes)));
+    }
+
+    /**
+     * Check whether the binary model is saved together with the EG model, by the length and CRC32 of EG model recorded
+     * in binary model. Only the header of binary model is read, and the EG model is read only if the length matches.
+     * The result is cached until either file is changed.
+     *
+     * @return false if the binary model doesn't match the EG model, or it is not a binary model of current version
+     */
+    public static boolean isBinaryOf(FileSystem fs, FileStatus binary, FileStatus eg) throws IOException {
+        String key = toCacheKey(binary) + '|' + toCacheKey(eg);
+        Boolean matched = MATCH_CACHE.get(key);
+        if(matched == null) {
+            matched = checkBinaryOf(fs, binary.getPath(), eg);
+            MATCH_CACHE.put(key, matched);
+        }
+        return matched;
+    }
+
+    private static String toCacheKey(FileStatus file) {
+        return file.getPath() + ":" + file.getLen() + ":" + file.getModificationTime();
+    }
+
+    private static boolean checkBinaryOf(FileSystem fs, Path binaryPath, FileStatus eg) throws IOException {
+        byte[] header = new byte[HEADER_SIZE];
+        DataInputStream in = null;
+        try {
+            in = fs.open(binaryPath);
+            in.readFully(header);
+        } catch (EOFException e) {
+            return false;
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN);
+        if(buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getLong(16) != eg.getLen()) {
+            return false;
+        }
+        return buffer.getLong(24) == checksum(readBytes(fs, eg.getPath()));
+    }
+
+    /**
+     * Select one file for each model from the EG and binary model files. The binary model is selected if there is no
+     * EG model beside it or it matches the EG model (see {@link #isBinaryOf(FileSystem, FileStatus, FileStatus)}),
+     * else the EG model is selected, since the binary model may be left by an old training. The order of files is kept.
+     */
+    public static List<FileStatus> selectModelFiles(FileSystem fs, List<FileStatus> files) throws IOException {
+        Map<String, FileStatus> filesByPath = new HashMap<String, FileStatus>();
+        for(FileStatus file: files) {
+            filesByPath.put(file.getPath().toString(), file);
+        }
+
+        // the paths of binary models selected, and of the EG models they replace
+        Set<String> selectedPaths = new HashSet<String>();
+        Set<String> replacedPaths = new HashSet<String>();
+        for(FileStatus file: files) {
+            String path = file.getPath().toString();
+            if(path.endsWith(SUFFIX)) {
+                FileStatus eg = filesByPath.get(path.substring(0, path.length() - SUFFIX.length()));
+                if(eg == null) {
+                    selectedPaths.add(path);
+                } else if(isBinaryOf(fs, file, eg)) {
+                    selectedPaths.add(path);
+                    replacedPaths.add(eg.getPath().toString());
+                }
+            }
+        }
+
+        List<FileStatus> selected = new ArrayList<FileStatus>(files.size());
+        for(FileStatus file: files) {
+            String path = file.getPath().toString();
+            if(path.endsWith(SUFFIX) ? selectedPaths.contains(path) : !replacedPaths.contains(path)) {
+                selected.add(file);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Convert EG model file to binary model file.
+     *
+     * @throws IllegalArgumentException
+     *             if the model is not a supported neural network.
+     */
+    public static void nnToBinary(File nnFile, File binaryFile) throws IOException {
+        BasicML model = loadModel(nnFile);
+        if(!(model instanceof BasicNetwork)) {
+            throw new IllegalArgumentException("Only neural network can be converted, but got "
+                    + model.getClass().getName());
+        }
+        save(binaryFile, (BasicNetwork) model, FileUtils.readFileToByteArray(nnFile));
+    }
+
+    /**
+     * Convert binary model file to EG model file. The binary model doesn't match the new EG model, so the EG model is
+     * used if they are put together.
+     */
+    public static void binaryToNN(File binaryFile, File nnFile) throws IOException {
+        EncogDirectoryPersistence.saveObject(nnFile, load(binaryFile));
+    }
+
+    private static byte[] readBytes(FileSystem fs, Path path) throws IOException {
+        InputStream in = null;
+        try {
+            in = fs.open(path);
+            return IOUtils.toByteArray(in);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    private static ByteBuffer map(File file) throws IOException {
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "r");
+            FileChannel channel = raf.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            IOUtils.closeQuietly(raf);
+        }
+    }
+
+    private static int getActivationId(ActivationFunction activation) {
+        int id = ACTIVATIONS.indexOf(activation.getClass());
+        if(id < 0) {
+            throw new IllegalArgumentException("Unsupported activation " + activation.getClass().getName());
+        }
+        return id;
+    }
+
+    private static ActivationFunction newActivation(int id) {
+        if(id < 0 || id >= ACTIVATIONS.size()) {
+            throw new IllegalArgumentException("Unknown activation id " + id);
+        }
+        try {
+            return ACTIVATIONS.get(id).newInstance();
+        } catch (InstantiationException e) {
+            throw new IllegalStateException(e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
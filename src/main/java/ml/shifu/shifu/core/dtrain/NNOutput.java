@@ -21,14 +21,14 @@ import ml.shifu.shifu.container.obj.ColumnConfig;
 import ml.shifu.shifu.container.obj.ModelConfig;
 import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
 import ml.shifu.shifu.core.alg.NNTrainer;
-import ml.shifu.shifu.util.CommonUtils;
+import ml.shifu.shifu.core.dtrain.BinaryNNSerializer;
+import ml.shifu.shifu.util.ConfigCache;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IOUtils;
 import org.encog.neural.networks.BasicNetwork;
-import org.encog.persist.EncogDirectoryPersistence;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -162,11 +162,13 @@ public class NNOutput extends BasicMasterInterceptor<NNParams, NNParams> {
     }
 
     /**
-     * Save tmp nn model to HDFS.
+     * Save tmp nn model to HDFS. Only the binary model is saved, since it's much faster than EG model and it doesn't
+     * change the network shared with the final model.
      */
     private void saveTmpNNToHDFS(int iteration, double[] weights) {
-        Path out = new Path(NNUtils.getTmpNNModelName(this.tmpModelsFolder, this.trainerId, iteration));
-        writeModelWeightsToFileSystem(weights, out);
+        Path out = new Path(BinaryNNSerializer.getBinaryPath(NNUtils.getTmpNNModelName(this.tmpModelsFolder,
+                this.trainerId, iteration)));
+        writeBinaryModelToFileSystem(weights, out, null);
     }
 
     private void init(MasterContext<NNParams, NNParams> context) {
@@ -198,9 +200,9 @@ public class NNOutput extends BasicMasterInterceptor<NNParams, NNParams> {
         try {
             SourceType sourceType = SourceType.valueOf(props.getProperty(NNConstants.NN_MODELSET_SOURCE_TYPE,
                     SourceType.HDFS.toString()));
-            this.modelConfig = CommonUtils.loadModelConfig(props.getProperty(NNConstants.SHIFU_NN_MODEL_CONFIG),
+            this.modelConfig = ConfigCache.getModelConfig(props.getProperty(NNConstants.SHIFU_NN_MODEL_CONFIG),
                     sourceType);
-            this.columnConfigList = CommonUtils.loadColumnConfigList(
+            this.columnConfigList = ConfigCache.getColumnConfigList(
                     props.getProperty(NNConstants.SHIFU_NN_COLUMN_CONFIG), sourceType);
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -222,18 +224,34 @@ public class NNOutput extends BasicMasterInterceptor<NNParams, NNParams> {
 
     private void writeModelWeightsToFileSystem(double[] weights, Path out) {
         FSDataOutputStream fos = null;
+        byte[] eg = null;
         try {
             fos = FileSystem.get(new Configuration()).create(out);
             LOG.info("Writing results to {}", out.toString());
             this.network.getFlat().setWeights(weights);
-            if(out != null) {
-                EncogDirectoryPersistence.saveObject(fos, this.network);
-            }
+            eg = BinaryNNSerializer.toEGBytes(this.network);
+            fos.write(eg);
         } catch (IOException e) {
             LOG.error("Error in writing output.", e);
         } finally {
             IOUtils.closeStream(fos);
         }
+
+        // binary model records the EG model written, so it is loaded instead only if the EG model is not changed.
+        writeBinaryModelToFileSystem(weights, new Path(BinaryNNSerializer.getBinaryPath(out.toString())), eg);
+    }
+
+    private void writeBinaryModelToFileSystem(double[] weights, Path out, byte[] eg) {
+        FSDataOutputStream fos = null;
+        try {
+            fos = FileSystem.get(new Configuration()).create(out);
+            LOG.info("Writing binary results to {}", out.toString());
+            BinaryNNSerializer.save(fos, this.network, weights, eg);
+        } catch (IOException e) {
+            LOG.error("Error in writing binary output.", e);
+        } finally {
+            IOUtils.closeStream(fos);
+        }
     }
 
     public ModelConfig getModelConfig() {
@@ -21,7 +21,7 @@ import ml.shifu.shifu.container.obj.ColumnConfig;
 import ml.shifu.shifu.container.obj.ModelConfig;
 import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
 import ml.shifu.shifu.core.dtrain.NNConstants;
-import ml.shifu.shifu.util.CommonUtils;
+import ml.shifu.shifu.util.ConfigCache;
 import ml.shifu.shifu.util.Constants;
 
 import org.slf4j.Logger;
@@ -78,10 +78,10 @@ public class VarSelMaster implements MasterComputable<VarSelMasterResult, VarSel
             SourceType sourceType = SourceType.valueOf(props.getProperty(NNConstants.NN_MODELSET_SOURCE_TYPE,
                     SourceType.HDFS.toString()));
 
-            this.modelConfig = CommonUtils.loadModelConfig(props.getProperty(NNConstants.SHIFU_NN_MODEL_CONFIG),
+            this.modelConfig = ConfigCache.getModelConfig(props.getProperty(NNConstants.SHIFU_NN_MODEL_CONFIG),
                     sourceType);
 
-            this.columnConfigList = CommonUtils.loadColumnConfigList(
+            this.columnConfigList = ConfigCache.getColumnConfigList(
                     props.getProperty(NNConstants.SHIFU_NN_COLUMN_CONFIG), sourceType);
 
             String conductorClsName = props.getProperty(Constants.VAR_SEL_MASTER_CONDUCTOR);
@@ -27,7 +27,7 @@ import ml.shifu.shifu.container.obj.ColumnConfig;
 import ml.shifu.shifu.container.obj.ModelConfig;
 import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
 import ml.shifu.shifu.core.dtrain.NNConstants;
-import ml.shifu.shifu.util.CommonUtils;
+import ml.shifu.shifu.util.ConfigCache;
 import ml.shifu.shifu.util.Constants;
 
 import org.apache.hadoop.conf.Configuration;
@@ -71,9 +71,9 @@ public class VarSelOutput extends BasicMasterInterceptor<VarSelMasterResult, Var
         try {
             SourceType sourceType = SourceType.valueOf(props.getProperty(NNConstants.NN_MODELSET_SOURCE_TYPE,
                     SourceType.HDFS.toString()));
-            this.modelConfig = CommonUtils.loadModelConfig(props.getProperty(NNConstants.SHIFU_NN_MODEL_CONFIG),
+            this.modelConfig = ConfigCache.getModelConfig(props.getProperty(NNConstants.SHIFU_NN_MODEL_CONFIG),
                     sourceType);
-            this.columnConfigList = CommonUtils.loadColumnConfigList(
+            this.columnConfigList = ConfigCache.getColumnConfigList(
                     props.getProperty(NNConstants.SHIFU_NN_COLUMN_CONFIG), sourceType);
         } catch (IOException e) {
             throw new RuntimeException(e);
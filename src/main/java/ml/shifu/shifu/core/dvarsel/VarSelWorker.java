@@ -30,6 +30,7 @@ import ml.shifu.shifu.core.dtrain.NNConstants;
 import ml.shifu.shifu.core.dvarsel.dataset.TrainingDataSet;
 import ml.shifu.shifu.core.dvarsel.dataset.TrainingRecord;
 import ml.shifu.shifu.util.CommonUtils;
+import ml.shifu.shifu.util.ConfigCache;
 import ml.shifu.shifu.util.Constants;
 import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.io.LongWritable;
@@ -82,10 +83,10 @@ public class VarSelWorker
             RawSourceData.SourceType sourceType = RawSourceData.SourceType.valueOf(props.getProperty(
                     NNConstants.NN_MODELSET_SOURCE_TYPE, RawSourceData.SourceType.HDFS.toString()));
 
-            this.modelConfig = CommonUtils.loadModelConfig(props.getProperty(NNConstants.SHIFU_NN_MODEL_CONFIG),
+            this.modelConfig = ConfigCache.getModelConfig(props.getProperty(NNConstants.SHIFU_NN_MODEL_CONFIG),
                     sourceType);
 
-            this.columnConfigList = CommonUtils.loadColumnConfigList(
+            this.columnConfigList = ConfigCache.getColumnConfigList(
                     props.getProperty(NNConstants.SHIFU_NN_COLUMN_CONFIG), sourceType);
 
             String conductorClsName = props.getProperty(Constants.VAR_SEL_WORKER_CONDUCTOR);
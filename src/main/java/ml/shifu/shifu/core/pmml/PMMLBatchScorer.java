@@ -0,0 +1,610 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core.pmml;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import ml.shifu.shifu.core.Scorer;
+import ml.shifu.shifu.util.CommonUtils;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.dmg.pmml.ActivationFunctionType;
+import org.dmg.pmml.Connection;
+import org.dmg.pmml.Constant;
+import org.dmg.pmml.DerivedField;
+import org.dmg.pmml.Expression;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.FieldRef;
+import org.dmg.pmml.LinearNorm;
+import org.dmg.pmml.LocalTransformations;
+import org.dmg.pmml.MapValues;
+import org.dmg.pmml.NeuralInput;
+import org.dmg.pmml.NeuralLayer;
+import org.dmg.pmml.NeuralNetwork;
+import org.dmg.pmml.Neuron;
+import org.dmg.pmml.NnNormalizationMethodType;
+import org.dmg.pmml.NormContinuous;
+import org.dmg.pmml.OutlierTreatmentMethodType;
+import org.dmg.pmml.PMML;
+import org.dmg.pmml.Row;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Element;
+
+/**
+ * <pre>
+ * PMMLBatchScorer class is to score records with the NeuralNetwork PMML exported by Shifu.
+ *
+ * The PMML is compiled once when loading:
+ *  - the DerivedField of each neural input is compiled into the index of raw field, and
+ *    NormContinuous - the sorted LinearNorm points in primitive arrays
+ *    MapValues      - the map from category to normalized value
+ *  - the NeuralLayers are compiled into the source slots and weights of each neuron
+ * so scoring one record is just parsing the fields and walking through primitive arrays.
+ *
+ * The scorer is thread-safe. The delimited records could be scored through a streaming pipeline: the records are
+ * read in blocks, scored by worker threads, and written in the same order as input.
+ * </pre>
+ *
+ * @Dec 13, 2014
+ *
+ */
+public class PMMLBatchScorer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PMMLBatchScorer.class);
+
+    /**
+     * the records of one block in pipeline
+     */
+    private static final int BLOCK_SIZE = 1000;
+
+    /**
+     * the field count of raw record
+     */
+    private final int fieldCount;
+
+    /**
+     * the transformation of each neural input, the slot of input i is i
+     */
+    private final FieldTransform[] inputs;
+
+    /**
+     * the source slots and weights of each neuron, the slot of neuron i is inputs.length + i
+     */
+    private final int[][] sources;
+    private final double[][] weights;
+    private final double[] biases;
+
+    /**
+     * the activation of each neuron
+     */
+    private final ActivationFunctionType[] activations;
+
+    /**
+     * the slot of output neuron
+     */
+    private final int outputSlot;
+
+    /**
+     * the slot values for each thread
+     */
+    private final ThreadLocal<double[]> slots = new ThreadLocal<double[]>() {
+        @Override
+        protected double[] initialValue() {
+            return new double[inputs.length + biases.length];
+        }
+    };
+
+    /**
+     * Load the PMML file and compile it
+     *
+     * @param pmmlPath
+     *            - the path of PMML
+     * @param header
+     *            - the field names of raw records
+     * @throws Exception
+     *             if fail to load PMML
+     */
+    public PMMLBatchScorer(String pmmlPath, String[] header) throws Exception {
+        this(PMMLUtils.loadPMML(pmmlPath), header);
+    }
+
+    /**
+     * Compile the first NeuralNetwork in PMML
+     *
+     * @param pmml
+     *            - the PMML exported by Shifu
+     * @param header
+     *            - the field names of raw records
+     * @throws IllegalArgumentException
+     *             if there is no NeuralNetwork, or there is something not supported in PMML
+     */
+    public PMMLBatchScorer(PMML pmml, String[] header) {
+        NeuralNetwork network = null;
+        for(Object model: pmml.getModels()) {
+            if(model instanceof NeuralNetwork) {
+                network = (NeuralNetwork) model;
+                break;
+            }
+        }
+        if(network == null) {
+            throw new IllegalArgumentException("No NeuralNetwork model in PMML.");
+        }
+
+        this.fieldCount = header.length;
+
+        Map<String, Integer> fieldIndexes = new HashMap<String, Integer>();
+        for(int i = 0; i < header.length; i++) {
+            fieldIndexes.put(StringUtils.trim(header[i]), i);
+        }
+
+        Map<FieldName, DerivedField> derivedFields = new HashMap<FieldName, DerivedField>();
+        LocalTransformations transformations = network.getLocalTransformations();
+        if(transformations != null) {
+            derivedFields.putAll(PMMLUtils.getDerivedFieldMap(transformations));
+        }
+
+        // neural inputs
+        Map<String, Integer> slotMap = new HashMap<String, Integer>();
+        List<NeuralInput> neuralInputs = network.getNeuralInputs().getNeuralInputs();
+        this.inputs = new FieldTransform[neuralInputs.size()];
+        for(int i = 0; i < neuralInputs.size(); i++) {
+            NeuralInput input = neuralInputs.get(i);
+            slotMap.put(input.getId(), i);
+            inputs[i] = compile(input.getDerivedField().getExpression(), derivedFields, fieldIndexes);
+        }
+
+        // neural layers, the neurons could only connect to the inputs and neurons before
+        List<Neuron> neurons = new ArrayList<Neuron>();
+        List<ActivationFunctionType> functions = new ArrayList<ActivationFunctionType>();
+        for(NeuralLayer layer: network.getNeuralLayers()) {
+            NnNormalizationMethodType normalization = layer.getNormalizationMethod();
+            if(normalization != null && normalization != NnNormalizationMethodType.NONE) {
+                throw new IllegalArgumentException("Unsupported normalization method - " + normalization);
+            }
+            ActivationFunctionType function = (layer.getActivationFunction() == null ? network.getActivationFunction()
+                    : layer.getActivationFunction());
+            if(function != ActivationFunctionType.LOGISTIC && function != ActivationFunctionType.TANH
+                    && function != ActivationFunctionType.IDENTITY) {
+                throw new IllegalArgumentException("Unsupported activation function - " + function);
+            }
+
+            List<Integer> layerSlots = new ArrayList<Integer>();
+            for(Neuron neuron: layer.getNeurons()) {
+                layerSlots.add(inputs.length + neurons.size());
+                neurons.add(neuron);
+                functions.add(function);
+            }
+            // the neurons of the same layer are visible after the whole layer
+            for(int i = 0; i < layerSlots.size(); i++) {
+                slotMap.put(layer.getNeurons().get(i).getId(), layerSlots.get(i));
+            }
+        }
+
+        int size = neurons.size();
+        this.sources = new int[size][];
+        this.weights = new double[size][];
+        this.biases = new double[size];
+        this.activations = functions.toArray(new ActivationFunctionType[size]);
+        for(int i = 0; i < size; i++) {
+            Neuron neuron = neurons.get(i);
+            List<Connection> connections = neuron.getConnections();
+            sources[i] = new int[connections.size()];
+            weights[i] = new double[connections.size()];
+            for(int j = 0; j < connections.size(); j++) {
+                Integer slot = slotMap.get(connections.get(j).getFrom());
+                if(slot == null || slot >= inputs.length + i) {
+                    throw new IllegalArgumentException("Invalid connection from " + connections.get(j).getFrom()
+                            + " to " + neuron.getId());
+                }
+                sources[i][j] = slot;
+                weights[i][j] = connections.get(j).getWeight();
+            }
+            biases[i] = (neuron.getBias() == null ? 0.0 : neuron.getBias());
+        }
+
+        String outputNeuron = network.getNeuralOutputs().getNeuralOutputs().get(0).getOutputNeuron();
+        if(!slotMap.containsKey(outputNeuron)) {
+            throw new IllegalArgumentException("Output neuron not found - " + outputNeuron);
+        }
+        this.outputSlot = slotMap.get(outputNeuron);
+    }
+
+    /**
+     * Compile the expression of neural input
+     */
+    private static FieldTransform compile(Expression expression, Map<FieldName, DerivedField> derivedFields,
+            Map<String, Integer> fieldIndexes) {
+        if(expression instanceof FieldRef) {
+            FieldName name = ((FieldRef) expression).getField();
+            DerivedField derived = derivedFields.get(name);
+            if(derived != null) {
+                return compile(derived.getExpression(), derivedFields, fieldIndexes);
+            }
+            return new NormContinuousTransform(getFieldIndex(name, fieldIndexes), null, null, null, null);
+        } else if(expression instanceof Constant) {
+            return new ConstantTransform(Double.parseDouble(((Constant) expression).getValue()));
+        } else if(expression instanceof NormContinuous) {
+            NormContinuous norm = (NormContinuous) expression;
+            List<LinearNorm> linearNorms = new ArrayList<LinearNorm>(norm.getLinearNorms());
+            double[] orig = new double[linearNorms.size()];
+            double[] normalized = new double[linearNorms.size()];
+            for(int i = 0; i < linearNorms.size(); i++) {
+                orig[i] = linearNorms.get(i).getOrig();
+                normalized[i] = linearNorms.get(i).getNorm();
+            }
+            return new NormContinuousTransform(getFieldIndex(norm.getField(), fieldIndexes), orig, normalized,
+                    norm.getOutliers(), norm.getMapMissingTo());
+        } else if(expression instanceof MapValues) {
+            MapValues mapValues = (MapValues) expression;
+            if(mapValues.getFieldColumnPairs().size() != 1 || mapValues.getInlineTable() == null) {
+                throw new IllegalArgumentException("Only MapValues with one field and inline table is supported.");
+            }
+
+            String column = mapValues.getFieldColumnPairs().get(0).getColumn();
+            Map<String, Double> table = new HashMap<String, Double>();
+            for(Row row: mapValues.getInlineTable().getRows()) {
+                String origin = null;
+                String out = null;
+                for(Object content: row.getContent()) {
+                    if(content instanceof Element) {
+                        Element element = (Element) content;
+                        if(column.equals(element.getLocalName())) {
+                            origin = element.getTextContent();
+                        } else if(mapValues.getOutputColumn().equals(element.getLocalName())) {
+                            out = element.getTextContent();
+                        }
+                    }
+                }
+                if(origin != null && out != null && !table.containsKey(origin)) {
+                    table.put(origin, Double.parseDouble(out));
+                }
+            }
+
+            return new MapValuesTransform(getFieldIndex(mapValues.getFieldColumnPairs().get(0).getField(),
+                    fieldIndexes), table, toDouble(mapValues.getDefaultValue()), toDouble(mapValues.getMapMissingTo()));
+        } else {
+            throw new IllegalArgumentException("Unsupported expression - " + expression.getClass().getSimpleName());
+        }
+    }
+
+    private static int getFieldIndex(FieldName name, Map<String, Integer> fieldIndexes) {
+        Integer index = fieldIndexes.get(name.getValue());
+        if(index == null) {
+            throw new IllegalArgumentException("Field not found in header - " + name.getValue());
+        }
+        return index;
+    }
+
+    private static Double toDouble(String value) {
+        return (value == null ? null : Double.valueOf(value));
+    }
+
+    /**
+     * @return the field count of raw record
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Compute the model output for raw record
+     *
+     * @param fields
+     *            - the fields of raw record, in the order of header
+     * @return the model output, NaN if the record is invalid or some input is missing
+     */
+    public double compute(String[] fields) {
+        if(fields == null || fields.length != fieldCount) {
+            return Double.NaN;
+        }
+
+        double[] values = slots.get();
+        for(int i = 0; i < inputs.length; i++) {
+            values[i] = inputs[i].transform(fields);
+        }
+
+        for(int i = 0; i < biases.length; i++) {
+            int[] source = sources[i];
+            double[] weight = weights[i];
+            double sum = biases[i];
+            for(int j = 0; j < source.length; j++) {
+                sum += weight[j] * values[source[j]];
+            }
+
+            switch(activations[i]) {
+                case LOGISTIC:
+                    sum = 1.0 / (1.0 + Math.exp(-sum));
+                    break;
+                case TANH:
+                    sum = Math.tanh(sum);
+                    break;
+                default:
+                    break;
+            }
+            values[inputs.length + i] = sum;
+        }
+
+        return values[outputSlot];
+    }
+
+    /**
+     * Compute the score for raw record, the output is scaled the same as Shifu
+     *
+     * @return the score, or null if the record is invalid
+     */
+    public Integer score(String[] fields) {
+        double output = compute(fields);
+        return Double.isNaN(output) ? null : (int) Math.round(output * Scorer.SCORE_SCALE);
+    }
+
+    /**
+     * Score the delimited file with header in first line. One score is written for each record, and an empty line for
+     * invalid record.
+     *
+     * @param pmmlPath
+     *            - the path of PMML
+     * @param input
+     *            - the input file
+     * @param output
+     *            - the output file
+     * @param delimiter
+     *            - the delimiter of input
+     * @param threads
+     *            - the number of scoring threads
+     * @return the number of records
+     */
+    public static long score(String pmmlPath, File input, File output, String delimiter, int threads)
+            throws Exception {
+        BufferedReader reader = null;
+        Writer writer = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(input), "UTF-8"));
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(output), "UTF-8"));
+
+            String header = reader.readLine();
+            if(header == null) {
+                return 0L;
+            }
+
+            PMMLBatchScorer scorer = new PMMLBatchScorer(pmmlPath, CommonUtils.split(header, delimiter));
+            return scorer.score(reader, writer, delimiter, threads);
+        } finally {
+            IOUtils.closeQuietly(reader);
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
+    /**
+     * Score the delimited records through a streaming pipeline. The records are read in blocks and scored by worker
+     * threads, and the scores are written in the same order as records. At most 2 * threads blocks are in memory.
+     *
+     * @param reader
+     *            - the reader of records, without header
+     * @param writer
+     *            - the writer of scores, one line for each record, empty line for invalid record
+     * @param delimiter
+     *            - the delimiter of records
+     * @param threads
+     *            - the number of scoring threads
+     * @return the number of records
+     * @throws IOException
+     *             if fail to read or write
+     */
+    public long score(BufferedReader reader, Writer writer, final String delimiter, int threads) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        LinkedList<Future<Integer[]>> pending = new LinkedList<Future<Integer[]>>();
+        long count = 0L;
+        try {
+            while(true) {
+                final String[] block = readBlock(reader);
+                if(block.length == 0) {
+                    break;
+                }
+                count += block.length;
+
+                pending.add(executor.submit(new Callable<Integer[]>() {
+                    @Override
+                    public Integer[] call() {
+                        Integer[] scores = new Integer[block.length];
+                        for(int i = 0; i < block.length; i++) {
+                            scores[i] = score(CommonUtils.split(block[i], delimiter));
+                        }
+                        return scores;
+                    }
+                }));
+
+                while(pending.size() >= 2 * Math.max(1, threads)) {
+                    write(writer, pending.removeFirst());
+                }
+            }
+
+            while(!pending.isEmpty()) {
+                write(writer, pending.removeFirst());
+            }
+            writer.flush();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        LOG.info("Scored {} records.", count);
+        return count;
+    }
+
+    private static String[] readBlock(BufferedReader reader) throws IOException {
+        String[] block = new String[BLOCK_SIZE];
+        int size = 0;
+        String line;
+        while(size < BLOCK_SIZE && (line = reader.readLine()) != null) {
+            block[size++] = line;
+        }
+        return (size == BLOCK_SIZE ? block : Arrays.copyOf(block, size));
+    }
+
+    private static void write(Writer writer, Future<Integer[]> future) throws IOException {
+        Integer[] scores;
+        try {
+            scores = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted in scoring.", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Fail to score records.", e.getCause());
+        }
+
+        for(Integer score: scores) {
+            if(score != null) {
+                writer.write(score.toString());
+            }
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * The transformation from raw record to neural input
+     */
+    private static abstract class FieldTransform {
+        abstract double transform(String[] fields);
+
+        static boolean isMissing(String value) {
+            return value == null || value.trim().length() == 0;
+        }
+    }
+
+    private static class ConstantTransform extends FieldTransform {
+        private final double value;
+
+        ConstantTransform(double value) {
+            this.value = value;
+        }
+
+        @Override
+        double transform(String[] fields) {
+            return value;
+        }
+    }
+
+    /**
+     * The piecewise linear normalization, or the raw value if there is no LinearNorm
+     */
+    private static class NormContinuousTransform extends FieldTransform {
+        private final int index;
+        private final double[] orig;
+        private final double[] norm;
+        private final OutlierTreatmentMethodType outliers;
+        private final double missing;
+
+        NormContinuousTransform(int index, double[] orig, double[] norm, OutlierTreatmentMethodType outliers,
+                Double mapMissingTo) {
+            this.index = index;
+            this.orig = orig;
+            this.norm = norm;
+            this.outliers = (outliers == null ? OutlierTreatmentMethodType.AS_IS : outliers);
+            this.missing = (mapMissingTo == null ? Double.NaN : mapMissingTo);
+        }
+
+        @Override
+        double transform(String[] fields) {
+            String raw = fields[index];
+            if(isMissing(raw)) {
+                return missing;
+            }
+
+            double value;
+            try {
+                value = Double.parseDouble(raw);
+            } catch (NumberFormatException e) {
+                // the invalid value is treated as missing
+                return missing;
+            }
+
+            if(orig == null || orig.length < 2) {
+                return value;
+            }
+
+            int last = orig.length - 1;
+            if(value < orig[0] || value > orig[last]) {
+                switch(outliers) {
+                    case AS_EXTREME_VALUES:
+                        return value < orig[0] ? norm[0] : norm[last];
+                    case AS_MISSING_VALUES:
+                        return missing;
+                    default:
+                        // extrapolate with the first or last segment
+                        int i = (value < orig[0] ? 0 : last - 1);
+                        return interpolate(value, i);
+                }
+            }
+
+            int i = 0;
+            while(i < last - 1 && value > orig[i + 1]) {
+                i++;
+            }
+            return interpolate(value, i);
+        }
+
+        private double interpolate(double value, int i) {
+            return norm[i] + (value - orig[i]) / (orig[i + 1] - orig[i]) * (norm[i + 1] - norm[i]);
+        }
+    }
+
+    private static class MapValuesTransform extends FieldTransform {
+        private final int index;
+        private final Map<String, Double> table;
+        private final double defaultValue;
+        private final double missing;
+
+        MapValuesTransform(int index, Map<String, Double> table, Double defaultValue, Double mapMissingTo) {
+            this.index = index;
+            this.table = table;
+            this.defaultValue = (defaultValue == null ? Double.NaN : defaultValue);
+            this.missing = (mapMissingTo == null ? Double.NaN : mapMissingTo);
+        }
+
+        @Override
+        double transform(String[] fields) {
+            String raw = fields[index];
+            if(isMissing(raw)) {
+                return missing;
+            }
+
+            Double value = table.get(raw);
+            return value == null ? defaultValue : value;
+        }
+    }
+}
@@ -24,7 +24,6 @@ import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
 import java.util.Set;
 
 import ml.shifu.shifu.container.meta.ValidateResult;
@@ -35,12 +34,15 @@ import ml.shifu.shifu.core.validator.ModelInspector;
 import ml.shifu.shifu.core.validator.ModelInspector.ModelStep;
 import ml.shifu.shifu.exception.ShifuErrorCode;
 import ml.shifu.shifu.exception.ShifuException;
+import ml.shifu.shifu.fs.LineReader;
 import ml.shifu.shifu.fs.PathFinder;
+import ml.shifu.shifu.util.ColumnConfigSnapshot;
 import ml.shifu.shifu.util.CommonUtils;
 import ml.shifu.shifu.util.Environment;
 import ml.shifu.shifu.util.JSONUtils;
 
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -137,6 +139,7 @@ public class BasicModelProcessor {
     protected void saveColumnConfigList() throws IOException {
         log.info("Saving ColumnConfig...");
         JSONUtils.writeValue(new File(pathFinder.getColumnConfigPath(SourceType.LOCAL)), columnConfigList);
+        ColumnConfigSnapshot.saveSnapshot(pathFinder.getColumnConfigPath(SourceType.LOCAL), columnConfigList);
     }
 
     /**
@@ -167,14 +170,14 @@ public class BasicModelProcessor {
     }
 
     /**
-     * Close all scanners
+     * Close all readers
      * 
-     * @param scanners
+     * @param readers
      */
-    protected void closeScanners(List<Scanner> scanners) {
-        if(CollectionUtils.isNotEmpty(scanners)) {
-            for(Scanner scanner: scanners) {
-                scanner.close();
+    protected void closeReaders(List<LineReader> readers) {
+        if(CollectionUtils.isNotEmpty(readers)) {
+            for(LineReader reader: readers) {
+                IOUtils.closeQuietly(reader);
             }
         }
     }
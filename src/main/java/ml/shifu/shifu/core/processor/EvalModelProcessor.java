@@ -22,9 +22,14 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import ml.shifu.shifu.actor.AkkaSystemExecutor;
+import ml.shifu.shifu.container.obj.ColumnConfig;
 import ml.shifu.shifu.container.obj.EvalConfig;
 import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
 import ml.shifu.shifu.core.ConfusionMatrix;
@@ -32,10 +37,12 @@ import ml.shifu.shifu.core.PerformanceEvaluator;
 import ml.shifu.shifu.core.validator.ModelInspector.ModelStep;
 import ml.shifu.shifu.exception.ShifuErrorCode;
 import ml.shifu.shifu.exception.ShifuException;
+import ml.shifu.shifu.fs.LineReader;
 import ml.shifu.shifu.fs.PathFinder;
 import ml.shifu.shifu.fs.ShifuFileUtils;
 import ml.shifu.shifu.pig.PigExecutor;
 import ml.shifu.shifu.util.Constants;
+import ml.shifu.shifu.util.Environment;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
@@ -66,16 +73,6 @@ public class EvalModelProcessor extends BasicModelProcessor implements Processor
 
     private EvalStep evalStep;
 
-    private long pigPosTags = 0l;
-
-    private long pigNegTags = 0l;
-
-    private double pigPosWeightTags = 0d;
-
-    private double pigNegWeightTags = 0d;
-
-    private long evalRecords = 0l;
-
     /**
      * Constructor
      * 
@@ -202,34 +199,100 @@ public class EvalModelProcessor extends BasicModelProcessor implements Processor
      * @throws IOException
      */
     private void runScore(List<EvalConfig> evalSetList) throws IOException {
-        for(EvalConfig config: evalSetList) {
-            runScore(config);
+        prepareEvalSets(evalSetList);
+
+        switch(modelConfig.getBasic().getRunMode()) {
+            case mapred:
+                runInParallel(evalSetList, new EvalSetTask() {
+                    @Override
+                    public void run(EvalConfig evalConfig) throws IOException {
+                        runPigScore(evalConfig);
+                    }
+                });
+                break;
+            case local:
+                runAkkaScore(evalSetList);
+                break;
+            default:
+                break;
         }
     }
 
     /**
-     * run score only
+     * create evalset home directories in local file system, and sync the configurations to HDFS
      * 
-     * @param config
+     * @param evalSetList
      * @throws IOException
      */
-    private void runScore(EvalConfig config) throws IOException {
-        // create evalset home directory firstly in local file system
+    private void prepareEvalSets(List<EvalConfig> evalSetList) throws IOException {
         PathFinder pathFinder = new PathFinder(modelConfig);
-        String evalSetPath = pathFinder.getEvalSetPath(config, SourceType.LOCAL);
-        (new File(evalSetPath)).mkdirs();
+        boolean isSynced = false;
+        for(EvalConfig evalConfig: evalSetList) {
+            String evalSetPath = pathFinder.getEvalSetPath(evalConfig, SourceType.LOCAL);
+            (new File(evalSetPath)).mkdirs();
+
+            if(!isSynced) {
+                isSynced = syncDataToHdfs(evalConfig.getDataSet().getSource());
+            }
+        }
+    }
 
-        syncDataToHdfs(config.getDataSet().getSource());
+    /**
+     * EvalSetTask is the work for one eval set, which could run concurrently with other eval sets
+     */
+    private interface EvalSetTask {
+        void run(EvalConfig evalConfig) throws IOException;
+    }
 
-        switch(modelConfig.getBasic().getRunMode()) {
-            case mapred:
-                runPigScore(config);
-                break;
-            case local:
-                runAkkaScore(config);
-                break;
-            default:
-                break;
+    /**
+     * Run the task for every eval set concurrently. The max number of concurrent eval sets is set by
+     * evalNumParallel in shifuconfig, by default all eval sets run together.
+     * 
+     * @param evalSetList
+     * @param task
+     * @throws IOException
+     */
+    private void runInParallel(List<EvalConfig> evalSetList, final EvalSetTask task) throws IOException {
+        if(evalSetList.size() <= 1) {
+            for(EvalConfig evalConfig: evalSetList) {
+                task.run(evalConfig);
+            }
+            return;
+        }
+
+        int numThreads = Math.max(1,
+                Math.min(evalSetList.size(), Environment.getInt(Environment.EVAL_NUM_PARALLEL, evalSetList.size())));
+        log.info("Run {} eval sets with {} threads", evalSetList.size(), numThreads);
+
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>(evalSetList.size());
+            for(final EvalConfig evalConfig: evalSetList) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        task.run(evalConfig);
+                        return null;
+                    }
+                }));
+            }
+
+            for(Future<Void> future: futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ShifuException(ShifuErrorCode.ERROR_LOCAL_EXECUTE_EXCEPTION, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        } finally {
+            executor.shutdownNow();
         }
     }
 
@@ -237,14 +300,16 @@ public class EvalModelProcessor extends BasicModelProcessor implements Processor
      * run pig mode scoring
      * 
      * @param config
+     * @return the count of evaluated records
      * @throws IOException
      */
-    private void runPigScore(EvalConfig evalConfig) throws IOException {
+    private long runPigScore(EvalConfig evalConfig) throws IOException {
         // clean up output directories
         SourceType sourceType = evalConfig.getDataSet().getSource();
 
         ShifuFileUtils.deleteFile(pathFinder.getEvalNormalizedPath(evalConfig), sourceType);
         ShifuFileUtils.deleteFile(pathFinder.getEvalScorePath(evalConfig), sourceType);
+        ShifuFileUtils.deleteFile(pathFinder.getEvalScoreHistogramPath(evalConfig), sourceType);
         ShifuFileUtils.deleteFile(pathFinder.getEvalPerformancePath(evalConfig), sourceType);
 
         // prepare special parameters and execute pig
@@ -255,6 +320,7 @@ public class EvalModelProcessor extends BasicModelProcessor implements Processor
         paramsMap.put("pathEvalNormalized", pathFinder.getEvalNormalizedPath(evalConfig));
         paramsMap.put("pathHeader", evalConfig.getDataSet().getHeaderPath());
         paramsMap.put("pathEvalScore", pathFinder.getEvalScorePath(evalConfig));
+        paramsMap.put("pathEvalScoreHistogram", pathFinder.getEvalScoreHistogramPath(evalConfig));
         paramsMap.put("pathEvalPerformance", pathFinder.getEvalPerformancePath(evalConfig));
         paramsMap.put("eval_set_name", evalConfig.getName());
         paramsMap.put("delimiter", evalConfig.getDataSet().getDataDelimiter());
@@ -269,49 +335,49 @@ public class EvalModelProcessor extends BasicModelProcessor implements Processor
             throw new RuntimeException(e);
         }
 
+        // PigStats is thread local, so it's the stats of the pig job for this eval set
         Iterator<JobStats> iter = PigStats.get().getJobGraph().iterator();
 
+        long evalRecords = 0L;
         while(iter.hasNext()) {
             JobStats jobStats = iter.next();
-            this.evalRecords = jobStats.getHadoopCounters().getGroup(Constants.SHIFU_GROUP_COUNTER)
+            evalRecords = jobStats.getHadoopCounters().getGroup(Constants.SHIFU_GROUP_COUNTER)
                     .getCounter(Constants.COUNTER_RECORDS);
-            log.info("evalRecords:" + evalRecords);
+            log.info("evalRecords of {}: {}", evalConfig.getName(), evalRecords);
             // If no basic record counter, check next one
-            if(this.evalRecords == 0L) {
+            if(evalRecords == 0L) {
                 continue;
             }
-            this.pigPosTags = jobStats.getHadoopCounters().getGroup(Constants.SHIFU_GROUP_COUNTER)
-                    .getCounter(Constants.COUNTER_POSTAGS);
-            this.pigNegTags = jobStats.getHadoopCounters().getGroup(Constants.SHIFU_GROUP_COUNTER)
-                    .getCounter(Constants.COUNTER_NEGTAGS);
-            this.pigPosWeightTags = jobStats.getHadoopCounters().getGroup(Constants.SHIFU_GROUP_COUNTER)
-                    .getCounter(Constants.COUNTER_WPOSTAGS)
-                    / (Constants.EVAL_COUNTER_WEIGHT_SCALE * 1.0d);
-            this.pigNegWeightTags = jobStats.getHadoopCounters().getGroup(Constants.SHIFU_GROUP_COUNTER)
-                    .getCounter(Constants.COUNTER_WNEGTAGS)
-                    / (Constants.EVAL_COUNTER_WEIGHT_SCALE * 1.0d);
             // only one pig job with such counters, break
             break;
         }
+        return evalRecords;
     }
 
     /**
-     * run akka mode scoring
+     * run akka mode scoring, all eval sets are scored in one AKKA system
      * 
-     * @param config
+     * @param evalSetList
      * @throws IOException
      */
-    private void runAkkaScore(EvalConfig config) throws IOException {
-        SourceType sourceType = config.getDataSet().getSource();
-        List<Scanner> scanners = ShifuFileUtils.getDataScanners(
-                ShifuFileUtils.expandPath(config.getDataSet().getDataPath(), sourceType), sourceType);
-
-        AkkaSystemExecutor.getExecutor().submitModelEvalJob(modelConfig,
-                ShifuFileUtils.searchColumnConfig(config, this.columnConfigList), config, scanners);
+    private void runAkkaScore(List<EvalConfig> evalSetList) throws IOException {
+        List<List<ColumnConfig>> columnConfigLists = new ArrayList<List<ColumnConfig>>(evalSetList.size());
+        List<List<LineReader>> readersList = new ArrayList<List<LineReader>>(evalSetList.size());
+        try {
+            for(EvalConfig config: evalSetList) {
+                SourceType sourceType = config.getDataSet().getSource();
+                readersList.add(ShifuFileUtils.getSplitDataReaders(
+                        ShifuFileUtils.expandPath(config.getDataSet().getDataPath(), sourceType), sourceType));
+                columnConfigLists.add(ShifuFileUtils.searchColumnConfig(config, this.columnConfigList));
+            }
 
-        // TODO A bug here in local mode
-        // this.evalRecords = ...;
-        closeScanners(scanners);
+            AkkaSystemExecutor.getExecutor().submitModelEvalJob(modelConfig, columnConfigLists, evalSetList,
+                    readersList);
+        } finally {
+            for(List<LineReader> readers: readersList) {
+                closeReaders(readers);
+            }
+        }
     }
 
     /**
@@ -355,36 +421,24 @@ public class EvalModelProcessor extends BasicModelProcessor implements Processor
      *             any exception in running pig evaluation or akka evaluation
      */
     private void runEval(List<EvalConfig> evalSetList) throws IOException {
-        for(EvalConfig evalConfig: evalSetList) {
-            runEval(evalConfig);
-        }
-        log.info("Step Finished: eval");
-    }
-
-    /**
-     * Run evaluation by @EvalConfig
-     * 
-     * @param evalConfig
-     * @throws IOException
-     */
-    private void runEval(EvalConfig evalConfig) throws IOException {
-        // create evalset home directory firstly in local file system
-        PathFinder pathFinder = new PathFinder(modelConfig);
-        String evalSetPath = pathFinder.getEvalSetPath(evalConfig, SourceType.LOCAL);
-        (new File(evalSetPath)).mkdirs();
-
-        syncDataToHdfs(evalConfig.getDataSet().getSource());
+        prepareEvalSets(evalSetList);
 
         switch(modelConfig.getBasic().getRunMode()) {
             case mapred:
-                runPigEval(evalConfig);
+                runInParallel(evalSetList, new EvalSetTask() {
+                    @Override
+                    public void run(EvalConfig evalConfig) throws IOException {
+                        runPigEval(evalConfig);
+                    }
+                });
                 break;
             case local:
-                runAkkaEval(evalConfig);
+                runAkkaEval(evalSetList);
                 break;
             default:
                 break;
         }
+        log.info("Step Finished: eval");
     }
 
     /**
@@ -397,24 +451,26 @@ public class EvalModelProcessor extends BasicModelProcessor implements Processor
      */
     private void runPigEval(EvalConfig evalConfig) throws IOException {
         runPigScore(evalConfig);
-        // TODO runConfusionMatrix write and runPerformance read, merge together
-        // TODO code refacter because of several magic numbers and not good name functions ...
-        runConfusionMatrix(evalConfig);
-        runPerformance(evalConfig);
+        // the confusion matrix is computed from the score histogram, one matrix for every score
+        runPerformance(evalConfig, runConfusionMatrix(evalConfig));
     }
 
     /**
      * Use akka to run model evaluation
      * 
-     * @param evalConfig
-     *            the evaluation instance
+     * @param evalSetList
+     *            the evaluation instances
      * @throws IOException
-     *             the error while create data scanner for input data
+     *             the error while create data reader for input data
      */
-    private void runAkkaEval(EvalConfig evalConfig) throws IOException {
-        runAkkaScore(evalConfig);
-        runConfusionMatrix(evalConfig);
-        runPerformance(evalConfig);
+    private void runAkkaEval(List<EvalConfig> evalSetList) throws IOException {
+        runAkkaScore(evalSetList);
+        runInParallel(evalSetList, new EvalSetTask() {
+            @Override
+            public void run(EvalConfig evalConfig) throws IOException {
+                runPerformance(evalConfig, runConfusionMatrix(evalConfig));
+            }
+        });
     }
 
     /**
@@ -428,7 +484,7 @@ public class EvalModelProcessor extends BasicModelProcessor implements Processor
      */
     private void runPerformance(List<EvalConfig> evalSetList) throws IOException {
         for(EvalConfig evalConfig: evalSetList) {
-            runPerformance(evalConfig);
+            runPerformance(evalConfig, 0L);
         }
     }
 
@@ -437,18 +493,16 @@ public class EvalModelProcessor extends BasicModelProcessor implements Processor
      * 
      * @param evalConfig
      *            the name for evaluation
+     * @param evalRecords
+     *            the count of evaluated records, 0 if it's unknown
      * @throws IOException
      */
-    private void runPerformance(EvalConfig evalConfig) throws IOException {
+    private void runPerformance(EvalConfig evalConfig, long evalRecords) throws IOException {
         PerformanceEvaluator perfEval = new PerformanceEvaluator(modelConfig, evalConfig);
-        switch(modelConfig.getBasic().getRunMode()) {
-            case mapred:
-                perfEval.review(this.evalRecords);
-                break;
-            case local:
-            default:
-                perfEval.review();
-                break;
+        if(evalRecords > 0L) {
+            perfEval.review(evalRecords);
+        } else {
+            perfEval.review();
         }
     }
 
@@ -460,29 +514,28 @@ public class EvalModelProcessor extends BasicModelProcessor implements Processor
      * @throws IOException
      */
     private void runConfusionMatrix(List<EvalConfig> evalSetList) throws IOException {
-        for(EvalConfig config: evalSetList) {
-            runConfusionMatrix(config);
-        }
+        runInParallel(evalSetList, new EvalSetTask() {
+            @Override
+            public void run(EvalConfig evalConfig) throws IOException {
+                runConfusionMatrix(evalConfig);
+            }
+        });
     }
 
     /**
      * Run confusion matrix
      * 
      * @param EvalConfig
-     * @return List of ConfusionMatrixObject
+     * @return the count of evaluated records
      * @throws IOException
      */
-    private void runConfusionMatrix(EvalConfig config) throws IOException {
+    private long runConfusionMatrix(EvalConfig config) throws IOException {
         ConfusionMatrix worker = new ConfusionMatrix(modelConfig, config);
-        // worker.computeConfusionMatrix();
         switch(modelConfig.getBasic().getRunMode()) {
             case mapred:
-                worker.bufferedComputeConfusionMatrix(this.pigPosTags, this.pigNegTags, this.pigPosWeightTags,
-                        this.pigNegWeightTags);
-                break;
+                return worker.computeConfusionMatrixByHistogram();
             default:
-                worker.computeConfusionMatrix();
-                break;
+                return worker.computeConfusionMatrix();
         }
     }
 
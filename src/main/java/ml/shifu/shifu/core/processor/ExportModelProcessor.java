@@ -21,6 +21,8 @@ import ml.shifu.shifu.container.obj.ColumnConfig;
 import ml.shifu.shifu.container.obj.ModelConfig;
 import ml.shifu.shifu.container.obj.ModelTrainConf.ALGORITHM;
 import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
+import ml.shifu.shifu.core.codegen.JavaModelCompiler;
+import ml.shifu.shifu.core.codegen.JavaModelGenerator;
 import ml.shifu.shifu.core.pmml.PMMLTranslator;
 import ml.shifu.shifu.core.pmml.PMMLUtils;
 import ml.shifu.shifu.fs.PathFinder;
@@ -43,6 +45,7 @@ import java.util.List;
 public class ExportModelProcessor extends BasicModelProcessor implements Processor {
 
     public static final String PMML = "pmml";
+    public static final String JAVA = "java";
 
     /**
      * log object
@@ -61,14 +64,11 @@ public class ExportModelProcessor extends BasicModelProcessor implements Process
      */
     @Override
     public int run() throws Exception {
-        File pmmls = new File("pmmls");
-        pmmls.mkdirs();
-
         if (StringUtils.isBlank(type)) {
             type = PMML;
         }
 
-        if (!type.equalsIgnoreCase(PMML)) {
+        if (!type.equalsIgnoreCase(PMML) && !type.equalsIgnoreCase(JAVA)) {
             log.error("Unsupported output format - {}", type);
             return -1;
         }
@@ -81,6 +81,15 @@ public class ExportModelProcessor extends BasicModelProcessor implements Process
         PathFinder pathFinder = new PathFinder(modelConfig);
         List<BasicML> models = CommonUtils.loadBasicModels(pathFinder.getModelsPath(SourceType.LOCAL), ALGORITHM.NN);
 
+        if (type.equalsIgnoreCase(JAVA)) {
+            exportJava(modelConfig, columnConfigList, models);
+            log.info("Done.");
+            return 0;
+        }
+
+        File pmmls = new File("pmmls");
+        pmmls.mkdirs();
+
         for (int index = 0; index < models.size(); index++) {
             log.info("\t start to generate " + "pmmls" + File.separator + modelConfig.getModelSetName() + Integer.toString(index) + ".pmml");
             PMML pmml = new PMMLTranslator(modelConfig, columnConfigList, models).translate(index);
@@ -92,4 +101,19 @@ public class ExportModelProcessor extends BasicModelProcessor implements Process
         return 0;
     }
 
+    /**
+     * Generate and compile one Java class for each model into "java" directory
+     */
+    private void exportJava(ModelConfig modelConfig, List<ColumnConfig> columnConfigList, List<BasicML> models)
+            throws Exception {
+        File javas = new File("java");
+        javas.mkdirs();
+
+        JavaModelGenerator generator = new JavaModelGenerator(modelConfig, columnConfigList, models);
+        for (int index = 0; index < models.size(); index++) {
+            String className = generator.getQualifiedClassName(index);
+            log.info("\t start to generate " + className + " into " + javas.getPath());
+            JavaModelCompiler.compile(className, generator.generate(index), javas);
+        }
+    }
 }
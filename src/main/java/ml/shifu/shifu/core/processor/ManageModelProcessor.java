@@ -15,9 +15,14 @@
  */
 package ml.shifu.shifu.core.processor;
 
+import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
+import ml.shifu.shifu.core.dtrain.BinaryNNSerializer;
 import ml.shifu.shifu.core.validator.ModelInspector.ModelStep;
+import ml.shifu.shifu.fs.ShifuFileUtils;
 import ml.shifu.shifu.util.Constants;
 import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -167,6 +172,7 @@ public class ManageModelProcessor extends BasicModelProcessor implements
                         log.info("Fail to swith models file");
                     }
                 }
+                deleteStaleBinaryModels(workspaceFolder);
             }
 
         }
@@ -188,6 +194,36 @@ public class ManageModelProcessor extends BasicModelProcessor implements
         log.info("Switch model: {} successfully", modelName);
     }
 
+    /**
+     * delete the binary models not matching the EG models beside them, the copied models keep the modification time
+     * and the models of current workspace are not cleared, so a binary model of other model set may be left
+     *
+     * @param modelFolder
+     * @throws IOException
+     */
+    private void deleteStaleBinaryModels(File modelFolder) throws IOException {
+        if (!modelFolder.exists()) {
+            return;
+        }
+
+        FileSystem fs = ShifuFileUtils.getFileSystemBySourceType(SourceType.LOCAL);
+        for (File binary : modelFolder.listFiles(new FileFilter() {
+
+            @Override
+            public boolean accept(File file) {
+                return file.isFile() && file.getName().endsWith(BinaryNNSerializer.SUFFIX);
+            }
+        })) {
+            String binaryPath = binary.getAbsolutePath();
+            File eg = new File(binaryPath.substring(0, binaryPath.length() - BinaryNNSerializer.SUFFIX.length()));
+            if (!eg.exists() || !BinaryNNSerializer.isBinaryOf(fs, fs.getFileStatus(new Path(binaryPath)),
+                    fs.getFileStatus(new Path(eg.getAbsolutePath())))) {
+                log.info("Delete binary model {}, which doesn't match EG model", binaryPath);
+                FileUtils.deleteQuietly(binary);
+            }
+        }
+    }
+
     /**
      * get the current model name
      *
@@ -21,6 +21,8 @@ import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
 import ml.shifu.shifu.core.validator.ModelInspector.ModelStep;
 import ml.shifu.shifu.exception.ShifuErrorCode;
 import ml.shifu.shifu.exception.ShifuException;
+import ml.shifu.shifu.fs.LineReader;
+import ml.shifu.shifu.fs.LineReader;
 import ml.shifu.shifu.fs.ShifuFileUtils;
 import ml.shifu.shifu.pig.PigExecutor;
 import ml.shifu.shifu.util.CommonUtils;
@@ -104,13 +106,13 @@ public class PostTrainModelProcessor extends BasicModelProcessor implements Proc
     private void runAkkaPostTrain() throws IOException {
         SourceType sourceType = modelConfig.getDataSet().getSource();
 
-        List<Scanner> scanners = ShifuFileUtils.getDataScanners(pathFinder.getSelectedRawDataPath(sourceType),
+        List<LineReader> readers = ShifuFileUtils.getDataReaders(pathFinder.getSelectedRawDataPath(sourceType),
                 sourceType);
 
-        log.info("Num of Scanners: " + scanners.size());
-        AkkaSystemExecutor.getExecutor().submitPostTrainJob(modelConfig, columnConfigList, scanners);
+        log.info("Num of Readers: " + readers.size());
+        AkkaSystemExecutor.getExecutor().submitPostTrainJob(modelConfig, columnConfigList, readers);
 
-        closeScanners(scanners);
+        closeReaders(readers);
     }
 
     /**
@@ -122,14 +124,15 @@ public class PostTrainModelProcessor extends BasicModelProcessor implements Proc
      */
     private List<ColumnConfig> updateColumnConfigWithBinAvgScore(List<ColumnConfig> columnConfigList)
             throws IOException {
-        List<Scanner> scanners = ShifuFileUtils.getDataScanners(pathFinder.getBinAvgScorePath(), modelConfig
+        List<LineReader> readers = ShifuFileUtils.getDataReaders(pathFinder.getBinAvgScorePath(), modelConfig
                 .getDataSet().getSource());
 
-        // CommonUtils.getDataScanners(pathFinder.getBinAvgScorePath(), modelConfig.getDataSet().getSource());
-        for(Scanner scanner: scanners) {
-            while(scanner.hasNextLine()) {
+        // CommonUtils.getDataReaders(pathFinder.getBinAvgScorePath(), modelConfig.getDataSet().getSource());
+        for(LineReader reader: readers) {
+            String line;
+            while((line = reader.readLine()) != null) {
                 List<Integer> scores = new ArrayList<Integer>();
-                String[] raw = scanner.nextLine().split("\\|");
+                String[] raw = line.split("\\|");
                 int columnNum = Integer.valueOf(raw[0]);
                 for(int i = 1; i < raw.length; i++) {
                     scores.add(Integer.valueOf(raw[i]));
@@ -140,7 +143,7 @@ public class PostTrainModelProcessor extends BasicModelProcessor implements Proc
         }
 
         // release
-        closeScanners(scanners);
+        closeReaders(readers);
 
         return columnConfigList;
     }
@@ -19,21 +19,22 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
 
-import ml.shifu.shifu.actor.AkkaSystemExecutor;
 import ml.shifu.shifu.container.obj.ColumnConfig;
 import ml.shifu.shifu.container.obj.ColumnConfig.ColumnType;
 import ml.shifu.shifu.container.obj.ModelStatsConf;
 import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
+import ml.shifu.shifu.core.LocalStatsEngine;
 import ml.shifu.shifu.core.validator.ModelInspector.ModelStep;
 import ml.shifu.shifu.exception.ShifuErrorCode;
 import ml.shifu.shifu.exception.ShifuException;
+import ml.shifu.shifu.fs.LineReader;
 import ml.shifu.shifu.fs.ShifuFileUtils;
 import ml.shifu.shifu.pig.PigExecutor;
 import ml.shifu.shifu.udf.CalculateStatsUDF;
 import ml.shifu.shifu.util.Base64Utils;
 import ml.shifu.shifu.util.CommonUtils;
+import ml.shifu.shifu.util.Environment;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
@@ -61,7 +62,7 @@ public class StatsModelProcessor extends BasicModelProcessor implements Processo
         if(modelConfig.isMapReduceRunMode()) {
             runPigStats();
         } else if(modelConfig.isLocalRunMode()) {
-            runAkkaStats();
+            runLocalStats();
         } else {
             throw new ShifuException(ShifuErrorCode.ERROR_UNSUPPORT_MODE);
         }
@@ -72,31 +73,40 @@ public class StatsModelProcessor extends BasicModelProcessor implements Processo
     }
 
     /**
-     * run akka stats
+     * run local stats with multiple threads
+     * 
+     * @throws IOException
      */
-    private void runAkkaStats() {
-        List<Scanner> scanners = null;
+    private void runLocalStats() throws IOException {
+        List<LineReader> readers = null;
 
         try {
             SourceType sourceType = modelConfig.getDataSet().getSource();
             // the bug is caused when merging code? please take care
-            scanners = ShifuFileUtils.getDataScanners(
+            readers = ShifuFileUtils.getSplitDataReaders(
                     ShifuFileUtils.expandPath(modelConfig.getDataSetRawPath(), sourceType), sourceType);
         } catch (IOException e) {
             throw new ShifuException(ShifuErrorCode.ERROR_INPUT_NOT_FOUND, e);
         }
 
-        if(CollectionUtils.isEmpty(scanners)) {
+        if(CollectionUtils.isEmpty(readers)) {
             throw new ShifuException(ShifuErrorCode.ERROR_INPUT_NOT_FOUND,
                     ", please check your data and start from init");
         }
 
-        log.info("Num of Scanners: " + scanners.size());
+        log.info("Num of Readers: " + readers.size());
 
-        AkkaSystemExecutor.getExecutor().submitStatsCalJob(modelConfig, columnConfigList, scanners);
+        int numThreads = Environment.getInt(Environment.LOCAL_NUM_PARALLEL, Runtime.getRuntime()
+                .availableProcessors());
+        try {
+            new LocalStatsEngine(modelConfig, columnConfigList, numThreads, LocalStatsEngine.DEFAULT_CHUNK_SIZE)
+                    .calculate(readers);
+        } finally {
+            // release
+            closeReaders(readers);
+        }
 
-        // release
-        closeScanners(scanners);
+        saveColumnConfigList();
     }
 
     /**
@@ -118,6 +128,9 @@ public class StatsModelProcessor extends BasicModelProcessor implements Processo
             if(modelConfig.getBinningAlgorithm().equals(ModelStatsConf.BinningAlgorithm.MunroPat)) {
                 PigExecutor.getExecutor().submitJob(modelConfig, pathFinder.getAbsolutePath("scripts/Stats.pig"),
                         paramsMap);
+            } else if(modelConfig.getBinningAlgorithm().equals(ModelStatsConf.BinningAlgorithm.SinglePass)) {
+                PigExecutor.getExecutor().submitJob(modelConfig,
+                        pathFinder.getAbsolutePath("scripts/SinglePassStats.pig"), paramsMap);
             } else {
                 PigExecutor.getExecutor().submitJob(modelConfig,
                         pathFinder.getAbsolutePath("scripts/PreTrainingStats.pig"), paramsMap);
@@ -142,24 +155,26 @@ public class StatsModelProcessor extends BasicModelProcessor implements Processo
      * @throws IOException
      */
     public void updateColumnConfigWithPreTrainingStats() throws IOException {
-        List<Scanner> scanners = ShifuFileUtils.getDataScanners(pathFinder.getPreTrainingStatsPath(), modelConfig
+        List<LineReader> readers = ShifuFileUtils.getDataReaders(pathFinder.getPreTrainingStatsPath(), modelConfig
                 .getDataSet().getSource());
-        for(Scanner scanner: scanners) {
-            scanStatsResult(scanner);
+        for(LineReader reader: readers) {
+            scanStatsResult(reader);
         }
 
         // release
-        closeScanners(scanners);
+        closeReaders(readers);
     }
 
     /**
      * Scan the stats result and save them into column configure
      * 
-     * @param scanner
+     * @param reader
+     * @throws IOException
      */
-    private void scanStatsResult(Scanner scanner) {
-        while(scanner.hasNextLine()) {
-            String[] raw = scanner.nextLine().trim().split("\\|");
+    private void scanStatsResult(LineReader reader) throws IOException {
+        String line;
+        while((line = reader.readLine()) != null) {
+            String[] raw = line.trim().split("\\|");
 
             if(raw.length == 1) {
                 continue;
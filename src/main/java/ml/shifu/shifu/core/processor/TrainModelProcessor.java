@@ -33,6 +33,7 @@ import ml.shifu.shifu.core.dtrain.*;
 import ml.shifu.shifu.core.validator.ModelInspector.ModelStep;
 import ml.shifu.shifu.exception.ShifuErrorCode;
 import ml.shifu.shifu.exception.ShifuException;
+import ml.shifu.shifu.fs.LineReader;
 import ml.shifu.shifu.fs.ShifuFileUtils;
 import ml.shifu.shifu.util.Constants;
 import ml.shifu.shifu.util.Environment;
@@ -42,6 +43,7 @@ import org.apache.commons.collections.ListUtils;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IOUtils;
 import org.apache.pig.impl.util.JarManager;
@@ -56,7 +58,6 @@ import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
 
 /**
  * Train processor, produce model based on the normalized dataset
@@ -167,34 +168,34 @@ public class TrainModelProcessor extends BasicModelProcessor implements Processo
             trainers.add(trainer);
         }
 
-        List<Scanner> scanners = null;
+        List<LineReader> readers = null;
         if(modelConfig.getAlgorithm().equalsIgnoreCase("DT")) {
             LOG.info("Raw Data: " + pathFinder.getNormalizedDataPath());
             try {
-                scanners = ShifuFileUtils.getDataScanners(modelConfig.getDataSetRawPath(), modelConfig.getDataSet()
+                readers = ShifuFileUtils.getDataReaders(modelConfig.getDataSetRawPath(), modelConfig.getDataSet()
                         .getSource());
             } catch (IOException e) {
                 throw new ShifuException(ShifuErrorCode.ERROR_INPUT_NOT_FOUND, e, pathFinder.getNormalizedDataPath());
             }
-            if(CollectionUtils.isNotEmpty(scanners)) {
-                AkkaSystemExecutor.getExecutor().submitDecisionTreeTrainJob(modelConfig, columnConfigList, scanners,
+            if(CollectionUtils.isNotEmpty(readers)) {
+                AkkaSystemExecutor.getExecutor().submitDecisionTreeTrainJob(modelConfig, columnConfigList, readers,
                         trainers);
             }
         } else {
             LOG.info("Normalized Data: " + pathFinder.getNormalizedDataPath());
             try {
-                scanners = ShifuFileUtils.getDataScanners(pathFinder.getNormalizedDataPath(), modelConfig.getDataSet()
+                readers = ShifuFileUtils.getDataReaders(pathFinder.getNormalizedDataPath(), modelConfig.getDataSet()
                         .getSource());
             } catch (IOException e) {
                 throw new ShifuException(ShifuErrorCode.ERROR_INPUT_NOT_FOUND, e, pathFinder.getNormalizedDataPath());
             }
-            if(CollectionUtils.isNotEmpty(scanners)) {
-                AkkaSystemExecutor.getExecutor().submitModelTrainJob(modelConfig, columnConfigList, scanners, trainers);
+            if(CollectionUtils.isNotEmpty(readers)) {
+                AkkaSystemExecutor.getExecutor().submitModelTrainJob(modelConfig, columnConfigList, readers, trainers);
             }
         }
 
         // release
-        closeScanners(scanners);
+        closeReaders(readers);
     }
 
     /**
@@ -440,8 +441,15 @@ public class TrainModelProcessor extends BasicModelProcessor implements Processo
 
     private void copyModelToLocal(String modelName, Path modelPath, SourceType sourceType) throws IOException {
         if(!this.isDryTrain()) {
-            ShifuFileUtils.getFileSystemBySourceType(sourceType).copyToLocalFile(modelPath,
-                    new Path(Constants.MODELS, modelName));
+            FileSystem fs = ShifuFileUtils.getFileSystemBySourceType(sourceType);
+            fs.copyToLocalFile(modelPath, new Path(Constants.MODELS, modelName));
+
+            // binary model is loaded instead only if it matches EG model, see BinaryNNSerializer#selectModelFiles
+            Path binaryModelPath = new Path(BinaryNNSerializer.getBinaryPath(modelPath.toString()));
+            if(fs.exists(binaryModelPath)) {
+                fs.copyToLocalFile(binaryModelPath,
+                        new Path(Constants.MODELS, BinaryNNSerializer.getBinaryPath(modelName)));
+            }
         }
     }
 
@@ -19,7 +19,6 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
 
 import ml.shifu.guagua.GuaguaConstants;
 import ml.shifu.guagua.mapreduce.GuaguaMapReduceClient;
@@ -43,6 +42,8 @@ import ml.shifu.shifu.core.varselect.VarSelectMapper;
 import ml.shifu.shifu.core.varselect.VarSelectReducer;
 import ml.shifu.shifu.exception.ShifuErrorCode;
 import ml.shifu.shifu.exception.ShifuException;
+import ml.shifu.shifu.fs.DistributedCacheUtils;
+import ml.shifu.shifu.fs.LineReader;
 import ml.shifu.shifu.fs.PathFinder;
 import ml.shifu.shifu.fs.ShifuFileUtils;
 import ml.shifu.shifu.util.CommonUtils;
@@ -203,13 +204,14 @@ public class VarSelectModelProcessor extends BasicModelProcessor implements Proc
 
     private int persistColumnIds(Path path) {
         try {
-            List<Scanner> scanners = ShifuFileUtils.getDataScanners(path.toString(), modelConfig.getDataSet()
+            List<LineReader> readers = ShifuFileUtils.getDataReaders(path.toString(), modelConfig.getDataSet()
                     .getSource());
 
             List<Integer> ids = null;
-            for(Scanner scanner: scanners) {
-                while(scanner.hasNextLine()) {
-                    String[] raw = scanner.nextLine().trim().split("\\|");
+            for(LineReader reader: readers) {
+                String line;
+                while((line = reader.readLine()) != null) {
+                    String[] raw = line.trim().split("\\|");
 
                     @SuppressWarnings("unused")
                     int idSize = Integer.valueOf(raw[0]);
@@ -404,6 +406,18 @@ public class VarSelectModelProcessor extends BasicModelProcessor implements Proc
         conf.set(NNConstants.MAPRED_JOB_QUEUE_NAME, Environment.getProperty(Environment.HADOOP_JOB_QUEUE, "default"));
         conf.set(Constants.SHIFU_MODELSET_SOURCE_TYPE, source.toString());
 
+        // ship configs and the first model to tasks by distributed cache, the mapper only uses the first model
+        if(source == SourceType.HDFS) {
+            List<String> cacheFiles = DistributedCacheUtils.getConfigCacheFiles(super.getPathFinder()
+                    .getModelConfigPath(source), super.getPathFinder().getColumnConfigPath(source), source);
+            List<String> modelCacheFiles = DistributedCacheUtils.getModelCacheFiles(CommonUtils.findModels(
+                    this.modelConfig, null, source));
+            if(!modelCacheFiles.isEmpty()) {
+                cacheFiles.add(modelCacheFiles.get(0));
+            }
+            DistributedCacheUtils.addCacheFiles(conf, cacheFiles);
+        }
+
         Float wrapperRatio = this.modelConfig.getVarSelect().getWrapperRatio();
         if(wrapperRatio == null) {
             log.warn("wrapperRatio in var select is not set. Using default value 0.05.");
@@ -461,7 +475,7 @@ public class VarSelectModelProcessor extends BasicModelProcessor implements Proc
                 }
             }
 
-            List<Scanner> scanners = null;
+            List<LineReader> readers = null;
             try {
                 // here only works for 1 reducer
                 FileStatus[] globStatus = ShifuFileUtils.getFileSystemBySourceType(source).globStatus(
@@ -469,21 +483,24 @@ public class VarSelectModelProcessor extends BasicModelProcessor implements Proc
                 if(globStatus == null || globStatus.length == 0) {
                     throw new RuntimeException("Var select MSE stats output file not exist.");
                 }
-                scanners = ShifuFileUtils.getDataScanners(globStatus[0].getPath().toString(), source);
+                readers = ShifuFileUtils.getDataReaders(globStatus[0].getPath().toString(), source);
 
                 String str = null;
                 int count = 0;
-                while(scanners.get(0).hasNext()) {
+                while((str = readers.get(0).readLine()) != null) {
+                    if(str.trim().length() == 0) {
+                        continue;
+                    }
                     ++count;
-                    str = scanners.get(0).nextLine();
+                    str = str.trim();
                     ColumnConfig columnConfig = this.columnConfigList.get(Integer.parseInt(str));
                     columnConfig.setFinalSelect(true);
                     log.info("Variable {} is selected.", columnConfig.getColumnName());
                 }
                 log.info("{} variables are selected.", count);
             } finally {
-                for(Scanner scanner: scanners) {
-                    scanner.close();
+                for(LineReader reader: readers) {
+                    reader.close();
                 }
             }
 
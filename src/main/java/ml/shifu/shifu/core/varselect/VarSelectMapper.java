@@ -15,6 +15,7 @@
  */
 package ml.shifu.shifu.core.varselect;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -29,15 +30,15 @@ import ml.shifu.guagua.util.NumberFormatUtils;
 import ml.shifu.shifu.container.obj.ColumnConfig;
 import ml.shifu.shifu.container.obj.ModelConfig;
 import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
+import ml.shifu.shifu.core.dtrain.BinaryNNSerializer;
 import ml.shifu.shifu.core.dtrain.NNConstants;
+import ml.shifu.shifu.fs.DistributedCacheUtils;
 import ml.shifu.shifu.fs.PathFinder;
 import ml.shifu.shifu.fs.ShifuFileUtils;
-import ml.shifu.shifu.util.CommonUtils;
 import ml.shifu.shifu.util.CommonUtils.FileSuffixPathFilter;
+import ml.shifu.shifu.util.ConfigCache;
 import ml.shifu.shifu.util.Constants;
 
-import org.apache.commons.io.IOUtils;
-import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
@@ -47,7 +48,6 @@ import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.encog.ml.data.basic.BasicMLData;
 import org.encog.neural.networks.BasicNetwork;
-import org.encog.persist.EncogDirectoryPersistence;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -148,31 +148,52 @@ public class VarSelectMapper extends Mapper<LongWritable, Text, LongWritable, Do
     private String wrapperBy;
 
     /**
-     * Load all configurations for modelConfig and columnConfigList from source type.
+     * Load all configurations for modelConfig and columnConfigList from source type, or from the local files shipped by
+     * distributed cache.
      */
     private void loadConfigFiles(final Context context) {
         try {
             SourceType sourceType = SourceType.valueOf(context.getConfiguration().get(
                     Constants.SHIFU_MODELSET_SOURCE_TYPE, SourceType.HDFS.toString()));
-            this.modelConfig = CommonUtils.loadModelConfig(
-                    context.getConfiguration().get(Constants.SHIFU_MODEL_CONFIG), sourceType);
-            this.columnConfigList = CommonUtils.loadColumnConfigList(
-                    context.getConfiguration().get(Constants.SHIFU_COLUMN_CONFIG), sourceType);
+            if(DistributedCacheUtils.isShipped(DistributedCacheUtils.MODEL_CONFIG)
+                    && DistributedCacheUtils.isShipped(DistributedCacheUtils.COLUMN_CONFIG)) {
+                this.modelConfig = ConfigCache.getModelConfig(DistributedCacheUtils.MODEL_CONFIG, SourceType.LOCAL);
+                this.columnConfigList = ConfigCache.getColumnConfigList(DistributedCacheUtils.COLUMN_CONFIG,
+                        SourceType.LOCAL);
+            } else {
+                this.modelConfig = ConfigCache.getModelConfig(
+                        context.getConfiguration().get(Constants.SHIFU_MODEL_CONFIG), sourceType);
+                this.columnConfigList = ConfigCache.getColumnConfigList(
+                        context.getConfiguration().get(Constants.SHIFU_COLUMN_CONFIG), sourceType);
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
     /**
-     * Load first model in model path as a {@link BasicNetwork} instance.
+     * Load first model in model path as a {@link BasicNetwork} instance. The model shipped by distributed cache is
+     * loaded by each mapper, not shared, since the mappers may run in several threads in {@code MultithreadedMapper}.
      */
     private void loadModel() throws IOException {
+        List<File> localModelFiles = DistributedCacheUtils.getLocalModelFiles();
+        if(!localModelFiles.isEmpty()) {
+            try {
+                this.model = BasicNetwork.class.cast(DistributedCacheUtils.loadModel(localModelFiles.get(0)));
+                return;
+            } catch (ClassCastException e) {
+                throw new RuntimeException("Only Neural Network so far supported in sentivity variable selection.", e);
+            }
+        }
+
         PathFinder pathFinder = new PathFinder(this.modelConfig);
         FileSystem fs = ShifuFileUtils.getFileSystemBySourceType(this.modelConfig.getDataSet().getSource());
         String modelSuffix = "." + this.modelConfig.getAlgorithm().toLowerCase();
         List<FileStatus> fileList = new ArrayList<FileStatus>();
         Path path = new Path(pathFinder.getModelsPath());
-        fileList.addAll(Arrays.asList(fs.listStatus(path, new FileSuffixPathFilter(modelSuffix))));
+        fileList.addAll(Arrays.asList(fs.listStatus(path, new FileSuffixPathFilter(modelSuffix, modelSuffix
+                + BinaryNNSerializer.SUFFIX))));
+        fileList = BinaryNNSerializer.selectModelFiles(fs, fileList);
 
         Collections.sort(fileList, new Comparator<FileStatus>() {
             @Override
@@ -182,15 +203,11 @@ public class VarSelectMapper extends Mapper<LongWritable, Text, LongWritable, Do
         });
 
         for(FileStatus f: fileList) {
-            FSDataInputStream stream = null;
             try {
-                stream = fs.open(f.getPath());
-                this.model = BasicNetwork.class.cast(EncogDirectoryPersistence.loadObject(stream));
+                this.model = BasicNetwork.class.cast(BinaryNNSerializer.loadModel(fs, f.getPath()));
                 break;
             } catch (RuntimeException e) {
                 throw new RuntimeException("Only Neural Network so far supported in sentivity variable selection.", e);
-            } finally {
-                IOUtils.closeQuietly(stream);
             }
         }
     }
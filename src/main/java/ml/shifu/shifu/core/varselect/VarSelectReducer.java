@@ -23,7 +23,8 @@ import java.util.List;
 
 import ml.shifu.shifu.container.obj.ColumnConfig;
 import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
-import ml.shifu.shifu.util.CommonUtils;
+import ml.shifu.shifu.fs.DistributedCacheUtils;
+import ml.shifu.shifu.util.ConfigCache;
 import ml.shifu.shifu.util.Constants;
 
 import org.apache.hadoop.io.DoubleWritable;
@@ -94,14 +95,20 @@ public class VarSelectReducer extends Reducer<LongWritable, DoubleWritable, Long
     private String wrapperBy;
 
     /**
-     * Load all configurations for modelConfig and columnConfigList from source type.
+     * Load all configurations for modelConfig and columnConfigList from source type, or from the local files shipped by
+     * distributed cache.
      */
     private void loadConfigFiles(final Context context) {
         try {
             SourceType sourceType = SourceType.valueOf(context.getConfiguration().get(
                     Constants.SHIFU_MODELSET_SOURCE_TYPE, SourceType.HDFS.toString()));
-            this.columnConfigList = CommonUtils.loadColumnConfigList(
-                    context.getConfiguration().get(Constants.SHIFU_COLUMN_CONFIG), sourceType);
+            if(DistributedCacheUtils.isShipped(DistributedCacheUtils.COLUMN_CONFIG)) {
+                this.columnConfigList = ConfigCache.getColumnConfigList(DistributedCacheUtils.COLUMN_CONFIG,
+                        SourceType.LOCAL);
+            } else {
+                this.columnConfigList = ConfigCache.getColumnConfigList(
+                        context.getConfiguration().get(Constants.SHIFU_COLUMN_CONFIG), sourceType);
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -33,6 +33,7 @@ public enum ShifuErrorCode {
      * AKKA Error 601 ~ 700
      */
     ERROR_AKKA_EXECUTE_EXCEPTION(601, "Exception happenen, when AKKA executing"),
+    ERROR_LOCAL_EXECUTE_EXCEPTION(602, "Exception happened, when local threads executing"),
 
     /*
      * File/System error: 1001 - 1050
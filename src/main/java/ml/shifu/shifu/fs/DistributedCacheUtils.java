@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.fs;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
+import ml.shifu.shifu.core.dtrain.BinaryNNSerializer;
+import ml.shifu.shifu.exception.ShifuErrorCode;
+import ml.shifu.shifu.exception.ShifuException;
+import ml.shifu.shifu.util.ColumnConfigSnapshot;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.filecache.DistributedCache;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.encog.ml.BasicML;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * DistributedCacheUtils class ships the configs and models to the hadoop tasks by distributed cache, so every task
+ * reads them from local files instead of HDFS.
+ *
+ * <p>
+ * The files are linked into the working directory of task with the fixed names, so the UDFs, mappers and reducers find
+ * them without job configuration. In the client or in local mode there is no such file, and the original paths are
+ * read as before.
+ *
+ * <p>
+ * Hadoop doesn't allow the same link name twice in one job, so only one UDF in a pig job should ship files, the other
+ * UDFs just use the files if they are shipped.
+ *
+ * @Dec 21, 2014
+ *
+ */
+public final class DistributedCacheUtils {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DistributedCacheUtils.class);
+
+    public static final String MODEL_CONFIG = "shifu_ModelConfig.json";
+
+    public static final String COLUMN_CONFIG = "shifu_ColumnConfig.json";
+
+    /**
+     * the snapshot is found beside ColumnConfig.json by name, see {@link ColumnConfigSnapshot#getSnapshotPath(String)}
+     */
+    private static final String COLUMN_CONFIG_SNAPSHOT = ColumnConfigSnapshot.getSnapshotPath(COLUMN_CONFIG);
+
+    public static final String HEADER = "shifu_header";
+
+    private static final String MODEL_PREFIX = "shifu_model_";
+
+    /**
+     * the models loaded from local files, shared by UDF instances when JVM is reused
+     */
+    private static List<BasicML> localModels;
+
+    /**
+     * the canonical paths and modification times of files {@link #localModels} are loaded from
+     */
+    private static List<String> localModelKeys;
+
+    private DistributedCacheUtils() {
+    }
+
+    /**
+     * @return true if the file of link name is shipped to the working directory
+     */
+    public static boolean isShipped(String linkName) {
+        return new File(linkName).isFile();
+    }
+
+    /**
+     * @return the cache file of path in form of 'uri#linkName'
+     */
+    public static String getCacheFile(String path, SourceType sourceType, String linkName) {
+        FileSystem fs = ShifuFileUtils.getFileSystemBySourceType(sourceType);
+        return fs.makeQualified(new Path(path)).toUri().toString() + "#" + linkName;
+    }
+
+    /**
+     * Get the cache files of ModelConfig.json, ColumnConfig.json and its snapshot if it exists. The snapshot is after
+     * ColumnConfig.json, so it is not older than ColumnConfig.json when localized.
+     *
+     * @param pathModelConfig
+     *            - the path of ModelConfig.json, or null if not needed
+     */
+    public static List<String> getConfigCacheFiles(String pathModelConfig, String pathColumnConfig,
+            SourceType sourceType) throws IOException {
+        List<String> cacheFiles = new ArrayList<String>();
+        if(pathModelConfig != null) {
+            cacheFiles.add(getCacheFile(pathModelConfig, sourceType, MODEL_CONFIG));
+        }
+        cacheFiles.add(getCacheFile(pathColumnConfig, sourceType, COLUMN_CONFIG));
+
+        String pathSnapshot = ColumnConfigSnapshot.getSnapshotPath(pathColumnConfig);
+        if(ShifuFileUtils.isFileExists(pathSnapshot, sourceType)) {
+            cacheFiles.add(getCacheFile(pathSnapshot, sourceType, COLUMN_CONFIG_SNAPSHOT));
+        }
+        return cacheFiles;
+    }
+
+    /**
+     * Get the cache files of models, which are linked as shifu_model_0, shifu_model_1 ... in the order of file names.
+     */
+    public static List<String> getModelCacheFiles(List<FileStatus> models) {
+        List<FileStatus> sorted = new ArrayList<FileStatus>(models);
+        sortByName(sorted);
+
+        List<String> cacheFiles = new ArrayList<String>(sorted.size());
+        for(int i = 0; i < sorted.size(); i++) {
+            cacheFiles.add(sorted.get(i).getPath().toUri().toString() + "#" + MODEL_PREFIX + i);
+        }
+        return cacheFiles;
+    }
+
+    /**
+     * Add cache files to the job configuration of MapReduce job.
+     */
+    public static void addCacheFiles(Configuration conf, List<String> cacheFiles) throws IOException {
+        for(String cacheFile: cacheFiles) {
+            try {
+                DistributedCache.addCacheFile(new URI(cacheFile), conf);
+            } catch (URISyntaxException e) {
+                throw new IOException("Invalid cache file " + cacheFile, e);
+            }
+        }
+        DistributedCache.createSymlink(conf);
+    }
+
+    /**
+     * @return the model files shipped to the working directory, empty if no model is shipped
+     */
+    public static List<File> getLocalModelFiles() {
+        List<File> modelFiles = new ArrayList<File>();
+        for(int i = 0;; i++) {
+            File modelFile = new File(MODEL_PREFIX + i);
+            if(!modelFile.isFile()) {
+                break;
+            }
+            modelFiles.add(modelFile);
+        }
+        return modelFiles;
+    }
+
+    /**
+     * Load the models shipped to the working directory. The models are loaded once and shared in JVM until the files
+     * are changed, since the UDF instances in one task are called in the same thread. The caller should not change the
+     * models, and should load its own models by {@link #loadModel(File)} if they are used by several threads.
+     *
+     * @return the models, or null if no model is shipped
+     * @throws IOException
+     *             if any IO exception in reading model file.
+     */
+    public static synchronized List<BasicML> getLocalModels() throws IOException {
+        List<File> modelFiles = getLocalModelFiles();
+        if(modelFiles.isEmpty()) {
+            return null;
+        }
+
+        List<String> keys = new ArrayList<String>(modelFiles.size());
+        for(File modelFile: modelFiles) {
+            keys.add(modelFile.getCanonicalPath() + ":" + modelFile.lastModified());
+        }
+        if(!keys.equals(localModelKeys)) {
+            List<BasicML> models = new ArrayList<BasicML>(modelFiles.size());
+            for(File modelFile: modelFiles) {
+                models.add(loadModel(modelFile));
+            }
+            LOG.info("Loaded {} models from distributed cache.", models.size());
+            localModels = Collections.unmodifiableList(models);
+            localModelKeys = keys;
+        }
+        return localModels;
+    }
+
+    /**
+     * Load one model from local file, either binary model or EG model since the link name has no suffix.
+     *
+     * @throws IOException
+     *             if any IO exception in reading model file.
+     */
+    public static BasicML loadModel(File modelFile) throws IOException {
+        try {
+            return BinaryNNSerializer.loadModel(modelFile);
+        } catch (RuntimeException e) {
+            String msg = "the expecting model file is: " + modelFile.getCanonicalPath();
+            throw new ShifuException(ShifuErrorCode.ERROR_FAIL_TO_LOAD_MODEL_FILE, e, msg);
+        }
+    }
+
+    /**
+     * Sort the files by name, to avoid the *unix and windows file list order.
+     */
+    private static void sortByName(List<FileStatus> files) {
+        Collections.sort(files, new Comparator<FileStatus>() {
+            @Override
+            public int compare(FileStatus f1, FileStatus f2) {
+                return f1.getPath().getName().compareToIgnoreCase(f2.getPath().getName());
+            }
+        });
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.fs;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * LineReader class reads the UTF-8 lines of input stream.
+ *
+ * <p>
+ * The bytes are read into a large buffer, and the lines are found by scanning the bytes for '\n', so there is no
+ * regex like {@link java.util.Scanner} and no char buffer like {@link java.io.BufferedReader}. A line ends with "\n"
+ * or "\r\n", and the line terminator is not included.
+ *
+ * <p>
+ * The lines are always decoded as UTF-8, while the {@link java.util.Scanner} it replaces used the platform default
+ * charset, so the input in other charsets, e.g. GBK or ISO-8859-1 with non-ASCII bytes, is decoded differently.
+ *
+ * <p>
+ * The reader is not thread-safe.
+ *
+ * @Dec 17, 2014
+ *
+ */
+public class LineReader implements Closeable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final InputStream in;
+
+    private byte[] buffer;
+
+    /**
+     * the unread bytes are in [start, end) of buffer
+     */
+    private int start = 0;
+    private int end = 0;
+
+    /**
+     * the offset in stream of buffer[0]
+     */
+    private long bufferOffset;
+
+    private boolean eof = false;
+
+    public LineReader(InputStream in) {
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    public LineReader(InputStream in, int bufferSize) {
+        this(in, bufferSize, 0L);
+    }
+
+    /**
+     * @param offset
+     *            - the offset of the first byte of input stream, if it is a part of file
+     */
+    protected LineReader(InputStream in, int bufferSize, long offset) {
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+        this.bufferOffset = offset;
+    }
+
+    /**
+     * Create reader of the lines in string, mostly for test
+     */
+    public static LineReader of(String text) {
+        return new LineReader(new ByteArrayInputStream(text.getBytes(UTF8)), 8192);
+    }
+
+    /**
+     * @return the next line, or null if there is no more line
+     * @throws IOException
+     *             if fail to read the input
+     */
+    public String readLine() throws IOException {
+        int scanned = start;
+        while(true) {
+            for(int i = scanned; i < end; i++) {
+                if(buffer[i] == '\n') {
+                    String line = decode(start, (i > start && buffer[i - 1] == '\r') ? i - 1 : i);
+                    start = i + 1;
+                    return line;
+                }
+            }
+
+            int scannedCnt = end - start;
+            if(!fill()) {
+                if(start == end) {
+                    return null;
+                }
+                // the last line without line terminator
+                String line = decode(start, buffer[end - 1] == '\r' ? end - 1 : end);
+                start = end;
+                return line;
+            }
+            scanned = start + scannedCnt;
+        }
+    }
+
+    /**
+     * @return the offset of the next line
+     */
+    public long getPosition() {
+        return bufferOffset + start;
+    }
+
+    private String decode(int from, int to) {
+        return new String(buffer, from, to - from, UTF8);
+    }
+
+    /**
+     * Move the unread bytes to the head of buffer, and read more bytes after them. The buffer is enlarged if a line
+     * is longer than the buffer.
+     *
+     * @return false if there is no more byte
+     */
+    private boolean fill() throws IOException {
+        if(eof) {
+            return false;
+        }
+
+        int remaining = end - start;
+        if(start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, remaining);
+            bufferOffset += start;
+            start = 0;
+            end = remaining;
+        }
+        if(end == buffer.length) {
+            byte[] larger = new byte[buffer.length * 2];
+            System.arraycopy(buffer, 0, larger, 0, end);
+            buffer = larger;
+        }
+
+        int n;
+        do {
+            n = in.read(buffer, end, buffer.length - end);
+        } while(n == 0);
+
+        if(n < 0) {
+            eof = true;
+            return false;
+        }
+        end += n;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
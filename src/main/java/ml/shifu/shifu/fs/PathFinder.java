@@ -443,6 +443,29 @@ public class PathFinder {
         }
     }
 
+    /**
+     * Get the path of evaluation score histogram
+     * 
+     * @param evalConfig
+     * @return path of evaluation score histogram
+     */
+    public String getEvalScoreHistogramPath(EvalConfig evalConfig) {
+        return getEvalScoreHistogramPath(evalConfig, evalConfig.getDataSet().getSource());
+    }
+
+    /**
+     * Get the path of evaluation score histogram, the per-score counts of positive and negative records
+     * 
+     * @param evalConfig
+     *            - EvalConfig to find
+     * @param sourceType
+     *            - Local/HDFS
+     * @return path of evaluation score histogram
+     */
+    public String getEvalScoreHistogramPath(EvalConfig evalConfig, SourceType sourceType) {
+        return getEvalFilePath(evalConfig.getName(), Constants.EVAL_SCORE_HISTOGRAM, sourceType);
+    }
+
     /**
      * Get the header path of evaluation score
      * 
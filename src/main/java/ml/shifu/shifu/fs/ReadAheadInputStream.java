@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.fs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ReadAheadInputStream class reads the underlying stream in another thread, so the decompression of a compressed input
+ * runs in parallel with the parsing of its lines.
+ *
+ * <p>
+ * The thread is only requested on the first read, so the streams opened but not read yet don't hold any thread. At
+ * most maxBlocks blocks are read ahead. If the executor rejects the task, e.g. all threads of a bounded pool are busy,
+ * the underlying stream is read in the calling thread.
+ *
+ * @Dec 17, 2014
+ *
+ */
+class ReadAheadInputStream extends InputStream {
+
+    /**
+     * a block of bytes read ahead, an empty block for the end of stream, or the error of reading
+     */
+    private static class Block {
+        final byte[] data;
+        final int length;
+        final IOException error;
+
+        Block(byte[] data, int length, IOException error) {
+            this.data = data;
+            this.length = length;
+            this.error = error;
+        }
+    }
+
+    private final InputStream in;
+
+    private final ExecutorService executor;
+
+    private final int blockSize;
+
+    private final BlockingQueue<Block> queue;
+
+    /**
+     * set by the first of reading task and {@link #close()}, which then owns closing the underlying stream
+     */
+    private final AtomicBoolean started = new AtomicBoolean(false);
+
+    private Future<?> future;
+
+    /**
+     * true if the executor rejects the task, the underlying stream is then read directly
+     */
+    private boolean direct = false;
+
+    private Block current;
+    private int pos;
+    private boolean closed = false;
+
+    ReadAheadInputStream(InputStream in, ExecutorService executor, int blockSize, int maxBlocks) {
+        this.in = in;
+        this.executor = executor;
+        this.blockSize = blockSize;
+        this.queue = new ArrayBlockingQueue<Block>(maxBlocks);
+    }
+
+    private void startReadAhead() {
+        try {
+            this.future = executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    if(!started.compareAndSet(false, true)) {
+                        // closed before running
+                        return;
+                    }
+                    try {
+                        readAhead();
+                    } catch (InterruptedException e) {
+                        // closed by reader
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        try {
+                            in.close();
+                        } catch (IOException ignore) {
+                        }
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            direct = true;
+        }
+    }
+
+    private void readAhead() throws InterruptedException {
+        Block last;
+        try {
+            int n = 0;
+            while(n >= 0) {
+                byte[] data = new byte[blockSize];
+                int length = 0;
+                while(length < blockSize && (n = in.read(data, length, blockSize - length)) >= 0) {
+                    length += n;
+                }
+                if(length > 0) {
+                    queue.put(new Block(data, length, null));
+                }
+            }
+            last = new Block(null, 0, null);
+        } catch (IOException e) {
+            last = new Block(null, 0, e);
+        }
+        queue.put(last);
+    }
+
+    /**
+     * @return false if the end of stream is reached
+     */
+    private boolean nextBlock() throws IOException {
+        if(current != null && current.data == null) {
+            return false;
+        }
+        if(current != null && pos < current.length) {
+            return true;
+        }
+
+        try {
+            current = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading ahead.", e);
+        }
+        pos = 0;
+
+        if(current.error != null) {
+            throw current.error;
+        }
+        return current.data != null;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if(closed) {
+            return -1;
+        }
+        if(future == null && !direct) {
+            startReadAhead();
+        }
+        if(direct) {
+            return in.read();
+        }
+        if(!nextBlock()) {
+            return -1;
+        }
+        return current.data[pos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if(len == 0) {
+            return 0;
+        }
+        if(closed) {
+            return -1;
+        }
+        if(future == null && !direct) {
+            startReadAhead();
+        }
+        if(direct) {
+            return in.read(b, off, len);
+        }
+        if(!nextBlock()) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - pos);
+        System.arraycopy(current.data, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(!closed) {
+            closed = true;
+            if(future != null) {
+                future.cancel(true);
+                queue.clear();
+            }
+            if(started.compareAndSet(false, true)) {
+                // the task never runs, or is never submitted
+                in.close();
+            }
+        }
+    }
+}
@@ -20,6 +20,7 @@ import ml.shifu.shifu.container.obj.EvalConfig;
 import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
 import ml.shifu.shifu.util.CommonUtils;
 import ml.shifu.shifu.util.Constants;
+import ml.shifu.shifu.util.Environment;
 import ml.shifu.shifu.util.HDFSUtils;
 
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
@@ -35,7 +36,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.GZIPInputStream;
 
 
@@ -49,6 +55,44 @@ public class ShifuFileUtils {
 
     private static final Logger log = LoggerFactory.getLogger(ShifuFileUtils.class);
 
+    /**
+     * The buffer size of the compressed input
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The max number of decompressed blocks read ahead for each compressed file
+     */
+    private static final int READ_AHEAD_BLOCKS = 4;
+
+    /**
+     * The min bytes of split, if the split size is not configured
+     */
+    static final long MIN_SPLIT_SIZE = 32L * 1024 * 1024;
+
+    /**
+     * The last split of file can be larger than the split size by this ratio
+     */
+    private static final double SPLIT_SLOP = 1.1;
+
+    /**
+     * The threads to decompress the compressed files, at most {@link Environment#LOCAL_NUM_PARALLEL} of them, and the
+     * idle threads exit after a while. The task is rejected if all threads are busy, the file is then decompressed in
+     * the reading thread.
+     */
+    private static final ExecutorService DECOMPRESS_EXECUTOR = new ThreadPoolExecutor(0, Environment.getInt(
+            Environment.LOCAL_NUM_PARALLEL, 16), 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+            new ThreadFactory() {
+                private final AtomicInteger threadCnt = new AtomicInteger(0);
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "shifu-decompress-" + threadCnt.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
     // avoid user to create instance
     private ShifuFileUtils() {
     }
@@ -118,6 +162,20 @@ public class ShifuFileUtils {
         return new BufferedWriter(new OutputStreamWriter(getFileSystemBySourceType(sourceType).create(new Path(path))));
     }
 
+    /**
+     * Get buffered output stream for specified file, to write the bytes already encoded
+     * !!! Notice, if the file exists, it will be overwritten
+     * !!! Warning: stream instance should be closed by caller
+     *
+     * @param path       - file path
+     * @param sourceType - local/hdfs
+     * @return buffered output stream
+     * @throws IOException -  if any I/O exception in processing
+     */
+    public static OutputStream getOutputStream(String path, SourceType sourceType) throws IOException {
+        return new BufferedOutputStream(getFileSystemBySourceType(sourceType).create(new Path(path)), BUFFER_SIZE);
+    }
+
     /**
      * Get buffered reader for specified file
      * <p/>
@@ -146,43 +204,126 @@ public class ShifuFileUtils {
     }
 
     /**
-     * Get the data scanners for a list specified paths
-     * if the file is directory, get all scanner of normal sub-files
-     * if the file is normal  file, get its scanner
+     * Get the data readers for a list specified paths
+     * if the file is directory, get all reader of normal sub-files
+     * if the file is normal  file, get its reader
      * !!! Notice, all hidden files (file name start with ".") will be skipped
-     * !!! Warning: scanner instances should be closed by caller.
+     * !!! Warning: reader instances should be closed by caller.
      *
-     * @param paths      - file paths to get the scanner
+     * @param paths      - file paths to get the reader
      * @param sourceType - local/hdfs
-     * @return scanners for specified paths
+     * @return readers for specified paths
      * @throws IOException -  if any I/O exception in processing
      */
-    public static List<Scanner> getDataScanners(List<String> paths, SourceType sourceType) throws IOException {
+    public static List<LineReader> getDataReaders(List<String> paths, SourceType sourceType) throws IOException {
         if (paths == null || sourceType == null) {
             throw new IllegalArgumentException("paths should not be null, sourceType should not be null.");
         }
-        List<Scanner> scanners = new ArrayList<Scanner>();
+        List<LineReader> readers = new ArrayList<LineReader>();
         for (String path : paths) {
-            scanners.addAll(getDataScanners(path, sourceType));
+            readers.addAll(getDataReaders(path, sourceType));
+        }
+        return readers;
+    }
+
+    /**
+     * Get the data readers for some specified path
+     * if the file is directory, get all reader of normal sub-files
+     * if the file is normal  file, get its reader
+     * !!! Notice, all hidden files (file name start with ".") will be skipped
+     * !!! Warning: reader instances should be closed by caller.
+     * <p/>
+     * The compressed files are decompressed in background threads if {@link Environment#PARALLEL_DECOMPRESS} is true,
+     * which is the default.
+     *
+     * @param path       - file path to get the reader
+     * @param sourceType - local/hdfs
+     * @return readers for specified path
+     * @throws IOException -  if any I/O exception in processing
+     */
+    public static List<LineReader> getDataReaders(String path, SourceType sourceType) throws IOException {
+        FileSystem fs = getFileSystemBySourceType(sourceType);
+
+        List<LineReader> readers = new ArrayList<LineReader>();
+        for (FileStatus f : listDataFiles(fs, path)) {
+            readers.add(openReader(fs, f));
         }
-        return scanners;
+        return readers;
     }
 
     /**
-     * Get the data scanners for some specified path
-     * if the file is directory, get all scanner of normal sub-files
-     * if the file is normal  file, get its scanner
+     * Get the data readers for some specified paths, the large uncompressed files are split into several byte ranges
+     * with one reader for each, so one large file can be read concurrently
      * !!! Notice, all hidden files (file name start with ".") will be skipped
-     * !!! Warning: scanner instances should be closed by caller.
+     * !!! Warning: reader instances should be closed by caller.
+     * <p/>
+     * The split size is {@link Environment#LOCAL_SPLIT_SIZE_MB} if it is set, or else the input is divided into about
+     * {@link Environment#LOCAL_NUM_PARALLEL} splits, and each split has at least {@link #MIN_SPLIT_SIZE} bytes.
+     * The compressed files are never split.
      *
-     * @param path       - file path to get the scanner
+     * @param paths      - file paths to get the reader
      * @param sourceType - local/hdfs
-     * @return scanners for specified path
+     * @return readers for specified paths, in the order of the files and the ranges
      * @throws IOException -  if any I/O exception in processing
      */
-    public static List<Scanner> getDataScanners(String path, SourceType sourceType) throws IOException {
+    public static List<LineReader> getSplitDataReaders(List<String> paths, SourceType sourceType)
+            throws IOException {
+        if (paths == null || sourceType == null) {
+            throw new IllegalArgumentException("paths should not be null, sourceType should not be null.");
+        }
         FileSystem fs = getFileSystemBySourceType(sourceType);
 
+        List<FileStatus> files = new ArrayList<FileStatus>();
+        long totalSize = 0L;
+        for (String path : paths) {
+            for (FileStatus f : listDataFiles(fs, path)) {
+                files.add(f);
+                totalSize += f.getLen();
+            }
+        }
+
+        long splitSize = getSplitSize(totalSize);
+        List<LineReader> readers = new ArrayList<LineReader>();
+        for (FileStatus f : files) {
+            if (isCompressed(f.getPath().getName()) || f.getLen() <= splitSize) {
+                readers.add(openReader(fs, f));
+                continue;
+            }
+
+            // the last split may be up to 10% larger, to avoid a tiny split at the end of file, as Hadoop does
+            long start = 0L;
+            while (start < f.getLen()) {
+                long end = ((f.getLen() - start) <= splitSize * SPLIT_SLOP) ? f.getLen() : start + splitSize;
+                FSDataInputStream in = fs.open(f.getPath());
+                in.seek(start);
+                readers.add(new SplitLineReader(in, start, end));
+                start = end;
+            }
+        }
+
+        log.debug("Created {} readers for {} files, the split size is {}.",
+                new Object[] { readers.size(), files.size(), splitSize });
+        return readers;
+    }
+
+    /**
+     * @param totalSize - the total bytes of input
+     * @return the max bytes of split
+     */
+    static long getSplitSize(long totalSize) {
+        Integer splitSizeMB = Environment.getInt(Environment.LOCAL_SPLIT_SIZE_MB, null);
+        if (splitSizeMB != null && splitSizeMB > 0) {
+            return splitSizeMB * 1024L * 1024L;
+        }
+
+        int numSplits = Environment.getInt(Environment.LOCAL_NUM_PARALLEL, Runtime.getRuntime().availableProcessors());
+        return Math.max(MIN_SPLIT_SIZE, (totalSize + numSplits - 1) / Math.max(1, numSplits));
+    }
+
+    /**
+     * List the normal files of path sorted by name, or the file itself if the path is a normal file
+     */
+    private static List<FileStatus> listDataFiles(FileSystem fs, String path) throws IOException {
         FileStatus[] listStatus;
         Path p = new Path(path);
         if (fs.getFileStatus(p).isDir()) {
@@ -208,41 +349,57 @@ public class ShifuFileUtils {
             });
         }
 
-        List<Scanner> scanners = new ArrayList<Scanner>();
+        List<FileStatus> files = new ArrayList<FileStatus>();
         for (FileStatus f : listStatus) {
-            String filename = f.getPath().getName();
-
             if (f.isDir()) {
-                log.warn("Skip - {}, since it's direcory, please check your configuration.", filename);
+                log.warn("Skip - {}, since it's direcory, please check your configuration.", f.getPath().getName());
                 continue;
             }
+            files.add(f);
+        }
+        return files;
+    }
 
-            log.debug("Creating Scanner for file: {} ", filename);
-            if (filename.endsWith(Constants.GZ_SUFFIX)) {
-                scanners.add(new Scanner(new GZIPInputStream(fs.open(f.getPath()))));
-            } else if (filename.endsWith(Constants.BZ2_SUFFIX)) {
-                scanners.add(new Scanner(new BZip2CompressorInputStream(fs.open(f.getPath()))));
-            } else {
-                scanners.add(new Scanner(new BufferedInputStream(fs.open(f.getPath()))));
-            }
+    private static boolean isCompressed(String filename) {
+        return filename.endsWith(Constants.GZ_SUFFIX) || filename.endsWith(Constants.BZ2_SUFFIX);
+    }
+
+    /**
+     * Open the reader of whole file, the compressed files are decompressed in background threads from the first read if
+     * {@link Environment#PARALLEL_DECOMPRESS} is true
+     */
+    private static LineReader openReader(FileSystem fs, FileStatus f) throws IOException {
+        String filename = f.getPath().getName();
+        log.debug("Creating LineReader for file: {} ", filename);
+
+        InputStream in;
+        if (filename.endsWith(Constants.GZ_SUFFIX)) {
+            in = new GZIPInputStream(fs.open(f.getPath()), BUFFER_SIZE);
+        } else if (filename.endsWith(Constants.BZ2_SUFFIX)) {
+            in = new BZip2CompressorInputStream(new BufferedInputStream(fs.open(f.getPath()), BUFFER_SIZE));
+        } else {
+            return new LineReader(fs.open(f.getPath()));
         }
 
-        return scanners;
+        if (Boolean.valueOf(Environment.getProperty(Environment.PARALLEL_DECOMPRESS, Boolean.TRUE.toString()))) {
+            in = new ReadAheadInputStream(in, DECOMPRESS_EXECUTOR, LineReader.DEFAULT_BUFFER_SIZE, READ_AHEAD_BLOCKS);
+        }
+        return new LineReader(in);
     }
 
     /**
-     * Get the data scanners for some specified path
-     * if the file is directory, get all scanner of normal sub-files
-     * if the file is normal  file, get its scanner
+     * Get the data readers for some specified path
+     * if the file is directory, get all reader of normal sub-files
+     * if the file is normal  file, get its reader
      * !!! Notice, all hidden files (file name start with ".") will be skipped
-     * !!! Warning: scanner instances should be closed by caller.
+     * !!! Warning: reader instances should be closed by caller.
      *
      * @param sourceFile - source file
-     * @return scanners for source file
+     * @return readers for source file
      * @throws IOException -  if any I/O exception in processing
      */
-    public static List<Scanner> getDataScanners(SourceFile sourceFile) throws IOException {
-        return getDataScanners(sourceFile.getPath(), sourceFile.getSourceType());
+    public static List<LineReader> getDataReaders(SourceFile sourceFile) throws IOException {
+        return getDataReaders(sourceFile.getPath(), sourceFile.getSourceType());
     }
 
     /**
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.fs;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * SplitLineReader class reads the lines of a byte range [start, end) of file, so several readers can read one large
+ * file concurrently.
+ *
+ * <p>
+ * The lines are assigned to splits the same way as the LineRecordReader of Hadoop: a split reads every line beginning
+ * at an offset in (start, end], and the first split also reads the line at offset 0. The line crossing the end is
+ * read to its end, and the partial line at the start is skipped, since it belongs to the previous split.
+ *
+ * @Dec 18, 2014
+ *
+ */
+public class SplitLineReader extends LineReader {
+
+    private final long start;
+
+    private final long end;
+
+    private boolean isStarted = false;
+
+    /**
+     * @param in
+     *            - the input stream already positioned at start
+     * @param start
+     *            - the offset of the first byte of split
+     * @param end
+     *            - the offset after the last byte of split
+     */
+    public SplitLineReader(InputStream in, long start, long end) {
+        super(in, DEFAULT_BUFFER_SIZE, start);
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public String readLine() throws IOException {
+        if(!isStarted) {
+            isStarted = true;
+            if(start != 0 && super.readLine() == null) {
+                return null;
+            }
+        }
+
+        if(getPosition() > end) {
+            return null;
+        }
+        return super.readLine();
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+}
@@ -15,37 +15,51 @@
  */
 package ml.shifu.shifu.message;
 
-import java.util.List;
-
 /**
- * NormResultDataMessage class is the message that contains the pre-normalized and normalized data
+ * NormResultDataMessage class is the message that contains the pre-normalized and normalized data.
+ * The data are already formatted and encoded by the worker, so the master only appends the bytes into files.
  */
 public class NormResultDataMessage {
 
-    private int targetMsgCnt;
-    private List<String> selectDataList;
-    private List<List<Double>> normalizedDataList;
-
-    /**
-     * @param targetMsgCnt
-     * @param normalizedDataList
-     */
-    public NormResultDataMessage(int targetMsgCnt, List<String> selectDataList, List<List<Double>> normalizedDataList) {
-        this.targetMsgCnt = targetMsgCnt;
-        this.selectDataList = selectDataList;
-        this.normalizedDataList = normalizedDataList;
+    private int streamId;
+    private int totalStreamCnt;
+    private int msgId;
+    private boolean isLastMsg;
+    private byte[] selectData;
+    private byte[] normalizedData;
+
+    public NormResultDataMessage(int streamId, int totalStreamCnt, int msgId, boolean isLastMsg,
+            byte[] selectData, byte[] normalizedData) {
+        this.streamId = streamId;
+        this.totalStreamCnt = totalStreamCnt;
+        this.msgId = msgId;
+        this.isLastMsg = isLastMsg;
+        this.selectData = selectData;
+        this.normalizedData = normalizedData;
+    }
+
+    public int getStreamId() {
+        return streamId;
+    }
+
+    public int getTotalStreamCnt() {
+        return totalStreamCnt;
+    }
+
+    public int getMsgId() {
+        return msgId;
     }
 
-    public int getTargetMsgCnt() {
-        return targetMsgCnt;
+    public boolean isLastMsg() {
+        return isLastMsg;
     }
 
-    public List<String> getSelectDataList() {
-        return selectDataList;
+    public byte[] getSelectData() {
+        return selectData;
     }
 
-    public List<List<Double>> getNormalizedDataList() {
-        return normalizedDataList;
+    public byte[] getNormalizedData() {
+        return normalizedData;
     }
 
 }
@@ -15,27 +15,33 @@
  */
 package ml.shifu.shifu.message;
 
-import java.util.Scanner;
+import ml.shifu.shifu.fs.LineReader;
 
 /**
  * ScanNormInputDataMessage class is message class that contains the input for normalization
  */
 public class ScanNormInputDataMessage {
 
-    private int totalMsgCnt;
-    private Scanner scanner;
+    private int streamId;
+    private int totalStreamCnt;
+    private LineReader reader;
 
-    public ScanNormInputDataMessage(int totalMsgCnt, Scanner scanner) {
-        this.totalMsgCnt = totalMsgCnt;
-        this.scanner = scanner;
+    public ScanNormInputDataMessage(int streamId, int totalStreamCnt, LineReader reader) {
+        this.streamId = streamId;
+        this.totalStreamCnt = totalStreamCnt;
+        this.reader = reader;
     }
 
-    public int getTotalMsgCnt() {
-        return totalMsgCnt;
+    public int getStreamId() {
+        return streamId;
     }
 
-    public Scanner getScanner() {
-        return scanner;
+    public int getTotalStreamCnt() {
+        return totalStreamCnt;
+    }
+
+    public LineReader getReader() {
+        return reader;
     }
 
 }
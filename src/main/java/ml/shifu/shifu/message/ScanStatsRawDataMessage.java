@@ -15,27 +15,33 @@
  */
 package ml.shifu.shifu.message;
 
-import java.util.Scanner;
+import ml.shifu.shifu.fs.LineReader;
 
 /**
  * ScanStatsRawDataMessage class is message class that contains the input for calculating stats
  */
 public class ScanStatsRawDataMessage {
 
-    private int totalMsgCnt;
-    private Scanner scanner;
+    private int streamId;
+    private int totalStreamCnt;
+    private LineReader reader;
 
-    public ScanStatsRawDataMessage(int totalMsgCnt, Scanner scanner) {
-        this.totalMsgCnt = totalMsgCnt;
-        this.scanner = scanner;
+    public ScanStatsRawDataMessage(int streamId, int totalStreamCnt, LineReader reader) {
+        this.streamId = streamId;
+        this.totalStreamCnt = totalStreamCnt;
+        this.reader = reader;
     }
 
-    public int getTotalMsgCnt() {
-        return totalMsgCnt;
+    public int getStreamId() {
+        return streamId;
     }
 
-    public Scanner getScanner() {
-        return scanner;
+    public int getTotalStreamCnt() {
+        return totalStreamCnt;
+    }
+
+    public LineReader getReader() {
+        return reader;
     }
 
 }
\ No newline at end of file
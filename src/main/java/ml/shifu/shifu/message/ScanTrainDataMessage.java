@@ -15,33 +15,39 @@
  */
 package ml.shifu.shifu.message;
 
-import java.util.Scanner;
+import ml.shifu.shifu.fs.LineReader;
 
 /**
  * ScanTrainDataMessage class is message class that contains the input for training
  */
 public class ScanTrainDataMessage {
 
-    private int totalMsgCnt;
+    private int streamId;
+    private int totalStreamCnt;
     private boolean isDryRun;
-    private Scanner scanner;
+    private LineReader reader;
 
-    public ScanTrainDataMessage(int totalMsgCnt, boolean isDryRun, Scanner scanner) {
-        this.totalMsgCnt = totalMsgCnt;
+    public ScanTrainDataMessage(int streamId, int totalStreamCnt, boolean isDryRun, LineReader reader) {
+        this.streamId = streamId;
+        this.totalStreamCnt = totalStreamCnt;
         this.isDryRun = isDryRun;
-        this.scanner = scanner;
+        this.reader = reader;
     }
 
-    public int getTotalMsgCnt() {
-        return totalMsgCnt;
+    public int getStreamId() {
+        return streamId;
+    }
+
+    public int getTotalStreamCnt() {
+        return totalStreamCnt;
     }
 
     public boolean isDryRun() {
         return isDryRun;
     }
 
-    public Scanner getScanner() {
-        return scanner;
+    public LineReader getReader() {
+        return reader;
     }
 
 }
@@ -22,16 +22,34 @@ import java.util.List;
  */
 public class StatsPartRawDataMessage {
 
-    private int totalMsgCnt;
+    private int streamId;
+    private int totalStreamCnt;
+    private int msgId;
+    private boolean isLastMsg;
     private List<String> rawDataList;
 
-    public StatsPartRawDataMessage(int totalMsgCnt, List<String> rawDataList) {
-        this.totalMsgCnt = totalMsgCnt;
+    public StatsPartRawDataMessage(int streamId, int totalStreamCnt, int msgId, boolean isLastMsg, List<String> rawDataList) {
+        this.streamId = streamId;
+        this.totalStreamCnt = totalStreamCnt;
+        this.msgId = msgId;
+        this.isLastMsg = isLastMsg;
         this.rawDataList = rawDataList;
     }
 
-    public int getTotalMsgCnt() {
-        return totalMsgCnt;
+    public int getStreamId() {
+        return streamId;
+    }
+
+    public int getTotalStreamCnt() {
+        return totalStreamCnt;
+    }
+
+    public int getMsgId() {
+        return msgId;
+    }
+
+    public boolean isLastMsg() {
+        return isLastMsg;
     }
 
     public List<String> getRawDataList() {
@@ -15,38 +15,59 @@
  */
 package ml.shifu.shifu.message;
 
-import ml.shifu.shifu.container.ValueObject;
-
-import java.util.List;
+import ml.shifu.shifu.container.ColumnValueBuffer;
 
 
 /**
- * StatsValueObjectMessage class is message class that contains @ValueObject for calculating stats
+ * StatsValueObjectMessage class is message class that contains @ColumnValueBuffer for calculating stats
  */
 public class StatsValueObjectMessage {
 
-    private int totalMsgCnt;
+    private int streamId;
+    private int totalStreamCnt;
+    private int msgId;
+    private boolean isLastMsg;
     private int columnNum;
-    private List<ValueObject> voList;
+    private ColumnValueBuffer buffer;
     private long missing;
     private long total;
 
-    public StatsValueObjectMessage(int totalMsgCnt, int columnNum, List<ValueObject> voList, long missing, long total) {
-        this.totalMsgCnt = totalMsgCnt;
+    public StatsValueObjectMessage(int streamId, int totalStreamCnt, int msgId, boolean isLastMsg,
+            int columnNum, ColumnValueBuffer buffer, long missing, long total) {
+        this.streamId = streamId;
+        this.totalStreamCnt = totalStreamCnt;
+        this.msgId = msgId;
+        this.isLastMsg = isLastMsg;
         this.columnNum = columnNum;
-        this.voList = voList;
+        this.buffer = buffer;
         this.setMissing(missing);
         this.setTotal(total);
     }
 
-    public StatsValueObjectMessage(int totalMsgCnt, int columnNum, List<ValueObject> voList) {
-        this.totalMsgCnt = totalMsgCnt;
+    public StatsValueObjectMessage(int streamId, int totalStreamCnt, int msgId, boolean isLastMsg,
+            int columnNum, ColumnValueBuffer buffer) {
+        this.streamId = streamId;
+        this.totalStreamCnt = totalStreamCnt;
+        this.msgId = msgId;
+        this.isLastMsg = isLastMsg;
         this.columnNum = columnNum;
-        this.voList = voList;
+        this.buffer = buffer;
+    }
+
+    public int getStreamId() {
+        return streamId;
+    }
+
+    public int getTotalStreamCnt() {
+        return totalStreamCnt;
+    }
+
+    public int getMsgId() {
+        return msgId;
     }
 
-    public int getTotalMsgCnt() {
-        return totalMsgCnt;
+    public boolean isLastMsg() {
+        return isLastMsg;
     }
 
 
@@ -54,8 +75,8 @@ public class StatsValueObjectMessage {
         return columnNum;
     }
 
-    public List<ValueObject> getVoList() {
-        return voList;
+    public ColumnValueBuffer getValueBuffer() {
+        return buffer;
     }
 
     public long getMissing() {
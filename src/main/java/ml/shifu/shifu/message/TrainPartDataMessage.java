@@ -24,18 +24,37 @@ import java.util.List;
  */
 public class TrainPartDataMessage {
 
-    private int totalMsgCnt;
+    private int streamId;
+    private int totalStreamCnt;
+    private int msgId;
+    private boolean isLastMsg;
     private boolean isDryRun;
     private List<MLDataPair> mlDataPairList;
 
-    public TrainPartDataMessage(int totalMsgCnt, boolean isDryRun, List<MLDataPair> mlDataPairList) {
-        this.totalMsgCnt = totalMsgCnt;
+    public TrainPartDataMessage(int streamId, int totalStreamCnt, int msgId, boolean isLastMsg,
+            boolean isDryRun, List<MLDataPair> mlDataPairList) {
+        this.streamId = streamId;
+        this.totalStreamCnt = totalStreamCnt;
+        this.msgId = msgId;
+        this.isLastMsg = isLastMsg;
         this.isDryRun = isDryRun;
         this.mlDataPairList = mlDataPairList;
     }
 
-    public int getTotalMsgCnt() {
-        return totalMsgCnt;
+    public int getStreamId() {
+        return streamId;
+    }
+
+    public int getTotalStreamCnt() {
+        return totalStreamCnt;
+    }
+
+    public int getMsgId() {
+        return msgId;
+    }
+
+    public boolean isLastMsg() {
+        return isLastMsg;
     }
 
     public boolean isDryRun() {
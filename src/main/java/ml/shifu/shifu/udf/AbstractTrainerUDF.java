@@ -18,10 +18,12 @@ package ml.shifu.shifu.udf;
 import ml.shifu.shifu.container.obj.ColumnConfig;
 import ml.shifu.shifu.container.obj.ModelConfig;
 import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
-import ml.shifu.shifu.util.CommonUtils;
+import ml.shifu.shifu.fs.DistributedCacheUtils;
+import ml.shifu.shifu.util.ConfigCache;
 import org.apache.pig.EvalFunc;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 
@@ -33,6 +35,13 @@ public abstract class AbstractTrainerUDF<T> extends EvalFunc<T> {
     protected ModelConfig modelConfig;
     protected List<ColumnConfig> columnConfigList;
 
+    /**
+     * The source type and paths of configs, which are used to ship the configs by distributed cache
+     */
+    protected SourceType sourceType;
+    protected String pathModelConfig;
+    protected String pathColumnConfig;
+
     // Need to specify the default value as -1, or it won't report error if it doesn't find target column
     protected int tagColumnNum = -1;
 
@@ -45,13 +54,24 @@ public abstract class AbstractTrainerUDF<T> extends EvalFunc<T> {
      * @throws IOException throw exceptions when loading configuration
      */
     public AbstractTrainerUDF(String source, String pathModelConfig, String pathColumnConfig) throws IOException {
-        SourceType sourceType = SourceType.valueOf(source);
+        this.sourceType = SourceType.valueOf(source);
+        this.pathModelConfig = pathModelConfig;
+        this.pathColumnConfig = pathColumnConfig;
 
+        // in hadoop tasks, use the configs if they are shipped by distributed cache, see getConfigCacheFiles
         if (pathModelConfig != null) {
-            modelConfig = CommonUtils.loadModelConfig(pathModelConfig, sourceType);
+            if (DistributedCacheUtils.isShipped(DistributedCacheUtils.MODEL_CONFIG)) {
+                modelConfig = ConfigCache.getModelConfig(DistributedCacheUtils.MODEL_CONFIG, SourceType.LOCAL);
+            } else {
+                modelConfig = ConfigCache.getModelConfig(pathModelConfig, sourceType);
+            }
         }
 
-        columnConfigList = CommonUtils.loadColumnConfigList(pathColumnConfig, sourceType);
+        if (DistributedCacheUtils.isShipped(DistributedCacheUtils.COLUMN_CONFIG)) {
+            columnConfigList = ConfigCache.getColumnConfigList(DistributedCacheUtils.COLUMN_CONFIG, SourceType.LOCAL);
+        } else {
+            columnConfigList = ConfigCache.getColumnConfigList(pathColumnConfig, sourceType);
+        }
         for (ColumnConfig config : columnConfigList) {
             if (config.isTarget()) {
                 tagColumnNum = config.getColumnNum();
@@ -64,6 +84,27 @@ public abstract class AbstractTrainerUDF<T> extends EvalFunc<T> {
         }
     }
 
+    /**
+     * Constructor without configuration. For algebraic UDF, Pig instantiates the Initial/Intermediate/Final classes
+     * without arguments to check the return types, the configurations are only needed when running.
+     */
+    protected AbstractTrainerUDF() {
+    }
+
+    /**
+     * Get the cache files to ship the configs by distributed cache, for the UDF that overrides {@link #getCacheFiles()}.
+     * The configs are only shipped from HDFS.
+     *
+     * @return the cache files, or empty list if the configs are not in HDFS
+     * @throws IOException throw exceptions when checking the snapshot of ColumnConfig
+     */
+    protected List<String> getConfigCacheFiles() throws IOException {
+        if (sourceType != SourceType.HDFS) {
+            return new ArrayList<String>();
+        }
+        return DistributedCacheUtils.getConfigCacheFiles(pathModelConfig, pathColumnConfig, sourceType);
+    }
+
     /**
      * Constructor with SourceType, and ColumnConfig path
      *
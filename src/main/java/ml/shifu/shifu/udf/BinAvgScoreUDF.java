@@ -0,0 +1,422 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.udf;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import ml.shifu.shifu.container.obj.ColumnConfig;
+import ml.shifu.shifu.container.obj.ModelConfig;
+import ml.shifu.shifu.util.CommonUtils;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.pig.Algebraic;
+import org.apache.pig.backend.executionengine.ExecException;
+import org.apache.pig.data.BagFactory;
+import org.apache.pig.data.DataBag;
+import org.apache.pig.data.DataType;
+import org.apache.pig.data.Tuple;
+import org.apache.pig.data.TupleFactory;
+import org.apache.pig.impl.logicalLayer.FrontendException;
+import org.apache.pig.impl.logicalLayer.schema.Schema;
+import org.apache.pig.impl.logicalLayer.schema.Schema.FieldSchema;
+
+/**
+ * <pre>
+ * BinAvgScoreUDF class is to calculate the average score of each bin for all final selected columns in one pass.
+ *
+ * The input is the bag of scored records
+ *    {
+ *      (fullScore, raw0, raw1, ...)
+ *      ...
+ *    }
+ * the first field of fullScore tuple is the average score of models, which is from @FullScoreUDF.
+ *
+ * The UDF is algebraic, so the score sum and count of each bin are aggregated in map side, and only the sums are
+ * shuffled into one reducer. The output is one line for each column, the same as @CalculateBinAvgScoreUDF -
+ * columnNum|avgScore0|avgScore1|...
+ *
+ * The intermediate tuples are tagged by the first field, so Intermediate and Final accept both shapes:
+ *    (0, score, binNum0, binNum1, ...)   - one record emitted by Initial, with the bin of every final selected
+ *                                          column, -1 if the value is missing
+ *    (1, sums-string)                    - the sums folded by Intermediate
+ * </pre>
+ *
+ * @Dec 10, 2014
+ *
+ */
+public class BinAvgScoreUDF extends AbstractTrainerUDF<DataBag> implements Algebraic {
+
+    /**
+     * the separator between fields of one column
+     */
+    public static final char FIELD_SEPARATOR = '|';
+
+    /**
+     * the separator between columns
+     */
+    public static final char COLUMN_SEPARATOR = ',';
+
+    /**
+     * The tag of intermediate tuple of one record
+     */
+    private static final int RECORD_TUPLE = 0;
+
+    /**
+     * The tag of intermediate tuple of sums
+     */
+    private static final int SUMS_TUPLE = 1;
+
+    public BinAvgScoreUDF(String source, String pathModelConfig, String pathColumnConfig) throws IOException {
+        super(source, pathModelConfig, pathColumnConfig);
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.pig.EvalFunc#exec(org.apache.pig.data.Tuple)
+     */
+    @Override
+    public DataBag exec(Tuple input) throws IOException {
+        if ( input == null || input.size() == 0 ) {
+            return null;
+        }
+
+        return toBag(foldRecords((DataBag) input.get(0), modelConfig, columnConfigList, tagColumnNum));
+    }
+
+    /**
+     * @return the bag of lines - columnNum|avgScore0|avgScore1|...
+     */
+    private static DataBag toBag(Map<Integer, double[]> binScores) throws ExecException {
+        DataBag bag = BagFactory.getInstance().newDefaultBag();
+        for ( Map.Entry<Integer, double[]> entry : binScores.entrySet() ) {
+            double[] sums = entry.getValue();
+            int binLength = sums.length / 2;
+
+            double[] binScore = new double[binLength];
+            double[] binCount = new double[binLength];
+            System.arraycopy(sums, 0, binScore, 0, binLength);
+            System.arraycopy(sums, binLength, binCount, 0, binLength);
+
+            Tuple avgScores = CalculateBinAvgScoreUDF.toBinAvgScoreTuple(entry.getKey(), binScore, binCount);
+            bag.add(TupleFactory.getInstance().newTuple(StringUtils.join(avgScores.getAll(), FIELD_SEPARATOR)));
+        }
+        return bag;
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.pig.Algebraic#getInitial()
+     */
+    @Override
+    public String getInitial() {
+        return Initial.class.getName();
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.pig.Algebraic#getIntermed()
+     */
+    @Override
+    public String getIntermed() {
+        return Intermediate.class.getName();
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.pig.Algebraic#getFinal()
+     */
+    @Override
+    public String getFinal() {
+        return Final.class.getName();
+    }
+
+    /**
+     * Initial only projects the scored record to the score and the bins of final selected columns, the sums are
+     * accumulated by Intermediate and Final
+     */
+    public static class Initial extends AbstractTrainerUDF<Tuple> {
+
+        public Initial() {
+        }
+
+        public Initial(String source, String pathModelConfig, String pathColumnConfig) throws IOException {
+            super(source, pathModelConfig, pathColumnConfig);
+        }
+
+        @Override
+        public Tuple exec(Tuple input) throws IOException {
+            if ( input == null || input.size() == 0 ) {
+                return null;
+            }
+
+            DataBag databag = (DataBag) input.get(0);
+            if ( databag.size() == 1 ) {
+                return recordTuple(databag.iterator().next(), modelConfig, columnConfigList, tagColumnNum);
+            }
+
+            // the bag is expected to have one record, fold it into sums if not
+            return sumsTuple(foldRecords(databag, modelConfig, columnConfigList, tagColumnNum));
+        }
+
+        @Override
+        public Schema outputSchema(Schema input) {
+            Schema tupleSchema = new Schema();
+            tupleSchema.add(new FieldSchema("tag", DataType.INTEGER));
+            tupleSchema.add(new FieldSchema("score", DataType.DOUBLE));
+            if ( columnConfigList != null ) {
+                for ( ColumnConfig config : columnConfigList ) {
+                    if ( config.isFinalSelect() ) {
+                        tupleSchema.add(new FieldSchema("bin" + config.getColumnNum(), DataType.INTEGER));
+                    }
+                }
+            }
+            return toTupleSchema(tupleSchema);
+        }
+    }
+
+    /**
+     * Intermediate folds the records and partial sums into the sums of each bin
+     */
+    public static class Intermediate extends AbstractTrainerUDF<Tuple> {
+
+        public Intermediate() {
+        }
+
+        public Intermediate(String source, String pathModelConfig, String pathColumnConfig) throws IOException {
+            super(source, pathModelConfig, pathColumnConfig);
+        }
+
+        @Override
+        public Tuple exec(Tuple input) throws IOException {
+            if ( input == null || input.size() == 0 ) {
+                return null;
+            }
+
+            return sumsTuple(foldTaggedTuples((DataBag) input.get(0), columnConfigList));
+        }
+
+        @Override
+        public Schema outputSchema(Schema input) {
+            Schema tupleSchema = new Schema();
+            tupleSchema.add(new FieldSchema("tag", DataType.INTEGER));
+            tupleSchema.add(new FieldSchema("sums", DataType.CHARARRAY));
+            return toTupleSchema(tupleSchema);
+        }
+    }
+
+    /**
+     * Final merges all records and partial sums, and outputs the average score of each bin
+     */
+    public static class Final extends AbstractTrainerUDF<DataBag> {
+
+        public Final() {
+        }
+
+        public Final(String source, String pathModelConfig, String pathColumnConfig) throws IOException {
+            super(source, pathModelConfig, pathColumnConfig);
+        }
+
+        @Override
+        public DataBag exec(Tuple input) throws IOException {
+            if ( input == null || input.size() == 0 ) {
+                return null;
+            }
+
+            return toBag(foldTaggedTuples((DataBag) input.get(0), columnConfigList));
+        }
+    }
+
+    /**
+     * @return column number -> {score sum of each bin, record count of each bin}, for all final selected columns
+     */
+    private static Map<Integer, double[]> newBinScores(List<ColumnConfig> columnConfigList) {
+        Map<Integer, double[]> binScores = new TreeMap<Integer, double[]>();
+        for ( ColumnConfig config : columnConfigList ) {
+            if ( config.isFinalSelect() ) {
+                binScores.put(config.getColumnNum(), new double[2 * config.getBinLength()]);
+            }
+        }
+        return binScores;
+    }
+
+    /**
+     * Fold scored records - (fullScore, raw0, raw1, ...) into the sums of each bin
+     */
+    private static Map<Integer, double[]> foldRecords(DataBag databag, ModelConfig modelConfig,
+            List<ColumnConfig> columnConfigList, int tagColumnNum) throws ExecException {
+        Map<Integer, double[]> binScores = newBinScores(columnConfigList);
+
+        Iterator<Tuple> iterator = databag.iterator();
+        while ( iterator.hasNext() ) {
+            Tuple record = recordTuple(iterator.next(), modelConfig, columnConfigList, tagColumnNum);
+            if ( record != null ) {
+                addRecordTuple(binScores, record);
+            }
+        }
+        return binScores;
+    }
+
+    /**
+     * Fold the tagged tuples of Initial and Intermediate into the sums of each bin
+     */
+    private static Map<Integer, double[]> foldTaggedTuples(DataBag databag, List<ColumnConfig> columnConfigList)
+            throws ExecException {
+        Map<Integer, double[]> binScores = newBinScores(columnConfigList);
+
+        Iterator<Tuple> iterator = databag.iterator();
+        while ( iterator.hasNext() ) {
+            Tuple element = iterator.next();
+            if ( element == null || element.size() < 2 ) {
+                continue;
+            }
+
+            int tag = (Integer) element.get(0);
+            if ( tag == SUMS_TUPLE ) {
+                stringToObj(binScores, (String) element.get(1));
+            } else if ( tag == RECORD_TUPLE ) {
+                addRecordTuple(binScores, element);
+            } else {
+                throw new ExecException("Unknown intermediate tuple tag " + tag);
+            }
+        }
+        return binScores;
+    }
+
+    /**
+     * Add the score into the bins of the record tuple, the bins are in the same order as the columns in sums
+     */
+    private static void addRecordTuple(Map<Integer, double[]> binScores, Tuple record) throws ExecException {
+        if ( record.size() != binScores.size() + 2 ) {
+            throw new ExecException("The record tuple doesn't match ColumnConfig - " + record.size());
+        }
+
+        double score = (Double) record.get(1);
+        int i = 2;
+        for ( double[] sums : binScores.values() ) {
+            int binNum = (Integer) record.get(i++);
+            if ( binNum >= 0 ) {
+                sums[binNum] += score;
+                sums[sums.length / 2 + binNum] += 1;
+            }
+        }
+    }
+
+    /**
+     * @return (0, score, binNum0, binNum1, ...), or null if the record has no score or its tag is invalid
+     */
+    private static Tuple recordTuple(Tuple element, ModelConfig modelConfig, List<ColumnConfig> columnConfigList,
+            int tagColumnNum) throws ExecException {
+        if ( element == null || element.size() <= tagColumnNum + 1 ) {
+            return null;
+        }
+
+        Tuple fullScore = (Tuple) element.get(0);
+        if ( fullScore == null || fullScore.size() == 0 || fullScore.get(0) == null ) {
+            return null;
+        }
+
+        // the same as SimpleScoreUDF, the record with invalid tag is not counted
+        Object tag = element.get(tagColumnNum + 1);
+        if ( tag == null
+                || !(modelConfig.getPosTags().contains(tag.toString()) || modelConfig.getNegTags().contains(
+                        tag.toString())) ) {
+            return null;
+        }
+
+        Tuple output = TupleFactory.getInstance().newTuple();
+        output.append(RECORD_TUPLE);
+        output.append(Double.parseDouble(fullScore.get(0).toString()));
+        for ( ColumnConfig config : columnConfigList ) {
+            if ( !config.isFinalSelect() ) {
+                continue;
+            }
+
+            int columnNum = config.getColumnNum();
+            Object val = (element.size() <= columnNum + 1 ? null : element.get(columnNum + 1));
+            output.append((val == null || StringUtils.isBlank(val.toString())) ? -1 : CommonUtils.getBinNum(config,
+                    val.toString()));
+        }
+        return output;
+    }
+
+    /**
+     * @return (1, sums-string)
+     */
+    private static Tuple sumsTuple(Map<Integer, double[]> binScores) throws ExecException {
+        Tuple output = TupleFactory.getInstance().newTuple(2);
+        output.set(0, SUMS_TUPLE);
+        output.set(1, objToString(binScores));
+        return output;
+    }
+
+    /**
+     * convert the sums of each bin to String - columnNum|sum0|...|count0|...,columnNum|...
+     */
+    private static String objToString(Map<Integer, double[]> binScores) {
+        List<String> columns = new ArrayList<String>(binScores.size());
+        for ( Map.Entry<Integer, double[]> entry : binScores.entrySet() ) {
+            StringBuilder buf = new StringBuilder();
+            buf.append(entry.getKey());
+            for ( double val : entry.getValue() ) {
+                buf.append(FIELD_SEPARATOR).append(val);
+            }
+            columns.add(buf.toString());
+        }
+        return StringUtils.join(columns, COLUMN_SEPARATOR);
+    }
+
+    /**
+     * convert String to the sums of each bin, the sums are added into current sums
+     */
+    private static void stringToObj(Map<Integer, double[]> binScores, String objValStr) {
+        for ( String column : StringUtils.split(objValStr, COLUMN_SEPARATOR) ) {
+            String[] fields = StringUtils.splitPreserveAllTokens(column, FIELD_SEPARATOR);
+            double[] sums = binScores.get(Integer.parseInt(fields[0]));
+            if ( sums == null || sums.length != fields.length - 1 ) {
+                throw new IllegalArgumentException("The bin score sums don't match ColumnConfig - " + fields[0]);
+            }
+
+            for ( int i = 0; i < sums.length; i++ ) {
+                sums[i] += Double.parseDouble(fields[i + 1]);
+            }
+        }
+    }
+
+    private static Schema toTupleSchema(Schema tupleSchema) {
+        try {
+            return new Schema(new FieldSchema(null, tupleSchema, DataType.TUPLE));
+        } catch (FrontendException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * output the schema for bin average score
+     */
+    public Schema outputSchema(Schema input) {
+        try {
+            Schema tupleSchema = new Schema(new FieldSchema("binAvgScore", DataType.CHARARRAY));
+            return new Schema(new FieldSchema("BinAvgScore", new Schema(new FieldSchema(null, tupleSchema,
+                    DataType.TUPLE)), DataType.BAG));
+        } catch (Exception e) {
+            log.debug("Error when generating output schema.", e);
+            return null;
+        }
+    }
+}
@@ -35,8 +35,6 @@ public class CalculateBinAvgScoreUDF extends AbstractTrainerUDF<Tuple> {
     }
 
     public Tuple exec(Tuple input) throws IOException {
-        TupleFactory tupleFactory = TupleFactory.getInstance();
-
         if (input == null || input.size() == 0) {
             return null;
         }
@@ -46,13 +44,8 @@ public class CalculateBinAvgScoreUDF extends AbstractTrainerUDF<Tuple> {
 
         ColumnConfig config = columnConfigList.get(columnNum);
 
-        Double[] binScore = new Double[config.getBinLength()];
-        Integer[] binCount = new Integer[config.getBinLength()];
-
-        for (int i = 0; i < binScore.length; i++) {
-            binScore[i] = 0.0;
-            binCount[i] = 0;
-        }
+        double[] binScore = new double[config.getBinLength()];
+        double[] binCount = new double[config.getBinLength()];
 
         for (Tuple t : bag) {
             if ( t.get(1) == null || StringUtils.isBlank(t.get(1).toString()) ) {
@@ -71,14 +64,22 @@ public class CalculateBinAvgScoreUDF extends AbstractTrainerUDF<Tuple> {
             binCount[binNum]++;
         }
 
-        for (int i = 0; i < binScore.length; i++) {
-            binScore[i] /= binCount[i];
-        }
+        return toBinAvgScoreTuple(columnNum, binScore, binCount);
+    }
 
-        Tuple tuple = tupleFactory.newTuple();
+    /**
+     * Generate the output tuple - (columnNum, avgScore0, avgScore1, ...), the empty bin gets 0
+     *
+     * @param columnNum - the column number
+     * @param binScore  - the sum of score for each bin
+     * @param binCount  - the count of records for each bin
+     * @return the tuple of average score for each bin
+     */
+    public static Tuple toBinAvgScoreTuple(int columnNum, double[] binScore, double[] binCount) {
+        Tuple tuple = TupleFactory.getInstance().newTuple();
         tuple.append(columnNum);
-        for (Double score : binScore) {
-            tuple.append((int) Math.round(score));
+        for (int i = 0; i < binScore.length; i++) {
+            tuple.append((int) Math.round(binScore[i] / binCount[i]));
         }
         return tuple;
     }
@@ -18,12 +18,13 @@
 package ml.shifu.shifu.udf;
 
 import java.io.IOException;
-import java.text.DecimalFormat;
 
 import ml.shifu.shifu.container.obj.ColumnConfig;
 import ml.shifu.shifu.core.KSIVCalculator;
+import ml.shifu.shifu.core.binning.CategoricalBinning;
 import ml.shifu.shifu.udf.stats.AbstractVarStats;
 import ml.shifu.shifu.util.Base64Utils;
+import ml.shifu.shifu.util.DoubleFormatUtils;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.pig.data.DataBag;
@@ -39,9 +40,9 @@ import org.apache.pig.data.TupleFactory;
 public class CalculateNewStatsUDF extends AbstractTrainerUDF<Tuple> {
 
     /**
-     * Experience value from modeler
+     * Experience value from modeler, see {@link CategoricalBinning#MAX_CATEGORICAL_BINC_COUNT}
      */
-    public static final int MAX_CATEGORICAL_BINC_COUNT = 4000;
+    public static final int MAX_CATEGORICAL_BINC_COUNT = CategoricalBinning.MAX_CATEGORICAL_BINC_COUNT;
     
     private Double valueThreshold = 1e6;
 
@@ -75,12 +76,23 @@ public class CalculateNewStatsUDF extends AbstractTrainerUDF<Tuple> {
         
         log.info("after to process column id - " + columnId.toString());
         
+        return assembleStatsTuple(columnId, columnConfig);
+    }
+
+    /**
+     * Calculate KS/IV for the column and assemble the stats result, the fields are the same as @CalculateStatsUDF
+     * 
+     * @param columnId
+     *            - the column id
+     * @param columnConfig
+     *            - the @ColumnConfig with bins and basic stats
+     * @return the stats result tuple, or null if there is no valid bin for the column
+     */
+    public static Tuple assembleStatsTuple(Integer columnId, ColumnConfig columnConfig) {
         KSIVCalculator ksivCalculator = new KSIVCalculator();
         ksivCalculator.calculateKSIV(columnConfig.getBinCountNeg(), columnConfig.getBinCountPos());
         
         // Assemble the results
-        DecimalFormat df = new DecimalFormat("##.######");
-
         Tuple tuple = TupleFactory.getInstance().newTuple();
         tuple.append(columnId);
         if ( columnConfig.isCategorical() ) {
@@ -103,23 +115,23 @@ public class CalculateNewStatsUDF extends AbstractTrainerUDF<Tuple> {
         tuple.append(columnConfig.getBinAvgScore().toString());
         tuple.append(columnConfig.getBinPosRate().toString());
         
-        tuple.append(df.format(ksivCalculator.getKS()));
-        tuple.append(df.format(ksivCalculator.getIV()));
+        tuple.append(DoubleFormatUtils.format(ksivCalculator.getKS()));
+        tuple.append(DoubleFormatUtils.format(ksivCalculator.getIV()));
 
-        tuple.append(df.format(columnConfig.getColumnStats().getMax()));
-        tuple.append(df.format(columnConfig.getColumnStats().getMin()));
-        tuple.append(df.format(columnConfig.getColumnStats().getMean()));
-        tuple.append(df.format(columnConfig.getColumnStats().getStdDev()));
+        tuple.append(DoubleFormatUtils.format(columnConfig.getColumnStats().getMax()));
+        tuple.append(DoubleFormatUtils.format(columnConfig.getColumnStats().getMin()));
+        tuple.append(DoubleFormatUtils.format(columnConfig.getColumnStats().getMean()));
+        tuple.append(DoubleFormatUtils.format(columnConfig.getColumnStats().getStdDev()));
         if ( columnConfig.isCategorical() ) {
             tuple.append("C");
         } else {
             tuple.append("N");
         }
-        tuple.append(df.format(columnConfig.getColumnStats().getMedian()));
+        tuple.append(DoubleFormatUtils.format(columnConfig.getColumnStats().getMedian()));
         
         tuple.append(columnConfig.getMissingCount());
         tuple.append(columnConfig.getTotalCount());
-        tuple.append(df.format(columnConfig.getMissingPercentage()));
+        tuple.append(DoubleFormatUtils.format(columnConfig.getMissingPercentage()));
         
         tuple.append(columnConfig.getBinWeightedNeg().toString());
         tuple.append(columnConfig.getBinWeightedPos().toString());
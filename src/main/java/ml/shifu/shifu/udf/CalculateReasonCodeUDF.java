@@ -36,8 +36,9 @@ import java.util.Map;
  */
 public class CalculateReasonCodeUDF extends AbstractTrainerUDF<Tuple> {
 
-    private Map<String, String> reasonCodeMap;
     private String[] headers;
+    private Reasoner reasoner;
+    private SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
 
     public CalculateReasonCodeUDF(String source, String pathModelConfig, String pathColumnConfig, String evalSetName) throws Exception {
         super(source, pathModelConfig, pathColumnConfig);
@@ -48,9 +49,11 @@ public class CalculateReasonCodeUDF extends AbstractTrainerUDF<Tuple> {
         //CommonUtils.determineSource(modelConfig.getRunConf().getRunMode(),
         //evalConfig.getDataSet().getSource());
         PathFinder pathFinder = new PathFinder(modelConfig);
-        reasonCodeMap = CommonUtils.loadAndFlattenReasonCodeMap(
+        Map<String, String> reasonCodeMap = CommonUtils.loadAndFlattenReasonCodeMap(
                 pathFinder.getReasonCodeMapPath(sourceType),
                 sourceType);
+        // the reasoner is reused for all records
+        reasoner = new Reasoner(reasonCodeMap);
 
         headers = CommonUtils.getHeaders(
                 evalConfig.getDataSet().getHeaderPath(),
@@ -84,9 +87,6 @@ public class CalculateReasonCodeUDF extends AbstractTrainerUDF<Tuple> {
         }
 
         //result.append(rawDataMap.toString());
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-
-        Reasoner reasoner = new Reasoner(this.reasonCodeMap);
         result.append(rawDataMap.get("UnauthScore"));
         result.append(rawDataMap.get("TxnSnrId"));
         result.append(rawDataMap.get("TxnCpId"));
@@ -0,0 +1,344 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.udf;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+import ml.shifu.shifu.container.obj.ColumnConfig;
+import ml.shifu.shifu.container.obj.ModelConfig;
+import ml.shifu.shifu.core.binning.AbstractStatsSketch;
+
+import org.apache.pig.Algebraic;
+import org.apache.pig.backend.executionengine.ExecException;
+import org.apache.pig.data.DataBag;
+import org.apache.pig.data.DataType;
+import org.apache.pig.data.Tuple;
+import org.apache.pig.data.TupleFactory;
+import org.apache.pig.impl.logicalLayer.FrontendException;
+import org.apache.pig.impl.logicalLayer.schema.Schema;
+import org.apache.pig.impl.logicalLayer.schema.Schema.FieldSchema;
+
+/**
+ * <pre>
+ * CalculateSinglePassStatsUDF class is to calculate the stats of one column in one pass over the column data.
+ *
+ * The input is the bag of column data generated by @AddColumnNumUDF
+ *    {
+ *      (column-id, column-value, column-tag, column-weight, column-seed)
+ *      ...
+ *    }
+ * The values are folded into a mergeable @AbstractStatsSketch. The UDF is algebraic, so the sketches are built
+ * in map side by the combiner, and only the sketches are shuffled. The output is the same as @CalculateNewStatsUDF,
+ * so the bins, KS/IV and basic stats are derived from the merged sketch without the second GROUP/JOIN over raw values.
+ *
+ * The intermediate tuples are tagged by the first field, so Intermediate and Final accept both shapes:
+ *    (0, column-id, column-value, label, weight)   - one record emitted by Initial, no sketch is built for it
+ *    (1, column-id, sketch-string)                  - the sketch folded by Intermediate
+ * </pre>
+ *
+ * @Dec 2, 2014
+ *
+ */
+public class CalculateSinglePassStatsUDF extends AbstractTrainerUDF<Tuple> implements Algebraic {
+
+    /**
+     * The tag of intermediate tuple of one record
+     */
+    private static final int RECORD_TUPLE = 0;
+
+    /**
+     * The tag of intermediate tuple of sketch
+     */
+    private static final int SKETCH_TUPLE = 1;
+
+    public CalculateSinglePassStatsUDF(String source, String pathModelConfig, String pathColumnConfig)
+            throws IOException {
+        super(source, pathModelConfig, pathColumnConfig);
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.pig.EvalFunc#exec(org.apache.pig.data.Tuple)
+     */
+    @Override
+    public Tuple exec(Tuple input) throws IOException {
+        if ( input == null || input.size() == 0 ) {
+            return null;
+        }
+
+        ColumnSketch columnSketch = foldColumnData((DataBag) input.get(0), modelConfig, columnConfigList);
+        return (columnSketch == null ? null : calculateStats(columnSketch, columnConfigList));
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.pig.Algebraic#getInitial()
+     */
+    @Override
+    public String getInitial() {
+        return Initial.class.getName();
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.pig.Algebraic#getIntermed()
+     */
+    @Override
+    public String getIntermed() {
+        return Intermediate.class.getName();
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.pig.Algebraic#getFinal()
+     */
+    @Override
+    public String getFinal() {
+        return Final.class.getName();
+    }
+
+    /**
+     * Initial only projects the column data to the light record tuple, the sketches are built by Intermediate and Final
+     */
+    public static class Initial extends AbstractTrainerUDF<Tuple> {
+
+        public Initial() {
+        }
+
+        public Initial(String source, String pathModelConfig, String pathColumnConfig) throws IOException {
+            super(source, pathModelConfig, pathColumnConfig);
+        }
+
+        @Override
+        public Tuple exec(Tuple input) throws IOException {
+            if ( input == null || input.size() == 0 ) {
+                return null;
+            }
+
+            DataBag databag = (DataBag) input.get(0);
+            if ( databag.size() == 1 ) {
+                Tuple element = databag.iterator().next();
+                if ( element == null || element.size() < 3 ) {
+                    return null;
+                }
+                Object value = element.get(1);
+                Tuple output = TupleFactory.getInstance().newTuple(5);
+                output.set(0, RECORD_TUPLE);
+                output.set(1, element.get(0));
+                output.set(2, (value == null ? null : value.toString()));
+                output.set(3, Integer.valueOf(getLabel(element.get(2), modelConfig)));
+                output.set(4, getWeight(element));
+                return output;
+            }
+
+            // the bag is expected to have one record, fold it into sketch if not
+            return sketchTuple(foldColumnData(databag, modelConfig, columnConfigList));
+        }
+
+        @Override
+        public Schema outputSchema(Schema input) {
+            Schema tupleSchema = new Schema();
+            tupleSchema.add(new FieldSchema("tag", DataType.INTEGER));
+            tupleSchema.add(new FieldSchema("columnId", DataType.INTEGER));
+            tupleSchema.add(new FieldSchema("value", DataType.CHARARRAY));
+            tupleSchema.add(new FieldSchema("label", DataType.INTEGER));
+            tupleSchema.add(new FieldSchema("weight", DataType.DOUBLE));
+            return toTupleSchema(tupleSchema);
+        }
+    }
+
+    /**
+     * Intermediate folds the records and partial sketches into one sketch
+     */
+    public static class Intermediate extends AbstractTrainerUDF<Tuple> {
+
+        public Intermediate() {
+        }
+
+        public Intermediate(String source, String pathModelConfig, String pathColumnConfig) throws IOException {
+            super(source, pathModelConfig, pathColumnConfig);
+        }
+
+        @Override
+        public Tuple exec(Tuple input) throws IOException {
+            if ( input == null || input.size() == 0 ) {
+                return null;
+            }
+
+            return sketchTuple(foldTaggedTuples((DataBag) input.get(0), modelConfig, columnConfigList));
+        }
+
+        @Override
+        public Schema outputSchema(Schema input) {
+            Schema tupleSchema = new Schema();
+            tupleSchema.add(new FieldSchema("tag", DataType.INTEGER));
+            tupleSchema.add(new FieldSchema("columnId", DataType.INTEGER));
+            tupleSchema.add(new FieldSchema("sketch", DataType.CHARARRAY));
+            return toTupleSchema(tupleSchema);
+        }
+    }
+
+    /**
+     * Final folds all records and sketches of the column and generates the stats result
+     */
+    public static class Final extends AbstractTrainerUDF<Tuple> {
+
+        public Final() {
+        }
+
+        public Final(String source, String pathModelConfig, String pathColumnConfig) throws IOException {
+            super(source, pathModelConfig, pathColumnConfig);
+        }
+
+        @Override
+        public Tuple exec(Tuple input) throws IOException {
+            if ( input == null || input.size() == 0 ) {
+                return null;
+            }
+
+            ColumnSketch columnSketch = foldTaggedTuples((DataBag) input.get(0), modelConfig, columnConfigList);
+            return (columnSketch == null ? null : calculateStats(columnSketch, columnConfigList));
+        }
+    }
+
+    /**
+     * The sketch of a column
+     */
+    private static class ColumnSketch {
+        final int columnId;
+        final AbstractStatsSketch sketch;
+
+        ColumnSketch(int columnId, AbstractStatsSketch sketch) {
+            this.columnId = columnId;
+            this.sketch = sketch;
+        }
+    }
+
+    /**
+     * Fold column data - (column-id, column-value, column-tag, column-weight, ...) into sketch
+     *
+     * @return the sketch, or null if the bag has no column data
+     */
+    private static ColumnSketch foldColumnData(DataBag databag, ModelConfig modelConfig,
+            List<ColumnConfig> columnConfigList) throws ExecException {
+        ColumnSketch columnSketch = null;
+
+        Iterator<Tuple> iterator = databag.iterator();
+        while ( iterator.hasNext() ) {
+            Tuple element = iterator.next();
+            if ( element == null || element.size() < 3 ) {
+                continue;
+            }
+
+            if ( columnSketch == null ) {
+                columnSketch = newColumnSketch((Integer) element.get(0), modelConfig, columnConfigList);
+            }
+            Object value = element.get(1);
+            columnSketch.sketch.addData((value == null ? null : value.toString()), getLabel(element.get(2),
+                    modelConfig), getWeight(element));
+        }
+        return columnSketch;
+    }
+
+    /**
+     * Fold the tagged tuples of Initial and Intermediate into sketch
+     *
+     * @return the sketch, or null if the bag has no tuple
+     */
+    private static ColumnSketch foldTaggedTuples(DataBag databag, ModelConfig modelConfig,
+            List<ColumnConfig> columnConfigList) throws ExecException {
+        ColumnSketch columnSketch = null;
+
+        Iterator<Tuple> iterator = databag.iterator();
+        while ( iterator.hasNext() ) {
+            Tuple element = iterator.next();
+            if ( element == null || element.size() < 3 ) {
+                continue;
+            }
+
+            if ( columnSketch == null ) {
+                columnSketch = newColumnSketch((Integer) element.get(1), modelConfig, columnConfigList);
+            }
+            int tag = (Integer) element.get(0);
+            if ( tag == SKETCH_TUPLE ) {
+                columnSketch.sketch.mergeSketch(AbstractStatsSketch.constructSketchFromStr(modelConfig,
+                        columnConfigList.get(columnSketch.columnId), (String) element.get(2)));
+            } else if ( tag == RECORD_TUPLE ) {
+                columnSketch.sketch.addData((String) element.get(2), ((Integer) element.get(3)).byteValue(),
+                        (Double) element.get(4));
+            } else {
+                throw new ExecException("Unknown intermediate tuple tag " + tag);
+            }
+        }
+        return columnSketch;
+    }
+
+    private static ColumnSketch newColumnSketch(Integer columnId, ModelConfig modelConfig,
+            List<ColumnConfig> columnConfigList) {
+        return new ColumnSketch(columnId, AbstractStatsSketch.newSketch(modelConfig, columnConfigList.get(columnId)));
+    }
+
+    /**
+     * @return (1, column-id, sketch-string), or null if there is no sketch
+     */
+    private static Tuple sketchTuple(ColumnSketch columnSketch) throws ExecException {
+        if ( columnSketch == null ) {
+            return null;
+        }
+
+        Tuple output = TupleFactory.getInstance().newTuple(3);
+        output.set(0, SKETCH_TUPLE);
+        output.set(1, columnSketch.columnId);
+        output.set(2, columnSketch.sketch.objToString());
+        return output;
+    }
+
+    /**
+     * Derive the stats of the column from the sketch
+     */
+    private static Tuple calculateStats(ColumnSketch columnSketch, List<ColumnConfig> columnConfigList) {
+        ColumnConfig columnConfig = columnConfigList.get(columnSketch.columnId);
+        columnSketch.sketch.populateColumnConfig(columnConfig);
+        return CalculateNewStatsUDF.assembleStatsTuple(columnSketch.columnId, columnConfig);
+    }
+
+    private static byte getLabel(Object tag, ModelConfig modelConfig) {
+        if ( tag != null ) {
+            if ( modelConfig.getPosTags().contains(tag.toString()) ) {
+                return AbstractStatsSketch.LABEL_POS;
+            } else if ( modelConfig.getNegTags().contains(tag.toString()) ) {
+                return AbstractStatsSketch.LABEL_NEG;
+            }
+        }
+        return AbstractStatsSketch.LABEL_OTHER;
+    }
+
+    /**
+     * @return the weight of column data, 1.0 if there is no weight
+     */
+    private static Double getWeight(Tuple element) throws ExecException {
+        Object weight = (element.size() > 3 ? element.get(3) : null);
+        return (weight == null ? 1.0 : ((Number) weight).doubleValue());
+    }
+
+    private static Schema toTupleSchema(Schema tupleSchema) {
+        try {
+            return new Schema(new FieldSchema(null, tupleSchema, DataType.TUPLE));
+        } catch (FrontendException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -15,19 +15,18 @@
  */
 package ml.shifu.shifu.udf;
 
-import ml.shifu.shifu.container.ValueObject;
+import ml.shifu.shifu.container.ColumnValueBuffer;
 import ml.shifu.shifu.core.BasicStatsCalculator;
 import ml.shifu.shifu.core.Binning;
 import ml.shifu.shifu.core.Binning.BinningDataType;
 import ml.shifu.shifu.core.KSIVCalculator;
+import ml.shifu.shifu.util.DoubleFormatUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.pig.data.DataBag;
 import org.apache.pig.data.Tuple;
 import org.apache.pig.data.TupleFactory;
 
 import java.io.IOException;
-import java.text.DecimalFormat;
-import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
@@ -77,7 +76,9 @@ public class CalculateStatsUDF extends AbstractTrainerUDF<Tuple> {
             }
         }
 
-        List<ValueObject> voList = new ArrayList<ValueObject>();
+        List<String> posTags = modelConfig.getPosTags();
+        List<String> negTags = modelConfig.getNegTags();
+        ColumnValueBuffer buffer = new ColumnValueBuffer((int) Math.min(bag.size(), Integer.MAX_VALUE));
         Iterator<Tuple> iterator = bag.iterator();
         log.debug("****** The element count in bag is : " + bag.size());
 
@@ -94,13 +95,16 @@ public class CalculateStatsUDF extends AbstractTrainerUDF<Tuple> {
                 continue;
             }
 
-            ValueObject vo = new ValueObject();
             String valueStr = ((t.get(0) == null) ? "" : t.get(0).toString());
 
+            //do not need to catch exception, see AddColumnNumUDF which have already normalized the weight value
+            double weight = Double.parseDouble(t.get(2).toString());
+            byte label = ColumnValueBuffer.toLabel(t.get(1).toString(), posTags, negTags);
+
             if (dataType.equals(BinningDataType.Numerical)) {
-                Double value = null;
+                double value;
                 try {
-                    value = Double.valueOf(valueStr);
+                    value = Double.parseDouble(valueStr);
                 } catch (NumberFormatException e) {
                     // if there are too many log, it will case ReduceTask - `java.lang.OutOfMemoryError: Java heap space`
                     // log.warn("Incorrect data, not numerical - " + valueStr);
@@ -114,28 +118,22 @@ public class CalculateStatsUDF extends AbstractTrainerUDF<Tuple> {
                     continue;
                 }
 
-                vo.setValue(value);
+                buffer.add(value, label, weight);
             } else {
                 // Categorical or Auto
                 if (StringUtils.isEmpty(valueStr)) {
                     missing++;
                 }
-                vo.setRaw(valueStr);
+                buffer.addRaw(valueStr, label, weight);
             }
-            //do not need to catch exception, see AddColumnNumUDF which have already normalized the weight value
-            vo.setWeight(Double.valueOf(t.get(2).toString()));
-
-            vo.setTag(t.get(1).toString());
-            // vo.setScore(Double.valueOf(t.get(2).toString()));
-            voList.add(vo);
         }
 
-        if (voList.size() < 10) {
+        if (buffer.size() < 10) {
             return null;
         }
 
         // Calculate Binning
-        Binning binning = new Binning(modelConfig.getPosTags(), modelConfig.getNegTags(), dataType, voList);
+        Binning binning = new Binning(posTags, negTags, dataType, buffer);
         binning.setMaxNumOfBins(modelConfig.getBinningExpectedNum());
         binning.setBinningMethod(modelConfig.getBinningMethod());
         binning.setAutoTypeThreshold(modelConfig.getBinningAutoTypeThreshold());
@@ -143,15 +141,13 @@ public class CalculateStatsUDF extends AbstractTrainerUDF<Tuple> {
         binning.doBinning();
 
         // Calculate Basic Stats
-        BasicStatsCalculator basicStatsCalculator = new BasicStatsCalculator(binning.getUpdatedVoList(), this.valueThreshold);
+        BasicStatsCalculator basicStatsCalculator = new BasicStatsCalculator(binning.getUpdatedValueBuffer(), this.valueThreshold);
 
         // Calculate KSIV, based on Binning result
         KSIVCalculator ksivCalculator = new KSIVCalculator();
         ksivCalculator.calculateKSIV(binning.getBinCountNeg(), binning.getBinCountPos());
 
         // Assemble the results
-        DecimalFormat df = new DecimalFormat("##.######");
-
         Tuple tuple = tupleFactory.newTuple();
         tuple.append(columnNum);
         if (binning.getUpdatedDataType().equals(BinningDataType.Categorical)) {
@@ -164,13 +160,13 @@ public class CalculateStatsUDF extends AbstractTrainerUDF<Tuple> {
         //tuple.append(null);
         tuple.append(binning.getBinAvgScore().toString());
         tuple.append(binning.getBinPosCaseRate().toString());
-        tuple.append(df.format(ksivCalculator.getKS()));
-        tuple.append(df.format(ksivCalculator.getIV()));
+        tuple.append(DoubleFormatUtils.format(ksivCalculator.getKS()));
+        tuple.append(DoubleFormatUtils.format(ksivCalculator.getIV()));
 
-        tuple.append(df.format(basicStatsCalculator.getMax()));
-        tuple.append(df.format(basicStatsCalculator.getMin()));
-        tuple.append(df.format(basicStatsCalculator.getMean()));
-        tuple.append(df.format(basicStatsCalculator.getStdDev()));
+        tuple.append(DoubleFormatUtils.format(basicStatsCalculator.getMax()));
+        tuple.append(DoubleFormatUtils.format(basicStatsCalculator.getMin()));
+        tuple.append(DoubleFormatUtils.format(basicStatsCalculator.getMean()));
+        tuple.append(DoubleFormatUtils.format(basicStatsCalculator.getStdDev()));
 
         if (binning.getUpdatedDataType().equals(BinningDataType.Numerical)) {
             tuple.append("N");
@@ -178,10 +174,10 @@ public class CalculateStatsUDF extends AbstractTrainerUDF<Tuple> {
             tuple.append("C");
         }
 
-        tuple.append(df.format(basicStatsCalculator.getMedian()));
-        tuple.append(df.format(missing));
-        tuple.append(df.format(total));
-        tuple.append(df.format((double) missing / total));
+        tuple.append(DoubleFormatUtils.format(basicStatsCalculator.getMedian()));
+        tuple.append(DoubleFormatUtils.format(missing));
+        tuple.append(DoubleFormatUtils.format(total));
+        tuple.append(DoubleFormatUtils.format((double) missing / total));
         tuple.append(binning.getBinWeightedNeg().toString());
         tuple.append(binning.getBinWeightedPos().toString());
 
@@ -0,0 +1,337 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.udf;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+import ml.shifu.shifu.container.obj.EvalConfig;
+import ml.shifu.shifu.container.obj.ModelConfig;
+import ml.shifu.shifu.core.ScoreHistogram;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.pig.Algebraic;
+import org.apache.pig.backend.executionengine.ExecException;
+import org.apache.pig.data.BagFactory;
+import org.apache.pig.data.DataBag;
+import org.apache.pig.data.DataType;
+import org.apache.pig.data.Tuple;
+import org.apache.pig.data.TupleFactory;
+import org.apache.pig.impl.logicalLayer.FrontendException;
+import org.apache.pig.impl.logicalLayer.schema.Schema;
+import org.apache.pig.impl.logicalLayer.schema.Schema.FieldSchema;
+
+/**
+ * <pre>
+ * EvalScoreHistogramUDF class is to count the positive/negative records of every score.
+ *
+ * The input is the bag of score records
+ *    {
+ *      (tag, weight, score)
+ *      ...
+ *    }
+ * The UDF is algebraic, so the records are folded into @ScoreHistogram in map side, and only the histograms are
+ * shuffled into one reducer. The output is the bag of (score|pos|neg|weightedPos|weightedNeg) lines.
+ *
+ * The intermediate tuples are tagged by the first field, so Intermediate and Final accept both shapes:
+ *    (0, label, weight, score)   - one record emitted by Initial, no histogram is built for it
+ *    (1, histogram-string)       - the histogram folded by Intermediate
+ * </pre>
+ *
+ * @Dec 8, 2014
+ *
+ */
+public class EvalScoreHistogramUDF extends AbstractTrainerUDF<DataBag> implements Algebraic {
+
+    /**
+     * The tag of intermediate tuple of one record
+     */
+    private static final int RECORD_TUPLE = 0;
+
+    /**
+     * The tag of intermediate tuple of histogram
+     */
+    private static final int HISTOGRAM_TUPLE = 1;
+
+    private List<String> posTags;
+
+    public EvalScoreHistogramUDF(String source, String pathModelConfig, String pathColumnConfig, String evalSetName)
+            throws IOException {
+        super(source, pathModelConfig, pathColumnConfig);
+        this.posTags = getPosTags(modelConfig, evalSetName);
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.pig.EvalFunc#exec(org.apache.pig.data.Tuple)
+     */
+    @Override
+    public DataBag exec(Tuple input) throws IOException {
+        if ( input == null || input.size() == 0 ) {
+            return null;
+        }
+
+        return toBag(foldRecords((DataBag) input.get(0), posTags));
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.pig.Algebraic#getInitial()
+     */
+    @Override
+    public String getInitial() {
+        return Initial.class.getName();
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.pig.Algebraic#getIntermed()
+     */
+    @Override
+    public String getIntermed() {
+        return Intermediate.class.getName();
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.pig.Algebraic#getFinal()
+     */
+    @Override
+    public String getFinal() {
+        return Final.class.getName();
+    }
+
+    /**
+     * Initial only projects the score record to the light record tuple, the histograms are built by Intermediate and
+     * Final
+     */
+    public static class Initial extends AbstractTrainerUDF<Tuple> {
+
+        private List<String> posTags;
+
+        public Initial() {
+        }
+
+        public Initial(String source, String pathModelConfig, String pathColumnConfig, String evalSetName)
+                throws IOException {
+            super(source, pathModelConfig, pathColumnConfig);
+            this.posTags = getPosTags(modelConfig, evalSetName);
+        }
+
+        @Override
+        public Tuple exec(Tuple input) throws IOException {
+            if ( input == null || input.size() == 0 ) {
+                return null;
+            }
+
+            DataBag databag = (DataBag) input.get(0);
+            if ( databag.size() == 1 ) {
+                return recordTuple(databag.iterator().next(), posTags);
+            }
+
+            // the bag is expected to have one record, fold it into histogram if not
+            return histogramTuple(foldRecords(databag, posTags));
+        }
+
+        @Override
+        public Schema outputSchema(Schema input) {
+            Schema tupleSchema = new Schema();
+            tupleSchema.add(new FieldSchema("tag", DataType.INTEGER));
+            tupleSchema.add(new FieldSchema("label", DataType.INTEGER));
+            tupleSchema.add(new FieldSchema("weight", DataType.DOUBLE));
+            tupleSchema.add(new FieldSchema("score", DataType.DOUBLE));
+            return toTupleSchema(tupleSchema);
+        }
+    }
+
+    /**
+     * Intermediate folds the records and partial histograms into one histogram
+     */
+    public static class Intermediate extends AbstractTrainerUDF<Tuple> {
+
+        public Intermediate() {
+        }
+
+        public Intermediate(String source, String pathModelConfig, String pathColumnConfig, String evalSetName)
+                throws IOException {
+            super(source, pathModelConfig, pathColumnConfig);
+        }
+
+        @Override
+        public Tuple exec(Tuple input) throws IOException {
+            if ( input == null || input.size() == 0 ) {
+                return null;
+            }
+
+            return histogramTuple(foldTaggedTuples((DataBag) input.get(0)));
+        }
+
+        @Override
+        public Schema outputSchema(Schema input) {
+            Schema tupleSchema = new Schema();
+            tupleSchema.add(new FieldSchema("tag", DataType.INTEGER));
+            tupleSchema.add(new FieldSchema("histogram", DataType.CHARARRAY));
+            return toTupleSchema(tupleSchema);
+        }
+    }
+
+    /**
+     * Final merges all records and histograms, and outputs the counts of every score. It's not a subclass of
+     * EvalScoreHistogramUDF, since Pig instantiates the algebraic parts while constructing an algebraic UDF.
+     */
+    public static class Final extends AbstractTrainerUDF<DataBag> {
+
+        public Final() {
+        }
+
+        public Final(String source, String pathModelConfig, String pathColumnConfig, String evalSetName)
+                throws IOException {
+            super(source, pathModelConfig, pathColumnConfig);
+        }
+
+        @Override
+        public DataBag exec(Tuple input) throws IOException {
+            if ( input == null || input.size() == 0 ) {
+                return null;
+            }
+
+            return toBag(foldTaggedTuples((DataBag) input.get(0)));
+        }
+    }
+
+    private static List<String> getPosTags(ModelConfig modelConfig, String evalSetName) {
+        EvalConfig evalConfig = modelConfig.getEvalConfigByName(evalSetName);
+        return modelConfig.getPosTags(evalConfig);
+    }
+
+    /**
+     * Fold score records - (tag, weight, score) into histogram
+     */
+    private static ScoreHistogram foldRecords(DataBag databag, List<String> posTags) throws ExecException {
+        ScoreHistogram histogram = new ScoreHistogram();
+
+        Iterator<Tuple> iterator = databag.iterator();
+        while ( iterator.hasNext() ) {
+            Tuple record = recordTuple(iterator.next(), posTags);
+            if ( record != null ) {
+                addRecordTuple(histogram, record);
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Fold the tagged tuples of Initial and Intermediate into histogram
+     */
+    private static ScoreHistogram foldTaggedTuples(DataBag databag) throws ExecException {
+        ScoreHistogram histogram = new ScoreHistogram();
+
+        Iterator<Tuple> iterator = databag.iterator();
+        while ( iterator.hasNext() ) {
+            Tuple element = iterator.next();
+            if ( element == null || element.size() < 2 ) {
+                continue;
+            }
+
+            int tag = (Integer) element.get(0);
+            if ( tag == HISTOGRAM_TUPLE ) {
+                histogram.stringToObj((String) element.get(1));
+            } else if ( tag == RECORD_TUPLE ) {
+                addRecordTuple(histogram, element);
+            } else {
+                throw new ExecException("Unknown intermediate tuple tag " + tag);
+            }
+        }
+        return histogram;
+    }
+
+    private static void addRecordTuple(ScoreHistogram histogram, Tuple record) throws ExecException {
+        histogram.add((Double) record.get(3), ((Integer) record.get(1)) == 1, (Double) record.get(2));
+    }
+
+    /**
+     * @return (0, label, weight, score), or null if the record has no target or no score
+     */
+    private static Tuple recordTuple(Tuple element, List<String> posTags) throws ExecException {
+        if ( element == null || element.size() < 3 || element.get(0) == null
+                || StringUtils.isBlank(element.get(0).toString()) || element.get(2) == null ) {
+            // no target or no score, the same as ConfusionMatrix, just skip it
+            return null;
+        }
+
+        double score;
+        try {
+            score = Double.parseDouble(element.get(2).toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        double weight = 1.0d;
+        if ( element.get(1) != null ) {
+            try {
+                weight = Double.parseDouble(element.get(1).toString());
+            } catch (NumberFormatException e) {
+                // use default weight
+            }
+        }
+
+        Tuple output = TupleFactory.getInstance().newTuple(4);
+        output.set(0, RECORD_TUPLE);
+        output.set(1, (posTags.contains(element.get(0).toString()) ? 1 : 0));
+        output.set(2, weight);
+        output.set(3, score);
+        return output;
+    }
+
+    /**
+     * @return (1, histogram-string)
+     */
+    private static Tuple histogramTuple(ScoreHistogram histogram) throws ExecException {
+        Tuple output = TupleFactory.getInstance().newTuple(2);
+        output.set(0, HISTOGRAM_TUPLE);
+        output.set(1, histogram.objToString());
+        return output;
+    }
+
+    private static DataBag toBag(ScoreHistogram histogram) {
+        DataBag bag = BagFactory.getInstance().newDefaultBag();
+        for ( String line : histogram.toLines() ) {
+            bag.add(TupleFactory.getInstance().newTuple(line));
+        }
+        return bag;
+    }
+
+    private static Schema toTupleSchema(Schema tupleSchema) {
+        try {
+            return new Schema(new FieldSchema(null, tupleSchema, DataType.TUPLE));
+        } catch (FrontendException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * output the schema for score histogram
+     */
+    public Schema outputSchema(Schema input) {
+        try {
+            Schema tupleSchema = new Schema(new FieldSchema("histogram", DataType.CHARARRAY));
+            return new Schema(new FieldSchema("ScoreHistogram", new Schema(new FieldSchema(null, tupleSchema,
+                    DataType.TUPLE)), DataType.BAG));
+        } catch (Exception e) {
+            log.debug("Error when generating output schema.", e);
+            return null;
+        }
+    }
+}
@@ -21,7 +21,9 @@ import java.util.Map;
 
 import ml.shifu.shifu.container.CaseScoreResult;
 import ml.shifu.shifu.container.obj.EvalConfig;
+import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
 import ml.shifu.shifu.core.ModelRunner;
+import ml.shifu.shifu.fs.DistributedCacheUtils;
 import ml.shifu.shifu.fs.ShifuFileUtils;
 import ml.shifu.shifu.util.CommonUtils;
 import ml.shifu.shifu.util.Constants;
@@ -70,17 +72,48 @@ public class EvalScoreUDF extends AbstractTrainerUDF<Tuple> {
             this.columnConfigList = ShifuFileUtils.searchColumnConfig(evalConfig, columnConfigList);
         }
 
-        // create model runner
-        this.header = CommonUtils.getHeaders(evalConfig.getDataSet().getHeaderPath(), evalConfig.getDataSet()
-                .getHeaderDelimiter(), evalConfig.getDataSet().getSource());
+        // create model runner, the header and models are read from local files if shipped by distributed cache
+        if(DistributedCacheUtils.isShipped(DistributedCacheUtils.HEADER)) {
+            this.header = CommonUtils.getHeaders(DistributedCacheUtils.HEADER, evalConfig.getDataSet()
+                    .getHeaderDelimiter(), SourceType.LOCAL);
+        } else {
+            this.header = CommonUtils.getHeaders(evalConfig.getDataSet().getHeaderPath(), evalConfig.getDataSet()
+                    .getHeaderDelimiter(), evalConfig.getDataSet().getSource());
+        }
 
-        List<BasicML> models = CommonUtils
-                .loadBasicModels(modelConfig, evalConfig, evalConfig.getDataSet().getSource());
+        List<BasicML> models = DistributedCacheUtils.getLocalModels();
+        if(models == null) {
+            models = CommonUtils.loadBasicModels(modelConfig, evalConfig, evalConfig.getDataSet().getSource());
+        }
         modelRunner = new ModelRunner(modelConfig, columnConfigList, this.header, evalConfig.getDataSet()
                 .getDataDelimiter(), models);
         modelCnt = models.size();
     }
 
+    /**
+     * Ship the configs, header and models to the tasks by distributed cache if they are in HDFS, so the tasks don't
+     * read them from HDFS. The ColumnConfig in models path is not shipped, it is still searched in HDFS.
+     */
+    @Override
+    public List<String> getCacheFiles() {
+        SourceType evalSourceType = evalConfig.getDataSet().getSource();
+        if(evalSourceType != SourceType.HDFS || evalConfig.getModelsPath() != null) {
+            return null;
+        }
+
+        try {
+            List<String> cacheFiles = getConfigCacheFiles();
+            cacheFiles.add(DistributedCacheUtils.getCacheFile(evalConfig.getDataSet().getHeaderPath(), evalSourceType,
+                    DistributedCacheUtils.HEADER));
+            cacheFiles.addAll(DistributedCacheUtils.getModelCacheFiles(CommonUtils.findModels(modelConfig,
+                    evalConfig, evalSourceType)));
+            return cacheFiles;
+        } catch (IOException e) {
+            log.warn("Fail to get the cache files, read the files from HDFS in tasks.", e);
+            return null;
+        }
+    }
+
     public Tuple exec(Tuple input) throws IOException {
         Map<String, String> rawDataMap = CommonUtils.convertDataIntoMap(input, this.header);
         if (MapUtils.isEmpty(rawDataMap)) {
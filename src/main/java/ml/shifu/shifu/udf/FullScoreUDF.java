@@ -18,6 +18,7 @@ package ml.shifu.shifu.udf;
 import ml.shifu.shifu.container.CaseScoreResult;
 import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
 import ml.shifu.shifu.core.ModelRunner;
+import ml.shifu.shifu.fs.DistributedCacheUtils;
 import ml.shifu.shifu.util.CommonUtils;
 import org.apache.pig.data.Tuple;
 import org.apache.pig.data.TupleFactory;
@@ -36,15 +37,46 @@ public class FullScoreUDF extends AbstractTrainerUDF<Tuple> {
 
     private String[] header;
     private ModelRunner modelRunner;
+    private String pathHeader;
 
     public FullScoreUDF(String source, String pathModelConfig, String pathColumnConfig, String pathHeader, String delimiter) throws Exception {
         super(source, pathModelConfig, pathColumnConfig);
+        this.pathHeader = pathHeader;
 
-        List<BasicML> models = CommonUtils.loadBasicModels(modelConfig, null, SourceType.valueOf(source));
-        this.header = CommonUtils.getHeaders(pathHeader, delimiter, SourceType.valueOf(source));
+        // the header and models are read from local files if shipped by distributed cache
+        List<BasicML> models = DistributedCacheUtils.getLocalModels();
+        if (models == null) {
+            models = CommonUtils.loadBasicModels(modelConfig, null, sourceType);
+        }
+        if (DistributedCacheUtils.isShipped(DistributedCacheUtils.HEADER)) {
+            this.header = CommonUtils.getHeaders(DistributedCacheUtils.HEADER, delimiter, SourceType.LOCAL);
+        } else {
+            this.header = CommonUtils.getHeaders(pathHeader, delimiter, sourceType);
+        }
         modelRunner = new ModelRunner(modelConfig, columnConfigList, this.header, modelConfig.getDataSetDelimiter(), models);
     }
 
+    /**
+     * Ship the configs, header and models to the tasks by distributed cache if they are in HDFS.
+     */
+    @Override
+    public List<String> getCacheFiles() {
+        if (sourceType != SourceType.HDFS) {
+            return null;
+        }
+
+        try {
+            List<String> cacheFiles = getConfigCacheFiles();
+            cacheFiles.add(DistributedCacheUtils.getCacheFile(pathHeader, sourceType, DistributedCacheUtils.HEADER));
+            cacheFiles.addAll(DistributedCacheUtils.getModelCacheFiles(CommonUtils.findModels(modelConfig, null,
+                    sourceType)));
+            return cacheFiles;
+        } catch (IOException e) {
+            log.warn("Fail to get the cache files, read the files from HDFS in tasks.", e);
+            return null;
+        }
+    }
+
     public Tuple exec(Tuple input) throws IOException {
         CaseScoreResult cs = modelRunner.compute(input);
         if (cs == null) {
@@ -16,7 +16,6 @@
 package ml.shifu.shifu.udf;
 
 import java.io.IOException;
-import java.text.DecimalFormat;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +25,7 @@ import ml.shifu.shifu.container.obj.ColumnConfig;
 import ml.shifu.shifu.core.DataSampler;
 import ml.shifu.shifu.core.Normalizer;
 import ml.shifu.shifu.util.CommonUtils;
+import ml.shifu.shifu.util.DoubleFormatUtils;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.jexl2.Expression;
@@ -40,13 +40,17 @@ import org.apache.pig.impl.util.Utils;
 
 /**
  * NormalizeUDF class normalize the training data
+ * <p/>
+ * The values of float fields in output schema are emitted as Float, so PigStorage serializes them only once; the
+ * values of other fields are formatted into chararray by {@link DoubleFormatUtils}. All values are rounded to
+ * {@link DoubleFormatUtils#DEFAULT_SCALE} fraction digits. The weight is emitted as Double with its full precision.
  */
 public class NormalizeUDF extends AbstractTrainerUDF<Tuple> {
 
     private List<String> negTags;
     private List<String> posTags;
     private Expression weightExpr;
-    private DecimalFormat df = new DecimalFormat("#.######");
+    private boolean[] isFloatFields;
 
     public NormalizeUDF(String source, String pathModelConfig, String pathColumnConfig) throws Exception {
         super(source, pathModelConfig, pathColumnConfig);
@@ -59,6 +63,11 @@ public class NormalizeUDF extends AbstractTrainerUDF<Tuple> {
         log.debug("\t Positive Tags: " + posTags);
 
         weightExpr = createExpression(modelConfig.getWeightColumnName());
+
+        isFloatFields = new boolean[columnConfigList.size()];
+        for(int i = 0; i < columnConfigList.size(); i++) {
+            isFloatFields[i] = isFloatField(columnConfigList.get(i));
+        }
         log.debug("NormalizeUDF Initialized");
     }
 
@@ -98,9 +107,9 @@ public class NormalizeUDF extends AbstractTrainerUDF<Tuple> {
 
             if(super.tagColumnNum == i) {
                 if(modelConfig.getPosTags().contains(tag)) {
-                    tuple.append(df.format(Double.valueOf(1)));
+                    tuple.append(toField(i, 1d));
                 } else if(modelConfig.getNegTags().contains(tag)) {
-                    tuple.append(df.format(Double.valueOf(0)));
+                    tuple.append(toField(i, 0d));
                 } else {
                     log.error("Invalid data! The target value is not listed - " + tag);
                     // Return null to skip such record.
@@ -114,7 +123,7 @@ public class NormalizeUDF extends AbstractTrainerUDF<Tuple> {
             } else {
                 String val = ((input.get(i) == null) ? "" : input.get(i).toString());
                 Double z = Normalizer.normalize(config, val, cutoff);
-                tuple.append(df.format(z));
+                tuple.append(toField(i, z));
             }
         }
 
@@ -143,18 +152,35 @@ public class NormalizeUDF extends AbstractTrainerUDF<Tuple> {
         return tuple;
     }
 
+    /**
+     * Convert the normalized value to the type of field in output schema
+     */
+    private Object toField(int columnNum, double value) {
+        if(isFloatFields[columnNum]) {
+            return Float.valueOf((float) DoubleFormatUtils.round(value, DoubleFormatUtils.DEFAULT_SCALE));
+        }
+        return DoubleFormatUtils.format(value);
+    }
+
+    /**
+     * @return true if the column is float field in output schema, or else it is chararray
+     */
+    private static boolean isFloatField(ColumnConfig config) {
+        return !config.isMeta() && config.isNumerical();
+    }
+
     public Schema outputSchema(Schema input) {
         try {
             StringBuilder schemaStr = new StringBuilder();
             schemaStr.append("Normalized:Tuple(");
             for(ColumnConfig config: columnConfigList) {
-                if(!config.isMeta() && config.isNumerical()) {
+                if(isFloatField(config)) {
                     schemaStr.append(config.getColumnName() + ":float" + ",");
                 } else {
                     schemaStr.append(config.getColumnName() + ":chararray" + ",");
                 }
             }
-            schemaStr.append("weight:float)");
+            schemaStr.append("weight:double)");
 
             return Utils.getSchemaFromString(schemaStr.toString());
         } catch (Exception e) {
@@ -24,6 +24,7 @@ import java.util.Map;
 
 import ml.shifu.shifu.container.obj.ColumnConfig;
 import ml.shifu.shifu.container.obj.ModelConfig;
+import ml.shifu.shifu.core.binning.CategoricalBinning;
 import ml.shifu.shifu.udf.CalculateStatsUDF;
 
 import org.apache.commons.lang.StringUtils;
@@ -161,6 +162,10 @@ public class CategoricalVarStats extends AbstractVarStats {
      */
     private int quickLocateCategorialBin(String val) {
         Integer binNum = categoricalBinMap.get(val);
+        if ( binNum == null ) {
+            // the value is not in top categories, use the "other" bucket if there is
+            binNum = categoricalBinMap.get(CategoricalBinning.OTHER_CATEGORY);
+        }
         return ((binNum == null) ? -1 : binNum);
     }
 
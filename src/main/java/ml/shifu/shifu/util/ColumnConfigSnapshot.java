@@ -0,0 +1,394 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import ml.shifu.shifu.container.obj.ColumnBinning;
+import ml.shifu.shifu.container.obj.ColumnConfig;
+import ml.shifu.shifu.container.obj.ColumnConfig.ColumnFlag;
+import ml.shifu.shifu.container.obj.ColumnConfig.ColumnType;
+import ml.shifu.shifu.container.obj.ColumnStats;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ColumnConfigSnapshot class encodes the ColumnConfig list into a compact binary form, which is decoded by plain
+ * setters, without JSON parsing or reflection.
+ *
+ * <p>
+ * The snapshot is written beside ColumnConfig.json as ColumnConfig.bin, and it records the length and CRC32 of JSON
+ * file it is taken from. The JSON file is still the source of truth: the snapshot is used only if it is not older than
+ * the JSON file and both the length and CRC32 match, see {@link ConfigCache}. The modification time alone is not
+ * enough, since copying the files, e.g. to HDFS, changes it.
+ *
+ * @Dec 20, 2014
+ *
+ */
+public final class ColumnConfigSnapshot {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ColumnConfigSnapshot.class);
+
+    private static final int MAGIC = 0x53434346;
+
+    private static final int FORMAT_VERSION = 2;
+
+    private static final String JSON_SUFFIX = ".json";
+
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private ColumnConfigSnapshot() {
+    }
+
+    /**
+     * @param columnConfigPath
+     *            - the path of ColumnConfig.json
+     * @return the path of snapshot, ColumnConfig.bin
+     */
+    public static String getSnapshotPath(String columnConfigPath) {
+        if(columnConfigPath.endsWith(JSON_SUFFIX)) {
+            return columnConfigPath.substring(0, columnConfigPath.length() - JSON_SUFFIX.length()) + SNAPSHOT_SUFFIX;
+        }
+        return columnConfigPath + SNAPSHOT_SUFFIX;
+    }
+
+    /**
+     * Save the snapshot of local ColumnConfig.json, which is just written from columnConfigList. The stale snapshot is
+     * deleted if {@link Environment#COLUMN_CONFIG_SNAPSHOT} is false.
+     *
+     * @param columnConfigPath
+     *            - the local path of ColumnConfig.json
+     */
+    public static void saveSnapshot(String columnConfigPath, List<ColumnConfig> columnConfigList) throws IOException {
+        File snapshot = new File(getSnapshotPath(columnConfigPath));
+        if(!Boolean.valueOf(Environment.getProperty(Environment.COLUMN_CONFIG_SNAPSHOT, Boolean.TRUE.toString()))) {
+            FileUtils.deleteQuietly(snapshot);
+            return;
+        }
+
+        byte[] json = FileUtils.readFileToByteArray(new File(columnConfigPath));
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(snapshot);
+            out.write(toBytes(columnConfigList, json.length, checksum(json)));
+        } finally {
+            IOUtils.closeQuietly(out);
+        }
+        LOG.debug("Saved ColumnConfig snapshot {}", snapshot);
+    }
+
+    /**
+     * @return the CRC32 of JSON bytes
+     */
+    public static long checksum(byte[] json) {
+        CRC32 crc = new CRC32();
+        crc.update(json);
+        return crc.getValue();
+    }
+
+    /**
+     * @param columnConfigList
+     *            - the column configs
+     * @param jsonLength
+     *            - the length of JSON file that the configs are saved in
+     * @param jsonChecksum
+     *            - the CRC32 of JSON file, see {@link #checksum(byte[])}
+     * @return the bytes of snapshot
+     */
+    public static byte[] toBytes(List<ColumnConfig> columnConfigList, long jsonLength, long jsonChecksum)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(columnConfigList.size() * 256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        write(out, columnConfigList, jsonLength, jsonChecksum);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param bytes
+     *            - the bytes of snapshot
+     * @param json
+     *            - the bytes of JSON file
+     * @return true if the snapshot is taken from the JSON file, i.e. the length and CRC32 recorded match
+     * @throws IOException
+     *             if the bytes are not a snapshot of supported version
+     */
+    public static boolean isSnapshotOf(byte[] bytes, byte[] json) throws IOException {
+        DataInput in = new DataInputStream(new ByteArrayInputStream(bytes));
+        checkHeader(in);
+        return in.readLong() == json.length && in.readLong() == checksum(json);
+    }
+
+    /**
+     * @return the new column configs decoded from bytes
+     * @throws IOException
+     *             if the bytes are not a snapshot of supported version
+     */
+    public static List<ColumnConfig> fromBytes(byte[] bytes) throws IOException {
+        return read(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    public static void write(DataOutput out, List<ColumnConfig> columnConfigList, long jsonLength, long jsonChecksum)
+            throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(jsonLength);
+        out.writeLong(jsonChecksum);
+        out.writeInt(columnConfigList.size());
+        for(ColumnConfig config: columnConfigList) {
+            writeInteger(out, config.getColumnNum());
+            writeString(out, config.getColumnName());
+            writeString(out, config.getVersion());
+            out.writeByte(config.getColumnType() == null ? -1 : config.getColumnType().ordinal());
+            out.writeByte(config.getColumnFlag() == null ? -1 : config.getColumnFlag().ordinal());
+            out.writeByte(config.isFinalSelect() == null ? -1 : (config.isFinalSelect() ? 1 : 0));
+
+            ColumnStats stats = config.getColumnStats();
+            out.writeBoolean(stats != null);
+            if(stats != null) {
+                writeDouble(out, stats.getMax());
+                writeDouble(out, stats.getMin());
+                writeDouble(out, stats.getMean());
+                writeDouble(out, stats.getMedian());
+                writeLong(out, stats.getTotalCount());
+                writeLong(out, stats.getMissingCount());
+                writeDouble(out, stats.getStdDev());
+                writeDouble(out, stats.getMissingPercentage());
+                writeDouble(out, stats.getKs());
+                writeDouble(out, stats.getIv());
+                writeLong(out, stats.getDistinctCount());
+            }
+
+            ColumnBinning binning = config.getColumnBinning();
+            out.writeBoolean(binning != null);
+            if(binning != null) {
+                writeInteger(out, binning.getLength());
+                writeDoubleList(out, binning.getBinBoundary());
+                writeStringList(out, binning.getBinCategory());
+                writeIntegerList(out, binning.getBinCountNeg());
+                writeIntegerList(out, binning.getBinCountPos());
+                writeDoubleList(out, binning.getBinPosRate());
+                writeIntegerList(out, binning.getBinAvgScore());
+                writeDoubleList(out, binning.getBinWeightedNeg());
+                writeDoubleList(out, binning.getBinWeightedPos());
+            }
+        }
+    }
+
+    public static List<ColumnConfig> read(DataInput in) throws IOException {
+        checkHeader(in);
+        in.readLong();
+        in.readLong();
+        int size = in.readInt();
+        List<ColumnConfig> columnConfigList = new ArrayList<ColumnConfig>(size);
+        for(int i = 0; i < size; i++) {
+            ColumnConfig config = new ColumnConfig();
+            config.setColumnNum(readInteger(in));
+            config.setColumnName(readString(in));
+            config.setVersion(readString(in));
+            byte type = in.readByte();
+            config.setColumnType(type < 0 ? null : ColumnType.values()[type]);
+            byte flag = in.readByte();
+            config.setColumnFlag(flag < 0 ? null : ColumnFlag.values()[flag]);
+            byte finalSelect = in.readByte();
+            config.setFinalSelect(finalSelect < 0 ? null : Boolean.valueOf(finalSelect == 1));
+
+            ColumnStats stats = null;
+            if(in.readBoolean()) {
+                stats = new ColumnStats();
+                stats.setMax(readDouble(in));
+                stats.setMin(readDouble(in));
+                stats.setMean(readDouble(in));
+                stats.setMedian(readDouble(in));
+                stats.setTotalCount(readLong(in));
+                stats.setMissingCount(readLong(in));
+                stats.setStdDev(readDouble(in));
+                stats.setMissingPercentage(readDouble(in));
+                stats.setKs(readDouble(in));
+                stats.setIv(readDouble(in));
+                stats.setDistinctCount(readLong(in));
+            }
+            config.setColumnStats(stats);
+
+            ColumnBinning binning = null;
+            if(in.readBoolean()) {
+                binning = new ColumnBinning();
+                binning.setLength(readInteger(in));
+                binning.setBinBoundary(readDoubleList(in));
+                binning.setBinCategory(readStringList(in));
+                binning.setBinCountNeg(readIntegerList(in));
+                binning.setBinCountPos(readIntegerList(in));
+                binning.setBinPosRate(readDoubleList(in));
+                binning.setBinAvgScore(readIntegerList(in));
+                binning.setBinWeightedNeg(readDoubleList(in));
+                binning.setBinWeightedPos(readDoubleList(in));
+            }
+            config.setColumnBinning(binning);
+
+            columnConfigList.add(config);
+        }
+        return columnConfigList;
+    }
+
+    private static void checkHeader(DataInput in) throws IOException {
+        if(in.readInt() != MAGIC) {
+            throw new IOException("Not a ColumnConfig snapshot.");
+        }
+        int version = in.readInt();
+        if(version != FORMAT_VERSION) {
+            throw new IOException("Unsupported ColumnConfig snapshot version " + version + ".");
+        }
+    }
+
+    private static void writeInteger(DataOutput out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if(value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(DataInput in) throws IOException {
+        return in.readBoolean() ? Integer.valueOf(in.readInt()) : null;
+    }
+
+    private static void writeLong(DataOutput out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if(value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInput in) throws IOException {
+        return in.readBoolean() ? Long.valueOf(in.readLong()) : null;
+    }
+
+    private static void writeDouble(DataOutput out, Double value) throws IOException {
+        out.writeBoolean(value != null);
+        if(value != null) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static Double readDouble(DataInput in) throws IOException {
+        return in.readBoolean() ? Double.valueOf(in.readDouble()) : null;
+    }
+
+    /**
+     * The string is written as the length of UTF-8 bytes and the bytes, -1 for null. DataOutput.writeUTF is not used
+     * since it is limited to 64K bytes.
+     */
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if(value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(UTF8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if(length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    private static void writeIntegerList(DataOutput out, List<Integer> list) throws IOException {
+        out.writeInt(list == null ? -1 : list.size());
+        if(list != null) {
+            for(Integer value: list) {
+                writeInteger(out, value);
+            }
+        }
+    }
+
+    private static List<Integer> readIntegerList(DataInput in) throws IOException {
+        int size = in.readInt();
+        if(size < 0) {
+            return null;
+        }
+        List<Integer> list = new ArrayList<Integer>(size);
+        for(int i = 0; i < size; i++) {
+            list.add(readInteger(in));
+        }
+        return list;
+    }
+
+    private static void writeDoubleList(DataOutput out, List<Double> list) throws IOException {
+        out.writeInt(list == null ? -1 : list.size());
+        if(list != null) {
+            for(Double value: list) {
+                writeDouble(out, value);
+            }
+        }
+    }
+
+    private static List<Double> readDoubleList(DataInput in) throws IOException {
+        int size = in.readInt();
+        if(size < 0) {
+            return null;
+        }
+        List<Double> list = new ArrayList<Double>(size);
+        for(int i = 0; i < size; i++) {
+            list.add(readDouble(in));
+        }
+        return list;
+    }
+
+    private static void writeStringList(DataOutput out, List<String> list) throws IOException {
+        out.writeInt(list == null ? -1 : list.size());
+        if(list != null) {
+            for(String value: list) {
+                writeString(out, value);
+            }
+        }
+    }
+
+    private static List<String> readStringList(DataInput in) throws IOException {
+        int size = in.readInt();
+        if(size < 0) {
+            return null;
+        }
+        List<String> list = new ArrayList<String>(size);
+        for(int i = 0; i < size; i++) {
+            list.add(readString(in));
+        }
+        return list;
+    }
+}
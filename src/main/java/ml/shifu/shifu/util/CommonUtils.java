@@ -27,6 +27,8 @@ import ml.shifu.shifu.container.obj.ModelConfig;
 import ml.shifu.shifu.container.obj.ModelTrainConf.ALGORITHM;
 import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
 import ml.shifu.shifu.core.Normalizer;
+import ml.shifu.shifu.core.binning.CategoricalBinning;
+import ml.shifu.shifu.core.dtrain.BinaryNNSerializer;
 import ml.shifu.shifu.exception.ShifuErrorCode;
 import ml.shifu.shifu.exception.ShifuException;
 import ml.shifu.shifu.fs.PathFinder;
@@ -44,7 +46,6 @@ import org.encog.ml.BasicML;
 import org.encog.ml.data.MLDataPair;
 import org.encog.ml.data.basic.BasicMLData;
 import org.encog.ml.data.basic.BasicMLDataPair;
-import org.encog.persist.EncogDirectoryPersistence;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -91,6 +92,17 @@ public final class CommonUtils {
         Path dstColumnConfig = new Path(pathFinder.getColumnConfigPath(SourceType.HDFS));
         hdfs.copyFromLocalFile(srcColumnConfig, dstColumnConfig);
 
+        // Copy ColumnConfig snapshot after ColumnConfig, so it is not older than ColumnConfig in HDFS. The copy gets a
+        // new modification time, so the stale local snapshot is not copied at all.
+        Path srcSnapshot = new Path(ColumnConfigSnapshot.getSnapshotPath(srcColumnConfig.toString()));
+        Path dstSnapshot = new Path(ColumnConfigSnapshot.getSnapshotPath(dstColumnConfig.toString()));
+        hdfs.delete(dstSnapshot, false);
+        if (localFs.exists(srcSnapshot)
+                && localFs.getFileStatus(srcSnapshot).getModificationTime() >= localFs.getFileStatus(srcColumnConfig)
+                        .getModificationTime()) {
+            hdfs.copyFromLocalFile(srcSnapshot, dstSnapshot);
+        }
+
         // copy others
         Path srcVersion = new Path(pathFinder.getModelVersion(SourceType.LOCAL));
         if (localFs.exists(srcVersion)) {
@@ -303,13 +315,12 @@ public final class CommonUtils {
      */
     public static int getBinNum(ColumnConfig columnConfig, String columnVal) {
         if (columnConfig.isCategorical()) {
-            List<String> binCategories = columnConfig.getBinCategory();
-            for (int i = 0; i < binCategories.size(); i++) {
-                if (binCategories.get(i).equals(columnVal)) {
-                    return i;
-                }
+            int binNum = columnConfig.getCategoricalBinNum(columnVal);
+            if (binNum < 0) {
+                // the value is not in top categories, use the "other" bucket if there is
+                binNum = columnConfig.getCategoricalBinNum(CategoricalBinning.OTHER_CATEGORY);
             }
-            return -1;
+            return binNum;
         } else {
             if ( StringUtils.isBlank(columnVal) ) {
                 return -1;
@@ -320,27 +331,25 @@ public final class CommonUtils {
             } catch ( Exception e ) {
                 return -1;
             }
-            return getNumericBinNum(columnConfig.getBinBoundary(), dval);
+            return getNumericBinNum(columnConfig, dval);
         }
     }
 
     /**
      * Return the real bin number for one value. As the first bin value is NEGATIVE_INFINITY, invalid index is 0, not
-     * -1.
+     * -1. NaN is not smaller than any boundary, so it's in the last bin.
      *
-     * @param binBoundary bin boundary list which should be sorted.
      * @throws IllegalArgumentException if binBoundary is null or empty.
      */
-    private static int getNumericBinNum(List<Double> binBoundary, double value) {
-        if (CollectionUtils.isEmpty(binBoundary)) {
+    private static int getNumericBinNum(ColumnConfig columnConfig, double value) {
+        if (CollectionUtils.isEmpty(columnConfig.getBinBoundary())) {
             throw new IllegalArgumentException("binBoundary should not be null or empty.");
         }
 
-        int n = binBoundary.size() - 1;
-        while (n > 0 && value < binBoundary.get(n)) {
-            n--;
+        if (Double.isNaN(value)) {
+            return columnConfig.getBinBoundary().size() - 1;
         }
-        return n;
+        return Math.max(0, columnConfig.getNumericalBinNum(value));
     }
 
     /**
@@ -437,15 +446,11 @@ public final class CommonUtils {
 
         List<BasicML> models = new ArrayList<BasicML>(listStatus.size());
         for (FileStatus f : listStatus) {
-            FSDataInputStream stream = null;
             try {
-                stream = fs.open(f.getPath());
-                models.add(BasicML.class.cast(EncogDirectoryPersistence.loadObject(stream)));
+                models.add(BinaryNNSerializer.loadModel(fs, f.getPath()));
             } catch (RuntimeException e) {
                 String msg = "the expecting model file is: " + f.getPath();
                 throw new ShifuException(ShifuErrorCode.ERROR_FAIL_TO_LOAD_MODEL_FILE, e, msg);
-            } finally {
-                IOUtils.closeQuietly(stream);
             }
         }
         return models;
@@ -455,7 +460,9 @@ public final class CommonUtils {
      * Find the model files for some @ModelConfig. There is a little tricky about this function.
      * If @EvalConfig is specified, try to load the models according setting in @EvalConfig,
      * or if @EvalConfig is null or ModelsPath is blank, Shifu will try to load models under `models`
-     * directory
+     * directory.
+     * For each model, the binary model (see @BinaryNNSerializer) is returned instead of the EG model if it's saved
+     * together with the EG model, see {@link BinaryNNSerializer#selectModelFiles(FileSystem, List)}.
      *
      * @param modelConfig - @ModelConfig, need this, since the model file may exist in HDFS
      * @param evalConfig  - @EvalConfig, maybe null
@@ -476,38 +483,43 @@ public final class CommonUtils {
         if (null == evalConfig || StringUtils.isBlank(evalConfig.getModelsPath())) {
             Path path = new Path(pathFinder.getModelsPath(sourceType));
             fileList.addAll(Arrays.asList(fs.listStatus(path,
-                    new FileSuffixPathFilter(modelSuffix))));
+                    new FileSuffixPathFilter(modelSuffix, modelSuffix + BinaryNNSerializer.SUFFIX))));
         } else {
             String modelsPath = evalConfig.getModelsPath();
             FileStatus[] expandedPaths = fs.globStatus(new Path(modelsPath));
             if (ArrayUtils.isNotEmpty(expandedPaths)) {
                 for (FileStatus epath : expandedPaths) {
                     fileList.addAll(Arrays.asList(fs.listStatus(epath.getPath(),
-                            new FileSuffixPathFilter(modelSuffix))));
+                            new FileSuffixPathFilter(modelSuffix, modelSuffix + BinaryNNSerializer.SUFFIX))));
                 }
             }
         }
 
-        return fileList;
+        return BinaryNNSerializer.selectModelFiles(fs, fileList);
     }
 
     public static class FileSuffixPathFilter implements PathFilter {
-        private String fileSuffix;
+        private String[] fileSuffixes;
 
-        public FileSuffixPathFilter(String fileSuffix) {
-            this.fileSuffix = fileSuffix;
+        public FileSuffixPathFilter(String... fileSuffixes) {
+            this.fileSuffixes = fileSuffixes;
         }
 
         @Override
         public boolean accept(Path path) {
-            return path.getName().endsWith(fileSuffix);
+            for (String fileSuffix : fileSuffixes) {
+                if (path.getName().endsWith(fileSuffix)) {
+                    return true;
+                }
+            }
+            return false;
         }
     }
 
     /**
      * Load neural network models from specified file path
      *
-     * @param modelsPath - a file or directory that contains .nn files
+     * @param modelsPath - a file or directory that contains .nn files, or .nn.bin files in binary format
      * @return - a list of @BasicML
      * @throws IOException - throw exception when loading model files
      */
@@ -516,23 +528,14 @@ public final class CommonUtils {
             throw new IllegalArgumentException("The model path shouldn't be null");
         }
 
-        File modelsPathDir = new File(modelsPath);
-        File[] modelFiles = modelsPathDir.listFiles(new FilenameFilter() {
-            @Override
-            public boolean accept(File dir, String name) {
-                return name.endsWith("." + alg.name().toLowerCase());
-            }
-        });
+        String modelSuffix = "." + alg.name().toLowerCase();
+        FileSystem fs = ShifuFileUtils.getFileSystemBySourceType(SourceType.LOCAL);
+        List<FileStatus> modelFiles = BinaryNNSerializer.selectModelFiles(fs, Arrays.asList(fs.listStatus(new Path(
+                modelsPath), new FileSuffixPathFilter(modelSuffix, modelSuffix + BinaryNNSerializer.SUFFIX))));
 
-        List<BasicML> models = new ArrayList<BasicML>(modelFiles.length);
-        for (File nnf : modelFiles) {
-            InputStream is = null;
-            try {
-                is = new FileInputStream(nnf);
-                models.add(BasicML.class.cast(EncogDirectoryPersistence.loadObject(is)));
-            } finally {
-                IOUtils.closeQuietly(is);
-            }
+        List<BasicML> models = new ArrayList<BasicML>(modelFiles.size());
+        for (FileStatus nnf : modelFiles) {
+            models.add(BinaryNNSerializer.loadModel(fs, nnf.getPath()));
         }
 
         return models;
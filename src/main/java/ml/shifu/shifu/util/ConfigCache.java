@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import ml.shifu.shifu.container.obj.ColumnConfig;
+import ml.shifu.shifu.container.obj.ModelConfig;
+import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
+import ml.shifu.shifu.fs.ShifuFileUtils;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ConfigCache class is the JVM-wide cache of ModelConfig and ColumnConfig list, so the UDFs, the guagua master, worker
+ * and interceptors, and the mappers and reducers in one JVM read the config files only once.
+ *
+ * <p>
+ * The cache is keyed by the source type and path, and an entry is reloaded if the modification time or length of file
+ * is changed. The bytes are cached instead of objects, and every get decodes new objects, because some callers change
+ * the configs they get.
+ *
+ * <p>
+ * The ColumnConfig list is loaded from the binary snapshot (see {@link ColumnConfigSnapshot}) if the snapshot is taken
+ * from the content of ColumnConfig.json, else the json is parsed and the snapshot is built in memory.
+ *
+ * @Dec 20, 2014
+ *
+ */
+public final class ConfigCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConfigCache.class);
+
+    /**
+     * the cached bytes of file with the modification time and length of file
+     */
+    private static class Entry {
+        final long modificationTime;
+        final long length;
+        final byte[] bytes;
+
+        Entry(long modificationTime, long length, byte[] bytes) {
+            this.modificationTime = modificationTime;
+            this.length = length;
+            this.bytes = bytes;
+        }
+
+        boolean isValid(FileStatus status) {
+            return this.modificationTime == status.getModificationTime() && this.length == status.getLen();
+        }
+    }
+
+    private static final ConcurrentMap<String, Entry> MODEL_CONFIGS = new ConcurrentHashMap<String, Entry>();
+
+    private static final ConcurrentMap<String, Entry> COLUMN_CONFIGS = new ConcurrentHashMap<String, Entry>();
+
+    private ConfigCache() {
+    }
+
+    /**
+     * Load model configuration from the path and the source type, see
+     * {@link CommonUtils#loadModelConfig(String, SourceType)}.
+     *
+     * @throws IOException
+     *             if any IO exception in parsing json.
+     * @throws IllegalArgumentException
+     *             if {@code path} is null or empty, if sourceType is null.
+     */
+    public static ModelConfig getModelConfig(String path, SourceType sourceType) throws IOException {
+        checkPathAndMode(path, sourceType);
+        FileSystem fs = ShifuFileUtils.getFileSystemBySourceType(sourceType);
+        FileStatus status = fs.getFileStatus(new Path(path));
+
+        String key = sourceType + ":" + path;
+        Entry entry = MODEL_CONFIGS.get(key);
+        if(entry == null || !entry.isValid(status)) {
+            entry = new Entry(status.getModificationTime(), status.getLen(), readBytes(fs, status.getPath()));
+            MODEL_CONFIGS.put(key, entry);
+        }
+        return JSONUtils.readValue(new ByteArrayInputStream(entry.bytes), ModelConfig.class);
+    }
+
+    /**
+     * Load column configuration list from the path of ColumnConfig.json and the source type, see
+     * {@link CommonUtils#loadColumnConfigList(String, SourceType)}.
+     *
+     * @throws IOException
+     *             if any IO exception in parsing json.
+     * @throws IllegalArgumentException
+     *             if {@code path} is null or empty, if sourceType is null.
+     */
+    public static List<ColumnConfig> getColumnConfigList(String path, SourceType sourceType) throws IOException {
+        checkPathAndMode(path, sourceType);
+        FileSystem fs = ShifuFileUtils.getFileSystemBySourceType(sourceType);
+        FileStatus status = fs.getFileStatus(new Path(path));
+
+        String key = sourceType + ":" + path;
+        Entry entry = COLUMN_CONFIGS.get(key);
+        if(entry != null && entry.isValid(status)) {
+            return ColumnConfigSnapshot.fromBytes(entry.bytes);
+        }
+
+        // the json is only read, not parsed, if the snapshot is taken from it
+        byte[] json = readBytes(fs, status.getPath());
+        byte[] snapshot = readSnapshot(fs, status, json);
+        List<ColumnConfig> columnConfigList;
+        if(snapshot != null) {
+            columnConfigList = ColumnConfigSnapshot.fromBytes(snapshot);
+        } else {
+            columnConfigList = Arrays.asList(JSONUtils.readValue(new ByteArrayInputStream(json),
+                    ColumnConfig[].class));
+            snapshot = ColumnConfigSnapshot.toBytes(columnConfigList, json.length,
+                    ColumnConfigSnapshot.checksum(json));
+        }
+        COLUMN_CONFIGS.put(key, new Entry(status.getModificationTime(), status.getLen(), snapshot));
+        return columnConfigList;
+    }
+
+    /**
+     * Remove all cached configs, mostly for test.
+     */
+    public static void clear() {
+        MODEL_CONFIGS.clear();
+        COLUMN_CONFIGS.clear();
+    }
+
+    /**
+     * @return the bytes of snapshot beside ColumnConfig.json, or null if there is no snapshot or the snapshot is older
+     *         than ColumnConfig.json or it is taken from the json of different length or CRC32
+     */
+    private static byte[] readSnapshot(FileSystem fs, FileStatus jsonStatus, byte[] json) {
+        Path snapshotPath = new Path(ColumnConfigSnapshot.getSnapshotPath(jsonStatus.getPath().toString()));
+        try {
+            if(!fs.exists(snapshotPath)
+                    || fs.getFileStatus(snapshotPath).getModificationTime() < jsonStatus.getModificationTime()) {
+                return null;
+            }
+            byte[] bytes = readBytes(fs, snapshotPath);
+            if(!ColumnConfigSnapshot.isSnapshotOf(bytes, json)) {
+                LOG.info("ColumnConfig snapshot {} doesn't match ColumnConfig.json, ignore it.", snapshotPath);
+                return null;
+            }
+            return bytes;
+        } catch (IOException e) {
+            LOG.warn("Fail to read ColumnConfig snapshot " + snapshotPath + ", load ColumnConfig.json instead.", e);
+            return null;
+        }
+    }
+
+    private static byte[] readBytes(FileSystem fs, Path path) throws IOException {
+        InputStream in = null;
+        try {
+            in = fs.open(path);
+            return IOUtils.toByteArray(in);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    private static void checkPathAndMode(String path, SourceType sourceType) {
+        if(StringUtils.isEmpty(path) || sourceType == null) {
+            throw new IllegalArgumentException(String.format(
+                    "path should not be null or empty, sourceType should not be null, path:%s, sourceType:%s", path,
+                    sourceType));
+        }
+    }
+}
@@ -91,6 +91,7 @@ public interface Constants {
     public static final String EVAL_DIR = "evals";
     public static final String EVAL_NORMALIZED = "EvalNormalized";
     public static final String EVAL_SCORE = "EvalScore";
+    public static final String EVAL_SCORE_HISTOGRAM = "EvalScoreHistogram";
     public static final String EVAL_PERFORMANCE = "EvalPerformance.json";
     public static final String EVAL_MATRIX = "EvalConfusionMatrix";
 
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * DoubleFormatUtils class formats the double values with fixed max precision, as DecimalFormat("#.######") does.
+ *
+ * <p>
+ * The value is scaled to a long and the digits are appended to the StringBuilder directly, so there is no
+ * DecimalFormat, no intermediate String, and it is thread-safe. The trailing zeros of fraction are removed, e.g. 0.5 is
+ * formatted to "0.5" and 2.0 to "2", the same as DecimalFormat.
+ *
+ * <p>
+ * The differences from DecimalFormat: the value is rounded after scaling, so a value exactly half way may be rounded
+ * differently; a negative value rounded to zero is formatted to "0" instead of "-0"; NaN and infinity are formatted as
+ * Double.toString does, so they can be parsed back.
+ *
+ * @Dec 19, 2014
+ *
+ */
+public final class DoubleFormatUtils {
+
+    /**
+     * The default max number of fraction digits, the same as the "#.######" pattern used before
+     */
+    public static final int DEFAULT_SCALE = 6;
+
+    /**
+     * The max scale supported
+     */
+    public static final int MAX_SCALE = 15;
+
+    private static final long[] POW10 = new long[MAX_SCALE + 1];
+
+    static {
+        POW10[0] = 1L;
+        for(int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    /**
+     * The scaled values not less than it may overflow long
+     */
+    private static final double MAX_SCALED = 9.0E18;
+
+    private DoubleFormatUtils() {
+    }
+
+    /**
+     * Format value with {@link #DEFAULT_SCALE}
+     */
+    public static String format(double value) {
+        return append(new StringBuilder(16), value, DEFAULT_SCALE).toString();
+    }
+
+    /**
+     * Format value with at most scale fraction digits
+     */
+    public static String format(double value, int scale) {
+        return append(new StringBuilder(16), value, scale).toString();
+    }
+
+    /**
+     * Round value to at most scale fraction digits, the same rounding as {@link #append(StringBuilder, double, int)}
+     */
+    public static double round(double value, int scale) {
+        if(scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("scale should be in [0, " + MAX_SCALE + "], but it is " + scale);
+        }
+        if(Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) * POW10[scale] >= MAX_SCALED) {
+            return value;
+        }
+        // adding 0 turns -0.0 into 0.0
+        return Math.rint(value * POW10[scale]) / POW10[scale] + 0.0d;
+    }
+
+    /**
+     * Append the value with {@link #DEFAULT_SCALE}
+     */
+    public static StringBuilder append(StringBuilder sb, double value) {
+        return append(sb, value, DEFAULT_SCALE);
+    }
+
+    /**
+     * Append the value with at most scale fraction digits
+     *
+     * @param sb
+     *            - the builder to append to
+     * @param value
+     *            - the value to format
+     * @param scale
+     *            - the max number of fraction digits, in [0, {@link #MAX_SCALE}]
+     * @return the builder
+     */
+    public static StringBuilder append(StringBuilder sb, double value, int scale) {
+        if(scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("scale should be in [0, " + MAX_SCALE + "], but it is " + scale);
+        }
+        if(Double.isNaN(value) || Double.isInfinite(value)) {
+            return sb.append(value);
+        }
+
+        double scaledValue = Math.rint(Math.abs(value) * POW10[scale]);
+        if(scaledValue >= MAX_SCALED) {
+            return appendLarge(sb, value, scale);
+        }
+
+        long scaled = (long) scaledValue;
+        if(scaled == 0L) {
+            return sb.append('0');
+        }
+        if(value < 0) {
+            sb.append('-');
+        }
+
+        sb.append(scaled / POW10[scale]);
+        long fraction = scaled % POW10[scale];
+        if(fraction != 0L) {
+            int digits = scale;
+            while(fraction % 10 == 0) {
+                fraction /= 10;
+                digits--;
+            }
+            sb.append('.');
+            for(long p = POW10[digits - 1]; p > fraction; p /= 10) {
+                sb.append('0');
+            }
+            sb.append(fraction);
+        }
+        return sb;
+    }
+
+    /**
+     * The values too large to scale into long are rare, so BigDecimal is fine
+     */
+    private static StringBuilder appendLarge(StringBuilder sb, double value, int scale) {
+        BigDecimal decimal = new BigDecimal(value).setScale(scale, RoundingMode.HALF_EVEN);
+        String str = decimal.toPlainString();
+        if(str.indexOf('.') >= 0) {
+            int end = str.length();
+            while(str.charAt(end - 1) == '0') {
+                end--;
+            }
+            if(str.charAt(end - 1) == '.') {
+                end--;
+            }
+            return sb.append(str, 0, end);
+        }
+        return sb.append(str);
+    }
+}
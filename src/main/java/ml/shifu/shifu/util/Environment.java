@@ -46,6 +46,11 @@ public class Environment {
     public static final String ZOO_KEEPER_SERVERS = "zookeeperServers";
     public static final String HADOOP_NUM_PARALLEL = "hadoopNumParallel";
     public static final String LOCAL_NUM_PARALLEL = "localNumParallel";
+    public static final String EVAL_NUM_PARALLEL = "evalNumParallel";
+    public static final String TRAIN_NUM_PARALLEL = "trainNumParallel";
+    public static final String PARALLEL_DECOMPRESS = "parallelDecompress";
+    public static final String LOCAL_SPLIT_SIZE_MB = "localSplitSizeMB";
+    public static final String COLUMN_CONFIG_SNAPSHOT = "columnConfigSnapshot";
     public static final String RECORD_CNT_PER_MESSAGE = "recordCntPerMessage";
     public static final String HADOOP_JOB_QUEUE = "hadoopJobQueue";
     
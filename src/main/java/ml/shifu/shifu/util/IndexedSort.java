@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.util;
+
+/**
+ * IndexedSort class sorts data by index, so the parallel primitive arrays are sorted in place without boxing, see
+ * {@link QuickSort} for the list of objects.
+ *
+ * @Dec 24, 2014
+ *
+ */
+public final class IndexedSort {
+
+    /**
+     * The data to sort, accessed by index
+     */
+    public interface Sortable {
+
+        /**
+         * @return negative, zero or positive if the i-th element is less than, equal to or greater than the j-th
+         */
+        int compare(int i, int j);
+
+        /**
+         * swap the i-th and j-th element, in all the parallel arrays
+         */
+        void swap(int i, int j);
+    }
+
+    /**
+     * The small ranges are sorted by insertion sort
+     */
+    private static final int INSERTION_SORT_SIZE = 16;
+
+    private IndexedSort() {
+    }
+
+    /**
+     * Sort the first size elements in place
+     *
+     * @param data - the data to sort
+     * @param size - the number of elements
+     */
+    public static void sort(Sortable data, int size) {
+        if (size > 1) {
+            quicksort(data, 0, size - 1);
+        }
+    }
+
+    private static void quicksort(Sortable data, int low, int high) {
+        while (high - low > INSERTION_SORT_SIZE) {
+            // move the pivot to low, to keep it stable while swapping
+            data.swap(low, low + (high - low) / 2);
+            int i = low + 1, j = high;
+            while (i <= j) {
+                while (i <= j && data.compare(i, low) < 0) {
+                    i++;
+                }
+                while (i <= j && data.compare(j, low) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    data.swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            data.swap(low, j);
+
+            // sort the smaller part recursively, to limit the stack depth
+            if (j - low < high - j) {
+                quicksort(data, low, j - 1);
+                low = j + 1;
+            } else {
+                quicksort(data, j + 1, high);
+                high = j - 1;
+            }
+        }
+
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && data.compare(j - 1, j) > 0; j--) {
+                data.swap(j - 1, j);
+            }
+        }
+    }
+}
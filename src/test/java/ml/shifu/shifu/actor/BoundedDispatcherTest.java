@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.actor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.actor.UntypedActor;
+import akka.actor.UntypedActorFactory;
+
+/**
+ * BoundedDispatcherTest class, the loader -> relay -> slow consumer pipeline of local mode
+ *
+ * @Dec 16, 2014
+ *
+ */
+public class BoundedDispatcherTest {
+
+    private static final int MESSAGES = 100;
+
+    /**
+     * mailbox-capacity in reference.conf
+     */
+    private static final int MAILBOX_CAPACITY = 4;
+
+    @Test
+    public void testLoaderBlocksWhenConsumerIsSlow() throws InterruptedException {
+        ActorSystem actorSystem = ActorSystem.create("BoundedDispatcherTest");
+        final CountDownLatch gate = new CountDownLatch(1);
+        final CountDownLatch consumed = new CountDownLatch(MESSAGES);
+        try {
+            final ActorRef consumerRef = actorSystem.actorOf(new Props(new UntypedActorFactory() {
+                private static final long serialVersionUID = 2918364047383937373L;
+
+                public UntypedActor create() {
+                    return new SlowConsumer(gate, consumed);
+                }
+            }).withDispatcher(AkkaSystemExecutor.BOUNDED_DISPATCHER), "SlowConsumer");
+
+            final ActorRef relayRef = actorSystem.actorOf(new Props(new UntypedActorFactory() {
+                private static final long serialVersionUID = -3361592287036155447L;
+
+                public UntypedActor create() {
+                    return new Relay(consumerRef);
+                }
+            }).withDispatcher(AkkaSystemExecutor.RELAY_DISPATCHER), "Relay");
+
+            final AtomicInteger loaded = new AtomicInteger();
+            Thread loader = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for(int i = 0; i < MESSAGES; i++) {
+                        relayRef.tell(i, null);
+                        loaded.incrementAndGet();
+                    }
+                }
+            });
+            // wait until the actors are started, the messages sent before that are buffered in an unbounded queue
+            Thread.sleep(500L);
+            loader.start();
+
+            Thread.sleep(1000L);
+            // the consumer and the relay each hold one message in hand and a full mailbox, the loader waits
+            Assert.assertTrue(loader.isAlive());
+            Assert.assertTrue(loaded.get() <= 2 * (MAILBOX_CAPACITY + 1), "loaded " + loaded.get());
+
+            gate.countDown();
+            loader.join(10000L);
+            Assert.assertEquals(loaded.get(), MESSAGES);
+            Assert.assertTrue(consumed.await(10, TimeUnit.SECONDS));
+        } finally {
+            gate.countDown();
+            actorSystem.shutdown();
+        }
+    }
+
+    private static class SlowConsumer extends UntypedActor {
+        private final CountDownLatch gate;
+        private final CountDownLatch consumed;
+
+        public SlowConsumer(CountDownLatch gate, CountDownLatch consumed) {
+            this.gate = gate;
+            this.consumed = consumed;
+        }
+
+        @Override
+        public void onReceive(Object message) throws Exception {
+            gate.await();
+            consumed.countDown();
+        }
+    }
+
+    private static class Relay extends UntypedActor {
+        private final ActorRef nextActorRef;
+
+        public Relay(ActorRef nextActorRef) {
+            this.nextActorRef = nextActorRef;
+        }
+
+        @Override
+        public void onReceive(Object message) throws Exception {
+            nextActorRef.tell(message, getSelf());
+        }
+    }
+}
@@ -20,6 +20,7 @@ import ml.shifu.shifu.container.obj.ColumnConfig;
 import ml.shifu.shifu.container.obj.EvalConfig;
 import ml.shifu.shifu.container.obj.ModelConfig;
 import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
+import ml.shifu.shifu.fs.LineReader;
 import ml.shifu.shifu.fs.ShifuFileUtils;
 import ml.shifu.shifu.message.AkkaActorInputMessage;
 import ml.shifu.shifu.util.CommonUtils;
@@ -32,7 +33,6 @@ import org.testng.annotations.Test;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
-import java.util.Scanner;
 
 
 /**
@@ -75,8 +75,8 @@ public class EvalModelActorTest {
             }
         }), "model-evaluator");
 
-        List<Scanner> scanners = ShifuFileUtils.getDataScanners("src/test/resources/example/cancer-judgement/DataStore/EvalSet1", SourceType.LOCAL);
-        modelEvalRef.tell(new AkkaActorInputMessage(scanners), modelEvalRef);
+        List<LineReader> readers = ShifuFileUtils.getDataReaders("src/test/resources/example/cancer-judgement/DataStore/EvalSet1", SourceType.LOCAL);
+        modelEvalRef.tell(new AkkaActorInputMessage(readers), modelEvalRef);
 
         while (!modelEvalRef.isTerminated()) {
             Thread.sleep(5000);
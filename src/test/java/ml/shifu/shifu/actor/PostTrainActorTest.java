@@ -19,8 +19,10 @@ import akka.actor.*;
 import ml.shifu.shifu.container.obj.ColumnConfig;
 import ml.shifu.shifu.container.obj.ModelConfig;
 import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
+import ml.shifu.shifu.fs.LineReader;
 import ml.shifu.shifu.fs.ShifuFileUtils;
 import ml.shifu.shifu.message.AkkaActorInputMessage;
+import ml.shifu.shifu.util.ColumnConfigSnapshot;
 import ml.shifu.shifu.util.CommonUtils;
 import org.apache.commons.io.FileUtils;
 import org.testng.Assert;
@@ -30,7 +32,6 @@ import org.testng.annotations.Test;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
-import java.util.Scanner;
 
 
 /**
@@ -67,8 +68,8 @@ public class PostTrainActorTest {
         }), "post-trainer");
 
 
-        List<Scanner> scanners = ShifuFileUtils.getDataScanners("src/test/resources/example/cancer-judgement/DataStore/DataSet1", SourceType.LOCAL);
-        postTrainRef.tell(new AkkaActorInputMessage(scanners), postTrainRef);
+        List<LineReader> readers = ShifuFileUtils.getDataReaders("src/test/resources/example/cancer-judgement/DataStore/DataSet1", SourceType.LOCAL);
+        postTrainRef.tell(new AkkaActorInputMessage(readers), postTrainRef);
 
         while (!postTrainRef.isTerminated()) {
             Thread.sleep(5000);
@@ -78,6 +79,7 @@ public class PostTrainActorTest {
         Assert.assertTrue(file.exists());
 
         FileUtils.deleteQuietly(file);
+        FileUtils.deleteQuietly(new File(ColumnConfigSnapshot.getSnapshotPath(file.getPath())));
         FileUtils.deleteDirectory(tmpModels);
         FileUtils.deleteDirectory(tmpCommon);
     }
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.actor;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * StreamTrackerTest class
+ *
+ * @Dec 16, 2014
+ *
+ */
+public class StreamTrackerTest {
+
+    @Test
+    public void testOutOfOrder() {
+        StreamTracker tracker = new StreamTracker();
+        Assert.assertFalse(tracker.receive(1, 2, 0, true));
+        Assert.assertFalse(tracker.receive(0, 2, 2, true));
+        Assert.assertFalse(tracker.receive(0, 2, 0, false));
+        Assert.assertTrue(tracker.receive(0, 2, 1, false));
+    }
+
+    @Test
+    public void testSingleMessage() {
+        StreamTracker tracker = new StreamTracker();
+        Assert.assertTrue(tracker.receive(0, 1, 0, true));
+    }
+}
@@ -23,6 +23,7 @@ import ml.shifu.shifu.core.AbstractTrainer;
 import ml.shifu.shifu.core.alg.LogisticRegressionTrainer;
 import ml.shifu.shifu.core.alg.NNTrainer;
 import ml.shifu.shifu.core.alg.SVMTrainer;
+import ml.shifu.shifu.fs.LineReader;
 import ml.shifu.shifu.fs.ShifuFileUtils;
 import ml.shifu.shifu.message.AkkaActorInputMessage;
 import ml.shifu.shifu.util.CommonUtils;
@@ -35,7 +36,6 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Scanner;
 
 
 /**
@@ -69,8 +69,8 @@ public class TrainModelActorTest {
         }), "normalize-calculator");
 
 
-        List<Scanner> scanners = ShifuFileUtils.getDataScanners("src/test/resources/example/cancer-judgement/DataStore/DataSet1", SourceType.LOCAL);
-        normalizeRef.tell(new AkkaActorInputMessage(scanners), normalizeRef);
+        List<LineReader> readers = ShifuFileUtils.getDataReaders("src/test/resources/example/cancer-judgement/DataStore/DataSet1", SourceType.LOCAL);
+        normalizeRef.tell(new AkkaActorInputMessage(readers), normalizeRef);
 
         while (!normalizeRef.isTerminated()) {
             Thread.sleep(5000);
@@ -108,15 +108,15 @@ public class TrainModelActorTest {
             }
         }), "trainer");
 
-        scanners = ShifuFileUtils.getDataScanners("./tmp/NormalizedData", SourceType.LOCAL);
-        modelTrainRef.tell(new AkkaActorInputMessage(scanners), modelTrainRef);
+        readers = ShifuFileUtils.getDataReaders("./tmp/NormalizedData", SourceType.LOCAL);
+        modelTrainRef.tell(new AkkaActorInputMessage(readers), modelTrainRef);
 
         while (!modelTrainRef.isTerminated()) {
             Thread.sleep(5000);
         }
 
-        for (Scanner scanner : scanners) {
-            scanner.close();
+        for (LineReader reader : readers) {
+            reader.close();
         }
 
         File model0 = new File("./models/model0.nn");
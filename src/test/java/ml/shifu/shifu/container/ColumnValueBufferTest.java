@@ -0,0 +1,79 @@
+/**
+ * Copyright [2012-2014] eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.container;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * ColumnValueBufferTest class
+ */
+public class ColumnValueBufferTest {
+
+    private List<String> posTags = Arrays.asList("1");
+    private List<String> negTags = Arrays.asList("0");
+
+    @Test
+    public void testSortByValue() {
+        Random rdm = new Random(100);
+        ColumnValueBuffer buffer = new ColumnValueBuffer();
+        for (int i = 0; i < 10000; i++) {
+            byte label = ColumnValueBuffer.toLabel(Integer.toString(rdm.nextInt(3)), posTags, negTags);
+            double value = rdm.nextInt(1000);
+            // weight is bound to value, so it must move together with value
+            buffer.add(value, label, value * 2);
+        }
+
+        buffer.sortByValue();
+
+        Assert.assertEquals(buffer.size(), 10000);
+        for (int i = 1; i < buffer.size(); i++) {
+            Assert.assertTrue(buffer.getValue(i - 1) <= buffer.getValue(i));
+            if (buffer.getValue(i - 1) == buffer.getValue(i)) {
+                Assert.assertTrue(buffer.getLabel(i - 1) <= buffer.getLabel(i));
+            }
+            Assert.assertEquals(buffer.getWeight(i), buffer.getValue(i) * 2);
+        }
+    }
+
+    @Test
+    public void testCategoryAndAppend() {
+        ColumnValueBuffer buffer = new ColumnValueBuffer(1);
+        buffer.addRaw("a", ColumnValueBuffer.LABEL_POS, 1.0);
+        buffer.addRaw("b", ColumnValueBuffer.LABEL_NEG, 1.0);
+        buffer.add(0.5, ColumnValueBuffer.LABEL_OTHER, 1.0);
+
+        ColumnValueBuffer another = new ColumnValueBuffer();
+        another.addRaw("c", ColumnValueBuffer.LABEL_POS, 2.0);
+        another.addRaw("a", ColumnValueBuffer.LABEL_NEG, 2.0);
+
+        buffer.append(another);
+
+        Assert.assertEquals(buffer.size(), 5);
+        Assert.assertEquals(buffer.getCategories(), Arrays.asList("a", "b", "c"));
+        Assert.assertEquals(buffer.getRaw(3), "c");
+        Assert.assertEquals(buffer.getCategoryId(4), buffer.getCategoryId(0));
+        Assert.assertEquals(buffer.getWeight(4), 2.0);
+        Assert.assertFalse(buffer.hasRaw(2));
+        Assert.assertNull(buffer.getRaw(2));
+        Assert.assertFalse(buffer.hasValue(0));
+        Assert.assertTrue(buffer.hasValue(2));
+    }
+}
@@ -110,6 +110,43 @@ public class AbstractTrainerTest {
 
     }
 
+    @Test
+    public void testIndexedViews() throws IOException {
+        BasicMLDataSet set = new BasicMLDataSet();
+        for (int j = 0; j < 1000; j++) {
+            set.add(new BasicMLDataPair(new BasicMLData(new double[]{j}), new BasicMLData(new double[]{j % 2})));
+        }
+
+        ModelConfig modelConfig = CommonUtils.loadModelConfig(
+                "src/test/resources/example/cancer-judgement/ModelStore/ModelSet1/ModelConfig.json",
+                SourceType.LOCAL);
+        modelConfig.getTrain().setTrainOnDisk(false);
+        modelConfig.getTrain().setFixInitInput(false);
+        modelConfig.getTrain().setBaggingWithReplacement(false);
+
+        AbstractTrainer trainer = new NNTrainer(modelConfig, 0, false);
+        trainer.setDataSet(set);
+
+        Assert.assertTrue(trainer.getTrainSet() instanceof IndexedMLDataSet);
+        Assert.assertTrue(trainer.getValidSet() instanceof IndexedMLDataSet);
+
+        // the views share the master records, and there is no duplicate without replacement
+        boolean[] selected = new boolean[1000];
+        for (MLDataSet view : new MLDataSet[]{trainer.getTrainSet(), trainer.getValidSet()}) {
+            for (MLDataPair pair : view) {
+                int index = (int) pair.getInputArray()[0];
+                Assert.assertSame(pair, set.getData().get(index));
+                Assert.assertFalse(selected[index]);
+                selected[index] = true;
+            }
+        }
+
+        MLDataPair pair = BasicMLDataPair.createPair(1, 1);
+        trainer.getTrainSet().getRecord(0, pair);
+        Assert.assertEquals(pair.getInputArray()[0], (double) ((IndexedMLDataSet) trainer.getTrainSet())
+                .getMasterIndex(0));
+    }
+
     @AfterClass
     public void delete() throws IOException {
         File json = new File(".");
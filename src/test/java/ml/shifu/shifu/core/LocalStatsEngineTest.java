@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import ml.shifu.shifu.container.obj.ColumnConfig;
+import ml.shifu.shifu.container.obj.ColumnConfig.ColumnType;
+import ml.shifu.shifu.container.obj.ModelConfig;
+import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
+import ml.shifu.shifu.exception.ShifuException;
+import ml.shifu.shifu.fs.LineReader;
+import ml.shifu.shifu.util.CommonUtils;
+
+import org.apache.commons.lang.StringUtils;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * LocalStatsEngineTest class
+ *
+ * @Dec 4, 2014
+ *
+ */
+public class LocalStatsEngineTest {
+
+    private static final String DATA_FILE = "src/test/resources/example/cancer-judgement/DataStore/DataSet1/part-00";
+
+    private ModelConfig modelConfig;
+    private List<ColumnConfig> columnConfigList;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        modelConfig = CommonUtils.loadModelConfig(
+                "src/test/resources/example/cancer-judgement/ModelStore/ModelSet1/ModelConfig.json", SourceType.LOCAL);
+        columnConfigList = CommonUtils.loadColumnConfigList(
+                "src/test/resources/example/cancer-judgement/ModelStore/ModelSet1/ColumnConfig.json",
+                SourceType.LOCAL);
+        modelConfig.getStats().setSampleRate(1.0);
+        modelConfig.getStats().setSampleNegOnly(false);
+    }
+
+    @Test
+    public void testCalculate() throws IOException {
+        List<LineReader> readers = new ArrayList<LineReader>();
+        readers.add(new LineReader(new FileInputStream(DATA_FILE)));
+        readers.add(new LineReader(new FileInputStream(DATA_FILE)));
+
+        new LocalStatsEngine(modelConfig, columnConfigList, 3, 50).calculate(readers);
+
+        ColumnConfig config = columnConfigList.get(1);
+        Assert.assertTrue(config.getBinBoundary().size() > 1);
+        Assert.assertEquals(config.getBinLength(), config.getBinCountNeg().size());
+        Assert.assertTrue(config.getMean() > config.getColumnStats().getMin());
+        Assert.assertTrue(config.getColumnStats().getMax() > config.getMean());
+        Assert.assertTrue(config.getKs() > 0);
+        Assert.assertTrue(config.getIv() > 0);
+
+        long total = 0;
+        for(Integer cnt: config.getBinCountPos()) {
+            total += cnt;
+        }
+        for(Integer cnt: config.getBinCountNeg()) {
+            total += cnt;
+        }
+
+        LineReader reader = new LineReader(new FileInputStream(DATA_FILE));
+        long lines = 0;
+        while(reader.readLine() != null) {
+            lines++;
+        }
+        reader.close();
+        // the same file is read twice
+        Assert.assertEquals(total, lines * 2);
+    }
+
+    @Test
+    public void testAutoType() throws IOException {
+        columnConfigList.get(1).setColumnType(ColumnType.A);
+        columnConfigList.get(2).setColumnType(ColumnType.A);
+
+        // column 2 holds strings
+        StringBuilder data = new StringBuilder();
+        LineReader reader = new LineReader(new FileInputStream(DATA_FILE));
+        String line;
+        for(int i = 0; (line = reader.readLine()) != null; i++) {
+            String[] fields = line.split("\\|", -1);
+            fields[2] = (i % 2 == 0 ? "low" : "high");
+            data.append(StringUtils.join(fields, '|')).append('\n');
+        }
+        reader.close();
+
+        List<LineReader> readers = new ArrayList<LineReader>();
+        readers.add(LineReader.of(data.toString()));
+        new LocalStatsEngine(modelConfig, columnConfigList, 2, 50).calculate(readers);
+
+        Assert.assertEquals(columnConfigList.get(1).getColumnType(), ColumnType.N);
+        Assert.assertTrue(columnConfigList.get(1).getBinBoundary().size() > 1);
+        Assert.assertEquals(columnConfigList.get(2).getColumnType(), ColumnType.C);
+        Assert.assertTrue(columnConfigList.get(2).getBinCategory().contains("low"));
+        Assert.assertEquals(columnConfigList.get(2).getMissingCount(), Long.valueOf(0L));
+    }
+
+    @Test(expectedExceptions = ShifuException.class)
+    public void testColumnMismatch() throws IOException {
+        List<LineReader> readers = new ArrayList<LineReader>();
+        readers.add(LineReader.of("M|1.0|2.0\nB|3.0|4.0\n"));
+
+        new LocalStatsEngine(modelConfig, columnConfigList, 2, 1).calculate(readers);
+    }
+}
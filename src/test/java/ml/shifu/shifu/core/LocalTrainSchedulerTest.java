@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core;
+
+import ml.shifu.shifu.util.Environment;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+/**
+ * LocalTrainSchedulerTest class
+ *
+ * @Dec 15, 2014
+ *
+ */
+public class LocalTrainSchedulerTest {
+
+    @Test
+    public void testDefaultConcurrency() {
+        int cores = LocalTrainScheduler.getNumCores();
+        Assert.assertEquals(LocalTrainScheduler.getBagConcurrency(1), 1);
+        Assert.assertEquals(LocalTrainScheduler.getThreadsPerBag(1), cores);
+        Assert.assertEquals(LocalTrainScheduler.getBagConcurrency(cores * 2), cores);
+        Assert.assertEquals(LocalTrainScheduler.getThreadsPerBag(cores * 2), 1);
+    }
+
+    @Test
+    public void testConfiguredConcurrency() {
+        Environment.getProperties().setProperty(Environment.TRAIN_NUM_PARALLEL, "2");
+        int cores = LocalTrainScheduler.getNumCores();
+        Assert.assertEquals(LocalTrainScheduler.getBagConcurrency(5), 2);
+        Assert.assertEquals(LocalTrainScheduler.getThreadsPerBag(5), Math.max(1, cores / 2));
+        Assert.assertEquals(LocalTrainScheduler.getBagConcurrency(1), 1);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        Environment.getProperties().remove(Environment.TRAIN_NUM_PARALLEL);
+    }
+}
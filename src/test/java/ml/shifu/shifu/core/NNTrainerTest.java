@@ -132,6 +132,28 @@ public class NNTrainerTest {
         Assert.assertEquals(bn.getLayerCount(), (Integer) (config.getTrain().getParams().get("NumHiddenLayers")) + 2 /*add input output*/);
     }
 
+    @Test
+    public void testMSEWorkersReused() throws IOException {
+        MLDataSet dataSet = new BasicMLDataSet();
+        for (int i = 0; i < 1000; i++) {
+            dataSet.add(new BasicMLData(new double[]{(i % 7) / 7.0, (i % 3) / 3.0}),
+                    new BasicMLData(new double[]{i % 2}));
+        }
+
+        NNTrainer trainer = new NNTrainer(ModelConfig.createInitModelConfig(".", ALGORITHM.NN, "."), 0, false);
+        trainer.setThreadCount(4);
+        for (int epoch = 0; epoch < 3; epoch++) {
+            network.reset();
+
+            double expected = 0.0;
+            for (MLDataPair pair : dataSet) {
+                double diff = network.compute(pair.getInput()).getData(0) - pair.getIdeal().getData(0);
+                expected += diff * diff;
+            }
+            Assert.assertEquals(trainer.calculateMSEParallel(network, dataSet), expected / 1000, 1e-10);
+        }
+    }
+
     @Test(expectedExceptions = RuntimeException.class)
     public void testExceptionWhileSetupModel() throws IOException {
         ModelConfig config = ModelConfig.createInitModelConfig(".", ALGORITHM.NN, ".");
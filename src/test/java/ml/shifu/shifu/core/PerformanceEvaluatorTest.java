@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import ml.shifu.shifu.container.obj.PerformanceResult;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * PerformanceEvaluatorTest class
+ *
+ * @Dec 9, 2014
+ *
+ */
+public class PerformanceEvaluatorTest {
+
+    @Test
+    public void testMetrics() {
+        Random rd = new Random(100);
+        ScoreHistogram histogram = new ScoreHistogram();
+        List<double[]> records = new ArrayList<double[]>();
+        for(int i = 0; i < 5000; i++) {
+            double score = rd.nextInt(Scorer.SCORE_SCALE + 1);
+            boolean isPos = rd.nextDouble() < score / Scorer.SCORE_SCALE;
+            histogram.add(score, isPos, 1.0);
+            records.add(new double[] { score, isPos ? 1.0 : 0.0 });
+        }
+
+        PerformanceEvaluator evaluator = new PerformanceEvaluator(null, null);
+        PerformanceResult result = evaluator.bucketing(histogram.toConfusionMatrix(), records.size(), 10, false);
+
+        // brute-force AUC and log-loss
+        double correct = 0.0, pairs = 0.0, logLoss = 0.0;
+        for(double[] pos: records) {
+            double p = Math.min(1.0 - 1e-15, Math.max(1e-15, pos[0] / Scorer.SCORE_SCALE));
+            logLoss -= pos[1] > 0 ? Math.log(p) : Math.log(1.0 - p);
+            if(pos[1] == 0.0) {
+                continue;
+            }
+            for(double[] neg: records) {
+                if(neg[1] == 0.0) {
+                    pairs += 1.0;
+                    correct += pos[0] > neg[0] ? 1.0 : (pos[0] == neg[0] ? 0.5 : 0.0);
+                }
+            }
+        }
+
+        Assert.assertEquals(result.areaUnderRoc, correct / pairs, 1e-9);
+        Assert.assertEquals(result.weightedAreaUnderRoc, result.areaUnderRoc, 1e-9);
+        Assert.assertEquals(result.logLoss, logLoss / records.size(), 1e-9);
+        Assert.assertTrue(result.ks > 0.0 && result.ks < 1.0);
+        Assert.assertTrue(result.areaUnderPr > 0.5 && result.areaUnderPr < 1.0);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core;
+
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * QuantileSketchTest class
+ *
+ * @Dec 3, 2014
+ *
+ */
+public class QuantileSketchTest {
+
+    @Test
+    public void testQuantile() {
+        QuantileSketch sketch = new QuantileSketch();
+        Random rd = new Random(100);
+        for(int i = 0; i < 200000; i++) {
+            sketch.add(rd.nextDouble() * 100);
+        }
+
+        Assert.assertTrue(sketch.getCentroidCount() <= QuantileSketch.DEFAULT_COMPRESSION);
+        Assert.assertEquals(sketch.getTotalWeight(), 200000.0, 1e-6);
+        Assert.assertEquals(sketch.getMedian(), 50.0, 1.0);
+        Assert.assertEquals(sketch.getQuantile(0.01), 1.0, 0.2);
+        Assert.assertEquals(sketch.getQuantile(0.99), 99.0, 0.2);
+
+        double[] quantiles = sketch.getQuantiles(3);
+        Assert.assertEquals(quantiles[0], sketch.getMin());
+        Assert.assertEquals(quantiles[2], sketch.getMax());
+    }
+
+    @Test
+    public void testWeightedAdd() {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(0.1, 10000000);
+        sketch.add(0.3, 20000000);
+        sketch.add(0.8, 5000000);
+
+        Assert.assertEquals(sketch.getCentroidCount(), 3);
+        Assert.assertEquals(sketch.getMedian(), 0.3);
+        Assert.assertEquals(sketch.getQuantile(0.2), 0.1);
+        Assert.assertEquals(sketch.getQuantile(0.9), 0.8);
+
+        StreamStatsCalculator calculator = new StreamStatsCalculator(1e6);
+        calculator.addData(0.1, 10000000);
+        calculator.addData(0.3, 20000000);
+        calculator.addData(0.8, 5000000);
+        Assert.assertEquals(calculator.getMedian(), 0.3);
+    }
+
+    @Test
+    public void testEmpty() {
+        QuantileSketch sketch = new QuantileSketch();
+        Assert.assertTrue(Double.isNaN(sketch.getMedian()));
+        Assert.assertEquals(sketch.getQuantiles(3).length, 0);
+    }
+}
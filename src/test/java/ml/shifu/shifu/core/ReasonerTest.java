@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ml.shifu.shifu.container.obj.ColumnConfig;
+import ml.shifu.shifu.container.obj.ColumnConfig.ColumnType;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * ReasonerTest class
+ *
+ * @Dec 11, 2014
+ *
+ */
+public class ReasonerTest {
+
+    @Test
+    public void testTopReasonCodes() {
+        List<ColumnConfig> columnConfigList = new ArrayList<ColumnConfig>();
+        Map<String, String> reasonCodeMap = new HashMap<String, String>();
+        for(int i = 0; i < 8; i++) {
+            ColumnConfig config = new ColumnConfig();
+            config.setColumnNum(i);
+            config.setColumnName("col" + i);
+            config.setFinalSelect(i != 7);
+            if(i % 2 == 0) {
+                config.setColumnType(ColumnType.N);
+                config.setBinBoundary(Arrays.asList(new Double[] { Double.NEGATIVE_INFINITY, 10.0 }));
+            } else {
+                config.setColumnType(ColumnType.C);
+                config.setBinCategory(Arrays.asList(new String[] { "a", "b" }));
+            }
+            config.setBinAvgScore(Arrays.asList(new Integer[] { 100 * i, 1000 - 100 * i }));
+            columnConfigList.add(config);
+            reasonCodeMap.put("col" + i, "R" + (i % 6));
+        }
+
+        Map<String, String> rawDataMap = new HashMap<String, String>();
+        for(int i = 0; i < 8; i++) {
+            rawDataMap.put("col" + i, i % 2 == 0 ? "1" : "a");
+        }
+
+        Reasoner reasoner = new Reasoner(reasonCodeMap);
+        reasoner.setNumTopVariables(3);
+        reasoner.calculateReasonCodes(columnConfigList, rawDataMap);
+        // col7 isn't selected, so the top are col6, col5, col4
+        List<String> firstReasonCodes = reasoner.getReasonCodes();
+        Assert.assertEquals(firstReasonCodes, Arrays.asList("R0", "R5", "R4"));
+
+        // the reasoner is reused for next record, col0 and col1 are the top
+        for(int i = 0; i < 8; i++) {
+            rawDataMap.put("col" + i, i % 2 == 0 ? "20" : "b");
+        }
+        reasoner.calculateReasonCodes(columnConfigList, rawDataMap);
+        Assert.assertEquals(reasoner.getReasonCodes(), Arrays.asList("R0", "R1", "R2"));
+        // the result of the first record is not changed
+        Assert.assertEquals(firstReasonCodes, Arrays.asList("R0", "R5", "R4"));
+        Assert.assertEquals(((List<?>) reasoner.getReasonDetails().get("details")).size(), 3);
+    }
+}
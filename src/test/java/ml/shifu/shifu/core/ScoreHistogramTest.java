@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core;
+
+import java.util.List;
+import java.util.Random;
+
+import ml.shifu.shifu.container.ConfusionMatrixObject;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * ScoreHistogramTest class
+ *
+ * @Dec 8, 2014
+ *
+ */
+public class ScoreHistogramTest {
+
+    @Test
+    public void testConfusionMatrix() {
+        ScoreHistogram histogram = new ScoreHistogram();
+        histogram.add(900, true, 2.0);
+        histogram.add(900, false, 1.0);
+        histogram.add(500, true, 1.0);
+        histogram.add(100, false, 1.0);
+        histogram.add(100, false, 3.0);
+
+        List<ConfusionMatrixObject> matrixList = histogram.toConfusionMatrix();
+        Assert.assertEquals(matrixList.size(), 4);
+
+        ConfusionMatrixObject init = matrixList.get(0);
+        Assert.assertEquals(init.getScore(), 900.0);
+        Assert.assertEquals(init.getFn(), 2.0);
+        Assert.assertEquals(init.getTn(), 3.0);
+        Assert.assertEquals(init.getWeightedTn(), 5.0);
+
+        ConfusionMatrixObject first = matrixList.get(1);
+        Assert.assertEquals(first.getScore(), 900.0);
+        Assert.assertEquals(first.getTp(), 1.0);
+        Assert.assertEquals(first.getFp(), 1.0);
+        Assert.assertEquals(first.getWeightedTp(), 2.0);
+
+        ConfusionMatrixObject last = matrixList.get(3);
+        Assert.assertEquals(last.getScore(), 100.0);
+        Assert.assertEquals(last.getTp(), 2.0);
+        Assert.assertEquals(last.getFp(), 3.0);
+        Assert.assertEquals(last.getFn(), 0.0);
+        Assert.assertEquals(last.getTn(), 0.0);
+    }
+
+    @Test
+    public void testMergeAndSerialize() {
+        Random rd = new Random(100);
+        ScoreHistogram whole = new ScoreHistogram();
+        ScoreHistogram merged = new ScoreHistogram();
+        for(int i = 0; i < 10; i++) {
+            ScoreHistogram partial = new ScoreHistogram();
+            for(int j = 0; j < 1000; j++) {
+                double score = rd.nextInt(1001);
+                boolean isPos = rd.nextDouble() < score / 1000;
+                partial.add(score, isPos, 1.0);
+                whole.add(score, isPos, 1.0);
+            }
+
+            ScoreHistogram copy = new ScoreHistogram();
+            copy.stringToObj(partial.objToString());
+            merged.merge(copy);
+        }
+
+        Assert.assertEquals(merged.getRecordCount(), 10000L);
+        Assert.assertEquals(merged.objToString(), whole.objToString());
+        Assert.assertTrue(merged.size() <= 1001);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import ml.shifu.shifu.container.CaseScoreResult;
+import ml.shifu.shifu.container.ScoreObject;
+import ml.shifu.shifu.container.obj.ColumnConfig;
+import ml.shifu.shifu.container.obj.ModelConfig;
+import ml.shifu.shifu.container.obj.ModelTrainConf.ALGORITHM;
+import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
+import ml.shifu.shifu.util.CommonUtils;
+
+import org.apache.commons.io.FileUtils;
+import org.encog.ml.BasicML;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * ShifuScorerTest class
+ *
+ * @Dec 11, 2014
+ *
+ */
+public class ShifuScorerTest {
+
+    private static final String MODEL_SET = "src/test/resources/example/cancer-judgement/ModelStore/ModelSet1/";
+
+    private ShifuScorer scorer;
+    private ModelRunner runner;
+    private String[] records;
+
+    @BeforeClass
+    public void setUp() throws IOException {
+        ModelConfig modelConfig = CommonUtils.loadModelConfig(MODEL_SET + "ModelConfig.json", SourceType.LOCAL);
+        List<ColumnConfig> columnConfigList = CommonUtils.loadColumnConfigList(MODEL_SET + "ColumnConfig.json",
+                SourceType.LOCAL);
+        String[] header = CommonUtils.getHeaders(
+                "src/test/resources/example/cancer-judgement/DataStore/DataSet1/.pig_header", "|", SourceType.LOCAL);
+        List<BasicML> models = CommonUtils.loadBasicModels(MODEL_SET + "models", ALGORITHM.NN);
+
+        scorer = new ShifuScorer(modelConfig, columnConfigList, header, "|", models);
+        runner = new ModelRunner(modelConfig, columnConfigList, header, "|", models);
+
+        List<String> lines = FileUtils.readLines(new File(
+                "src/test/resources/example/cancer-judgement/DataStore/DataSet1/part-00"));
+        records = lines.subList(0, 100).toArray(new String[100]);
+    }
+
+    @Test
+    public void testScoreRecord() {
+        StringBuilder buf = new StringBuilder("1");
+        for(int i = 1; i < 31; i++) {
+            buf.append("|1");
+        }
+
+        // the same as FullScoreUDFTest
+        ScoreObject so = scorer.score(scorer.normalize(buf.toString()));
+        Assert.assertEquals(so.getMeanScore(), Integer.valueOf(42));
+        Assert.assertEquals(so.getMaxScore(), Integer.valueOf(74));
+        Assert.assertEquals(so.getMinScore(), Integer.valueOf(5));
+        Assert.assertEquals(so.getMedianScore(), Integer.valueOf(36));
+
+        Assert.assertNull(scorer.normalize("1|1|1"));
+    }
+
+    @Test
+    public void testScoreBatch() {
+        ScoreObject[] results = scorer.score(records);
+        Assert.assertEquals(results.length, records.length);
+        for(int i = 0; i < records.length; i++) {
+            CaseScoreResult expected = runner.compute(records[i]);
+            Assert.assertEquals(results[i].getScores(), expected.getScores());
+        }
+    }
+
+    @Test
+    public void testScoreConcurrently() throws Exception {
+        final ScoreObject[] expected = scorer.score(records);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+            for(int t = 0; t < 8; t++) {
+                futures.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        for(int round = 0; round < 20; round++) {
+                            ScoreObject[] results = scorer.score(records);
+                            for(int i = 0; i < results.length; i++) {
+                                if(!results[i].getScores().equals(expected[i].getScores())) {
+                                    return false;
+                                }
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+
+            for(Future<Boolean> future: futures) {
+                Assert.assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
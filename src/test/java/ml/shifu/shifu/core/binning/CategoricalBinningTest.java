@@ -17,7 +17,11 @@
  */
 package ml.shifu.shifu.core.binning;
 
+import java.util.List;
+
 import junit.framework.Assert;
+import ml.shifu.shifu.container.obj.ColumnConfig;
+import ml.shifu.shifu.container.obj.ColumnConfig.ColumnType;
 
 import org.testng.annotations.Test;
 
@@ -34,7 +38,31 @@ public class CategoricalBinningTest {
         CategoricalBinning binning = new CategoricalBinning(10);
         String binStr = binning.objToString();
         String[] fieldArr = binStr.split(Character.toString(AbstractBinning.FIELD_SEPARATOR), -1);
-        Assert.assertTrue(fieldArr.length == 6);
+        Assert.assertTrue(fieldArr.length == 7);
+    }
+
+    @Test
+    public void testTopCategories() {
+        CategoricalBinning binning = new CategoricalBinning(-1);
+        CategoricalBinning another = new CategoricalBinning(-1);
+        for ( int i = 0; i < 10000; i ++ ) {
+            binning.addData("ID" + i);
+            binning.addData("HOT");
+            another.addData("ID" + (i + 10000));
+        }
+
+        ColumnConfig columnConfig = new ColumnConfig();
+        columnConfig.setColumnType(ColumnType.C);
+        CategoricalBinning merged = (CategoricalBinning) AbstractBinning.constructBinningFromStr(null, columnConfig,
+                binning.objToString());
+        merged.mergeBin(another);
+
+        List<String> bins = merged.getDataBin();
+        Assert.assertTrue(merged.isCapped());
+        Assert.assertEquals(bins.size(), CategoricalBinning.MAX_TOP_CATEGORIES + 1);
+        Assert.assertTrue(bins.contains("HOT"));
+        Assert.assertTrue(bins.contains(CategoricalBinning.OTHER_CATEGORY));
+        Assert.assertEquals(merged.getDistinctCount(), 20001.0, 20001 * 0.05);
     }
     
 }
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core.binning;
+
+import java.util.List;
+import java.util.Random;
+
+import ml.shifu.shifu.container.obj.ColumnConfig;
+import ml.shifu.shifu.container.obj.ColumnConfig.ColumnType;
+import ml.shifu.shifu.container.obj.ModelConfig;
+import ml.shifu.shifu.container.obj.ModelStatsConf.BinningMethod;
+import ml.shifu.shifu.util.CommonUtils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * StatsSketchTest class
+ *
+ * @Dec 2, 2014
+ *
+ */
+public class StatsSketchTest {
+
+    @Test
+    public void testNumericalSketch() {
+        Random rd = new Random(100);
+        NumericalStatsSketch sketch = new NumericalStatsSketch(10, BinningMethod.EqualTotal, Double.MAX_VALUE);
+        for ( int i = 0; i < 100000; i ++ ) {
+            sketch.addData(Double.toString(rd.nextDouble() * 1000),
+                    (i % 10 == 0 ? AbstractStatsSketch.LABEL_POS : AbstractStatsSketch.LABEL_NEG), 1.0);
+        }
+        sketch.addData("", AbstractStatsSketch.LABEL_NEG, 1.0);
+        sketch.addData("abc", AbstractStatsSketch.LABEL_NEG, 1.0);
+
+        List<Double> binBoundary = sketch.getDataBin();
+        Assert.assertEquals(binBoundary.size(), 10);
+        Assert.assertEquals(binBoundary.get(0), Double.NEGATIVE_INFINITY);
+        Assert.assertEquals(binBoundary.get(5), 500.0, 10.0);
+        Assert.assertEquals(sketch.getMedian(), 500.0, 10.0);
+        Assert.assertEquals(sketch.getMean(), 500.0, 10.0);
+
+        ColumnConfig columnConfig = new ColumnConfig();
+        columnConfig.setColumnType(ColumnType.N);
+        sketch.populateColumnConfig(columnConfig);
+
+        int totalPos = 0, totalNeg = 0;
+        for ( int i = 0; i < columnConfig.getBinCountPos().size(); i ++ ) {
+            totalPos += columnConfig.getBinCountPos().get(i);
+            totalNeg += columnConfig.getBinCountNeg().get(i);
+            Assert.assertEquals(columnConfig.getBinCountPos().get(i) + columnConfig.getBinCountNeg().get(i), 10000, 500);
+        }
+        Assert.assertEquals(totalPos, 10000);
+        Assert.assertEquals(totalNeg, 90000);
+        Assert.assertEquals(columnConfig.getMissingCount().longValue(), 2L);
+        Assert.assertEquals(columnConfig.getTotalCount().longValue(), 100002L);
+    }
+
+    @Test
+    public void testNumericalSketchMerge() {
+        ModelConfig modelConfig = new ModelConfig();
+        modelConfig.getStats().setBinningMethod(BinningMethod.EqualPositive);
+        ColumnConfig columnConfig = new ColumnConfig();
+        columnConfig.setColumnType(ColumnType.N);
+
+        Random rd = new Random(200);
+        AbstractStatsSketch whole = AbstractStatsSketch.newSketch(modelConfig, columnConfig);
+        AbstractStatsSketch merged = AbstractStatsSketch.newSketch(modelConfig, columnConfig);
+        for ( int i = 0; i < 10; i ++ ) {
+            AbstractStatsSketch partial = AbstractStatsSketch.newSketch(modelConfig, columnConfig);
+            for ( int j = 0; j < 5000; j ++ ) {
+                String val = Double.toString(rd.nextGaussian());
+                byte label = (rd.nextInt(5) == 0 ? AbstractStatsSketch.LABEL_POS : AbstractStatsSketch.LABEL_NEG);
+                partial.addData(val, label, 2.0);
+                whole.addData(val, label, 2.0);
+            }
+
+            // go through serialization, as it does in combiner
+            merged.mergeSketch(AbstractStatsSketch.constructSketchFromStr(modelConfig, columnConfig,
+                    partial.objToString()));
+        }
+
+        Assert.assertEquals(merged.getTotalValCnt(), whole.getTotalValCnt());
+        Assert.assertEquals(((NumericalStatsSketch) merged).getMean(), ((NumericalStatsSketch) whole).getMean(), 1e-6);
+        Assert.assertEquals(((NumericalStatsSketch) merged).getMedian(), 0.0, 0.1);
+
+        List<Double> mergedBins = ((NumericalStatsSketch) merged).getDataBin();
+        List<Double> wholeBins = ((NumericalStatsSketch) whole).getDataBin();
+        Assert.assertEquals(mergedBins.size(), wholeBins.size());
+        for ( int i = 1; i < mergedBins.size(); i ++ ) {
+            Assert.assertEquals(mergedBins.get(i), wholeBins.get(i), 0.1);
+        }
+
+        merged.populateColumnConfig(columnConfig);
+        double weightedPos = 0.0;
+        for ( Double weight : columnConfig.getBinWeightedPos() ) {
+            weightedPos += weight;
+        }
+        int countPos = 0;
+        for ( Integer count : columnConfig.getBinCountPos() ) {
+            countPos += count;
+        }
+        Assert.assertEquals(weightedPos, countPos * 2.0, 1e-6);
+    }
+
+    @Test
+    public void testCategoricalSketch() {
+        ModelConfig modelConfig = new ModelConfig();
+        ColumnConfig columnConfig = new ColumnConfig();
+        columnConfig.setColumnType(ColumnType.C);
+
+        AbstractStatsSketch sketch = AbstractStatsSketch.newSketch(modelConfig, columnConfig);
+        AbstractStatsSketch another = AbstractStatsSketch.newSketch(modelConfig, columnConfig);
+        for ( int i = 0; i < 100; i ++ ) {
+            sketch.addData("A", (i % 2 == 0 ? AbstractStatsSketch.LABEL_POS : AbstractStatsSketch.LABEL_NEG), 1.0);
+            another.addData("B", (i % 4 == 0 ? AbstractStatsSketch.LABEL_POS : AbstractStatsSketch.LABEL_NEG), 1.0);
+            another.addData(" ", AbstractStatsSketch.LABEL_NEG, 1.0);
+        }
+        sketch.mergeSketch(AbstractStatsSketch.constructSketchFromStr(modelConfig, columnConfig,
+                another.objToString()));
+        sketch.populateColumnConfig(columnConfig);
+
+        Assert.assertEquals(columnConfig.getBinCategory().get(0), "B");
+        Assert.assertEquals(columnConfig.getBinCategory().get(1), "A");
+        Assert.assertEquals(columnConfig.getBinCountPos().get(0).intValue(), 25);
+        Assert.assertEquals(columnConfig.getBinPosRate().get(1), 0.5, 1e-6);
+        Assert.assertEquals(columnConfig.getMean(), 0.375, 1e-6);
+        Assert.assertEquals(columnConfig.getMissingCount().longValue(), 100L);
+        Assert.assertEquals(columnConfig.getTotalCount().longValue(), 300L);
+    }
+
+    @Test
+    public void testCategoricalSketchOverflow() {
+        ModelConfig modelConfig = new ModelConfig();
+        ColumnConfig columnConfig = new ColumnConfig();
+        columnConfig.setColumnType(ColumnType.C);
+
+        CategoricalStatsSketch sketch = new CategoricalStatsSketch();
+        CategoricalStatsSketch another = new CategoricalStatsSketch();
+        for ( int i = 0; i < 20000; i ++ ) {
+            // ID-like values, plus a frequent category
+            sketch.addData("ID" + i, AbstractStatsSketch.LABEL_NEG, 1.0);
+            another.addData("ID" + (i + 20000), AbstractStatsSketch.LABEL_NEG, 1.0);
+            another.addData("HOT", AbstractStatsSketch.LABEL_POS, 1.0);
+        }
+        sketch.mergeSketch(AbstractStatsSketch.constructSketchFromStr(modelConfig, columnConfig,
+                another.objToString()));
+        Assert.assertTrue(sketch.isCapped());
+        Assert.assertEquals(sketch.getDistinctCount(), 40001.0, 40001 * 0.05);
+
+        sketch.populateColumnConfig(columnConfig);
+        List<String> binCategory = columnConfig.getBinCategory();
+        Assert.assertEquals(binCategory.size(), CategoricalBinning.MAX_TOP_CATEGORIES + 1);
+        Assert.assertTrue(binCategory.contains("HOT"));
+        Assert.assertTrue(binCategory.contains(CategoricalBinning.OTHER_CATEGORY));
+
+        long total = 0;
+        for ( int i = 0; i < binCategory.size(); i ++ ) {
+            total += columnConfig.getBinCountPos().get(i) + columnConfig.getBinCountNeg().get(i);
+        }
+        // no record is lost, the evicted categories are counted in the "other" bucket
+        Assert.assertEquals(total, 60000L);
+        Assert.assertEquals(CommonUtils.getBinNum(columnConfig, "ID_UNSEEN"),
+                binCategory.indexOf(CategoricalBinning.OTHER_CATEGORY));
+    }
+
+    @Test
+    public void testAutoTypeSketchMerge() {
+        ModelConfig modelConfig = new ModelConfig();
+        ColumnConfig columnConfig = new ColumnConfig();
+        columnConfig.setColumnType(ColumnType.A);
+
+        // each partial has no more than 5 distinct values, but the merged sketch has 8
+        AbstractStatsSketch sketch = AbstractStatsSketch.newSketch(modelConfig, columnConfig);
+        AbstractStatsSketch another = AbstractStatsSketch.newSketch(modelConfig, columnConfig);
+        Assert.assertTrue(sketch instanceof AutoTypeStatsSketch);
+        for ( int i = 0; i < 100; i ++ ) {
+            sketch.addData(Integer.toString(i % 4), AbstractStatsSketch.LABEL_NEG, 1.0);
+            another.addData(Integer.toString(4 + i % 4), AbstractStatsSketch.LABEL_POS, 1.0);
+        }
+        sketch.mergeSketch(AbstractStatsSketch.constructSketchFromStr(modelConfig, columnConfig,
+                another.objToString()));
+        sketch.populateColumnConfig(columnConfig);
+
+        Assert.assertEquals(columnConfig.getColumnType(), ColumnType.N);
+        Assert.assertEquals(columnConfig.getTotalCount().longValue(), 200L);
+        Assert.assertEquals(columnConfig.getMean(), 3.5, 1e-6);
+
+        columnConfig.setColumnType(ColumnType.A);
+        AbstractStatsSketch categorical = AbstractStatsSketch.newSketch(modelConfig, columnConfig);
+        categorical.addData("abc", AbstractStatsSketch.LABEL_POS, 1.0);
+        categorical.mergeSketch(AbstractStatsSketch.constructSketchFromStr(modelConfig, columnConfig,
+                sketch.objToString()));
+        categorical.populateColumnConfig(columnConfig);
+
+        Assert.assertEquals(columnConfig.getColumnType(), ColumnType.C);
+        Assert.assertEquals(columnConfig.getTotalCount().longValue(), 201L);
+        Assert.assertTrue(columnConfig.getBinCategory().contains("abc"));
+    }
+}
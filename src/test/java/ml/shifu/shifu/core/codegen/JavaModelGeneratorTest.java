@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core.codegen;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import ml.shifu.shifu.container.ScoreObject;
+import ml.shifu.shifu.container.obj.ColumnConfig;
+import ml.shifu.shifu.container.obj.ModelConfig;
+import ml.shifu.shifu.container.obj.ModelTrainConf.ALGORITHM;
+import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
+import ml.shifu.shifu.core.Scorer;
+import ml.shifu.shifu.util.CommonUtils;
+
+import org.apache.commons.io.FileUtils;
+import org.encog.ml.BasicML;
+import org.encog.ml.data.MLDataPair;
+import org.encog.neural.networks.BasicNetwork;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * JavaModelGeneratorTest class
+ *
+ * @Dec 12, 2014
+ *
+ */
+public class JavaModelGeneratorTest {
+
+    private static final String MODEL_SET = "src/test/resources/example/cancer-judgement/ModelStore/ModelSet1/";
+
+    private File outputDir = new File("tmp/javamodels");
+
+    private ModelConfig modelConfig;
+    private List<ColumnConfig> columnConfigList;
+    private List<BasicML> models;
+    private List<BasicML> compiledModels;
+    private List<Map<String, String>> records;
+
+    @BeforeClass
+    public void setUp() throws IOException {
+        modelConfig = CommonUtils.loadModelConfig(MODEL_SET + "ModelConfig.json", SourceType.LOCAL);
+        columnConfigList = CommonUtils.loadColumnConfigList(MODEL_SET + "ColumnConfig.json", SourceType.LOCAL);
+        models = CommonUtils.loadBasicModels(MODEL_SET + "models", ALGORITHM.NN);
+
+        JavaModelGenerator generator = new JavaModelGenerator(modelConfig, columnConfigList, models);
+        compiledModels = new ArrayList<BasicML>();
+        for(int i = 0; i < models.size(); i++) {
+            compiledModels.add(JavaModelCompiler.compile(generator.getQualifiedClassName(i), generator.generate(i),
+                    outputDir));
+        }
+
+        String[] header = CommonUtils.getHeaders(
+                "src/test/resources/example/cancer-judgement/DataStore/DataSet1/.pig_header", "|", SourceType.LOCAL);
+        records = new ArrayList<Map<String, String>>();
+        for(String line: FileUtils.readLines(new File(
+                "src/test/resources/example/cancer-judgement/DataStore/DataSet1/part-00"))) {
+            records.add(CommonUtils.convertDataIntoMap(line, "|", header));
+        }
+    }
+
+    @Test
+    public void testClassName() {
+        JavaModelGenerator generator = new JavaModelGenerator(modelConfig, columnConfigList, models);
+        Assert.assertEquals(generator.getClassName(2), modelConfig.getModelSetName().replaceAll("\\W", "_") + "_2");
+        Assert.assertTrue(generator.getQualifiedClassName(2).startsWith(JavaModelGenerator.PACKAGE + "."));
+    }
+
+    @Test
+    public void testSameAsNetwork() {
+        for(Map<String, String> record: records) {
+            MLDataPair pair = CommonUtils.assembleDataPair(columnConfigList, record,
+                    modelConfig.getNormalizeStdDevCutOff());
+            for(int i = 0; i < models.size(); i++) {
+                CompiledNetwork compiled = (CompiledNetwork) compiledModels.get(i);
+
+                double[] input = compiled.normalize(record);
+                Assert.assertEquals(input, pair.getInput().getData());
+
+                double expected = ((BasicNetwork) models.get(i)).compute(pair.getInput()).getData(0);
+                Assert.assertEquals(compiled.compute(input), expected);
+            }
+        }
+    }
+
+    @Test
+    public void testScorer() {
+        Scorer expected = new Scorer(models, columnConfigList, ALGORITHM.NN.name(),
+                modelConfig.getNormalizeStdDevCutOff());
+        Scorer actual = new Scorer(compiledModels, columnConfigList, ALGORITHM.NN.name(),
+                modelConfig.getNormalizeStdDevCutOff());
+        for(Map<String, String> record: records) {
+            ScoreObject so = actual.score(record);
+            Assert.assertEquals(so.getScores(), expected.score(record).getScores());
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testMissingVariable() {
+        ((CompiledNetwork) compiledModels.get(0)).normalize(new java.util.HashMap<String, String>());
+    }
+
+    @AfterClass
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(new File("tmp"));
+    }
+}
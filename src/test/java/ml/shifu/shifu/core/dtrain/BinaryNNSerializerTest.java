@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core.dtrain;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.encog.ml.BasicML;
+import org.encog.ml.data.MLData;
+import org.encog.ml.data.basic.BasicMLData;
+import org.encog.neural.networks.BasicNetwork;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+/**
+ * BinaryNNSerializerTest class
+ *
+ * @Dec 22, 2014
+ *
+ */
+public class BinaryNNSerializerTest {
+
+    private static final String MODEL_SET = "src/test/resources/example/cancer-judgement/ModelStore/ModelSet1/";
+
+    private File tmpDir = new File("target/BinaryNNSerializerTest");
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(tmpDir);
+    }
+
+    @Test
+    public void testRoundTrip() {
+        BasicNetwork network = NNUtils.generateNetwork(10, 1, 4, Arrays.asList("tanh", "log", "sin", "linear"),
+                Arrays.asList(8, 6, 4, 3));
+        network.setLayerBiasActivation(1, 0.5d);
+
+        double[] weights = new double[network.getFlat().getWeights().length];
+        Random random = new Random(1L);
+        for(int i = 0; i < weights.length; i++) {
+            weights[i] = random.nextGaussian();
+        }
+
+        BasicNetwork loaded = BinaryNNSerializer.load(ByteBuffer.wrap(BinaryNNSerializer.toBytes(network, weights,
+                null)));
+        Assert.assertTrue(Arrays.equals(loaded.getFlat().getWeights(), weights));
+        // weights of network are not changed when saving
+        Assert.assertFalse(Arrays.equals(network.getFlat().getWeights(), weights));
+
+        network.getFlat().setWeights(weights);
+        assertSameOutput(network, loaded);
+    }
+
+    @Test
+    public void testConvert() throws IOException {
+        File nnFile = new File(MODEL_SET + "models/model0.nn");
+        File binaryFile = new File(tmpDir, "model0.nn.bin");
+        File convertedFile = new File(tmpDir, "model0.nn");
+        tmpDir.mkdirs();
+
+        BinaryNNSerializer.nnToBinary(nnFile, binaryFile);
+        Assert.assertTrue(binaryFile.length() < nnFile.length());
+        BinaryNNSerializer.binaryToNN(binaryFile, convertedFile);
+
+        BasicNetwork network = (BasicNetwork) BinaryNNSerializer.loadModel(nnFile);
+        // both formats are sniffed by content
+        BasicML binary = BinaryNNSerializer.loadModel(binaryFile);
+        Assert.assertTrue(binary instanceof BasicNetwork);
+        assertSameOutput(network, (BasicNetwork) binary);
+        assertSameOutput(network, (BasicNetwork) BinaryNNSerializer.loadModel(convertedFile));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNotBinary() {
+        BinaryNNSerializer.load(ByteBuffer.wrap("encog,BasicNetwork,java,3.0.0,1,1".getBytes()));
+    }
+
+    @Test
+    public void testSelectModelFiles() throws IOException {
+        tmpDir.mkdirs();
+        BasicNetwork network = (BasicNetwork) BinaryNNSerializer.loadModel(new File(MODEL_SET + "models/model0.nn"));
+        byte[] eg = BinaryNNSerializer.toEGBytes(network);
+
+        // binary model saved with EG model
+        FileUtils.writeByteArrayToFile(new File(tmpDir, "model0.nn"), eg);
+        BinaryNNSerializer.save(new File(tmpDir, "model0.nn.bin"), network, eg);
+        // binary model of other EG model, even if it is newer
+        FileUtils.writeByteArrayToFile(new File(tmpDir, "model1.nn"), eg);
+        File staleFile = new File(tmpDir, "model1.nn.bin");
+        BinaryNNSerializer.save(staleFile, network, "encog,BasicNetwork,java,3.0.0,1,1".getBytes());
+        staleFile.setLastModified(System.currentTimeMillis() + 10000L);
+        // binary or EG model only
+        FileUtils.writeByteArrayToFile(new File(tmpDir, "model2.nn"), eg);
+        BinaryNNSerializer.save(new File(tmpDir, "model1-10.nn.bin"), network, null);
+
+        FileSystem fs = FileSystem.getLocal(new Configuration());
+        List<FileStatus> files = new ArrayList<FileStatus>();
+        for(String name: Arrays.asList("model0.nn", "model0.nn.bin", "model1.nn", "model1.nn.bin", "model2.nn",
+                "model1-10.nn.bin")) {
+            files.add(fs.getFileStatus(new Path(new File(tmpDir, name).getAbsolutePath())));
+        }
+
+        List<String> selected = new ArrayList<String>();
+        for(FileStatus file: BinaryNNSerializer.selectModelFiles(fs, files)) {
+            selected.add(file.getPath().getName());
+        }
+        Assert.assertEquals(selected, Arrays.asList("model0.nn.bin", "model1.nn", "model2.nn", "model1-10.nn.bin"));
+
+        // the cached pairing is dropped once the EG model is changed
+        File egFile = new File(tmpDir, "model0.nn");
+        FileUtils.writeByteArrayToFile(egFile, "encog,BasicNetwork,java,3.0.0,1,1".getBytes());
+        egFile.setLastModified(System.currentTimeMillis() + 20000L);
+        files.set(0, fs.getFileStatus(new Path(egFile.getAbsolutePath())));
+        Assert.assertEquals(BinaryNNSerializer.selectModelFiles(fs, files).get(0).getPath().getName(), "model0.nn");
+    }
+
+    private void assertSameOutput(BasicNetwork expected, BasicNetwork actual) {
+        Random random = new Random(2L);
+        for(int i = 0; i < 10; i++) {
+            double[] input = new double[expected.getInputCount()];
+            for(int j = 0; j < input.length; j++) {
+                input[j] = random.nextDouble();
+            }
+            MLData data = new BasicMLData(input);
+            Assert.assertEquals(actual.compute(data).getData(), expected.compute(data).getData());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.core.pmml;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import ml.shifu.shifu.container.obj.ColumnConfig;
+import ml.shifu.shifu.container.obj.ModelConfig;
+import ml.shifu.shifu.container.obj.ModelTrainConf.ALGORITHM;
+import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
+import ml.shifu.shifu.core.ModelRunner;
+import ml.shifu.shifu.util.CommonUtils;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.dmg.pmml.PMML;
+import org.encog.ml.BasicML;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * PMMLBatchScorerTest class
+ *
+ * @Dec 13, 2014
+ *
+ */
+public class PMMLBatchScorerTest {
+
+    @Test
+    public void testNumericVariables() throws Exception {
+        String modelSet = "src/test/resources/example/cancer-judgement/ModelStore/ModelSet1/";
+        checkScores(modelSet + "ModelConfig.json", modelSet + "ColumnConfig.json", modelSet + "models",
+                "src/test/resources/example/cancer-judgement/DataStore/Full_data/data.dat", "|");
+    }
+
+    @Test
+    public void testMixTypeVariables() throws Exception {
+        String dataSet = "src/test/resources/example/labor-neg/DataStore/DataSet1/";
+        checkScores(dataSet + "ModelConfig.json", dataSet + "ColumnConfig.json", dataSet + "models", dataSet
+                + "data.dat", ",");
+    }
+
+    @Test
+    public void testPipeline() throws Exception {
+        String modelSet = "src/test/resources/example/cancer-judgement/ModelStore/ModelSet1/";
+        PMML pmml = translate(modelSet + "ModelConfig.json", modelSet + "ColumnConfig.json", modelSet + "models");
+
+        List<String> lines = FileUtils.readLines(new File(
+                "src/test/resources/example/cancer-judgement/DataStore/Full_data/data.dat"));
+        PMMLBatchScorer scorer = new PMMLBatchScorer(pmml, CommonUtils.split(lines.get(0), "|"));
+
+        // duplicate records to have multiple blocks, and an invalid record
+        StringBuilder buf = new StringBuilder();
+        for(int i = 0; i < 5; i++) {
+            buf.append(StringUtils.join(lines.subList(1, lines.size()), "\n")).append("\n");
+        }
+        buf.append("invalid|record\n");
+
+        StringWriter writer = new StringWriter();
+        long count = scorer.score(new BufferedReader(new StringReader(buf.toString())), writer, "|", 3);
+        Assert.assertEquals(count, 5L * (lines.size() - 1) + 1);
+
+        String[] scores = StringUtils.splitPreserveAllTokens(writer.toString(), '\n');
+        for(int i = 0; i < count - 1; i++) {
+            String line = lines.get(1 + i % (lines.size() - 1));
+            Assert.assertEquals(scores[i], scorer.score(CommonUtils.split(line, "|")).toString());
+        }
+        Assert.assertEquals(scores[(int) count - 1], "");
+    }
+
+    /**
+     * The scores of PMML should be the same as Shifu, except for rounding
+     */
+    private void checkScores(String pathModelConfig, String pathColumnConfig, String modelsPath, String dataPath,
+            String delimiter) throws Exception {
+        ModelConfig modelConfig = CommonUtils.loadModelConfig(pathModelConfig, SourceType.LOCAL);
+        List<ColumnConfig> columnConfigList = CommonUtils.loadColumnConfigList(pathColumnConfig, SourceType.LOCAL);
+        List<BasicML> models = CommonUtils.loadBasicModels(modelsPath, ALGORITHM.NN);
+
+        List<String> lines = FileUtils.readLines(new File(dataPath));
+        String[] header = CommonUtils.split(lines.get(0), delimiter);
+
+        PMMLBatchScorer scorer = new PMMLBatchScorer(translate(pathModelConfig, pathColumnConfig, modelsPath), header);
+        ModelRunner runner = new ModelRunner(modelConfig, columnConfigList, header, delimiter, models.subList(0, 1));
+
+        for(String line: lines.subList(1, lines.size())) {
+            Integer score = scorer.score(CommonUtils.split(line, delimiter));
+            Assert.assertNotNull(score);
+            Assert.assertEquals(score, runner.compute(line).getScores().get(0), 1.0);
+        }
+    }
+
+    private PMML translate(String pathModelConfig, String pathColumnConfig, String modelsPath) throws IOException {
+        ModelConfig modelConfig = CommonUtils.loadModelConfig(pathModelConfig, SourceType.LOCAL);
+        List<ColumnConfig> columnConfigList = CommonUtils.loadColumnConfigList(pathColumnConfig, SourceType.LOCAL);
+        List<BasicML> models = CommonUtils.loadBasicModels(modelsPath, ALGORITHM.NN);
+
+        return new PMMLTranslator(modelConfig, columnConfigList, models).translate(0);
+    }
+}
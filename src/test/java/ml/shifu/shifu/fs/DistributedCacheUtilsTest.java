@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.fs;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
+import org.encog.ml.BasicML;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+/**
+ * DistributedCacheUtilsTest class
+ *
+ * @Dec 21, 2014
+ *
+ */
+public class DistributedCacheUtilsTest {
+
+    private static final String MODEL_SET = "src/test/resources/example/cancer-judgement/ModelStore/ModelSet1/";
+
+    private File tmpDir = new File("target/DistributedCacheUtilsTest");
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(tmpDir);
+        FileUtils.deleteQuietly(new File("shifu_model_0"));
+        FileUtils.deleteQuietly(new File("shifu_model_1"));
+    }
+
+    @Test
+    public void testConfigCacheFiles() throws IOException {
+        FileUtils.copyFile(new File(MODEL_SET + "ModelConfig.json"), new File(tmpDir, "ModelConfig.json"));
+        FileUtils.copyFile(new File(MODEL_SET + "ColumnConfig.json"), new File(tmpDir, "ColumnConfig.json"));
+        String pathModelConfig = new File(tmpDir, "ModelConfig.json").getAbsolutePath();
+        String pathColumnConfig = new File(tmpDir, "ColumnConfig.json").getAbsolutePath();
+
+        List<String> cacheFiles = DistributedCacheUtils.getConfigCacheFiles(pathModelConfig, pathColumnConfig,
+                SourceType.LOCAL);
+        Assert.assertEquals(cacheFiles.size(), 2);
+        Assert.assertTrue(cacheFiles.get(0).endsWith(pathModelConfig + "#shifu_ModelConfig.json"));
+        Assert.assertTrue(cacheFiles.get(1).endsWith(pathColumnConfig + "#shifu_ColumnConfig.json"));
+
+        // the snapshot is shipped after ColumnConfig.json if it exists
+        FileUtils.touch(new File(tmpDir, "ColumnConfig.bin"));
+        cacheFiles = DistributedCacheUtils.getConfigCacheFiles(null, pathColumnConfig, SourceType.LOCAL);
+        Assert.assertEquals(cacheFiles.size(), 2);
+        Assert.assertTrue(cacheFiles.get(1).endsWith(new File(tmpDir, "ColumnConfig.bin").getAbsolutePath()
+                + "#shifu_ColumnConfig.bin"));
+    }
+
+    @Test
+    public void testModelCacheFiles() {
+        List<FileStatus> models = new ArrayList<FileStatus>();
+        for(String name: Arrays.asList("model2.nn", "Model0.nn", "model1.nn")) {
+            models.add(new FileStatus(0L, false, 1, 0L, 0L, new Path("hdfs://nn/models/" + name)));
+        }
+
+        Assert.assertEquals(DistributedCacheUtils.getModelCacheFiles(models), Arrays.asList(
+                "hdfs://nn/models/Model0.nn#shifu_model_0", "hdfs://nn/models/model1.nn#shifu_model_1",
+                "hdfs://nn/models/model2.nn#shifu_model_2"));
+    }
+
+    @Test
+    public void testLocalModels() throws IOException {
+        Assert.assertTrue(DistributedCacheUtils.getLocalModelFiles().isEmpty());
+        Assert.assertNull(DistributedCacheUtils.getLocalModels());
+
+        FileUtils.copyFile(new File(MODEL_SET + "models/model0.nn"), new File("shifu_model_0"));
+        FileUtils.copyFile(new File(MODEL_SET + "models/model1.nn"), new File("shifu_model_1"));
+        Assert.assertEquals(DistributedCacheUtils.getLocalModelFiles().size(), 2);
+
+        List<BasicML> models = DistributedCacheUtils.getLocalModels();
+        Assert.assertEquals(models.size(), 2);
+        // shared until the files are changed
+        Assert.assertSame(DistributedCacheUtils.getLocalModels(), models);
+
+        new File("shifu_model_1").delete();
+        Assert.assertEquals(DistributedCacheUtils.getLocalModels().size(), 1);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.fs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.lang.StringUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * LineReaderTest class
+ *
+ * @Dec 17, 2014
+ *
+ */
+public class LineReaderTest {
+
+    @Test
+    public void testReadLine() throws IOException {
+        LineReader reader = LineReader.of("a|1\r\nb|2\n\nc|3");
+        Assert.assertEquals(reader.readLine(), "a|1");
+        Assert.assertEquals(reader.readLine(), "b|2");
+        Assert.assertEquals(reader.readLine(), "");
+        Assert.assertEquals(reader.readLine(), "c|3");
+        Assert.assertNull(reader.readLine());
+        Assert.assertNull(reader.readLine());
+        reader.close();
+    }
+
+    @Test
+    public void testLongLine() throws IOException {
+        String longLine = StringUtils.repeat("éx", 5000);
+        String text = "head\n" + longLine + "\ntail\n";
+
+        LineReader reader = new LineReader(new ByteArrayInputStream(text.getBytes("UTF-8")), 16);
+        Assert.assertEquals(reader.readLine(), "head");
+        Assert.assertEquals(reader.readLine(), longLine);
+        Assert.assertEquals(reader.readLine(), "tail");
+        Assert.assertNull(reader.readLine());
+        reader.close();
+    }
+
+    @Test
+    public void testReadAhead() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for(int i = 0; i < 10000; i++) {
+            text.append(i).append("|").append(i * 2).append("\n");
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+        gzip.write(text.toString().getBytes("UTF-8"));
+        gzip.close();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            LineReader reader = new LineReader(new ReadAheadInputStream(new GZIPInputStream(new ByteArrayInputStream(
+                    bytes.toByteArray())), executor, 1000, 2), 64);
+            String line;
+            int cnt = 0;
+            while((line = reader.readLine()) != null) {
+                Assert.assertEquals(line, cnt + "|" + (cnt * 2));
+                cnt++;
+            }
+            Assert.assertEquals(cnt, 10000);
+            reader.close();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testReadAheadRejected() throws IOException {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(0, 1, 1L, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>());
+        ReadAheadInputStream in = new ReadAheadInputStream(new ByteArrayInputStream("a\nb\n".getBytes("UTF-8")),
+                executor, 1000, 2);
+        // no thread before the first read
+        Assert.assertEquals(executor.getTaskCount(), 0L);
+
+        // the stream is read in the calling thread, if the task is rejected
+        executor.shutdown();
+        LineReader reader = new LineReader(in, 64);
+        Assert.assertEquals(reader.readLine(), "a");
+        Assert.assertEquals(reader.readLine(), "b");
+        Assert.assertNull(reader.readLine());
+        reader.close();
+    }
+}
@@ -25,7 +25,6 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Scanner;
 
 
 /**
@@ -44,19 +43,19 @@ public class ShifuFileUtilsTest {
             file.mkdirs();
         }
 
-        List<Scanner> list = ShifuFileUtils.getDataScanners(Arrays.asList(new String[]{"common-utils"}), SourceType.HDFS);
+        List<LineReader> list = ShifuFileUtils.getDataReaders(Arrays.asList(new String[]{"common-utils"}), SourceType.HDFS);
 
         Assert.assertTrue(list.size() == 0);
 
         file = new File("common-utils/part-0000");
         file.createNewFile();
 
-        list = ShifuFileUtils.getDataScanners(Arrays.asList(new String[]{"common-utils"}), SourceType.HDFS);
+        list = ShifuFileUtils.getDataReaders(Arrays.asList(new String[]{"common-utils"}), SourceType.HDFS);
 
         Assert.assertTrue(list.size() == 1);
 
-        for (Scanner scanner : list) {
-            scanner.close();
+        for (LineReader reader : list) {
+            reader.close();
         }
 
         FileUtils.deleteDirectory(new File("common-utils"));
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.fs;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import ml.shifu.shifu.util.Environment;
+
+import org.apache.commons.lang.StringUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+/**
+ * SplitLineReaderTest class
+ *
+ * @Dec 18, 2014
+ *
+ */
+public class SplitLineReaderTest {
+
+    private String localNumParallel;
+
+    @Test
+    public void testSplits() throws IOException {
+        List<String> expected = new ArrayList<String>();
+        StringBuilder text = new StringBuilder();
+        for(int i = 0; i < 200; i++) {
+            String line = i + "|" + StringUtils.repeat("x", i % 13);
+            expected.add(line);
+            text.append(line).append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        byte[] bytes = text.toString().getBytes("UTF-8");
+
+        // every line is read exactly once, whatever the split boundaries are
+        for(int splitSize = 1; splitSize < 64; splitSize++) {
+            List<String> lines = new ArrayList<String>();
+            for(long start = 0; start < bytes.length; start += splitSize) {
+                long end = Math.min(start + splitSize, bytes.length);
+                SplitLineReader reader = new SplitLineReader(new ByteArrayInputStream(bytes, (int) start,
+                        bytes.length - (int) start), start, end);
+                String line;
+                while((line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+                reader.close();
+            }
+            Assert.assertEquals(lines, expected, "split size " + splitSize);
+        }
+    }
+
+    @Test
+    public void testPosition() throws IOException {
+        LineReader reader = new LineReader(new ByteArrayInputStream("ab\r\ncd\ne".getBytes("UTF-8")), 2);
+        Assert.assertEquals(reader.getPosition(), 0L);
+        reader.readLine();
+        Assert.assertEquals(reader.getPosition(), 4L);
+        reader.readLine();
+        Assert.assertEquals(reader.getPosition(), 7L);
+        reader.readLine();
+        Assert.assertEquals(reader.getPosition(), 8L);
+        reader.close();
+    }
+
+    @Test
+    public void testSplitSize() {
+        localNumParallel = Environment.getProperty(Environment.LOCAL_NUM_PARALLEL);
+        Environment.getProperties().setProperty(Environment.LOCAL_NUM_PARALLEL, "4");
+        Assert.assertEquals(ShifuFileUtils.getSplitSize(1000L), ShifuFileUtils.MIN_SPLIT_SIZE);
+        Assert.assertEquals(ShifuFileUtils.getSplitSize(400L * 1024 * 1024), 100L * 1024 * 1024);
+
+        Environment.getProperties().setProperty(Environment.LOCAL_SPLIT_SIZE_MB, "8");
+        Assert.assertEquals(ShifuFileUtils.getSplitSize(400L * 1024 * 1024), 8L * 1024 * 1024);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        Environment.getProperties().remove(Environment.LOCAL_SPLIT_SIZE_MB);
+        if(localNumParallel == null) {
+            Environment.getProperties().remove(Environment.LOCAL_NUM_PARALLEL);
+        } else {
+            Environment.getProperties().setProperty(Environment.LOCAL_NUM_PARALLEL, localNumParallel);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.udf;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.pig.data.BagFactory;
+import org.apache.pig.data.DataBag;
+import org.apache.pig.data.Tuple;
+import org.apache.pig.data.TupleFactory;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * BinAvgScoreUDFTest class
+ *
+ * @Dec 10, 2014
+ *
+ */
+public class BinAvgScoreUDFTest {
+
+    private static final String MODEL_CONFIG = "src/test/resources/example/cancer-judgement/ModelStore/ModelSet1/ModelConfig.json";
+    private static final String COLUMN_CONFIG = "src/test/resources/example/cancer-judgement/ModelStore/ModelSet1/ColumnConfig.json";
+
+    private BinAvgScoreUDF instance;
+    private CalculateBinAvgScoreUDF binAvgScore;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        instance = new BinAvgScoreUDF("LOCAL", MODEL_CONFIG, COLUMN_CONFIG);
+        binAvgScore = new CalculateBinAvgScoreUDF("LOCAL", COLUMN_CONFIG);
+    }
+
+    @Test
+    public void testNullInput() throws IOException {
+        Assert.assertNull(instance.exec(null));
+        Assert.assertNull(instance.exec(TupleFactory.getInstance().newTuple(0)));
+    }
+
+    @Test
+    public void testAlgebraic() throws IOException {
+        BinAvgScoreUDF.Initial initial = new BinAvgScoreUDF.Initial("LOCAL", MODEL_CONFIG, COLUMN_CONFIG);
+        BinAvgScoreUDF.Intermediate intermediate = new BinAvgScoreUDF.Intermediate("LOCAL", MODEL_CONFIG,
+                COLUMN_CONFIG);
+        BinAvgScoreUDF.Final finalUdf = new BinAvgScoreUDF.Final("LOCAL", MODEL_CONFIG, COLUMN_CONFIG);
+
+        DataBag records = BagFactory.getInstance().newDefaultBag();
+        DataBag partials = BagFactory.getInstance().newDefaultBag();
+        DataBag column5 = BagFactory.getInstance().newDefaultBag();
+        for(int i = 0; i < 4; i++) {
+            DataBag split = BagFactory.getInstance().newDefaultBag();
+            for(int j = 0; j < 5; j++) {
+                int score = 10 * (i * 5 + j);
+                Tuple record = newRecord(score, (i + j) % 2 == 0 ? "M" : "B", 500 + (i * 5 + j) * 100);
+                records.add(record);
+                column5.add(TupleFactory.getInstance().newTuple(Arrays.<Object> asList(5, 500 + (i * 5 + j) * 100, score)));
+
+                // Initial is called with one record, it only emits the score and the bins
+                Tuple recordTuple = initial.exec(singleRecord(record));
+                Assert.assertEquals(recordTuple.get(0), 0);
+                split.add(recordTuple);
+            }
+            // the invalid tag is not counted
+            Assert.assertNull(initial.exec(singleRecord(newRecord(1000, "X", 500))));
+            records.add(newRecord(1000, "X", 500));
+
+            // the partial sums and the records could be mixed in Final
+            if(i % 2 == 0) {
+                partials.add(intermediate.exec(TupleFactory.getInstance().newTuple(split)));
+            } else {
+                partials.addAll(split);
+            }
+        }
+
+        DataBag direct = instance.exec(TupleFactory.getInstance().newTuple(records));
+        DataBag merged = finalUdf.exec(TupleFactory.getInstance().newTuple(partials));
+        Assert.assertEquals(merged.size(), 30L);
+        Assert.assertEquals(merged.toString(), direct.toString());
+
+        Tuple expected = binAvgScore.exec(TupleFactory.getInstance().newTuple(Arrays.<Object> asList(5, column5)));
+        String expectedLine = StringUtils.join(expected.getAll(), BinAvgScoreUDF.FIELD_SEPARATOR);
+        Iterator<Tuple> iterator = merged.iterator();
+        String actualLine = null;
+        while(iterator.hasNext()) {
+            String line = (String) iterator.next().get(0);
+            if(line.startsWith("5" + BinAvgScoreUDF.FIELD_SEPARATOR)) {
+                actualLine = line;
+            }
+        }
+        Assert.assertEquals(actualLine, expectedLine);
+    }
+
+    private Tuple singleRecord(Tuple record) {
+        DataBag bag = BagFactory.getInstance().newDefaultBag();
+        bag.add(record);
+        return TupleFactory.getInstance().newTuple(bag);
+    }
+
+    private Tuple newRecord(int score, String tag, int value) throws IOException {
+        Tuple record = TupleFactory.getInstance().newTuple(32);
+        record.set(0, TupleFactory.getInstance().newTuple(Arrays.<Object> asList(score, score, score)));
+        record.set(1, tag);
+        for(int i = 2; i < 32; i++) {
+            record.set(i, value);
+        }
+        return record;
+    }
+}
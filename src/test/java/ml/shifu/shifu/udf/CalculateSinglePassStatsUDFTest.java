@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.udf;
+
+import java.io.IOException;
+
+import org.apache.pig.data.BagFactory;
+import org.apache.pig.data.DataBag;
+import org.apache.pig.data.Tuple;
+import org.apache.pig.data.TupleFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * CalculateSinglePassStatsUDFTest class
+ *
+ * @Dec 24, 2014
+ *
+ */
+public class CalculateSinglePassStatsUDFTest {
+
+    private static final String MODEL_SET = "src/test/resources/example/cancer-judgement/ModelStore/ModelSet1/";
+
+    private static final String MODEL_CONFIG = MODEL_SET + "ModelConfig.json";
+
+    private static final String COLUMN_CONFIG = MODEL_SET + "ColumnConfig.json";
+
+    @Test
+    public void testAlgebraic() throws IOException {
+        CalculateSinglePassStatsUDF.Initial initial = new CalculateSinglePassStatsUDF.Initial("LOCAL", MODEL_CONFIG,
+                COLUMN_CONFIG);
+        CalculateSinglePassStatsUDF.Intermediate intermediate = new CalculateSinglePassStatsUDF.Intermediate("LOCAL",
+                MODEL_CONFIG, COLUMN_CONFIG);
+        CalculateSinglePassStatsUDF.Final finalUdf = new CalculateSinglePassStatsUDF.Final("LOCAL", MODEL_CONFIG,
+                COLUMN_CONFIG);
+
+        DataBag all = BagFactory.getInstance().newDefaultBag();
+        DataBag firstHalf = BagFactory.getInstance().newDefaultBag();
+        DataBag finalBag = BagFactory.getInstance().newDefaultBag();
+        for(int i = 0; i < 40; i++) {
+            Tuple record = newRecord(i * 1.5, (i % 3 == 0 ? "M" : "B"), 1.0 + i % 2);
+            all.add(record);
+
+            DataBag single = BagFactory.getInstance().newDefaultBag();
+            single.add(record);
+            Tuple initialTuple = initial.exec(TupleFactory.getInstance().newTuple(single));
+            // one record is emitted as is, without sketch
+            Assert.assertEquals(initialTuple.size(), 5);
+            if(i < 20) {
+                firstHalf.add(initialTuple);
+            } else {
+                finalBag.add(initialTuple);
+            }
+        }
+        finalBag.add(intermediate.exec(TupleFactory.getInstance().newTuple(firstHalf)));
+
+        CalculateSinglePassStatsUDF udf = new CalculateSinglePassStatsUDF("LOCAL", MODEL_CONFIG, COLUMN_CONFIG);
+        Tuple expected = udf.exec(TupleFactory.getInstance().newTuple(all));
+        Assert.assertNotNull(expected);
+        Assert.assertEquals(finalUdf.exec(TupleFactory.getInstance().newTuple(finalBag)).toString(),
+                expected.toString());
+    }
+
+    private Tuple newRecord(double value, String tag, double weight) throws IOException {
+        Tuple tuple = TupleFactory.getInstance().newTuple(5);
+        tuple.set(0, 1);
+        tuple.set(1, String.valueOf(value));
+        tuple.set(2, tag);
+        tuple.set(3, weight);
+        tuple.set(4, 0);
+        return tuple;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.udf;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.pig.data.BagFactory;
+import org.apache.pig.data.DataBag;
+import org.apache.pig.data.Tuple;
+import org.apache.pig.data.TupleFactory;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * EvalScoreHistogramUDFTest class
+ *
+ * @Dec 10, 2014
+ *
+ */
+public class EvalScoreHistogramUDFTest {
+
+    private static final String MODEL_CONFIG = "src/test/resources/example/cancer-judgement/ModelStore/ModelSet1/ModelConfig.json";
+    private static final String COLUMN_CONFIG = "src/test/resources/example/cancer-judgement/ModelStore/ModelSet1/ColumnConfig.json";
+
+    private EvalScoreHistogramUDF instance;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        instance = new EvalScoreHistogramUDF("LOCAL", MODEL_CONFIG, COLUMN_CONFIG, "EvalA");
+    }
+
+    @Test
+    public void testAlgebraic() throws IOException {
+        EvalScoreHistogramUDF.Initial initial = new EvalScoreHistogramUDF.Initial("LOCAL", MODEL_CONFIG,
+                COLUMN_CONFIG, "EvalA");
+        EvalScoreHistogramUDF.Intermediate intermediate = new EvalScoreHistogramUDF.Intermediate("LOCAL",
+                MODEL_CONFIG, COLUMN_CONFIG, "EvalA");
+        EvalScoreHistogramUDF.Final finalUdf = new EvalScoreHistogramUDF.Final("LOCAL", MODEL_CONFIG, COLUMN_CONFIG,
+                "EvalA");
+
+        DataBag records = BagFactory.getInstance().newDefaultBag();
+        DataBag partials = BagFactory.getInstance().newDefaultBag();
+        DataBag folded = BagFactory.getInstance().newDefaultBag();
+        for(int i = 0; i < 3; i++) {
+            DataBag split = BagFactory.getInstance().newDefaultBag();
+            for(int j = 0; j < 4; j++) {
+                Tuple record = TupleFactory.getInstance().newTuple(
+                        Arrays.<Object> asList(j % 2 == 0 ? "M" : "B", "1.0", Integer.toString(100 * j)));
+                records.add(record);
+
+                // Initial is called with one record, it only emits the light record tuple
+                DataBag single = BagFactory.getInstance().newDefaultBag();
+                single.add(record);
+                Tuple recordTuple = initial.exec(TupleFactory.getInstance().newTuple(single));
+                Assert.assertEquals(recordTuple.size(), 4);
+                split.add(recordTuple);
+            }
+            Tuple histogramTuple = intermediate.exec(TupleFactory.getInstance().newTuple(split));
+            partials.add(histogramTuple);
+            folded.add(histogramTuple);
+            folded.addAll(split);
+        }
+
+        DataBag direct = instance.exec(TupleFactory.getInstance().newTuple(records));
+        DataBag merged = finalUdf.exec(TupleFactory.getInstance().newTuple(partials));
+
+        Assert.assertEquals(merged.size(), 4L);
+        Assert.assertEquals(merged.toString(), direct.toString());
+        Assert.assertEquals(merged.iterator().next().get(0), "0.0|3.0|0.0|3.0|0.0");
+
+        // Final accepts both the record tuples and the histogram tuples
+        DataBag mixed = finalUdf.exec(TupleFactory.getInstance().newTuple(folded));
+        Assert.assertEquals(mixed.iterator().next().get(0), "0.0|6.0|0.0|6.0|0.0");
+    }
+}
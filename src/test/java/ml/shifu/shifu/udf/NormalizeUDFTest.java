@@ -56,8 +56,13 @@ public class NormalizeUDFTest {
 
         Assert.assertEquals(32, instance.exec(input).size());
         Assert.assertEquals(
-                "(1,-3.374538,-4,-3.697376,-1.870673,4,4,4,4,4,4,2.473354,-0.350425,-1.006885,-1.073463,4,4,4,4,4,4,-3.143228,-4,-3.127431,-1.575238,4,4,3.485806,4,4,4,2.1)",
+                "(1,-3.374538,-4.0,-3.697376,-1.870673,4.0,4.0,4.0,4.0,4.0,4.0,2.473354,-0.350425,-1.006885,-1.073463,4.0,4.0,4.0,4.0,4.0,4.0,-3.143228,-4.0,-3.127431,-1.575238,4.0,4.0,3.485806,4.0,4.0,4.0,2.1)",
                 instance.exec(input).toString());
+
+        // numerical columns are float fields
+        Assert.assertTrue(instance.exec(input).get(1) instanceof Float);
+        // the weight keeps its precision
+        Assert.assertTrue(instance.exec(input).get(31) instanceof Double);
     }
 
     @Test
@@ -79,7 +84,7 @@ public class NormalizeUDFTest {
     // @Test
     public void testGetSchema() {
         Assert.assertEquals(
-                "{Normalized: (diagnosis: int,column_3: float,column_4: float,column_5: float,column_6: float,column_7: float,column_8: float,column_9: float,column_10: float,column_11: float,column_12: float,column_13: float,column_14: float,column_15: float,column_16: float,column_17: float,column_18: float,column_19: float,column_20: float,column_21: float,column_22: float,column_23: float,column_24: float,column_25: float,column_26: float,column_27: float,column_28: float,column_29: float,column_30: float,column_31: float,column_32: float,weight: float)}",
+                "{Normalized: (diagnosis: int,column_3: float,column_4: float,column_5: float,column_6: float,column_7: float,column_8: float,column_9: float,column_10: float,column_11: float,column_12: float,column_13: float,column_14: float,column_15: float,column_16: float,column_17: float,column_18: float,column_19: float,column_20: float,column_21: float,column_22: float,column_23: float,column_24: float,column_25: float,column_26: float,column_27: float,column_28: float,column_29: float,column_30: float,column_31: float,column_32: float,weight: double)}",
                 instance.outputSchema(null).toString());
     }
 }
@@ -214,7 +214,40 @@ public class CommonUtilsTest {
         int rt = CommonUtils.getBinNum(config, "2");
 
         Assert.assertTrue(rt == 0);
+        Assert.assertEquals(CommonUtils.getBinNum(config, "3"), 2);
+        Assert.assertEquals(CommonUtils.getBinNum(config, "4"), -1);
+
+        // the index is rebuilt after categories changed
+        List<String> categories = Arrays.asList(new String[]{"4", "3"});
+        config.setBinCategory(categories);
+        Assert.assertEquals(CommonUtils.getBinNum(config, "4"), 0);
+
+        // the same list object with the same size, but the content is changed
+        categories.set(0, "5");
+        config.setBinCategory(categories);
+        Assert.assertEquals(CommonUtils.getBinNum(config, "5"), 0);
+        Assert.assertEquals(CommonUtils.getBinNum(config, "4"), -1);
+    }
 
+    @Test
+    public void getNumericalBinNumTest() {
+        ColumnConfig config = new ColumnConfig();
+        config.setColumnName("A");
+        config.setColumnType(ColumnType.N);
+        config.setBinBoundary(Arrays.asList(new Double[]{Double.NEGATIVE_INFINITY, 1.0, 2.0, 2.0, 5.0}));
+
+        Assert.assertEquals(CommonUtils.getBinNum(config, "-100"), 0);
+        Assert.assertEquals(CommonUtils.getBinNum(config, "1"), 1);
+        Assert.assertEquals(CommonUtils.getBinNum(config, "1.5"), 1);
+        Assert.assertEquals(CommonUtils.getBinNum(config, "2"), 3);
+        Assert.assertEquals(CommonUtils.getBinNum(config, "100"), 4);
+        Assert.assertEquals(CommonUtils.getBinNum(config, ""), -1);
+        // NaN is in the last bin
+        Assert.assertEquals(CommonUtils.getBinNum(config, "NaN"), 4);
+
+        config.setBinBoundary(Arrays.asList(new Double[]{0.0, 1.0}));
+        Assert.assertEquals(config.getNumericalBinNum(-1.0), -1);
+        Assert.assertEquals(CommonUtils.getBinNum(config, "-1"), 0);
     }
 
     @Test
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import ml.shifu.shifu.container.obj.ColumnConfig;
+import ml.shifu.shifu.container.obj.ModelConfig;
+import ml.shifu.shifu.container.obj.RawSourceData.SourceType;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * ConfigCacheTest class
+ *
+ * @Dec 20, 2014
+ *
+ */
+public class ConfigCacheTest {
+
+    private static final String MODEL_SET = "src/test/resources/example/cancer-judgement/ModelStore/ModelSet1/";
+
+    private File tmpDir = new File("target/ConfigCacheTest");
+    private File modelConfigFile = new File(tmpDir, "ModelConfig.json");
+    private File columnConfigFile = new File(tmpDir, "ColumnConfig.json");
+    private File snapshotFile = new File(tmpDir, "ColumnConfig.bin");
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        FileUtils.deleteDirectory(tmpDir);
+        FileUtils.copyFile(new File(MODEL_SET + "ModelConfig.json"), modelConfigFile);
+        FileUtils.copyFile(new File(MODEL_SET + "ColumnConfig.json"), columnConfigFile);
+        ConfigCache.clear();
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        ConfigCache.clear();
+        FileUtils.deleteDirectory(tmpDir);
+    }
+
+    @Test
+    public void testSnapshotRoundTrip() throws IOException {
+        List<ColumnConfig> columnConfigList = CommonUtils.loadColumnConfigList(columnConfigFile.getPath(),
+                SourceType.LOCAL);
+        byte[] json = FileUtils.readFileToByteArray(columnConfigFile);
+        byte[] bytes = ColumnConfigSnapshot.toBytes(columnConfigList, json.length, ColumnConfigSnapshot.checksum(json));
+
+        Assert.assertTrue(ColumnConfigSnapshot.isSnapshotOf(bytes, json));
+        Assert.assertEquals(toJson(ColumnConfigSnapshot.fromBytes(bytes)), toJson(columnConfigList));
+        Assert.assertEquals(ColumnConfigSnapshot.getSnapshotPath(columnConfigFile.getPath()), snapshotFile.getPath());
+    }
+
+    @Test
+    public void testGetColumnConfigList() throws IOException {
+        String expected = toJson(CommonUtils.loadColumnConfigList(columnConfigFile.getPath(), SourceType.LOCAL));
+
+        List<ColumnConfig> first = ConfigCache.getColumnConfigList(columnConfigFile.getPath(), SourceType.LOCAL);
+        Assert.assertEquals(toJson(first), expected);
+
+        // every get returns new objects
+        first.get(0).setColumnName("changed");
+        List<ColumnConfig> second = ConfigCache.getColumnConfigList(columnConfigFile.getPath(), SourceType.LOCAL);
+        Assert.assertNotSame(second.get(0), first.get(0));
+        Assert.assertEquals(toJson(second), expected);
+    }
+
+    @Test
+    public void testLoadFromSnapshot() throws IOException {
+        List<ColumnConfig> columnConfigList = CommonUtils.loadColumnConfigList(columnConfigFile.getPath(),
+                SourceType.LOCAL);
+        columnConfigList.get(0).setColumnName("fromSnapshot");
+        ColumnConfigSnapshot.saveSnapshot(columnConfigFile.getPath(), columnConfigList);
+        Assert.assertTrue(snapshotFile.exists());
+        snapshotFile.setLastModified(columnConfigFile.lastModified() + 1000L);
+
+        Assert.assertEquals(ConfigCache.getColumnConfigList(columnConfigFile.getPath(), SourceType.LOCAL).get(0)
+                .getColumnName(), "fromSnapshot");
+    }
+
+    @Test
+    public void testStaleSnapshot() throws IOException {
+        List<ColumnConfig> columnConfigList = CommonUtils.loadColumnConfigList(columnConfigFile.getPath(),
+                SourceType.LOCAL);
+        String columnName = columnConfigList.get(0).getColumnName();
+        columnConfigList.get(0).setColumnName("fromSnapshot");
+
+        byte[] json = FileUtils.readFileToByteArray(columnConfigFile);
+        long checksum = ColumnConfigSnapshot.checksum(json);
+
+        // the snapshot of json with different length
+        FileUtils.writeByteArrayToFile(snapshotFile,
+                ColumnConfigSnapshot.toBytes(columnConfigList, json.length + 1, checksum));
+        snapshotFile.setLastModified(columnConfigFile.lastModified() + 1000L);
+        Assert.assertEquals(ConfigCache.getColumnConfigList(columnConfigFile.getPath(), SourceType.LOCAL).get(0)
+                .getColumnName(), columnName);
+
+        // the snapshot of json with same length but different content, and newer than json, e.g. copied to HDFS
+        ConfigCache.clear();
+        FileUtils.writeByteArrayToFile(snapshotFile,
+                ColumnConfigSnapshot.toBytes(columnConfigList, json.length, checksum + 1));
+        snapshotFile.setLastModified(columnConfigFile.lastModified() + 1000L);
+        Assert.assertEquals(ConfigCache.getColumnConfigList(columnConfigFile.getPath(), SourceType.LOCAL).get(0)
+                .getColumnName(), columnName);
+
+        // the snapshot older than json
+        ConfigCache.clear();
+        FileUtils.writeByteArrayToFile(snapshotFile,
+                ColumnConfigSnapshot.toBytes(columnConfigList, json.length, checksum));
+        snapshotFile.setLastModified(columnConfigFile.lastModified() - 1000L);
+        Assert.assertEquals(ConfigCache.getColumnConfigList(columnConfigFile.getPath(), SourceType.LOCAL).get(0)
+                .getColumnName(), columnName);
+    }
+
+    @Test
+    public void testReloadChangedFile() throws IOException {
+        List<ColumnConfig> columnConfigList = ConfigCache.getColumnConfigList(columnConfigFile.getPath(),
+                SourceType.LOCAL);
+        ModelConfig modelConfig = ConfigCache.getModelConfig(modelConfigFile.getPath(), SourceType.LOCAL);
+        Assert.assertEquals(toJson(modelConfig),
+                toJson(CommonUtils.loadModelConfig(modelConfigFile.getPath(), SourceType.LOCAL)));
+
+        long lastModified = columnConfigFile.lastModified();
+        columnConfigList.get(0).setColumnName("reloaded");
+        JSONUtils.writeValue(columnConfigFile, columnConfigList);
+        columnConfigFile.setLastModified(lastModified + 1000L);
+        Assert.assertEquals(ConfigCache.getColumnConfigList(columnConfigFile.getPath(), SourceType.LOCAL).get(0)
+                .getColumnName(), "reloaded");
+
+        lastModified = modelConfigFile.lastModified();
+        modelConfig.getBasic().setName("reloaded");
+        JSONUtils.writeValue(modelConfigFile, modelConfig);
+        modelConfigFile.setLastModified(lastModified + 1000L);
+        Assert.assertEquals(ConfigCache.getModelConfig(modelConfigFile.getPath(), SourceType.LOCAL).getBasic()
+                .getName(), "reloaded");
+    }
+
+    private String toJson(Object value) throws IOException {
+        StringWriter writer = new StringWriter();
+        JSONUtils.writeValue(writer, value);
+        return writer.toString();
+    }
+}
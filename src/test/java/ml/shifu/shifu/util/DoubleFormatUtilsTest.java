@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.util;
+
+import java.text.DecimalFormat;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * DoubleFormatUtilsTest class
+ *
+ * @Dec 19, 2014
+ *
+ */
+public class DoubleFormatUtilsTest {
+
+    @Test
+    public void testFormat() {
+        Assert.assertEquals(DoubleFormatUtils.format(0d), "0");
+        Assert.assertEquals(DoubleFormatUtils.format(1d), "1");
+        Assert.assertEquals(DoubleFormatUtils.format(-12d), "-12");
+        Assert.assertEquals(DoubleFormatUtils.format(0.5d), "0.5");
+        Assert.assertEquals(DoubleFormatUtils.format(-0.005d), "-0.005");
+        Assert.assertEquals(DoubleFormatUtils.format(3.1415926d), "3.141593");
+        Assert.assertEquals(DoubleFormatUtils.format(0.0000004d), "0");
+        Assert.assertEquals(DoubleFormatUtils.format(-0.0000004d), "0");
+        Assert.assertEquals(DoubleFormatUtils.format(2.9999999d), "3");
+        Assert.assertEquals(DoubleFormatUtils.format(1.25d, 1), "1.2");
+        Assert.assertEquals(DoubleFormatUtils.format(7.5d, 0), "8");
+        Assert.assertEquals(DoubleFormatUtils.format(1.0E20d), "100000000000000000000");
+        Assert.assertEquals(DoubleFormatUtils.format(-1.5E13d + 0.25d), "-14999999999999.75");
+        Assert.assertEquals(DoubleFormatUtils.format(Double.NaN), "NaN");
+        Assert.assertEquals(DoubleFormatUtils.format(Double.NEGATIVE_INFINITY), "-Infinity");
+    }
+
+    @Test
+    public void testSameAsDecimalFormat() {
+        DecimalFormat df = new DecimalFormat("#.######");
+        Random random = new Random(2014L);
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < 100000; i++) {
+            double value = random.nextGaussian() * Math.pow(10, random.nextInt(12) - 4);
+            sb.setLength(0);
+            String expected = df.format(value);
+            if(expected.equals("-0")) {
+                expected = "0";
+            }
+            Assert.assertEquals(DoubleFormatUtils.append(sb, value).toString(), expected, "value " + value);
+        }
+    }
+
+    @Test
+    public void testRound() {
+        Assert.assertEquals(DoubleFormatUtils.round(3.1415926d, 6), 3.141593d);
+        Assert.assertEquals(DoubleFormatUtils.round(-2.5d, 0), -2d);
+        Assert.assertEquals(Float.toString((float) DoubleFormatUtils.round(-0.0000004d, 6)), "0.0");
+        Assert.assertEquals(Float.toString((float) DoubleFormatUtils.round(-1.2345678d, 6)), "-1.234568");
+        Assert.assertEquals(DoubleFormatUtils.round(1.0E20d, 6), 1.0E20d);
+        Assert.assertTrue(Double.isNaN(DoubleFormatUtils.round(Double.NaN, 6)));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidScale() {
+        DoubleFormatUtils.format(1d, DoubleFormatUtils.MAX_SCALE + 1);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ml.shifu.shifu.util;
+
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * IndexedSortTest class
+ *
+ * @Dec 24, 2014
+ *
+ */
+public class IndexedSortTest {
+
+    @Test
+    public void testSort() {
+        Random random = new Random(1L);
+        for (int size : new int[] { 0, 1, 10, 1000 }) {
+            final double[] values = new double[size];
+            final int[] ids = new int[size];
+            for (int i = 0; i < size; i++) {
+                // many duplicated values
+                values[i] = random.nextInt(size / 4 + 1);
+                ids[i] = i;
+            }
+            final double[] origin = values.clone();
+
+            IndexedSort.sort(new IndexedSort.Sortable() {
+                @Override
+                public int compare(int i, int j) {
+                    return Double.compare(values[i], values[j]);
+                }
+
+                @Override
+                public void swap(int i, int j) {
+                    double value = values[i];
+                    values[i] = values[j];
+                    values[j] = value;
+
+                    int id = ids[i];
+                    ids[i] = ids[j];
+                    ids[j] = id;
+                }
+            }, size);
+
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    Assert.assertTrue(values[i - 1] <= values[i]);
+                }
+                // the parallel array is swapped together
+                Assert.assertEquals(values[i], origin[ids[i]]);
+            }
+        }
+    }
+}
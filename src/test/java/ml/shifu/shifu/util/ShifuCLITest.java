@@ -313,6 +313,8 @@ public class ShifuCLITest {
     @AfterTest
     public void delete() throws IOException {
         FileUtils.deleteDirectory(new File("evals"));
+        // the snapshot is saved beside ColumnConfig.json whenever the column configs are saved
+        FileUtils.deleteQuietly(new File(ColumnConfigSnapshot.getSnapshotPath("ColumnConfig.json")));
     }
 
 }